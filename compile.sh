@@ -8,3 +8,7 @@ javac \
  -Xlint:unchecked \
  -Xmaxerrs 1000 \
  $(find src/ -name \*.java)
+
+java \
+ -classpath bin:resources \
+ org.khelekore.parjac.batch.GrammarImageWriter bin/java_8.pjimg
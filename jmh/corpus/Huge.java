@@ -0,0 +1,2140 @@
+public class Huge {
+    private int field0;
+    private static long counter0 = 0;
+    private int field1;
+    private static long counter1 = 7;
+    private int field2;
+    private static long counter2 = 14;
+    private int field3;
+    private static long counter3 = 21;
+    private int field4;
+    private static long counter4 = 28;
+    private int field5;
+    private static long counter5 = 35;
+    private int field6;
+    private static long counter6 = 42;
+    private int field7;
+    private static long counter7 = 49;
+    private int field8;
+    private static long counter8 = 56;
+    private int field9;
+    private static long counter9 = 63;
+    private int field10;
+    private static long counter10 = 70;
+    private int field11;
+    private static long counter11 = 77;
+    private int field12;
+    private static long counter12 = 84;
+    private int field13;
+    private static long counter13 = 91;
+    private int field14;
+    private static long counter14 = 98;
+    private int field15;
+    private static long counter15 = 105;
+    private int field16;
+    private static long counter16 = 112;
+    private int field17;
+    private static long counter17 = 119;
+    private int field18;
+    private static long counter18 = 126;
+    private int field19;
+    private static long counter19 = 133;
+    private int field20;
+    private static long counter20 = 140;
+    private int field21;
+    private static long counter21 = 147;
+    private int field22;
+    private static long counter22 = 154;
+    private int field23;
+    private static long counter23 = 161;
+
+    public int method0 (int a, int b) {
+	int ret = a * 1 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 2;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method1 (int a, int b) {
+	if (a > b)
+	    return a - b + 1;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method2 (int a, int b) {
+	int size = a + 3;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 6 ? sum : method1 (b, a);
+    }
+
+    public int method3 (int a, int b) {
+	String s = "m3" + a + ":" + b;
+	int l = field3;
+	l *= 4;
+	if (s.length () > 6)
+	    return s.length ();
+	return l > 3 ? b + 3 : a;
+    }
+
+    public int method4 (int a, int b) {
+	int ret = a * 5 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 6;
+	field4 = ret;
+	return ret;
+    }
+
+    public int method5 (int a, int b) {
+	if (a > b)
+	    return a - b + 5;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter5 += 1;
+	}
+	return c;
+    }
+
+    public int method6 (int a, int b) {
+	int size = a + 7;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 18 ? sum : method5 (b, a);
+    }
+
+    public int method7 (int a, int b) {
+	String s = "m7" + a + ":" + b;
+	int l = field7;
+	l *= 1;
+	if (s.length () > 10)
+	    return s.length ();
+	return l > 7 ? b + 7 : a;
+    }
+
+    public int method8 (int a, int b) {
+	int ret = a * 9 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 10;
+	field8 = ret;
+	return ret;
+    }
+
+    public int method9 (int a, int b) {
+	if (a > b)
+	    return a - b + 9;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter9 += 1;
+	}
+	return c;
+    }
+
+    public int method10 (int a, int b) {
+	int size = a + 2;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 30 ? sum : method9 (b, a);
+    }
+
+    public int method11 (int a, int b) {
+	String s = "m11" + a + ":" + b;
+	int l = field11;
+	l *= 5;
+	if (s.length () > 3)
+	    return s.length ();
+	return l > 11 ? b + 11 : a;
+    }
+
+    public int method12 (int a, int b) {
+	int ret = a * 13 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 14;
+	field12 = ret;
+	return ret;
+    }
+
+    public int method13 (int a, int b) {
+	if (a > b)
+	    return a - b + 13;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter13 += 1;
+	}
+	return c;
+    }
+
+    public int method14 (int a, int b) {
+	int size = a + 6;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 42 ? sum : method13 (b, a);
+    }
+
+    public int method15 (int a, int b) {
+	String s = "m15" + a + ":" + b;
+	int l = field15;
+	l *= 2;
+	if (s.length () > 7)
+	    return s.length ();
+	return l > 15 ? b + 15 : a;
+    }
+
+    public int method16 (int a, int b) {
+	int ret = a * 17 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 5;
+	field16 = ret;
+	return ret;
+    }
+
+    public int method17 (int a, int b) {
+	if (a > b)
+	    return a - b + 17;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter17 += 1;
+	}
+	return c;
+    }
+
+    public int method18 (int a, int b) {
+	int size = a + 1;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 54 ? sum : method17 (b, a);
+    }
+
+    public int method19 (int a, int b) {
+	String s = "m19" + a + ":" + b;
+	int l = field19;
+	l *= 6;
+	if (s.length () > 11)
+	    return s.length ();
+	return l > 19 ? b + 19 : a;
+    }
+
+    public int method20 (int a, int b) {
+	int ret = a * 21 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 9;
+	field20 = ret;
+	return ret;
+    }
+
+    public int method21 (int a, int b) {
+	if (a > b)
+	    return a - b + 21;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter21 += 1;
+	}
+	return c;
+    }
+
+    public int method22 (int a, int b) {
+	int size = a + 5;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 66 ? sum : method21 (b, a);
+    }
+
+    public int method23 (int a, int b) {
+	String s = "m23" + a + ":" + b;
+	int l = field23;
+	l *= 3;
+	if (s.length () > 4)
+	    return s.length ();
+	return l > 23 ? b + 23 : a;
+    }
+
+    public int method24 (int a, int b) {
+	int ret = a * 25 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 13;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method25 (int a, int b) {
+	if (a > b)
+	    return a - b + 25;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method26 (int a, int b) {
+	int size = a + 9;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 78 ? sum : method25 (b, a);
+    }
+
+    public int method27 (int a, int b) {
+	String s = "m27" + a + ":" + b;
+	int l = field3;
+	l *= 7;
+	if (s.length () > 8)
+	    return s.length ();
+	return l > 27 ? b + 27 : a;
+    }
+
+    public int method28 (int a, int b) {
+	int ret = a * 29 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 4;
+	field4 = ret;
+	return ret;
+    }
+
+    public int method29 (int a, int b) {
+	if (a > b)
+	    return a - b + 29;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter5 += 1;
+	}
+	return c;
+    }
+
+    public int method30 (int a, int b) {
+	int size = a + 4;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 90 ? sum : method29 (b, a);
+    }
+
+    public int method31 (int a, int b) {
+	String s = "m31" + a + ":" + b;
+	int l = field7;
+	l *= 4;
+	if (s.length () > 12)
+	    return s.length ();
+	return l > 31 ? b + 31 : a;
+    }
+
+    public int method32 (int a, int b) {
+	int ret = a * 33 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 8;
+	field8 = ret;
+	return ret;
+    }
+
+    public int method33 (int a, int b) {
+	if (a > b)
+	    return a - b + 33;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter9 += 1;
+	}
+	return c;
+    }
+
+    public int method34 (int a, int b) {
+	int size = a + 8;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 102 ? sum : method33 (b, a);
+    }
+
+    public int method35 (int a, int b) {
+	String s = "m35" + a + ":" + b;
+	int l = field11;
+	l *= 1;
+	if (s.length () > 5)
+	    return s.length ();
+	return l > 35 ? b + 35 : a;
+    }
+
+    public int method36 (int a, int b) {
+	int ret = a * 37 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 12;
+	field12 = ret;
+	return ret;
+    }
+
+    public int method37 (int a, int b) {
+	if (a > b)
+	    return a - b + 37;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter13 += 1;
+	}
+	return c;
+    }
+
+    public int method38 (int a, int b) {
+	int size = a + 3;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 114 ? sum : method37 (b, a);
+    }
+
+    public int method39 (int a, int b) {
+	String s = "m39" + a + ":" + b;
+	int l = field15;
+	l *= 5;
+	if (s.length () > 9)
+	    return s.length ();
+	return l > 39 ? b + 39 : a;
+    }
+
+    public int method40 (int a, int b) {
+	int ret = a * 41 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 3;
+	field16 = ret;
+	return ret;
+    }
+
+    public int method41 (int a, int b) {
+	if (a > b)
+	    return a - b + 41;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter17 += 1;
+	}
+	return c;
+    }
+
+    public int method42 (int a, int b) {
+	int size = a + 7;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 126 ? sum : method41 (b, a);
+    }
+
+    public int method43 (int a, int b) {
+	String s = "m43" + a + ":" + b;
+	int l = field19;
+	l *= 2;
+	if (s.length () > 13)
+	    return s.length ();
+	return l > 43 ? b + 43 : a;
+    }
+
+    public int method44 (int a, int b) {
+	int ret = a * 45 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 7;
+	field20 = ret;
+	return ret;
+    }
+
+    public int method45 (int a, int b) {
+	if (a > b)
+	    return a - b + 45;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter21 += 1;
+	}
+	return c;
+    }
+
+    public int method46 (int a, int b) {
+	int size = a + 2;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 138 ? sum : method45 (b, a);
+    }
+
+    public int method47 (int a, int b) {
+	String s = "m47" + a + ":" + b;
+	int l = field23;
+	l *= 6;
+	if (s.length () > 6)
+	    return s.length ();
+	return l > 47 ? b + 47 : a;
+    }
+
+    public int method48 (int a, int b) {
+	int ret = a * 49 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 11;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method49 (int a, int b) {
+	if (a > b)
+	    return a - b + 49;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method50 (int a, int b) {
+	int size = a + 6;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 150 ? sum : method49 (b, a);
+    }
+
+    public int method51 (int a, int b) {
+	String s = "m51" + a + ":" + b;
+	int l = field3;
+	l *= 3;
+	if (s.length () > 10)
+	    return s.length ();
+	return l > 51 ? b + 51 : a;
+    }
+
+    public int method52 (int a, int b) {
+	int ret = a * 53 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 2;
+	field4 = ret;
+	return ret;
+    }
+
+    public int method53 (int a, int b) {
+	if (a > b)
+	    return a - b + 53;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter5 += 1;
+	}
+	return c;
+    }
+
+    public int method54 (int a, int b) {
+	int size = a + 1;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 162 ? sum : method53 (b, a);
+    }
+
+    public int method55 (int a, int b) {
+	String s = "m55" + a + ":" + b;
+	int l = field7;
+	l *= 7;
+	if (s.length () > 3)
+	    return s.length ();
+	return l > 55 ? b + 55 : a;
+    }
+
+    public int method56 (int a, int b) {
+	int ret = a * 57 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 6;
+	field8 = ret;
+	return ret;
+    }
+
+    public int method57 (int a, int b) {
+	if (a > b)
+	    return a - b + 57;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter9 += 1;
+	}
+	return c;
+    }
+
+    public int method58 (int a, int b) {
+	int size = a + 5;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 174 ? sum : method57 (b, a);
+    }
+
+    public int method59 (int a, int b) {
+	String s = "m59" + a + ":" + b;
+	int l = field11;
+	l *= 4;
+	if (s.length () > 7)
+	    return s.length ();
+	return l > 59 ? b + 59 : a;
+    }
+
+    public int method60 (int a, int b) {
+	int ret = a * 61 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 10;
+	field12 = ret;
+	return ret;
+    }
+
+    public int method61 (int a, int b) {
+	if (a > b)
+	    return a - b + 61;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter13 += 1;
+	}
+	return c;
+    }
+
+    public int method62 (int a, int b) {
+	int size = a + 9;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 186 ? sum : method61 (b, a);
+    }
+
+    public int method63 (int a, int b) {
+	String s = "m63" + a + ":" + b;
+	int l = field15;
+	l *= 1;
+	if (s.length () > 11)
+	    return s.length ();
+	return l > 63 ? b + 63 : a;
+    }
+
+    public int method64 (int a, int b) {
+	int ret = a * 65 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 14;
+	field16 = ret;
+	return ret;
+    }
+
+    public int method65 (int a, int b) {
+	if (a > b)
+	    return a - b + 65;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter17 += 1;
+	}
+	return c;
+    }
+
+    public int method66 (int a, int b) {
+	int size = a + 4;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 198 ? sum : method65 (b, a);
+    }
+
+    public int method67 (int a, int b) {
+	String s = "m67" + a + ":" + b;
+	int l = field19;
+	l *= 5;
+	if (s.length () > 4)
+	    return s.length ();
+	return l > 67 ? b + 67 : a;
+    }
+
+    public int method68 (int a, int b) {
+	int ret = a * 69 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 5;
+	field20 = ret;
+	return ret;
+    }
+
+    public int method69 (int a, int b) {
+	if (a > b)
+	    return a - b + 69;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter21 += 1;
+	}
+	return c;
+    }
+
+    public int method70 (int a, int b) {
+	int size = a + 8;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 210 ? sum : method69 (b, a);
+    }
+
+    public int method71 (int a, int b) {
+	String s = "m71" + a + ":" + b;
+	int l = field23;
+	l *= 2;
+	if (s.length () > 8)
+	    return s.length ();
+	return l > 71 ? b + 71 : a;
+    }
+
+    public int method72 (int a, int b) {
+	int ret = a * 73 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 9;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method73 (int a, int b) {
+	if (a > b)
+	    return a - b + 73;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method74 (int a, int b) {
+	int size = a + 3;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 222 ? sum : method73 (b, a);
+    }
+
+    public int method75 (int a, int b) {
+	String s = "m75" + a + ":" + b;
+	int l = field3;
+	l *= 6;
+	if (s.length () > 12)
+	    return s.length ();
+	return l > 75 ? b + 75 : a;
+    }
+
+    public int method76 (int a, int b) {
+	int ret = a * 77 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 13;
+	field4 = ret;
+	return ret;
+    }
+
+    public int method77 (int a, int b) {
+	if (a > b)
+	    return a - b + 77;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter5 += 1;
+	}
+	return c;
+    }
+
+    public int method78 (int a, int b) {
+	int size = a + 7;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 234 ? sum : method77 (b, a);
+    }
+
+    public int method79 (int a, int b) {
+	String s = "m79" + a + ":" + b;
+	int l = field7;
+	l *= 3;
+	if (s.length () > 5)
+	    return s.length ();
+	return l > 79 ? b + 79 : a;
+    }
+
+    public int method80 (int a, int b) {
+	int ret = a * 81 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 4;
+	field8 = ret;
+	return ret;
+    }
+
+    public int method81 (int a, int b) {
+	if (a > b)
+	    return a - b + 81;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter9 += 1;
+	}
+	return c;
+    }
+
+    public int method82 (int a, int b) {
+	int size = a + 2;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 246 ? sum : method81 (b, a);
+    }
+
+    public int method83 (int a, int b) {
+	String s = "m83" + a + ":" + b;
+	int l = field11;
+	l *= 7;
+	if (s.length () > 9)
+	    return s.length ();
+	return l > 83 ? b + 83 : a;
+    }
+
+    public int method84 (int a, int b) {
+	int ret = a * 85 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 8;
+	field12 = ret;
+	return ret;
+    }
+
+    public int method85 (int a, int b) {
+	if (a > b)
+	    return a - b + 85;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter13 += 1;
+	}
+	return c;
+    }
+
+    public int method86 (int a, int b) {
+	int size = a + 6;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 258 ? sum : method85 (b, a);
+    }
+
+    public int method87 (int a, int b) {
+	String s = "m87" + a + ":" + b;
+	int l = field15;
+	l *= 4;
+	if (s.length () > 13)
+	    return s.length ();
+	return l > 87 ? b + 87 : a;
+    }
+
+    public int method88 (int a, int b) {
+	int ret = a * 89 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 12;
+	field16 = ret;
+	return ret;
+    }
+
+    public int method89 (int a, int b) {
+	if (a > b)
+	    return a - b + 89;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter17 += 1;
+	}
+	return c;
+    }
+
+    public int method90 (int a, int b) {
+	int size = a + 1;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 270 ? sum : method89 (b, a);
+    }
+
+    public int method91 (int a, int b) {
+	String s = "m91" + a + ":" + b;
+	int l = field19;
+	l *= 1;
+	if (s.length () > 6)
+	    return s.length ();
+	return l > 91 ? b + 91 : a;
+    }
+
+    public int method92 (int a, int b) {
+	int ret = a * 93 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 3;
+	field20 = ret;
+	return ret;
+    }
+
+    public int method93 (int a, int b) {
+	if (a > b)
+	    return a - b + 93;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter21 += 1;
+	}
+	return c;
+    }
+
+    public int method94 (int a, int b) {
+	int size = a + 5;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 282 ? sum : method93 (b, a);
+    }
+
+    public int method95 (int a, int b) {
+	String s = "m95" + a + ":" + b;
+	int l = field23;
+	l *= 5;
+	if (s.length () > 10)
+	    return s.length ();
+	return l > 95 ? b + 95 : a;
+    }
+
+    public int method96 (int a, int b) {
+	int ret = a * 97 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 7;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method97 (int a, int b) {
+	if (a > b)
+	    return a - b + 97;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method98 (int a, int b) {
+	int size = a + 9;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 294 ? sum : method97 (b, a);
+    }
+
+    public int method99 (int a, int b) {
+	String s = "m99" + a + ":" + b;
+	int l = field3;
+	l *= 2;
+	if (s.length () > 3)
+	    return s.length ();
+	return l > 99 ? b + 99 : a;
+    }
+
+    public int method100 (int a, int b) {
+	int ret = a * 101 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 11;
+	field4 = ret;
+	return ret;
+    }
+
+    public int method101 (int a, int b) {
+	if (a > b)
+	    return a - b + 101;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter5 += 1;
+	}
+	return c;
+    }
+
+    public int method102 (int a, int b) {
+	int size = a + 4;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 306 ? sum : method101 (b, a);
+    }
+
+    public int method103 (int a, int b) {
+	String s = "m103" + a + ":" + b;
+	int l = field7;
+	l *= 6;
+	if (s.length () > 7)
+	    return s.length ();
+	return l > 103 ? b + 103 : a;
+    }
+
+    public int method104 (int a, int b) {
+	int ret = a * 105 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 2;
+	field8 = ret;
+	return ret;
+    }
+
+    public int method105 (int a, int b) {
+	if (a > b)
+	    return a - b + 105;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter9 += 1;
+	}
+	return c;
+    }
+
+    public int method106 (int a, int b) {
+	int size = a + 8;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 318 ? sum : method105 (b, a);
+    }
+
+    public int method107 (int a, int b) {
+	String s = "m107" + a + ":" + b;
+	int l = field11;
+	l *= 3;
+	if (s.length () > 11)
+	    return s.length ();
+	return l > 107 ? b + 107 : a;
+    }
+
+    public int method108 (int a, int b) {
+	int ret = a * 109 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 6;
+	field12 = ret;
+	return ret;
+    }
+
+    public int method109 (int a, int b) {
+	if (a > b)
+	    return a - b + 109;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter13 += 1;
+	}
+	return c;
+    }
+
+    public int method110 (int a, int b) {
+	int size = a + 3;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 330 ? sum : method109 (b, a);
+    }
+
+    public int method111 (int a, int b) {
+	String s = "m111" + a + ":" + b;
+	int l = field15;
+	l *= 7;
+	if (s.length () > 4)
+	    return s.length ();
+	return l > 111 ? b + 111 : a;
+    }
+
+    public int method112 (int a, int b) {
+	int ret = a * 113 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 10;
+	field16 = ret;
+	return ret;
+    }
+
+    public int method113 (int a, int b) {
+	if (a > b)
+	    return a - b + 113;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter17 += 1;
+	}
+	return c;
+    }
+
+    public int method114 (int a, int b) {
+	int size = a + 7;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 342 ? sum : method113 (b, a);
+    }
+
+    public int method115 (int a, int b) {
+	String s = "m115" + a + ":" + b;
+	int l = field19;
+	l *= 4;
+	if (s.length () > 8)
+	    return s.length ();
+	return l > 115 ? b + 115 : a;
+    }
+
+    public int method116 (int a, int b) {
+	int ret = a * 117 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 14;
+	field20 = ret;
+	return ret;
+    }
+
+    public int method117 (int a, int b) {
+	if (a > b)
+	    return a - b + 117;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter21 += 1;
+	}
+	return c;
+    }
+
+    public int method118 (int a, int b) {
+	int size = a + 2;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 354 ? sum : method117 (b, a);
+    }
+
+    public int method119 (int a, int b) {
+	String s = "m119" + a + ":" + b;
+	int l = field23;
+	l *= 1;
+	if (s.length () > 12)
+	    return s.length ();
+	return l > 119 ? b + 119 : a;
+    }
+
+    public int method120 (int a, int b) {
+	int ret = a * 121 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 5;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method121 (int a, int b) {
+	if (a > b)
+	    return a - b + 121;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method122 (int a, int b) {
+	int size = a + 6;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 366 ? sum : method121 (b, a);
+    }
+
+    public int method123 (int a, int b) {
+	String s = "m123" + a + ":" + b;
+	int l = field3;
+	l *= 5;
+	if (s.length () > 5)
+	    return s.length ();
+	return l > 123 ? b + 123 : a;
+    }
+
+    public int method124 (int a, int b) {
+	int ret = a * 125 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 9;
+	field4 = ret;
+	return ret;
+    }
+
+    public int method125 (int a, int b) {
+	if (a > b)
+	    return a - b + 125;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter5 += 1;
+	}
+	return c;
+    }
+
+    public int method126 (int a, int b) {
+	int size = a + 1;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 378 ? sum : method125 (b, a);
+    }
+
+    public int method127 (int a, int b) {
+	String s = "m127" + a + ":" + b;
+	int l = field7;
+	l *= 2;
+	if (s.length () > 9)
+	    return s.length ();
+	return l > 127 ? b + 127 : a;
+    }
+
+    public int method128 (int a, int b) {
+	int ret = a * 129 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 13;
+	field8 = ret;
+	return ret;
+    }
+
+    public int method129 (int a, int b) {
+	if (a > b)
+	    return a - b + 129;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter9 += 1;
+	}
+	return c;
+    }
+
+    public int method130 (int a, int b) {
+	int size = a + 5;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 390 ? sum : method129 (b, a);
+    }
+
+    public int method131 (int a, int b) {
+	String s = "m131" + a + ":" + b;
+	int l = field11;
+	l *= 6;
+	if (s.length () > 13)
+	    return s.length ();
+	return l > 131 ? b + 131 : a;
+    }
+
+    public int method132 (int a, int b) {
+	int ret = a * 133 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 4;
+	field12 = ret;
+	return ret;
+    }
+
+    public int method133 (int a, int b) {
+	if (a > b)
+	    return a - b + 133;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter13 += 1;
+	}
+	return c;
+    }
+
+    public int method134 (int a, int b) {
+	int size = a + 9;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 402 ? sum : method133 (b, a);
+    }
+
+    public int method135 (int a, int b) {
+	String s = "m135" + a + ":" + b;
+	int l = field15;
+	l *= 3;
+	if (s.length () > 6)
+	    return s.length ();
+	return l > 135 ? b + 135 : a;
+    }
+
+    public int method136 (int a, int b) {
+	int ret = a * 137 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 8;
+	field16 = ret;
+	return ret;
+    }
+
+    public int method137 (int a, int b) {
+	if (a > b)
+	    return a - b + 137;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter17 += 1;
+	}
+	return c;
+    }
+
+    public int method138 (int a, int b) {
+	int size = a + 4;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 414 ? sum : method137 (b, a);
+    }
+
+    public int method139 (int a, int b) {
+	String s = "m139" + a + ":" + b;
+	int l = field19;
+	l *= 7;
+	if (s.length () > 10)
+	    return s.length ();
+	return l > 139 ? b + 139 : a;
+    }
+
+    public int method140 (int a, int b) {
+	int ret = a * 141 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 12;
+	field20 = ret;
+	return ret;
+    }
+
+    public int method141 (int a, int b) {
+	if (a > b)
+	    return a - b + 141;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter21 += 1;
+	}
+	return c;
+    }
+
+    public int method142 (int a, int b) {
+	int size = a + 8;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 426 ? sum : method141 (b, a);
+    }
+
+    public int method143 (int a, int b) {
+	String s = "m143" + a + ":" + b;
+	int l = field23;
+	l *= 4;
+	if (s.length () > 3)
+	    return s.length ();
+	return l > 143 ? b + 143 : a;
+    }
+
+    public int method144 (int a, int b) {
+	int ret = a * 145 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 3;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method145 (int a, int b) {
+	if (a > b)
+	    return a - b + 145;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method146 (int a, int b) {
+	int size = a + 3;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 438 ? sum : method145 (b, a);
+    }
+
+    public int method147 (int a, int b) {
+	String s = "m147" + a + ":" + b;
+	int l = field3;
+	l *= 1;
+	if (s.length () > 7)
+	    return s.length ();
+	return l > 147 ? b + 147 : a;
+    }
+
+    public int method148 (int a, int b) {
+	int ret = a * 149 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 7;
+	field4 = ret;
+	return ret;
+    }
+
+    public int method149 (int a, int b) {
+	if (a > b)
+	    return a - b + 149;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter5 += 1;
+	}
+	return c;
+    }
+
+    public int method150 (int a, int b) {
+	int size = a + 7;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 450 ? sum : method149 (b, a);
+    }
+
+    public int method151 (int a, int b) {
+	String s = "m151" + a + ":" + b;
+	int l = field7;
+	l *= 5;
+	if (s.length () > 11)
+	    return s.length ();
+	return l > 151 ? b + 151 : a;
+    }
+
+    public int method152 (int a, int b) {
+	int ret = a * 153 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 11;
+	field8 = ret;
+	return ret;
+    }
+
+    public int method153 (int a, int b) {
+	if (a > b)
+	    return a - b + 153;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter9 += 1;
+	}
+	return c;
+    }
+
+    public int method154 (int a, int b) {
+	int size = a + 2;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 462 ? sum : method153 (b, a);
+    }
+
+    public int method155 (int a, int b) {
+	String s = "m155" + a + ":" + b;
+	int l = field11;
+	l *= 2;
+	if (s.length () > 4)
+	    return s.length ();
+	return l > 155 ? b + 155 : a;
+    }
+
+    public int method156 (int a, int b) {
+	int ret = a * 157 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 2;
+	field12 = ret;
+	return ret;
+    }
+
+    public int method157 (int a, int b) {
+	if (a > b)
+	    return a - b + 157;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter13 += 1;
+	}
+	return c;
+    }
+
+    public int method158 (int a, int b) {
+	int size = a + 6;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 474 ? sum : method157 (b, a);
+    }
+
+    public int method159 (int a, int b) {
+	String s = "m159" + a + ":" + b;
+	int l = field15;
+	l *= 6;
+	if (s.length () > 8)
+	    return s.length ();
+	return l > 159 ? b + 159 : a;
+    }
+
+    public int method160 (int a, int b) {
+	int ret = a * 161 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 6;
+	field16 = ret;
+	return ret;
+    }
+
+    public int method161 (int a, int b) {
+	if (a > b)
+	    return a - b + 161;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter17 += 1;
+	}
+	return c;
+    }
+
+    public int method162 (int a, int b) {
+	int size = a + 1;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 486 ? sum : method161 (b, a);
+    }
+
+    public int method163 (int a, int b) {
+	String s = "m163" + a + ":" + b;
+	int l = field19;
+	l *= 3;
+	if (s.length () > 12)
+	    return s.length ();
+	return l > 163 ? b + 163 : a;
+    }
+
+    public int method164 (int a, int b) {
+	int ret = a * 165 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 10;
+	field20 = ret;
+	return ret;
+    }
+
+    public int method165 (int a, int b) {
+	if (a > b)
+	    return a - b + 165;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter21 += 1;
+	}
+	return c;
+    }
+
+    public int method166 (int a, int b) {
+	int size = a + 5;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 498 ? sum : method165 (b, a);
+    }
+
+    public int method167 (int a, int b) {
+	String s = "m167" + a + ":" + b;
+	int l = field23;
+	l *= 7;
+	if (s.length () > 5)
+	    return s.length ();
+	return l > 167 ? b + 167 : a;
+    }
+
+    public int method168 (int a, int b) {
+	int ret = a * 169 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 14;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method169 (int a, int b) {
+	if (a > b)
+	    return a - b + 169;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method170 (int a, int b) {
+	int size = a + 9;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 510 ? sum : method169 (b, a);
+    }
+
+    public int method171 (int a, int b) {
+	String s = "m171" + a + ":" + b;
+	int l = field3;
+	l *= 4;
+	if (s.length () > 9)
+	    return s.length ();
+	return l > 171 ? b + 171 : a;
+    }
+
+    public int method172 (int a, int b) {
+	int ret = a * 173 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 5;
+	field4 = ret;
+	return ret;
+    }
+
+    public int method173 (int a, int b) {
+	if (a > b)
+	    return a - b + 173;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter5 += 1;
+	}
+	return c;
+    }
+
+    public int method174 (int a, int b) {
+	int size = a + 4;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 522 ? sum : method173 (b, a);
+    }
+
+    public int method175 (int a, int b) {
+	String s = "m175" + a + ":" + b;
+	int l = field7;
+	l *= 1;
+	if (s.length () > 13)
+	    return s.length ();
+	return l > 175 ? b + 175 : a;
+    }
+
+    public int method176 (int a, int b) {
+	int ret = a * 177 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 9;
+	field8 = ret;
+	return ret;
+    }
+
+    public int method177 (int a, int b) {
+	if (a > b)
+	    return a - b + 177;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter9 += 1;
+	}
+	return c;
+    }
+
+    public int method178 (int a, int b) {
+	int size = a + 8;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 534 ? sum : method177 (b, a);
+    }
+
+    public int method179 (int a, int b) {
+	String s = "m179" + a + ":" + b;
+	int l = field11;
+	l *= 5;
+	if (s.length () > 6)
+	    return s.length ();
+	return l > 179 ? b + 179 : a;
+    }
+
+    public int method180 (int a, int b) {
+	int ret = a * 181 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 13;
+	field12 = ret;
+	return ret;
+    }
+
+    public int method181 (int a, int b) {
+	if (a > b)
+	    return a - b + 181;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter13 += 1;
+	}
+	return c;
+    }
+
+    public int method182 (int a, int b) {
+	int size = a + 3;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 546 ? sum : method181 (b, a);
+    }
+
+    public int method183 (int a, int b) {
+	String s = "m183" + a + ":" + b;
+	int l = field15;
+	l *= 2;
+	if (s.length () > 10)
+	    return s.length ();
+	return l > 183 ? b + 183 : a;
+    }
+
+    public int method184 (int a, int b) {
+	int ret = a * 185 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 4;
+	field16 = ret;
+	return ret;
+    }
+
+    public int method185 (int a, int b) {
+	if (a > b)
+	    return a - b + 185;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter17 += 1;
+	}
+	return c;
+    }
+
+    public int method186 (int a, int b) {
+	int size = a + 7;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 558 ? sum : method185 (b, a);
+    }
+
+    public int method187 (int a, int b) {
+	String s = "m187" + a + ":" + b;
+	int l = field19;
+	l *= 6;
+	if (s.length () > 3)
+	    return s.length ();
+	return l > 187 ? b + 187 : a;
+    }
+
+    public int method188 (int a, int b) {
+	int ret = a * 189 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 8;
+	field20 = ret;
+	return ret;
+    }
+
+    public int method189 (int a, int b) {
+	if (a > b)
+	    return a - b + 189;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter21 += 1;
+	}
+	return c;
+    }
+
+    public int method190 (int a, int b) {
+	int size = a + 2;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 570 ? sum : method189 (b, a);
+    }
+
+    public int method191 (int a, int b) {
+	String s = "m191" + a + ":" + b;
+	int l = field23;
+	l *= 3;
+	if (s.length () > 7)
+	    return s.length ();
+	return l > 191 ? b + 191 : a;
+    }
+
+    public int method192 (int a, int b) {
+	int ret = a * 193 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 12;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method193 (int a, int b) {
+	if (a > b)
+	    return a - b + 193;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method194 (int a, int b) {
+	int size = a + 6;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 582 ? sum : method193 (b, a);
+    }
+
+    public int method195 (int a, int b) {
+	String s = "m195" + a + ":" + b;
+	int l = field3;
+	l *= 7;
+	if (s.length () > 11)
+	    return s.length ();
+	return l > 195 ? b + 195 : a;
+    }
+
+    public int method196 (int a, int b) {
+	int ret = a * 197 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 3;
+	field4 = ret;
+	return ret;
+    }
+
+    public int method197 (int a, int b) {
+	if (a > b)
+	    return a - b + 197;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter5 += 1;
+	}
+	return c;
+    }
+
+    public int method198 (int a, int b) {
+	int size = a + 1;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 594 ? sum : method197 (b, a);
+    }
+
+    public int method199 (int a, int b) {
+	String s = "m199" + a + ":" + b;
+	int l = field7;
+	l *= 4;
+	if (s.length () > 4)
+	    return s.length ();
+	return l > 199 ? b + 199 : a;
+    }
+
+    public int method200 (int a, int b) {
+	int ret = a * 201 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 7;
+	field8 = ret;
+	return ret;
+    }
+
+    public int method201 (int a, int b) {
+	if (a > b)
+	    return a - b + 201;
+	int c = 0;
+	while (c < a) {
+	    c += 2;
+	    counter9 += 1;
+	}
+	return c;
+    }
+
+    public int method202 (int a, int b) {
+	int size = a + 5;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 606 ? sum : method201 (b, a);
+    }
+
+    public int method203 (int a, int b) {
+	String s = "m203" + a + ":" + b;
+	int l = field11;
+	l *= 1;
+	if (s.length () > 8)
+	    return s.length ();
+	return l > 203 ? b + 203 : a;
+    }
+
+    public int method204 (int a, int b) {
+	int ret = a * 205 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 11;
+	field12 = ret;
+	return ret;
+    }
+
+    public int method205 (int a, int b) {
+	if (a > b)
+	    return a - b + 205;
+	int c = 0;
+	while (c < a) {
+	    c += 1;
+	    counter13 += 1;
+	}
+	return c;
+    }
+
+    public int method206 (int a, int b) {
+	int size = a + 9;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 618 ? sum : method205 (b, a);
+    }
+
+    public int method207 (int a, int b) {
+	String s = "m207" + a + ":" + b;
+	int l = field15;
+	l *= 5;
+	if (s.length () > 12)
+	    return s.length ();
+	return l > 207 ? b + 207 : a;
+    }
+
+    public int method208 (int a, int b) {
+	int ret = a * 209 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 2;
+	field16 = ret;
+	return ret;
+    }
+
+    public int method209 (int a, int b) {
+	if (a > b)
+	    return a - b + 209;
+	int c = 0;
+	while (c < a) {
+	    c += 5;
+	    counter17 += 1;
+	}
+	return c;
+    }
+
+    public int method210 (int a, int b) {
+	int size = a + 4;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 630 ? sum : method209 (b, a);
+    }
+
+    public int method211 (int a, int b) {
+	String s = "m211" + a + ":" + b;
+	int l = field19;
+	l *= 2;
+	if (s.length () > 5)
+	    return s.length ();
+	return l > 211 ? b + 211 : a;
+    }
+
+    public int method212 (int a, int b) {
+	int ret = a * 213 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 6;
+	field20 = ret;
+	return ret;
+    }
+
+    public int method213 (int a, int b) {
+	if (a > b)
+	    return a - b + 213;
+	int c = 0;
+	while (c < a) {
+	    c += 4;
+	    counter21 += 1;
+	}
+	return c;
+    }
+
+    public int method214 (int a, int b) {
+	int size = a + 8;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 642 ? sum : method213 (b, a);
+    }
+
+    public int method215 (int a, int b) {
+	String s = "m215" + a + ":" + b;
+	int l = field23;
+	l *= 6;
+	if (s.length () > 9)
+	    return s.length ();
+	return l > 215 ? b + 215 : a;
+    }
+
+    public int method216 (int a, int b) {
+	int ret = a * 217 + b;
+	for (int j = 0; j < b; j++)
+	    ret += j % 10;
+	field0 = ret;
+	return ret;
+    }
+
+    public int method217 (int a, int b) {
+	if (a > b)
+	    return a - b + 217;
+	int c = 0;
+	while (c < a) {
+	    c += 3;
+	    counter1 += 1;
+	}
+	return c;
+    }
+
+    public int method218 (int a, int b) {
+	int size = a + 3;
+	int[] values = new int[size];
+	for (int j = 0; j < size; j++)
+	    values[j] = j * b;
+	int sum = values[size - 1];
+	sum += b;
+	return sum > 654 ? sum : method217 (b, a);
+    }
+
+    public int method219 (int a, int b) {
+	String s = "m219" + a + ":" + b;
+	int l = field3;
+	l *= 3;
+	if (s.length () > 13)
+	    return s.length ();
+	return l > 219 ? b + 219 : a;
+    }
+}
@@ -0,0 +1,209 @@
+public class Medium {
+    private Entry first;
+    private Entry last;
+    private int size;
+    private long total;
+    private static int instances;
+
+    public Medium () {
+	instances += 1;
+    }
+
+    public void add (String name, int count) {
+	Entry e = new Entry (name, count);
+	if (first == null)
+	    first = e;
+	else
+	    last.setNext (e);
+	last = e;
+	size += 1;
+	total += count;
+    }
+
+    public int size () {
+	return size;
+    }
+
+    public long getTotal () {
+	return total;
+    }
+
+    public Entry getEntry (int i) {
+	Entry e = first;
+	while (i > 0) {
+	    e = e.next;
+	    i--;
+	}
+	return e;
+    }
+
+    public String getName (int i) {
+	return getEntry (i).name;
+    }
+
+    public int getCount (int i) {
+	if (i < 0)
+	    return -1;
+	if (i >= size)
+	    return -1;
+	return getEntry (i).value;
+    }
+
+    public int max () {
+	int ret = 0;
+	for (Entry e = first; e != null; e = e.next) {
+	    if (e.value > ret)
+		ret = e.value;
+	}
+	return ret;
+    }
+
+    public int min () {
+	if (first == null)
+	    return 0;
+	int ret = first.value;
+	Entry e = first.next;
+	while (e != null) {
+	    if (e.value < ret)
+		ret = e.value;
+	    e = e.next;
+	}
+	return ret;
+    }
+
+    public long average () {
+	if (size == 0)
+	    return 0;
+	return total / size;
+    }
+
+    public int indexOf (String name) {
+	int i = 0;
+	for (Entry e = first; e != null; e = e.next) {
+	    if (e.name.equals (name))
+		return i;
+	    i++;
+	}
+	return -1;
+    }
+
+    public boolean contains (String name) {
+	return indexOf (name) >= 0;
+    }
+
+    public int countAbove (int limit) {
+	int ret = 0;
+	for (Entry e = first; e != null; e = e.next)
+	    if (e.value > limit)
+		ret++;
+	return ret;
+    }
+
+    public void scale (int factor) {
+	total = 0;
+	for (Entry e = first; e != null; e = e.next) {
+	    e.scale (factor);
+	    total += e.value;
+	}
+    }
+
+    public String describe (int i) {
+	return getName (i) + ": " + getCount (i);
+    }
+
+    public String describeAll () {
+	return describe (first);
+    }
+
+    private static String describe (Entry e) {
+	if (e == null)
+	    return "";
+	return e.name + ": " + e.value + "; " + describe (e.next);
+    }
+
+    public static int getInstances () {
+	return instances;
+    }
+
+    public static int gcd (int a, int b) {
+	while (b != 0) {
+	    int t = b;
+	    b = a % b;
+	    a = t;
+	}
+	return a;
+    }
+
+    public static long factorial (int n) {
+	long ret = 1;
+	for (int i = 2; i <= n; i++)
+	    ret *= i;
+	return ret;
+    }
+
+    public static int fib (int n) {
+	if (n < 2)
+	    return n;
+	int a = 0;
+	int b = 1;
+	do {
+	    int t = a + b;
+	    a = b;
+	    b = t;
+	    n--;
+	} while (n > 1);
+	return b;
+    }
+
+    public static boolean isPrime (int n) {
+	if (n < 2)
+	    return false;
+	for (int i = 2; i * i <= n; i++)
+	    if (n % i == 0)
+		return false;
+	return true;
+    }
+
+    public static int[] primes (int max) {
+	int[] ret = new int[max];
+	int found = 0;
+	for (int i = 2; i < max; i++) {
+	    if (isPrime (i)) {
+		ret[found] = i;
+		found++;
+	    }
+	}
+	return ret;
+    }
+
+    public static String sign (int i) {
+	return i < 0 ? "negative" : i == 0 ? "zero" : "positive";
+    }
+
+    public static class Entry {
+	private String name;
+	private int value;
+	private Entry next;
+
+	public Entry (String name, int value) {
+	    this.name = name;
+	    this.value = value;
+	}
+
+	public String getName () {
+	    return name;
+	}
+
+	public int getValue () {
+	    return value;
+	}
+
+	public void scale (int factor) {
+	    value *= factor;
+	}
+
+	public void setNext (Entry next) {
+	    this.next = next;
+	}
+    }
+}
@@ -0,0 +1,19 @@
+public class Small {
+    private int count;
+
+    public Small (int count) {
+	this.count = count;
+    }
+
+    public int next () {
+	count += 1;
+	return count;
+    }
+
+    public static int sum (int from, int to) {
+	int ret = 0;
+	for (int i = from; i < to; i++)
+	    ret += i;
+	return ret;
+    }
+}
@@ -0,0 +1,63 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.BytecodeGenerator;
+import org.khelekore.parjac.BytecodeWriter;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Time to generate the bytecode for the classes of a checked corpus file */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+public class BytecodeGeneratorBenchmark {
+    @Param ({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String corpus;
+
+    private CompilationSteps steps;
+    private SyntaxTree tree;
+
+    @Setup
+    public void setup () throws IOException {
+	steps = new CompilationSteps ();
+	steps.parseAndRegister (corpus);
+	steps.setClasses ();
+	steps.check ();
+	tree = steps.getTrees ().get (0);
+    }
+
+    @Benchmark
+    public void generate (Blackhole bh) {
+	BytecodeGenerator bg = new BytecodeGenerator (tree.getOrigin (),
+						      steps.getClassInformationProvider (),
+						      new BlackholeWriter (bh));
+	tree.getCompilationUnit ().visit (bg);
+    }
+
+    private static class BlackholeWriter implements BytecodeWriter {
+	private final Blackhole bh;
+
+	public BlackholeWriter (Blackhole bh) {
+	    this.bh = bh;
+	}
+
+	public void createDirectory (Path path) {
+	    // empty
+	}
+
+	public void write (Path path, byte[] data) {
+	    bh.consume (data);
+	}
+    }
+}
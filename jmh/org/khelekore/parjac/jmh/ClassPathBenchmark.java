@@ -0,0 +1,28 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.semantics.ClassResourceHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/** Time to scan the boot class path */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+public class ClassPathBenchmark {
+    @Benchmark
+    public ClassResourceHolder scanClassPath () throws IOException {
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	ClassResourceHolder crh = new ClassResourceHolder (Collections.emptyList (), diagnostics);
+	crh.scanClassPath ();
+	return crh;
+    }
+}
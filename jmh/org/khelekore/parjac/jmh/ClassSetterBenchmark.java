@@ -0,0 +1,41 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.semantics.ClassSetter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Time to set the classes of a corpus file.
+ *  Setting classes changes the tree, so each invocation gets a newly parsed tree.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+public class ClassSetterBenchmark {
+    @Param ({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String corpus;
+
+    private CompilationSteps steps;
+
+    @Setup (Level.Invocation)
+    public void setup () throws IOException {
+	steps = new CompilationSteps ();
+	steps.parseAndRegister (corpus);
+    }
+
+    @Benchmark
+    public CompilationSteps fillInClasses () {
+	ClassSetter.fillInClasses (steps.getClassInformationProvider (), steps.getTrees (),
+				   steps.getDiagnostics ());
+	return steps;
+    }
+}
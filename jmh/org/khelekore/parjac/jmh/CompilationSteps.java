@@ -0,0 +1,104 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.semantics.AddImplicitMethods;
+import org.khelekore.parjac.semantics.ClassInformationProvider;
+import org.khelekore.parjac.semantics.ClassResourceHolder;
+import org.khelekore.parjac.semantics.ClassSetter;
+import org.khelekore.parjac.semantics.CompiledTypesHolder;
+import org.khelekore.parjac.semantics.FieldAndMethodSetter;
+import org.khelekore.parjac.semantics.FieldRegistrator;
+import org.khelekore.parjac.semantics.InterfaceMemberFlagSetter;
+import org.khelekore.parjac.semantics.NameModifierChecker;
+import org.khelekore.parjac.semantics.ReturnChecker;
+import org.khelekore.parjac.tree.MultiVisitor;
+import org.khelekore.parjac.tree.SyntaxTree;
+
+/** The steps of the Compiler, run one at a time so that each step can be
+ *  measured on its own. The boot class path is only scanned once.
+ */
+public class CompilationSteps {
+    private static ClassResourceHolder bootClasses;
+
+    private final CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+    private final ClassInformationProvider cip;
+    private final List<SyntaxTree> trees = new ArrayList<> ();
+
+    public CompilationSteps () throws IOException {
+	ClassResourceHolder crh =
+	    new ClassResourceHolder (getBootClasses (), Collections.emptyList (), diagnostics);
+	cip = new ClassInformationProvider (crh, new CompiledTypesHolder ());
+	cip.scanClassPath ();
+    }
+
+    private static synchronized ClassResourceHolder getBootClasses () throws IOException {
+	if (bootClasses == null) {
+	    CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	    ClassResourceHolder crh = new ClassResourceHolder (Collections.emptyList (), diagnostics);
+	    crh.scanClassPath ();
+	    bootClasses = crh;
+	}
+	return bootClasses;
+    }
+
+    public CompilerDiagnosticCollector getDiagnostics () {
+	return diagnostics;
+    }
+
+    public ClassInformationProvider getClassInformationProvider () {
+	return cip;
+    }
+
+    public List<SyntaxTree> getTrees () {
+	return trees;
+    }
+
+    /** Parse the corpus files and register their types and fields */
+    public void parseAndRegister (String... names) throws IOException {
+	for (String name : names) {
+	    CharBuffer input = Corpus.read (name);
+	    SyntaxTree tree = Corpus.parse (name, input, false, diagnostics);
+	    checkErrors ("parse");
+	    cip.addTypes (tree, diagnostics);
+	    new InterfaceMemberFlagSetter (tree).reflag ();
+	    new FieldRegistrator (cip, tree, diagnostics).findFields ();
+	    checkErrors ("register types");
+	    trees.add (tree);
+	}
+    }
+
+    /** Set the classes of all the trees and add implicit methods */
+    public void setClasses () {
+	ClassSetter.fillInClasses (cip, trees, diagnostics);
+	checkErrors ("set classes");
+	for (SyntaxTree tree : trees)
+	    new AddImplicitMethods (cip, tree, diagnostics).run ();
+	checkErrors ("add implicit methods");
+    }
+
+    /** Run the checks that are needed before bytecode can be generated */
+    public void check () {
+	for (SyntaxTree tree : trees) {
+	    new FieldAndMethodSetter (cip, tree, diagnostics).run ();
+	    tree.getCompilationUnit ().visit (new MultiVisitor (new NameModifierChecker (cip, tree, diagnostics),
+								new ReturnChecker (cip, tree, diagnostics)));
+	}
+	checkErrors ("check");
+    }
+
+    private void checkErrors (String step) {
+	if (diagnostics.hasError ()) {
+	    String errors = diagnostics.getDiagnostics ().
+		map (d -> d.getMessage (null)).
+		collect (Collectors.joining ("\n"));
+	    throw new IllegalStateException ("Corpus failed to " + step + ": " + errors);
+	}
+    }
+}
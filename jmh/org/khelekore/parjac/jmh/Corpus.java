@@ -0,0 +1,141 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.JavaGrammarHelper;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.lexer.CharBufferLexer;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.parser.EarleyParser;
+import org.khelekore.parjac.parser.HybridParser;
+import org.khelekore.parjac.parser.JavaTreeBuilder;
+import org.khelekore.parjac.parser.PackedEarleyParser;
+import org.khelekore.parjac.parser.ParseTable;
+import org.khelekore.parjac.parser.PredictCache;
+import org.khelekore.parjac.parser.SignatureParser;
+import org.khelekore.parjac.tree.SyntaxTree;
+
+/** The checked in benchmark inputs and the grammar objects needed to parse them.
+ *  The corpus files are found as resources under /corpus/.
+ */
+public class Corpus {
+    /** The names of the corpus files, small, medium and huge compilation units */
+    public static final String SMALL = "Small";
+    public static final String MEDIUM = "Medium";
+    public static final String HUGE = "Huge";
+
+    /** The names of the parsers */
+    public static final String EARLEY = "earley";
+    public static final String PACKED = "packed";
+    // The EarleyParser that builds class members as soon as they are parsed
+    public static final String STREAMING = "streaming";
+    // The SLR tables, falling back to the packed parser
+    public static final String HYBRID = "hybrid";
+    // Only the declarations, without method bodies
+    public static final String SIGNATURES = "signatures";
+
+    private static Grammar grammar;
+    private static PredictCache predictCache;
+    private static JavaTreeBuilder treeBuilder;
+    private static ParseTable parseTable;
+
+    public static synchronized Grammar getGrammar () throws IOException {
+	if (grammar == null) {
+	    grammar = JavaGrammarHelper.getValidatedJavaGrammar (false);
+	    predictCache = new PredictCache (grammar);
+	    treeBuilder = new JavaTreeBuilder (grammar);
+	}
+	return grammar;
+    }
+
+    public static synchronized PredictCache getPredictCache () throws IOException {
+	getGrammar ();
+	return predictCache;
+    }
+
+    public static synchronized JavaTreeBuilder getTreeBuilder () throws IOException {
+	getGrammar ();
+	return treeBuilder;
+    }
+
+    public static synchronized ParseTable getParseTable () throws IOException {
+	if (parseTable == null)
+	    parseTable = new ParseTable (getGrammar (), "Goal");
+	return parseTable;
+    }
+
+    /** Get the path used for diagnostics of the given corpus file */
+    public static Path getPath (String name) {
+	return Paths.get (name + ".java");
+    }
+
+    /** Read the given corpus file */
+    public static CharBuffer read (String name) throws IOException {
+	String resource = "/corpus/" + name + ".java";
+	try (InputStream is = Corpus.class.getResourceAsStream (resource)) {
+	    if (is == null)
+		throw new IOException ("Failed to find corpus file: " + resource);
+	    ByteArrayOutputStream baos = new ByteArrayOutputStream ();
+	    byte[] buf = new byte[8192];
+	    int r;
+	    while ((r = is.read (buf)) != -1)
+		baos.write (buf, 0, r);
+	    return CharBuffer.wrap (new String (baos.toByteArray (), StandardCharsets.UTF_8));
+	}
+    }
+
+    /** Parse the input and build the syntax tree.
+     * @param name the corpus name, used for the path of the tree
+     * @param input the source code, it is duplicated so it may be reused
+     * @param packed if true use the PackedEarleyParser, otherwise the EarleyParser
+     * @param diagnostics the collector for parse errors
+     */
+    public static SyntaxTree parse (String name, CharBuffer input, boolean packed,
+				    CompilerDiagnosticCollector diagnostics) throws IOException {
+	return parse (name, input, packed ? PACKED : EARLEY, diagnostics);
+    }
+
+    /** Parse the input and build the syntax tree.
+     * @param name the corpus name, used for the path of the tree
+     * @param input the source code, it is duplicated so it may be reused
+     * @param parser the parser to use, one of the parser names
+     * @param diagnostics the collector for parse errors
+     */
+    public static SyntaxTree parse (String name, CharBuffer input, String parser,
+				    CompilerDiagnosticCollector diagnostics) throws IOException {
+	Grammar g = getGrammar ();
+	CharBufferLexer lexer = new CharBufferLexer (input.duplicate ());
+	switch (parser) {
+	case EARLEY:
+	    return new EarleyParser (g, getPath (name), lexer, predictCache,
+				     treeBuilder, diagnostics, false).parse ();
+	case PACKED:
+	    return new PackedEarleyParser (g, getPath (name), lexer, predictCache,
+					   treeBuilder, diagnostics, false).parse ();
+	case STREAMING:
+	    return new EarleyParser (g, getPath (name), lexer, predictCache,
+				     treeBuilder, diagnostics, false, true).parse ();
+	case HYBRID:
+	    return new HybridParser (g, getPath (name), getTokens (lexer), getParseTable (), predictCache,
+				     treeBuilder, diagnostics, false).parse ();
+	case SIGNATURES:
+	    return new SignatureParser (g, getPath (name), getTokens (lexer), predictCache,
+					treeBuilder, diagnostics, false).parse ();
+	default:
+	    throw new IllegalArgumentException ("Unknown parser: " + parser);
+	}
+    }
+
+    private static TokenBuffer getTokens (CharBufferLexer lexer) {
+	TokenBuffer tokens = new TokenBuffer ();
+	tokens.fill (lexer);
+	return tokens;
+    }
+}
@@ -0,0 +1,63 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.JavaGrammarHelper;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.lexer.CharBufferLexer;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.parser.JavaTreeBuilder;
+import org.khelekore.parjac.parser.PackedEarleyParser;
+import org.khelekore.parjac.parser.PredictCache;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Time to parse a corpus file with the packed parser, using the text grammar
+ *  with and without the pass-through rules inlined by the GrammarOptimizer.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+public class GrammarOptimizerBenchmark {
+    @Param ({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String corpus;
+
+    @Param ({"false", "true"})
+    public boolean optimized;
+
+    private Grammar grammar;
+    private PredictCache predictCache;
+    private JavaTreeBuilder treeBuilder;
+    private TokenBuffer tokens;
+
+    @Setup
+    public void setup () throws IOException {
+	grammar = JavaGrammarHelper.getValidatedJavaGrammarFromText (false, optimized);
+	predictCache = new PredictCache (grammar);
+	treeBuilder = new JavaTreeBuilder (grammar);
+	tokens = new TokenBuffer ();
+	tokens.fill (new CharBufferLexer (Corpus.read (corpus)));
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	if (parse (diagnostics) == null || diagnostics.hasError ())
+	    throw new IllegalStateException ("Failed to parse corpus: " + corpus);
+    }
+
+    @Benchmark
+    public SyntaxTree parse () {
+	return parse (new CompilerDiagnosticCollector ());
+    }
+
+    private SyntaxTree parse (CompilerDiagnosticCollector diagnostics) {
+	return new PackedEarleyParser (grammar, Corpus.getPath (corpus), tokens, predictCache,
+				       treeBuilder, diagnostics, false).parse ();
+    }
+}
@@ -0,0 +1,66 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.JavaGrammarHelper;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.parser.PredictCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Time to get a usable grammar and predict cache from the text grammar
+ *  and from the pre built grammar image.
+ *  A batch compilation only does this once, use "-bm ss -wi 0 -i 1 -f 20"
+ *  to measure the first call in fresh jvms.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+public class GrammarStartupBenchmark {
+    @Param ({"image", "text"})
+    public String source;
+
+    private Path image;
+    private URL imageUrl;
+
+    @Setup
+    public void setup () throws IOException {
+	image = Files.createTempFile ("java_8", ".pjimg");
+	JavaGrammarHelper.writeGrammarImage (image);
+	imageUrl = image.toUri ().toURL ();
+	if (getGrammar () == null)
+	    throw new IllegalStateException ("Failed to get grammar from: " + source);
+    }
+
+    @TearDown
+    public void tearDown () throws IOException {
+	Files.delete (image);
+    }
+
+    @Benchmark
+    public PredictCache startup () throws IOException {
+	return new PredictCache (getGrammar ());
+    }
+
+    private Grammar getGrammar () throws IOException {
+	switch (source) {
+	case "image":
+	    return JavaGrammarHelper.readGrammarImage (imageUrl, false);
+	case "text":
+	    return JavaGrammarHelper.getValidatedJavaGrammarFromText (false);
+	default:
+	    throw new IllegalArgumentException ("Unknown grammar source: " + source);
+	}
+    }
+}
@@ -0,0 +1,59 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.lexer.ByteBufferLexer;
+import org.khelekore.parjac.lexer.CharBufferLexer;
+import org.khelekore.parjac.lexer.Lexer;
+import org.khelekore.parjac.lexer.SymbolTable;
+import org.khelekore.parjac.lexer.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Throughput of the lexer, all tokens of a corpus file per operation.
+ *  The bytes parameter selects the ByteBufferLexer over utf-8 encoded input.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+public class LexerBenchmark {
+    @Param ({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String corpus;
+
+    @Param ({"false", "true"})
+    public boolean bytes;
+
+    private CharBuffer input;
+    private ByteBuffer byteInput;
+    // Shared between operations, like the compiler shares it between files
+    private SymbolTable symbols;
+
+    @Setup
+    public void setup () throws IOException {
+	input = Corpus.read (corpus);
+	byteInput = StandardCharsets.UTF_8.encode (input.duplicate ());
+	symbols = new SymbolTable ();
+    }
+
+    @Benchmark
+    public int nextNonWhitespaceToken () {
+	Lexer lexer = bytes ? new ByteBufferLexer (byteInput, symbols) :
+	    new CharBufferLexer (input.duplicate (), symbols);
+	int tokens = 0;
+	while (lexer.hasMoreTokens ()) {
+	    Token t = lexer.nextNonWhitespaceToken ();
+	    tokens += t.ordinal ();
+	}
+	return tokens;
+    }
+}
@@ -0,0 +1,89 @@
+package org.khelekore.parjac.jmh;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.lexer.CharBufferLexer;
+import org.khelekore.parjac.lexer.Lexer;
+import org.khelekore.parjac.lexer.SymbolTable;
+import org.khelekore.parjac.lexer.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Throughput of the lexer on generated code that is mostly numeric literals,
+ *  like lookup tables and generated constants.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+public class NumericLiteralBenchmark {
+    /** The kind of literals in the table */
+    @Param ({"small", "decimal", "hex", "long", "mixed"})
+    public String literals;
+
+    @Param ({"10000"})
+    public int count;
+
+    private CharBuffer input;
+    private SymbolTable symbols;
+
+    @Setup
+    public void setup () {
+	Random r = new Random (4711);
+	StringBuilder sb = new StringBuilder ("class Table {\n    static final int[] VALUES = {\n");
+	for (int i = 0; i < count; i++) {
+	    sb.append (i % 8 == 0 ? "\t" : " ");
+	    appendLiteral (sb, r, literals.equals ("mixed") ? i % 4 : kind ());
+	    sb.append (i % 8 == 7 ? ",\n" : ",");
+	}
+	sb.append ("\n    };\n}\n");
+	input = CharBuffer.wrap (sb);
+	symbols = new SymbolTable ();
+    }
+
+    private int kind () {
+	switch (literals) {
+	case "small": return 0;
+	case "decimal": return 1;
+	case "hex": return 2;
+	default: return 3;
+	}
+    }
+
+    private static void appendLiteral (StringBuilder sb, Random r, int kind) {
+	switch (kind) {
+	case 0:
+	    sb.append (r.nextInt (10));
+	    break;
+	case 1:
+	    sb.append (r.nextInt (Integer.MAX_VALUE));
+	    break;
+	case 2:
+	    sb.append ("0x").append (Integer.toHexString (r.nextInt ()));
+	    break;
+	default:
+	    sb.append (r.nextLong () & Long.MAX_VALUE).append ('L');
+	}
+    }
+
+    @Benchmark
+    public long lexLiterals () {
+	Lexer lexer = new CharBufferLexer (input.duplicate (), symbols);
+	long sum = 0;
+	while (lexer.hasMoreTokens ()) {
+	    Token t = lexer.nextNonWhitespaceToken ();
+	    if (t == Token.INT_LITERAL)
+		sum += lexer.getIntValue ();
+	    else if (t == Token.LONG_LITERAL)
+		sum += lexer.getLongValue ();
+	}
+	return sum;
+    }
+}
@@ -0,0 +1,32 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.parser.ParseTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Time to build the SLR tables that the hybrid parser uses, done once at startup */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+public class ParseTableBenchmark {
+    private Grammar grammar;
+
+    @Setup
+    public void setup () throws IOException {
+	grammar = Corpus.getGrammar ();
+    }
+
+    @Benchmark
+    public ParseTable build () {
+	return new ParseTable (grammar, "Goal");
+    }
+}
@@ -0,0 +1,43 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Time to parse and build the syntax tree for a corpus file */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+    @Param ({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String corpus;
+
+    @Param ({Corpus.EARLEY, Corpus.PACKED, Corpus.STREAMING, Corpus.HYBRID, Corpus.SIGNATURES})
+    public String parser;
+
+    private CharBuffer input;
+
+    @Setup
+    public void setup () throws IOException {
+	input = Corpus.read (corpus);
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	if (Corpus.parse (corpus, input, parser, diagnostics) == null || diagnostics.hasError ())
+	    throw new IllegalStateException ("Failed to parse corpus: " + corpus + " with: " + parser);
+    }
+
+    @Benchmark
+    public SyntaxTree parse () throws IOException {
+	return Corpus.parse (corpus, input, parser, new CompilerDiagnosticCollector ());
+    }
+}
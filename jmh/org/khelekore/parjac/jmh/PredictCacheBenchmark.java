@@ -0,0 +1,76 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.parser.PredictCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Lookups of predicted rules, one lookup per grammar rule and operation.
+ *  Each lookup uses the rule names found in one rule, which is similar to
+ *  the rule names after the dot in an earley set.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+public class PredictCacheBenchmark {
+    private Grammar grammar;
+    private PredictCache warmCache;
+    private List<BitSet> ruleSets;
+
+    @Setup
+    public void setup () throws IOException {
+	grammar = Corpus.getGrammar ();
+	ruleSets = new ArrayList<> ();
+	for (Rule r : grammar.getRules ()) {
+	    BitSet bs = new BitSet ();
+	    for (int i = 0; i < r.size (); i++) {
+		int symbol = r.getSymbol (i);
+		if (!Grammar.isToken (symbol))
+		    bs.set (symbol);
+	    }
+	    if (!bs.isEmpty ())
+		ruleSets.add (bs);
+	}
+	warmCache = new PredictCache (grammar);
+	for (BitSet bs : ruleSets) {
+	    warmCache.getPredictedRules (bs);
+	    warmCache.getPredictedRules (bs, Token.IDENTIFIER);
+	}
+    }
+
+    /** All lookups are found in the cache */
+    @Benchmark
+    public void getPredictedRulesCached (Blackhole bh) {
+	for (BitSet bs : ruleSets)
+	    bh.consume (warmCache.getPredictedRules (bs));
+    }
+
+    /** All lookups are found in the cache, filtered by the next token */
+    @Benchmark
+    public void getPredictedRulesCachedWithToken (Blackhole bh) {
+	for (BitSet bs : ruleSets)
+	    bh.consume (warmCache.getPredictedRules (bs, Token.IDENTIFIER));
+    }
+
+    /** All lookups have to merge the predictions of the rule names */
+    @Benchmark
+    public void getPredictedRulesCold (Blackhole bh) {
+	PredictCache pc = new PredictCache (grammar);
+	for (BitSet bs : ruleSets)
+	    bh.consume (pc.getPredictedRules (bs));
+    }
+}
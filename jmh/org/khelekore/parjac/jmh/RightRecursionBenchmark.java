@@ -0,0 +1,99 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Time to parse generated methods with long chains of one construct.
+ *  The right recursive chains, else if, assignments and the conditional
+ *  operator, should grow linear with the length for the packed parser.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+public class RightRecursionBenchmark {
+    @Param ({"statements", "array", "plus", "elseif", "assign", "ternary"})
+    public String chain;
+
+    @Param ({"250", "1000"})
+    public int length;
+
+    @Param ({"false", "true"})
+    public boolean packed;
+
+    private CharBuffer input;
+
+    @Setup
+    public void setup () throws IOException {
+	StringBuilder sb = new StringBuilder ("class Chain {\n    void f () {\n");
+	appendChain (sb);
+	sb.append ("    }\n}\n");
+	input = CharBuffer.wrap (sb);
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	if (parse (diagnostics) == null || diagnostics.hasError ())
+	    throw new IllegalStateException ("Failed to parse chain: " + chain);
+    }
+
+    private void appendChain (StringBuilder sb) {
+	switch (chain) {
+	case "statements":
+	    for (int i = 0; i < length; i++)
+		sb.append ("\tf ();\n");
+	    break;
+	case "array":
+	    sb.append ("\tint[] a = {");
+	    for (int i = 0; i < length; i++)
+		sb.append (i).append (", ");
+	    sb.append ("};\n");
+	    break;
+	case "plus":
+	    sb.append ("\tint x = 1");
+	    for (int i = 0; i < length; i++)
+		sb.append (" + ").append (i);
+	    sb.append (";\n");
+	    break;
+	case "elseif":
+	    sb.append ("\tint x = 0;\n");
+	    for (int i = 0; i < length; i++)
+		sb.append (i == 0 ? "\t" : "\telse ").append ("if (x == ").append (i).append (") x = ").append (i).append (";\n");
+	    break;
+	case "assign":
+	    sb.append ("\tint a0");
+	    for (int i = 1; i < length; i++)
+		sb.append (", a").append (i);
+	    sb.append (";\n\t");
+	    for (int i = 0; i < length; i++)
+		sb.append ("a").append (i).append (" = ");
+	    sb.append ("1;\n");
+	    break;
+	case "ternary":
+	    sb.append ("\tint x = 1, y = ");
+	    for (int i = 0; i < length; i++)
+		sb.append ("x == ").append (i).append (" ? ").append (i).append (" : ");
+	    sb.append ("0;\n");
+	    break;
+	default:
+	    throw new IllegalArgumentException ("Unknown chain: " + chain);
+	}
+    }
+
+    @Benchmark
+    public SyntaxTree parse () throws IOException {
+	return parse (new CompilerDiagnosticCollector ());
+    }
+
+    private SyntaxTree parse (CompilerDiagnosticCollector diagnostics) throws IOException {
+	return Corpus.parse ("Chain", input, packed, diagnostics);
+    }
+}
@@ -0,0 +1,101 @@
+package org.khelekore.parjac.jmh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.SourceInput;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.lexer.SymbolTable;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.parser.CachedSyntaxTree;
+import org.khelekore.parjac.parser.CachedTreeRecorder;
+import org.khelekore.parjac.parser.JavaTreeBuilder;
+import org.khelekore.parjac.parser.PackedEarleyParser;
+import org.khelekore.parjac.parser.PredictCache;
+import org.khelekore.parjac.parser.SyntaxTreeCache;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Time to get the syntax tree of a corpus file from a syntax tree cache,
+ *  and time to lex, parse and store it when it is not in the cache.
+ *  Compare with the packed parser in ParserBenchmark. The cache is kept
+ *  in a temporary directory.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+public class SyntaxTreeCacheBenchmark {
+    @Param ({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String corpus;
+
+    private Grammar grammar;
+    private PredictCache predictCache;
+    private JavaTreeBuilder treeBuilder;
+    private SourceInput source;
+    private SymbolTable symbols;
+    private Path dir;
+    private SyntaxTreeCache cache;
+
+    @Setup
+    public void setup () throws IOException {
+	grammar = Corpus.getGrammar ();
+	predictCache = Corpus.getPredictCache ();
+	treeBuilder = Corpus.getTreeBuilder ();
+	// The bytes as a utf-8 file read with --map-input gives them
+	source = new SourceInput (StandardCharsets.UTF_8.encode (Corpus.read (corpus)),
+				  StandardCharsets.UTF_8, true);
+	symbols = new SymbolTable ();
+	dir = Files.createTempDirectory ("parjac_stc");
+	cache = new SyntaxTreeCache (dir, grammar);
+	store ();
+	if (read () == null)
+	    throw new IllegalStateException ("Failed to cache corpus: " + corpus);
+    }
+
+    @TearDown
+    public void tearDown () throws IOException {
+	List<Path> ls = Files.walk (dir).sorted (Comparator.reverseOrder ()).collect (Collectors.toList ());
+	for (Path p : ls)
+	    Files.delete (p);
+    }
+
+    /** Find the cached tree and build its tree nodes */
+    @Benchmark
+    public SyntaxTree read () {
+	CachedSyntaxTree ct = cache.get (getKey (), Corpus.getPath (corpus), symbols);
+	return ct.getSyntaxTree (treeBuilder, new CompilerDiagnosticCollector ());
+    }
+
+    /** What a miss costs: lex, parse, record the tree and store it */
+    @Benchmark
+    public CachedSyntaxTree store () throws IOException {
+	String key = getKey ();
+	TokenBuffer tokens = new TokenBuffer ();
+	tokens.fill (source.getLexer (symbols));
+	CachedTreeRecorder recorder = new CachedTreeRecorder (treeBuilder, grammar, Corpus.getPath (corpus));
+	new PackedEarleyParser (grammar, Corpus.getPath (corpus), tokens, predictCache, recorder,
+				new CompilerDiagnosticCollector (), false).parse ();
+	CachedSyntaxTree ct = recorder.getTree ();
+	cache.put (key, ct);
+	return ct;
+    }
+
+    private String getKey () {
+	return cache.getKey (source.getBytes (), source.getEncoding (), source.getInputMode ());
+    }
+}
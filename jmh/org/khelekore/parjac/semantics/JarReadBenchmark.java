@@ -0,0 +1,133 @@
+package org.khelekore.parjac.semantics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Time to read all the classes of a jar using a number of threads.
+ *  Compares opening a JarFile for each class, which is what we used to do,
+ *  with reading from a shared MappedJar.
+ *  The jar is a path or the file name of a jar on the boot class path.
+ *  This is in the semantics package since MappedJar is package private.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+public class JarReadBenchmark {
+    @Param ({"rt.jar"})
+    public String jar;
+
+    @Param ({"1", "2", "4", "8"})
+    public int threads;
+
+    private ExecutorService es;
+    private List<Task> jarFileTasks;
+    private List<Task> mappedTasks;
+
+    private interface Task {
+	int read () throws IOException;
+    }
+
+    @Setup
+    public void setup () throws IOException {
+	Path path = getJar ();
+	MappedJar mj = MappedJar.open (path);
+	if (mj == null)
+	    throw new IllegalStateException ("Can not map: " + path);
+	jarFileTasks = new ArrayList<> ();
+	mappedTasks = new ArrayList<> ();
+	for (int i = 0; i < mj.size (); i++) {
+	    String name = mj.getName (i);
+	    if (!name.endsWith (".class"))
+		continue;
+	    int entry = i;
+	    jarFileTasks.add (() -> readWithJarFile (path, name));
+	    mappedTasks.add (() -> mj.read (entry).length);
+	}
+	if (mappedTasks.isEmpty ())
+	    throw new IllegalStateException ("No classes in: " + path);
+	es = Executors.newFixedThreadPool (threads);
+    }
+
+    @TearDown
+    public void tearDown () {
+	es.shutdown ();
+    }
+
+    private Path getJar () {
+	Path p = Paths.get (jar);
+	if (Files.isRegularFile (p))
+	    return p;
+	for (String s : System.getProperty ("sun.boot.class.path", "").split (File.pathSeparator)) {
+	    p = Paths.get (s);
+	    if (p.getFileName () != null && p.getFileName ().toString ().equals (jar) && Files.isRegularFile (p))
+		return p;
+	}
+	throw new IllegalStateException ("Failed to find jar: " + jar);
+    }
+
+    /** Open a JarFile for each class */
+    @Benchmark
+    public long jarFilePerClass () throws InterruptedException, ExecutionException {
+	return run (jarFileTasks);
+    }
+
+    /** Read the classes from one shared MappedJar */
+    @Benchmark
+    public long mappedJar () throws InterruptedException, ExecutionException {
+	return run (mappedTasks);
+    }
+
+    private long run (List<Task> tasks) throws InterruptedException, ExecutionException {
+	List<Future<Integer>> futures = new ArrayList<> (tasks.size ());
+	for (Task t : tasks)
+	    futures.add (es.submit (() -> {
+			try {
+			    return t.read ();
+			} catch (IOException e) {
+			    throw new UncheckedIOException (e);
+			}
+		    }));
+	long bytes = 0;
+	for (Future<Integer> f : futures)
+	    bytes += f.get ();
+	return bytes;
+    }
+
+    private static int readWithJarFile (Path jar, String name) throws IOException {
+	try (JarFile jf = new JarFile (jar.toFile ())) {
+	    JarEntry e = jf.getJarEntry (name);
+	    try (InputStream is = jf.getInputStream (e)) {
+		byte[] buf = new byte[8192];
+		int total = 0;
+		int r;
+		while ((r = is.read (buf)) != -1)
+		    total += r;
+		return total;
+	    }
+	}
+    }
+}
@@ -0,0 +1,271 @@
+package org.khelekore.parjac;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.khelekore.parjac.semantics.ClassInformationProvider;
+import org.khelekore.parjac.tree.SyntaxTree;
+
+/** Keeps track of source file contents and the types each source file
+ *  uses so that an incremental compilation only has to handle the changed
+ *  files and the files that depend on them.
+ *
+ *  The state is stored in the output directory and is only written after
+ *  a successful compilation, it is removed before any output is changed.
+ */
+public class BuildState {
+    public static final String STATE_FILE = ".parjac_build_state";
+    private static final int MAGIC = 0x504a4253; // PJBS
+    private static final int VERSION = 1;
+
+    private final Path outputDir;
+    private final Path stateFile;
+    private final String classPath;
+    private final CompilerDiagnosticCollector diagnostics;
+
+    // The state from the previous compilation
+    private Map<Path, FileState> previous = Collections.emptyMap ();
+    // Content information for the current source files
+    private final Map<Path, FileState> current = new HashMap<> ();
+    // Class files written in this compilation, per source file
+    private final Map<Path, Set<String>> writtenClasses = new ConcurrentHashMap<> ();
+
+    public BuildState (Path outputDir, List<Path> classPathEntries,
+		       CompilerDiagnosticCollector diagnostics) {
+	this.outputDir = outputDir;
+	this.stateFile = outputDir.resolve (STATE_FILE);
+	this.classPath = classPathEntries.toString ();
+	this.diagnostics = diagnostics;
+    }
+
+    /** Get the output directory, it holds the classes from the previous compilation */
+    public Path getOutputDirectory () {
+	return outputDir;
+    }
+
+    /** Find the source files that needs to be compiled.
+     *  This will remove the output of the returned files and of source files
+     *  that no longer exists.
+     *  If nothing has changed the state is left as is and an empty list is returned.
+     */
+    public List<Path> getFilesToCompile (Collection<Path> sources) throws IOException {
+	previous = load ();
+	Set<Path> changed = new HashSet<> ();
+	for (Path p : sources) {
+	    FileState fs = getCurrentState (p, previous.get (p));
+	    current.put (p, fs);
+	    FileState old = previous.get (p);
+	    if (old == null || !old.hash.equals (fs.hash))
+		changed.add (p);
+	}
+	for (Path p : previous.keySet ())
+	    if (!current.containsKey (p))
+		changed.add (p);
+
+	if (changed.isEmpty ())
+	    return Collections.emptyList ();
+
+	Set<Path> toCompile = addDependents (changed);
+	// Output will change, make sure next run is a full build if we fail
+	Files.deleteIfExists (stateFile);
+	for (Map.Entry<Path, FileState> me : previous.entrySet ()) {
+	    Path p = me.getKey ();
+	    if (toCompile.contains (p) || !current.containsKey (p))
+		removeClasses (me.getValue ());
+	}
+	return sources.stream ().filter (toCompile::contains).collect (Collectors.toList ());
+    }
+
+    private Set<Path> addDependents (Set<Path> changed) {
+	Map<String, Path> typeToFile = new HashMap<> ();
+	previous.forEach ((p, fs) -> fs.classes.forEach (c -> typeToFile.put (getTypeName (c), p)));
+	Map<Path, Set<Path>> dependents = new HashMap<> ();
+	previous.forEach ((p, fs) -> {
+		for (String dep : fs.dependencies) {
+		    Path from = typeToFile.get (dep);
+		    if (from != null && !from.equals (p))
+			dependents.computeIfAbsent (from, k -> new HashSet<> ()).add (p);
+		}
+	    });
+
+	Set<Path> ret = new HashSet<> ();
+	Deque<Path> toCheck = new ArrayDeque<> (changed);
+	while (!toCheck.isEmpty ()) {
+	    Path p = toCheck.removeFirst ();
+	    if (!ret.add (p))
+		continue;
+	    toCheck.addAll (dependents.getOrDefault (p, Collections.emptySet ()));
+	}
+	// Removed files will not be compiled
+	ret.retainAll (current.keySet ());
+	return ret;
+    }
+
+    private void removeClasses (FileState fs) throws IOException {
+	for (String c : fs.classes)
+	    Files.deleteIfExists (outputDir.resolve (c));
+    }
+
+    /** Get a writer that records the classes generated for the given source file */
+    public BytecodeWriter getRecordingWriter (Path origin, BytecodeWriter bw) {
+	Set<String> classes = writtenClasses.computeIfAbsent (origin, p -> ConcurrentHashMap.newKeySet ());
+	return new BytecodeWriter () {
+	    public void createDirectory (Path path) throws IOException {
+		bw.createDirectory (path);
+	    }
+
+	    public void write (Path path, byte[] data) throws IOException {
+		classes.add (path.toString ().replace ('\\', '/'));
+		bw.write (path, data);
+	    }
+	};
+    }
+
+    /** Store the state after a successful compilation. */
+    public void save (List<SyntaxTree> trees, ClassInformationProvider cip) {
+	Map<Path, FileState> state = new HashMap<> ();
+	for (Map.Entry<Path, FileState> me : previous.entrySet ()) {
+	    if (current.containsKey (me.getKey ()))
+		state.put (me.getKey (), me.getValue ());
+	}
+	for (SyntaxTree t : trees) {
+	    Path p = t.getOrigin ();
+	    FileState fs = current.get (p);
+	    fs.classes = new ArrayList<> (writtenClasses.getOrDefault (p, Collections.emptySet ()));
+	    fs.dependencies = new ArrayList<> (cip.getDependencies (p));
+	    state.put (p, fs);
+	}
+
+	// Only keep dependencies to types that we compile
+	Set<String> knownTypes = new HashSet<> ();
+	state.values ().forEach (fs -> fs.classes.forEach (c -> knownTypes.add (getTypeName (c))));
+	for (FileState fs : state.values ())
+	    fs.dependencies.removeIf (d -> !knownTypes.contains (d));
+
+	try {
+	    store (state);
+	} catch (IOException e) {
+	    diagnostics.report (new NoSourceDiagnostics ("Failed to store build state: %s: %s",
+							 stateFile, e));
+	}
+    }
+
+    private Map<Path, FileState> load () {
+	Map<Path, FileState> ret = new HashMap<> ();
+	try (DataInputStream dis = new DataInputStream (new BufferedInputStream (Files.newInputStream (stateFile)))) {
+	    if (dis.readInt () != MAGIC || dis.readInt () != VERSION)
+		return ret;
+	    if (!classPath.equals (dis.readUTF ()))
+		return ret;
+	    int numFiles = dis.readInt ();
+	    for (int i = 0; i < numFiles; i++) {
+		Path p = Paths.get (dis.readUTF ());
+		FileState fs = new FileState (dis.readUTF (), dis.readLong (), dis.readLong ());
+		fs.classes = readStrings (dis);
+		fs.dependencies = readStrings (dis);
+		ret.put (p, fs);
+	    }
+	} catch (NoSuchFileException e) {
+	    // no previous state, full compilation
+	} catch (IOException e) {
+	    // corrupt or partial state, do a full compilation
+	    ret.clear ();
+	}
+	return ret;
+    }
+
+    private void store (Map<Path, FileState> state) throws IOException {
+	Files.createDirectories (outputDir);
+	try (DataOutputStream dos = new DataOutputStream (new BufferedOutputStream (Files.newOutputStream (stateFile)))) {
+	    dos.writeInt (MAGIC);
+	    dos.writeInt (VERSION);
+	    dos.writeUTF (classPath);
+	    dos.writeInt (state.size ());
+	    for (Map.Entry<Path, FileState> me : state.entrySet ()) {
+		FileState fs = me.getValue ();
+		dos.writeUTF (me.getKey ().toString ());
+		dos.writeUTF (fs.hash);
+		dos.writeLong (fs.size);
+		dos.writeLong (fs.lastModified);
+		writeStrings (dos, fs.classes);
+		writeStrings (dos, fs.dependencies);
+	    }
+	}
+    }
+
+    private static List<String> readStrings (DataInputStream dis) throws IOException {
+	int size = dis.readInt ();
+	List<String> ret = new ArrayList<> (size);
+	for (int i = 0; i < size; i++)
+	    ret.add (dis.readUTF ());
+	return ret;
+    }
+
+    private static void writeStrings (DataOutputStream dos, List<String> ls) throws IOException {
+	dos.writeInt (ls.size ());
+	for (String s : ls)
+	    dos.writeUTF (s);
+    }
+
+    private static FileState getCurrentState (Path p, FileState old) throws IOException {
+	long size = Files.size (p);
+	long lastModified = Files.getLastModifiedTime (p).toMillis ();
+	// Avoid reading the file if it looks untouched
+	if (old != null && old.size == size && old.lastModified == lastModified)
+	    return new FileState (old.hash, size, lastModified);
+	return new FileState (hash (Files.readAllBytes (p)), size, lastModified);
+    }
+
+    private static String hash (byte[] data) {
+	try {
+	    MessageDigest md = MessageDigest.getInstance ("SHA-1");
+	    byte[] digest = md.digest (data);
+	    StringBuilder sb = new StringBuilder (digest.length * 2);
+	    for (byte b : digest)
+		sb.append (String.format ("%02x", b));
+	    return sb.toString ();
+	} catch (NoSuchAlgorithmException e) {
+	    throw new IllegalStateException ("SHA-1 not available", e);
+	}
+    }
+
+    /** Get the type name from a class file name "foo/bar/Baz$Qux.class" => "foo.bar.Baz$Qux" */
+    private static String getTypeName (String classFile) {
+	return classFile.substring (0, classFile.length () - 6).replace ('/', '.');
+    }
+
+    private static class FileState {
+	private final String hash;
+	private final long size;
+	private final long lastModified;
+	private List<String> classes = Collections.emptyList ();
+	private List<String> dependencies = Collections.emptyList ();
+
+	public FileState (String hash, long size, long lastModified) {
+	    this.hash = hash;
+	    this.size = size;
+	    this.lastModified = lastModified;
+	}
+    }
+}
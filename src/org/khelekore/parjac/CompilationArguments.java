@@ -10,15 +10,39 @@ public class CompilationArguments {
     private final List<Path> classPathEntries;
     private final boolean reportTime;
     private final boolean debug;
+    private final boolean incremental;
+    private final boolean packedParser;
+    private final int parallelParseTokens;
+    private final boolean streamingParser;
+    private final boolean hybridParser;
+    private final Path classPathIndexDirectory;
+    private final Path syntaxTreeCacheDirectory;
 
     public CompilationArguments (SourceProvider sourceProvider, BytecodeWriter classWriter,
 				 List<Path> classPathEntries,
-				 boolean reportTime, boolean debug) {
+				 boolean reportTime, boolean debug, boolean incremental) {
+	this (sourceProvider, classWriter, classPathEntries, reportTime, debug, incremental,
+	      false, 0, false, false, null, null);
+    }
+
+    public CompilationArguments (SourceProvider sourceProvider, BytecodeWriter classWriter,
+				 List<Path> classPathEntries,
+				 boolean reportTime, boolean debug, boolean incremental,
+				 boolean packedParser, int parallelParseTokens,
+				 boolean streamingParser, boolean hybridParser,
+				 Path classPathIndexDirectory, Path syntaxTreeCacheDirectory) {
 	this.sourceProvider = sourceProvider;
 	this.classWriter = classWriter;
 	this.classPathEntries = classPathEntries;
 	this.reportTime = reportTime;
 	this.debug = debug;
+	this.incremental = incremental;
+	this.packedParser = packedParser;
+	this.parallelParseTokens = parallelParseTokens;
+	this.streamingParser = streamingParser;
+	this.hybridParser = hybridParser;
+	this.classPathIndexDirectory = classPathIndexDirectory;
+	this.syntaxTreeCacheDirectory = syntaxTreeCacheDirectory;
     }
 
     public SourceProvider getSourceProvider () {
@@ -41,10 +65,59 @@ public class CompilationArguments {
 	return debug;
     }
 
+    /** Check if we should only compile changed files and the files that depends on them */
+    public boolean getIncremental () {
+	return incremental;
+    }
+
+    /** Check if we should parse using the PackedEarleyParser */
+    public boolean getPackedParser () {
+	return packedParser;
+    }
+
+    /** Get the number of tokens a file needs to have for its largest class body
+     *  to be split and parsed in parallel, 0 if files are not split.
+     */
+    public int getParallelParseTokens () {
+	return parallelParseTokens;
+    }
+
+    /** Check if the EarleyParser should build the members of classes as soon as they
+     *  are parsed and release the parse state for them.
+     */
+    public boolean getStreamingParser () {
+	return streamingParser;
+    }
+
+    /** Check if we should parse using the SLR tables and only use the
+     *  PackedEarleyParser for the files the tables can not handle.
+     */
+    public boolean getHybridParser () {
+	return hybridParser;
+    }
+
+    /** Get the directory to keep the class path indexes in, null if indexes are not used */
+    public Path getClassPathIndexDirectory () {
+	return classPathIndexDirectory;
+    }
+
+    /** Get the directory to keep the parsed syntax trees in, null if trees are not cached */
+    public Path getSyntaxTreeCacheDirectory () {
+	return syntaxTreeCacheDirectory;
+    }
+
     public void validate (CompilerDiagnosticCollector diagnostics) {
     	if (sourceProvider == null)
 	    diagnostics.report (new NoSourceDiagnostics ("SourceProvider may not be null"));
 	if (classWriter == null)
 	    diagnostics.report (new NoSourceDiagnostics ("BytecodeWriter may not be null"));
+	if (incremental && !(classWriter instanceof FileBytecodeWriter))
+	    diagnostics.report (new NoSourceDiagnostics ("Incremental compilation requires an output directory"));
+	if (streamingParser && packedParser)
+	    diagnostics.report (new NoSourceDiagnostics ("Streaming parse can not be used with the packed parser"));
+	if (hybridParser && (packedParser || streamingParser))
+	    diagnostics.report (new NoSourceDiagnostics ("Hybrid parser can not be used with the packed or streaming parser"));
+	if (syntaxTreeCacheDirectory != null && (streamingParser || parallelParseTokens > 0))
+	    diagnostics.report (new NoSourceDiagnostics ("Syntax tree cache can not be used with the streaming or parallel parse"));
     }
 }
\ No newline at end of file
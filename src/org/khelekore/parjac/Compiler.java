@@ -1,33 +1,48 @@
 package org.khelekore.parjac;
 
 import java.io.IOException;
-import java.nio.CharBuffer;
+import java.io.PrintStream;
 import java.nio.charset.MalformedInputException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.stream.Collectors;
 
 import org.khelekore.parjac.grammar.Grammar;
-import org.khelekore.parjac.lexer.CharBufferLexer;
-import org.khelekore.parjac.lexer.Lexer;
+import org.khelekore.parjac.lexer.SymbolTable;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.parser.CachedSyntaxTree;
+import org.khelekore.parjac.parser.CachedTreeRecorder;
 import org.khelekore.parjac.parser.EarleyParser;
+import org.khelekore.parjac.parser.HybridParser;
+import org.khelekore.parjac.parser.PackedEarleyParser;
+import org.khelekore.parjac.parser.ParallelPackedParser;
+import org.khelekore.parjac.parser.ParseTable;
 import org.khelekore.parjac.parser.JavaTreeBuilder;
 import org.khelekore.parjac.parser.PredictCache;
+import org.khelekore.parjac.parser.SignatureParser;
+import org.khelekore.parjac.parser.SyntaxTreeCache;
 import org.khelekore.parjac.semantics.ClassInformationProvider;
 import org.khelekore.parjac.semantics.ClassResourceHolder;
 import org.khelekore.parjac.semantics.ClassSetter;
 import org.khelekore.parjac.semantics.CompiledTypesHolder;
 import org.khelekore.parjac.semantics.AddImplicitMethods;
 import org.khelekore.parjac.semantics.InterfaceMemberFlagSetter;
+import org.khelekore.parjac.semantics.MethodResolutionCache;
 import org.khelekore.parjac.semantics.FieldAndMethodSetter;
 import org.khelekore.parjac.semantics.FieldRegistrator;
 import org.khelekore.parjac.semantics.NameModifierChecker;
 import org.khelekore.parjac.semantics.ReturnChecker;
 import org.khelekore.parjac.tree.CompilationUnit;
 import org.khelekore.parjac.tree.DottedName;
+import org.khelekore.parjac.tree.MultiVisitor;
 import org.khelekore.parjac.tree.SyntaxTree;
 
 /** The actual compiler
@@ -37,20 +52,63 @@ public class Compiler {
     private final Grammar g;
     private final PredictCache predictCache;
     private final JavaTreeBuilder treeBuilder;
+    // Only built when the hybrid parser is used
+    private final ParseTable parseTable;
+    // The number of files parsed by the hybrid parser for each fallback reason
+    private final AtomicIntegerArray hybridFallbacks =
+	new AtomicIntegerArray (HybridParser.Fallback.values ().length);
+    // null if parsed trees are not cached
+    private final SyntaxTreeCache syntaxTreeCache;
     private final CompilationArguments settings;
     private final ClassInformationProvider cip;
+    private final BuildState buildState;
+    private final PrintStream out;
+    // Shared by all the lexers so that each name is only stored once
+    private final SymbolTable symbols = new SymbolTable ();
+    // The parse threads reuse their token buffers between files
+    private final ThreadLocal<TokenBuffer> tokenBuffers = ThreadLocal.withInitial (TokenBuffer::new);
 
     public Compiler (CompilerDiagnosticCollector diagnostics, Grammar g,
 		     CompilationArguments settings) {
+	this (diagnostics, g, new PredictCache (g), new JavaTreeBuilder (g), null, settings, System.out);
+    }
+
+    /** Create a compiler that reuses an already setup parser and boot class path.
+     * @param bootClasses an already scanned holder for the boot class path, or null
+     *        if the boot class path should be scanned.
+     * @param out the stream to report progress and timing to
+     */
+    public Compiler (CompilerDiagnosticCollector diagnostics, Grammar g,
+		     PredictCache predictCache, JavaTreeBuilder treeBuilder,
+		     ClassResourceHolder bootClasses, CompilationArguments settings,
+		     PrintStream out) {
 	this.diagnostics = diagnostics;
 	this.g = g;
-	this.predictCache = new PredictCache (g);
-	this.treeBuilder = new JavaTreeBuilder (g);
+	this.predictCache = predictCache;
+	this.treeBuilder = treeBuilder;
 	this.settings = settings;
-
-	ClassResourceHolder crh = new ClassResourceHolder (settings.getClassPathEntries (), diagnostics);
+	this.out = out;
+	parseTable = settings.getHybridParser () ? new ParseTable (g, "Goal") : null;
+	Path cacheDir = settings.getSyntaxTreeCacheDirectory ();
+	syntaxTreeCache = cacheDir != null ? new SyntaxTreeCache (cacheDir, g) : null;
+
+	List<Path> classPathEntries = settings.getClassPathEntries ();
+	if (settings.getIncremental ()) {
+	    FileBytecodeWriter fbw = (FileBytecodeWriter)settings.getClassWriter ();
+	    buildState = new BuildState (fbw.getOutputDir (), classPathEntries, diagnostics);
+	    // Unchanged classes are found in the output directory
+	    classPathEntries = new ArrayList<> (classPathEntries);
+	    classPathEntries.add (buildState.getOutputDirectory ());
+	} else {
+	    buildState = null;
+	}
+	ClassResourceHolder crh = new ClassResourceHolder (bootClasses, classPathEntries,
+							   settings.getClassPathIndexDirectory (),
+							   diagnostics);
 	CompiledTypesHolder cth = new CompiledTypesHolder ();
 	cip = new ClassInformationProvider (crh, cth);
+	if (buildState != null)
+	    cip.trackDependencies ();
     }
 
     public void compile () {
@@ -59,23 +117,88 @@ public class Compiler {
 	if (diagnostics.hasError ())
 	    return;
 	if (settings.getReportTime ())
-	    System.out.format ("Found %d source files\n", sourceProvider.getSourcePaths ().size ());
-	List<SyntaxTree> trees = runTimed (() -> parse (sourceProvider), "Parsing");
+	    out.format ("Found %d source files\n", sourceProvider.getSourcePaths ().size ());
+	Collection<Path> sources = sourceProvider.getSourcePaths ();
+	if (buildState != null) {
+	    sources = runTimed (() -> findFilesToCompile (sourceProvider), "Checking for changes");
+	    if (diagnostics.hasError ())
+		return;
+	    if (settings.getReportTime ())
+		out.format ("%d source files needs to be compiled\n", sources.size ());
+	    if (sources.isEmpty ()) {
+		// Nothing to compile, but removed files may have changed the state
+		buildState.save (Collections.emptyList (), cip);
+		return;
+	    }
+	}
+	Collection<Path> toParse = sources;
+	// Scanning the classpath is not needed until we set classes, do it while parsing
+	CompletableFuture<Void> classPathScan =
+	    CompletableFuture.runAsync (() -> runTimed (() -> scanClassPaths (), "Scanning classpath"));
+	List<SyntaxTree> trees =
+	    runTimed (() -> parseAndRegister (sourceProvider, toParse, false), "Parsing and registering types");
+	if (syntaxTreeCache != null && settings.getReportTime ())
+	    out.format ("Syntax tree cache: %d hits, %d misses\n",
+			syntaxTreeCache.getNumberOfHits (), syntaxTreeCache.getNumberOfMisses ());
+	if (parseTable != null && settings.getReportTime ())
+	    reportHybridFallbacks ();
+	classPathScan.join ();
 	if (diagnostics.hasError ())
 	    return;
 
-	runTimed (() -> scanClassPaths (), "Scanning classpath");
-	checkSemantics (trees);
+	setClasses (trees);
+	if (diagnostics.hasError ())
+	    return;
+	// All super types and methods are known now, the checks share the
+	// super type walks and the method resolutions
+	cip.cacheSuperTypes ();
+	cip.cacheMethodResolutions ();
+	List<GeneratedClasses> classes =
+	    runTimed (() -> checkAndGenerate (trees), "Checking and generating classes");
+	if (settings.getReportTime ()) {
+	    MethodResolutionCache mrc = cip.getMethodResolutionCache ();
+	    out.format ("Method resolution cache: %d hits, %d misses\n",
+			mrc.getNumberOfHits (), mrc.getNumberOfMisses ());
+	}
 	if (diagnostics.hasError ())
 	    return;
-	optimize (trees);
 
 	runTimed (() -> createOutputDirectories (trees, settings.getClassWriter()),
 		  "Creating output directories");
 	if (diagnostics.hasError ())
 	    return;
 
-	runTimed (() -> writeClasses (trees), "Writing classes");
+	runTimed (() -> writeClasses (classes), "Writing classes");
+	if (buildState != null && !diagnostics.hasError ())
+	    runTimed (() -> buildState.save (trees, cip), "Saving build state");
+    }
+
+    /** Parse only the declarations of all the source files and register their types,
+     *  fields and super types. This is enough to find how the files depend on each other,
+     *  but the trees have no method bodies so they can not be used to generate code.
+     * @return the declaration trees
+     */
+    public List<SyntaxTree> registerSignatures () {
+	SourceProvider sourceProvider = settings.getSourceProvider ();
+	runTimed (() -> setupSourceProvider (sourceProvider), "Setting up sources");
+	if (diagnostics.hasError ())
+	    return Collections.emptyList ();
+	Collection<Path> sources = sourceProvider.getSourcePaths ();
+	CompletableFuture<Void> classPathScan =
+	    CompletableFuture.runAsync (() -> runTimed (() -> scanClassPaths (), "Scanning classpath"));
+	List<SyntaxTree> trees =
+	    runTimed (() -> parseAndRegister (sourceProvider, sources, true),
+		      "Parsing signatures and registering types");
+	classPathScan.join ();
+	if (diagnostics.hasError ())
+	    return trees;
+	runTimed (() -> registerSuperTypes (trees), "Registering super types");
+	return trees;
+    }
+
+    /** Get the type information for the compiled files and the class path */
+    public ClassInformationProvider getClassInformationProvider () {
+	return cip;
     }
 
     private void setupSourceProvider (SourceProvider sourceProvider) {
@@ -86,24 +209,73 @@ public class Compiler {
 	}
     }
 
-    private List<SyntaxTree> parse (SourceProvider sourceProvider) {
+    private List<Path> findFilesToCompile (SourceProvider sourceProvider) {
+	try {
+	    return buildState.getFilesToCompile (sourceProvider.getSourcePaths ());
+	} catch (IOException e) {
+	    diagnostics.report (new NoSourceDiagnostics ("Failed to check for changed files: %s", e));
+	    return null;
+	}
+    }
+
+    /** Parse each file and run the steps that only need information from that file.
+     *  Each file is handled as soon as possible, without waiting for other files.
+     */
+    private List<SyntaxTree> parseAndRegister (SourceProvider sourceProvider, Collection<Path> sources,
+					       boolean signaturesOnly) {
+	List<CompletableFuture<SyntaxTree>> futures =
+	    sources.stream ().
+	    map (p -> CompletableFuture.supplyAsync (() -> parse (sourceProvider, p, signaturesOnly)).
+		 thenApply (t -> registerTypesAndFields (t))).
+	    collect (Collectors.toList ());
 	return
-	    sourceProvider.getSourcePaths ().parallelStream ().
-	    map (p -> parse (sourceProvider, p)).
-	    filter (p -> p != null).
+	    futures.stream ().
+	    map (CompletableFuture::join).
+	    filter (t -> t != null).
 	    collect (Collectors.toList ());
     }
 
-    private SyntaxTree parse (SourceProvider sourceProvider, Path path) {
+    private SyntaxTree registerTypesAndFields (SyntaxTree tree) {
+	if (tree == null || diagnostics.hasError (tree.getOrigin ()))
+	    return tree;
+	cip.addTypes (tree, diagnostics);
+	if (diagnostics.hasError (tree.getOrigin ()))
+	    return tree;
+	flagInterfaceMembersAndRegisterFields (tree);
+	return tree;
+    }
+
+    private SyntaxTree parse (SourceProvider sourceProvider, Path path, boolean signaturesOnly) {
+	// The token buffer is shared by all files parsed on this thread
+	TokenBuffer tokens = tokenBuffers.get ();
 	try {
 	    long start = System.nanoTime ();
 	    if (settings.getDebug ())
-		System.out.println ("parsing: " + path);
-	    CharBuffer charBuf = sourceProvider.getInput (path);
-	    Lexer lexer = new CharBufferLexer (charBuf);
-	    EarleyParser parser = new EarleyParser (g, path, lexer, predictCache, treeBuilder,
-						    diagnostics, settings.getDebug ());
-	    SyntaxTree tree = parser.parse ();
+		out.println ("parsing: " + path);
+	    SyntaxTree tree;
+	    if (syntaxTreeCache != null && !signaturesOnly) {
+		tree = parseCached (sourceProvider, path, tokens);
+	    } else if (signaturesOnly) {
+		tokens.fill (sourceProvider.getLexer (path, symbols));
+		tree = new SignatureParser (g, path, tokens, predictCache, treeBuilder,
+					    diagnostics, settings.getDebug ()).parse ();
+	    } else if (parseTable != null) {
+		tokens.fill (sourceProvider.getLexer (path, symbols));
+		tree = parseHybrid (path, tokens, treeBuilder);
+	    } else if (settings.getPackedParser ()) {
+		tokens.fill (sourceProvider.getLexer (path, symbols));
+		if (settings.getParallelParseTokens () > 0)
+		    tree = new ParallelPackedParser (g, path, tokens, predictCache, treeBuilder,
+						     diagnostics, settings.getDebug (),
+						     settings.getParallelParseTokens ()).parse ();
+		else
+		    tree = new PackedEarleyParser (g, path, tokens, predictCache, treeBuilder,
+						   diagnostics, settings.getDebug ()).parse ();
+	    } else
+		tree = new EarleyParser (g, path, sourceProvider.getLexer (path, symbols),
+					 predictCache, treeBuilder,
+					 diagnostics, settings.getDebug (),
+					 settings.getStreamingParser ()).parse ();
 	    long end = System.nanoTime ();
 	    if (settings.getDebug () && settings.getReportTime ())
 		reportTime ("Parsing " + path, start, end);
@@ -114,7 +286,80 @@ public class Compiler {
 	} catch (IOException e) {
 	    diagnostics.report (new NoSourceDiagnostics ("Failed to read: %s: %s", path, e));
 	    return null;
+	} finally {
+	    // also when the parser or tree builder throws, so the next file starts clean
+	    tokens.clear ();
+	}
+    }
+
+    /** Build the tree from the syntax tree cache, or parse the file and store its tree
+     *  if it parsed without errors. Files that are not in the cache are parsed by the
+     *  hybrid parser if it is used, otherwise by the packed parser.
+     */
+    private SyntaxTree parseCached (SourceProvider sourceProvider, Path path, TokenBuffer tokens)
+	throws IOException {
+	SourceInput input = sourceProvider.getSource (path);
+	String key = syntaxTreeCache.getKey (input.getBytes (), input.getEncoding (), input.getInputMode ());
+	CachedSyntaxTree cached = syntaxTreeCache.get (key, path, symbols);
+	if (cached != null) {
+	    SyntaxTree tree = replay (cached);
+	    if (tree != null)
+		return tree;
+	}
+	tokens.fill (input.getLexer (symbols));
+	CachedTreeRecorder recorder = new CachedTreeRecorder (treeBuilder, g, path);
+	SyntaxTree tree;
+	if (parseTable != null)
+	    tree = parseHybrid (path, tokens, recorder);
+	else
+	    tree = new PackedEarleyParser (g, path, tokens, predictCache, recorder,
+					   diagnostics, settings.getDebug ()).parse ();
+	if (tree != null && !settings.getDebug () && !diagnostics.hasError (path))
+	    syntaxTreeCache.put (key, recorder.getTree ());
+	return tree;
+    }
+
+    private SyntaxTree parseHybrid (Path path, TokenBuffer tokens, JavaTreeBuilder builder) {
+	HybridParser hp = new HybridParser (g, path, tokens, parseTable, predictCache, builder,
+					    diagnostics, settings.getDebug ());
+	SyntaxTree tree = hp.parse ();
+	hybridFallbacks.incrementAndGet (hp.getFallback ().ordinal ());
+	return tree;
+    }
+
+    private void reportHybridFallbacks () {
+	StringBuilder sb = new StringBuilder ();
+	int files = 0;
+	int fallbacks = 0;
+	for (HybridParser.Fallback f : HybridParser.Fallback.values ()) {
+	    int count = hybridFallbacks.get (f.ordinal ());
+	    files += count;
+	    if (f == HybridParser.Fallback.NONE || count == 0)
+		continue;
+	    fallbacks += count;
+	    sb.append (sb.length () == 0 ? " (" : ", ").append (f).append (": ").append (count);
+	}
+	if (sb.length () > 0)
+	    sb.append (")");
+	out.format ("Hybrid parser: %d of %d files used the earley parser%s\n", fallbacks, files, sb);
+    }
+
+    /** Build the tree of a cached entry, only trees from error free parses are stored
+     *  so any error or failure means the entry can not be used.
+     * @return the tree or null if the file has to be parsed
+     */
+    private SyntaxTree replay (CachedSyntaxTree cached) {
+	CompilerDiagnosticCollector replayDiagnostics = new CompilerDiagnosticCollector ();
+	SyntaxTree tree;
+	try {
+	    tree = cached.getSyntaxTree (treeBuilder, replayDiagnostics);
+	} catch (RuntimeException e) {
+	    return null;
 	}
+	if (tree == null || replayDiagnostics.hasError ())
+	    return null;
+	replayDiagnostics.getDiagnostics ().forEach (diagnostics::report);
+	return tree;
     }
 
     private void scanClassPaths () {
@@ -125,12 +370,10 @@ public class Compiler {
 	}
     }
 
-    private void checkSemantics (List<SyntaxTree> trees) {
-	runTimed (() -> addTypes (trees), "Adding types");
-	if (diagnostics.hasError ())
-	    return;
-	runTimed (() -> flagInterfaceMembersAsPublic (trees), "Interface members public");
-	runTimed (() -> registerFields (trees), "Registering fields");
+    /** Set the classes of all trees, this is where files depend on each other
+     *  so all files have to be done before we can continue.
+     */
+    private void setClasses (List<SyntaxTree> trees) {
 	/*
 	 * 1: Set classes for fields, method parameters and method returns, setup scopes
 	 *    Scope hangs on class, method, for-clause and try (with resource) clause
@@ -143,41 +386,51 @@ public class Compiler {
 	    return;
 	// Check constructors and make sure there is a no-args constructor if needed
 	runTimed (() -> addImplicitMethods (trees), "Checking constructors");
-	if (diagnostics.hasError ())
-	    return;
-	runTimed (() -> checkNamesAndModifiers (trees), "Checking names and modifiers");
-	if (diagnostics.hasError ())
-	    return;
-	runTimed (() -> setFieldsAndMethods (trees), "Setting fields and method types");
-	if (diagnostics.hasError ())
-	    return;
-	// Check types of fields and assignments
-	runTimed (() -> checkReturns (trees), "Checking returns");
-	if (diagnostics.hasError ())
-	    return;
-	// Check generics
     }
 
-    private void addTypes (List<SyntaxTree> trees) {
-	trees.parallelStream ().forEach (t -> cip.addTypes (t, diagnostics));
+    /** Run the remaining checks and generate the bytecode for each file.
+     *  The bytecode is kept in memory so that nothing is written if any file has errors.
+     */
+    private List<GeneratedClasses> checkAndGenerate (List<SyntaxTree> trees) {
+	List<CompletableFuture<GeneratedClasses>> futures =
+	    trees.stream ().
+	    map (t -> CompletableFuture.supplyAsync (() -> checkAndGenerate (t))).
+	    collect (Collectors.toList ());
+	return
+	    futures.stream ().
+	    map (CompletableFuture::join).
+	    filter (g -> g != null).
+	    collect (Collectors.toList ());
     }
 
-    private void flagInterfaceMembersAsPublic (List<SyntaxTree> trees) {
-	trees.parallelStream ().forEach (t -> flagInterfaceMembersAsPublic (t));
+    private GeneratedClasses checkAndGenerate (SyntaxTree tree) {
+	Path origin = tree.getOrigin ();
+	setFieldsAndMethods (tree, diagnostics);
+	// Check file names / class names matching and modifiers and, when the
+	// expression types are known, the types of returns and assignments
+	checkNamesModifiersAndReturns (tree, !diagnostics.hasError (origin));
+	if (diagnostics.hasError (origin))
+	    return null;
+	// Check generics
+	optimize (tree);
+	GeneratedClasses gc = new GeneratedClasses (origin);
+	BytecodeGenerator w = new BytecodeGenerator (origin, cip, gc);
+	tree.getCompilationUnit ().visit (w);
+	return gc;
     }
 
-    private void flagInterfaceMembersAsPublic (SyntaxTree tree) {
+    /** Flag interface members as public and register the fields in one visit.
+     *  The fields are only registered when their type ends and their flags
+     *  are read when needed, so they do not depend on the flags being set.
+     */
+    private void flagInterfaceMembersAndRegisterFields (SyntaxTree tree) {
 	InterfaceMemberFlagSetter imfs = new InterfaceMemberFlagSetter (tree);
-	imfs.reflag ();
-    }
-
-    private void registerFields (List<SyntaxTree> trees) {
-	trees.parallelStream().forEach (t -> registerFields (t));
+	FieldRegistrator fr = new FieldRegistrator (cip, tree, diagnostics);
+	tree.getCompilationUnit ().visit (new MultiVisitor (imfs.getMemberVisitor (), fr.getMemberVisitor ()));
     }
 
-    private void registerFields (SyntaxTree tree) {
-	FieldRegistrator fr = new FieldRegistrator (cip, tree, diagnostics);
-	fr.findFields ();
+    private void registerSuperTypes (List<SyntaxTree> trees) {
+	trees.parallelStream ().forEach (t -> new ClassSetter (cip, t, diagnostics).registerSuperTypes ());
     }
 
     private void addImplicitMethods (List<SyntaxTree> trees) {
@@ -189,35 +442,26 @@ public class Compiler {
 	cc.run ();
     }
 
-    private void checkNamesAndModifiers (List<SyntaxTree> trees) {
-	// Check file names / class names matching and modifiers
-	trees.parallelStream ().forEach (t -> checkNamesAndModifiers (t, diagnostics));
-    }
-
-    private void checkNamesAndModifiers (SyntaxTree tree, CompilerDiagnosticCollector diagnostics) {
-	NameModifierChecker nmc = new NameModifierChecker (cip, tree, diagnostics);
-	nmc.check ();
-    }
-
-    private void setFieldsAndMethods (List<SyntaxTree> trees) {
-	trees.parallelStream ().forEach (t -> setFieldsAndMethods (t, diagnostics));
-    }
-
     private void setFieldsAndMethods (SyntaxTree tree, CompilerDiagnosticCollector diagnostics) {
 	FieldAndMethodSetter mis = new FieldAndMethodSetter (cip, tree, diagnostics);
 	mis.run ();
     }
 
-    private void checkReturns (List<SyntaxTree> trees) {
-	trees.parallelStream ().forEach (t -> checkReturns (t, diagnostics));
-    }
-
-    private void checkReturns (SyntaxTree tree, CompilerDiagnosticCollector diagnostics) {
-	ReturnChecker ra = new ReturnChecker (cip, tree, diagnostics);
-	ra.run ();
+    /** Check names and modifiers and, if wanted, the returns in one visit.
+     *  The name and modifier checks do not use anything that the field and method
+     *  setter or the return checker sets up, so they are always done.
+     */
+    private void checkNamesModifiersAndReturns (SyntaxTree tree, boolean checkReturns) {
+	NameModifierChecker nmc = new NameModifierChecker (cip, tree, diagnostics);
+	if (!checkReturns) {
+	    nmc.check ();
+	    return;
+	}
+	ReturnChecker rc = new ReturnChecker (cip, tree, diagnostics);
+	tree.getCompilationUnit ().visit (new MultiVisitor (nmc, rc));
     }
 
-    private void optimize (List<SyntaxTree> trees) {
+    private void optimize (SyntaxTree tree) {
 	// merge constant expressions "1 + 2" => "3"
     }
 
@@ -245,15 +489,22 @@ public class Compiler {
 	}
     }
 
-    private void writeClasses (List<SyntaxTree> trees) {
-	trees.parallelStream ().
-	    forEach (t -> writeClasses (t));
+    private void writeClasses (List<GeneratedClasses> classes) {
+	classes.parallelStream ().
+	    forEach (gc -> writeClasses (gc));
     }
 
-    private void writeClasses (SyntaxTree tree) {
-	BytecodeGenerator w =
-	    new BytecodeGenerator (tree.getOrigin (), cip, settings.getClassWriter ());
-	tree.getCompilationUnit ().visit (w);
+    private void writeClasses (GeneratedClasses gc) {
+	BytecodeWriter classWriter = settings.getClassWriter ();
+	if (buildState != null)
+	    classWriter = buildState.getRecordingWriter (gc.origin, classWriter);
+	try {
+	    for (int i = 0; i < gc.paths.size (); i++)
+		classWriter.write (gc.paths.get (i), gc.data.get (i));
+	} catch (IOException e) {
+	    diagnostics.report (new NoSourceDiagnostics ("Failed to write class file: %s: %s",
+							 gc.origin, e));
+	}
     }
 
     private <T> T runTimed (CompilationStep<T> cs, String type) {
@@ -281,7 +532,27 @@ public class Compiler {
 	void run ();
     }
 
+    /** The class files generated for one source file */
+    private static class GeneratedClasses implements BytecodeWriter {
+	private final Path origin;
+	private final List<Path> paths = new ArrayList<> ();
+	private final List<byte[]> data = new ArrayList<> ();
+
+	public GeneratedClasses (Path origin) {
+	    this.origin = origin;
+	}
+
+	public void createDirectory (Path path) {
+	    // directories are created before classes are written
+	}
+
+	public void write (Path path, byte[] bytes) {
+	    paths.add (path);
+	    data.add (bytes);
+	}
+    }
+
     private void reportTime (String type, long start, long end) {
-	System.out.format ("%s, time taken: %.3f millis\n", type, (end - start) / 1.0e6);
+	out.format ("%s, time taken: %.3f millis\n", type, (end - start) / 1.0e6);
     }
 }
@@ -4,6 +4,8 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticListener;
@@ -18,10 +20,16 @@ public class CompilerDiagnosticCollector implements DiagnosticListener<Path> {
     // Flag is set in one step and checked when that step has been fully handled
     private volatile boolean hasError;
     private volatile boolean hasWarning;
+    // Source files that have errors, lets per file steps stop early
+    private final Set<Path> filesWithErrors = ConcurrentHashMap.newKeySet ();
 
     public void report (Diagnostic<? extends Path> diagnostic) {
-	if (diagnostic.getKind () == Diagnostic.Kind.ERROR)
+	if (diagnostic.getKind () == Diagnostic.Kind.ERROR) {
+	    Path source = diagnostic.getSource ();
+	    if (source != null)
+		filesWithErrors.add (source);
 	    hasError = true;
+	}
 	if (diagnostic.getKind () == Diagnostic.Kind.WARNING)
 	    hasWarning = true;
 	list.add (diagnostic);
@@ -31,6 +39,11 @@ public class CompilerDiagnosticCollector implements DiagnosticListener<Path> {
 	return hasError;
     }
 
+    /** Check if there has been any error reported for the given source file */
+    public boolean hasError (Path source) {
+	return filesWithErrors.contains (source);
+    }
+
     public boolean hasWarning () {
 	return hasWarning;
     }
@@ -42,6 +55,7 @@ public class CompilerDiagnosticCollector implements DiagnosticListener<Path> {
     public void clear () {
 	synchronized (list) {
 	    list.clear ();
+	    filesWithErrors.clear ();
 	    hasError = false;
 	}
     }
@@ -12,6 +12,10 @@ public class FileBytecodeWriter implements BytecodeWriter {
 	this.outputDir = outputDir;
     }
 
+    public Path getOutputDir () {
+	return outputDir;
+    }
+
     public void createDirectory (Path path) throws IOException {
 	Files.createDirectories (getRealPath (path));
     }
@@ -3,25 +3,39 @@ package org.khelekore.parjac;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
-import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.khelekore.parjac.lexer.Lexer;
+import org.khelekore.parjac.lexer.SymbolTable;
+
 public class FileSourceProvider implements SourceProvider {
     private final List<Path> srcDirs;
     private final Charset encoding;
+    private final boolean mapInput;
     private List<Path> paths = null;
 
     public FileSourceProvider (List<Path> srcDirs, Charset encoding) {
+	this (srcDirs, encoding, false);
+    }
+
+    /** Create a new FileSourceProvider.
+     * @param mapInput if true then source files are memory mapped and
+     *        utf-8 and ascii files are lexed directly from the bytes
+     */
+    public FileSourceProvider (List<Path> srcDirs, Charset encoding, boolean mapInput) {
 	this.srcDirs = srcDirs;
 	this.encoding = encoding;
+	this.mapInput = mapInput;
     }
 
     public void setup (CompilerDiagnosticCollector diagnostics) throws IOException {
@@ -56,10 +70,32 @@ public class FileSourceProvider implements SourceProvider {
     }
 
     public CharBuffer getInput (Path path) throws IOException {
-	ByteBuffer buf = ByteBuffer.wrap (Files.readAllBytes (path));
-	CharsetDecoder decoder = encoding.newDecoder ();
-	decoder.onMalformedInput (CodingErrorAction.REPORT);
-	decoder.onUnmappableCharacter (CodingErrorAction.REPORT);
-	return decoder.decode (buf);
+	return new SourceInput (ByteBuffer.wrap (Files.readAllBytes (path)), encoding, false).getChars ();
+    }
+
+    @Override public Lexer getLexer (Path path, SymbolTable symbols) throws IOException {
+	return getSource (path).getLexer (symbols);
+    }
+
+    @Override public SourceInput getSource (Path path) throws IOException {
+	if (!mapInput)
+	    return new SourceInput (ByteBuffer.wrap (Files.readAllBytes (path)), encoding, false);
+	ByteBuffer buf;
+	try (FileChannel fc = FileChannel.open (path, StandardOpenOption.READ)) {
+	    buf = fc.map (FileChannel.MapMode.READ_ONLY, 0, fc.size ());
+	}
+	boolean lexBytes = encoding.equals (StandardCharsets.UTF_8) || (isAsciiCompatible () && isAscii (buf));
+	return new SourceInput (buf, encoding, lexBytes);
+    }
+
+    private boolean isAsciiCompatible () {
+	return encoding.equals (StandardCharsets.US_ASCII) || encoding.equals (StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isAscii (ByteBuffer buf) {
+	for (int i = buf.position (), e = buf.limit (); i < e; i++)
+	    if (buf.get (i) < 0)
+		return false;
+	return true;
     }
-}
\ No newline at end of file
+}
@@ -1,19 +1,131 @@
 package org.khelekore.parjac;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
 
 import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.GrammarImage;
+import org.khelekore.parjac.grammar.GrammarOptimizer;
 import org.khelekore.parjac.grammar.GrammarReader;
 import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.parser.JavaTreeBuilder;
+import org.khelekore.parjac.parser.PredictCache;
 
 public class JavaGrammarHelper {
+    public static final String GRAMMAR = "/java_8.pj";
+    public static final String GRAMMAR_IMAGE = "/java_8.pjimg";
+    /** The goal rule for a sequence of class body declarations */
+    public static final String CLASS_BODY_DECLARATIONS_GOAL = "ClassBodyDeclarationsGoal";
+    // The rules whose items may be cleared, also for parts of a class body
+    private static final String[] CLEARABLE_RULES = { "ClassBodyDeclaration" };
+
+    /** Get the java grammar. The pre built grammar image is used if it
+     *  exists and is up to date, otherwise the text grammar is read.
+     */
     public static Grammar getValidatedJavaGrammar (boolean debug) throws IOException {
+	URL image = JavaGrammarHelper.class.getResource (GRAMMAR_IMAGE);
+	if (image != null) {
+	    Grammar g = readGrammarImage (image, debug);
+	    if (g != null)
+		return g;
+	}
+	return getValidatedJavaGrammarFromText (debug);
+    }
+
+    public static Grammar getValidatedJavaGrammarFromText (boolean debug) throws IOException {
+	return getValidatedJavaGrammarFromText (debug, true);
+    }
+
+    /** Read the text grammar
+     * @param optimize if true the rules are simplified by the GrammarOptimizer
+     */
+    public static Grammar getValidatedJavaGrammarFromText (boolean debug, boolean optimize)
+	throws IOException {
 	GrammarReader gr = new GrammarReader (debug);
-	gr.read (JavaGrammarHelper.class.getResource ("/java_8.pj"));
+	gr.read (JavaGrammarHelper.class.getResource (GRAMMAR));
 	Grammar g = gr.getGrammar ();
-	g.addRule ("Goal", "CompilationUnit", Token.END_OF_INPUT);
-	g.addClearableRule ("ClassBodyDeclaration");
+	addGoalRules (g);
+	for (String name : CLEARABLE_RULES)
+	    g.addClearableRule (name);
+	if (optimize)
+	    g = new GrammarOptimizer (g, JavaTreeBuilder.getBuiltRuleNames ()).optimize ();
 	g.validateRules ();
 	return g;
     }
-}
\ No newline at end of file
+
+    /** Add the rules that are not part of the text grammar */
+    private static void addGoalRules (Grammar g) {
+	g.addRule ("Goal", "CompilationUnit", Token.END_OF_INPUT);
+	// Used when parts of a class body are parsed on their own
+	g.addRule (CLASS_BODY_DECLARATIONS_GOAL, g.zeroOrMore ("ClassBodyDeclaration"), Token.END_OF_INPUT);
+    }
+
+    /** Read a grammar image, memory mapping it if it is a plain file.
+     * @return the grammar or null if the image does not match the text grammar
+     */
+    public static Grammar readGrammarImage (URL image, boolean debug) throws IOException {
+	ByteBuffer buf;
+	if ("file".equals (image.getProtocol ())) {
+	    try (FileChannel fc = FileChannel.open (Paths.get (image.toURI ()), StandardOpenOption.READ)) {
+		buf = fc.map (FileChannel.MapMode.READ_ONLY, 0, fc.size ());
+	    } catch (URISyntaxException e) {
+		throw new IOException ("Failed to find grammar image: " + image, e);
+	    }
+	} else {
+	    buf = ByteBuffer.wrap (readAll (image));
+	}
+	return GrammarImage.read (buf, getGrammarChecksum (), debug);
+    }
+
+    /** Write the image of the text grammar */
+    public static void writeGrammarImage (Path output) throws IOException {
+	Grammar g = getValidatedJavaGrammarFromText (false);
+	try (OutputStream os = Files.newOutputStream (output)) {
+	    GrammarImage.write (g, PredictCache.calculatePredictSets (g), getGrammarChecksum (), os);
+	}
+    }
+
+    /** Get the checksum of the text grammar, the rules that are added to it and
+     *  the rules that have tree builders, since the optimizer keeps those rules
+     */
+    public static long getGrammarChecksum () throws IOException {
+	return getGrammarChecksum (JavaTreeBuilder.getBuiltRuleNames ());
+    }
+
+    static long getGrammarChecksum (Collection<String> builtRuleNames) throws IOException {
+	CRC32 crc = new CRC32 ();
+	crc.update (readAll (JavaGrammarHelper.class.getResource (GRAMMAR)));
+	Grammar added = new Grammar (false);
+	addGoalRules (added);
+	String description = added.getRules () + " clearable: " + Arrays.toString (CLEARABLE_RULES) +
+	    " built: " + new TreeSet<> (builtRuleNames);
+	crc.update (description.getBytes (StandardCharsets.UTF_8));
+	return crc.getValue ();
+    }
+
+    private static byte[] readAll (URL u) throws IOException {
+	try (InputStream is = u.openStream ()) {
+	    ByteArrayOutputStream baos = new ByteArrayOutputStream ();
+	    byte[] buf = new byte[8192];
+	    int r;
+	    while ((r = is.read (buf)) != -1)
+		baos.write (buf, 0, r);
+	    return baos.toByteArray ();
+	}
+    }
+}
@@ -0,0 +1,88 @@
+package org.khelekore.parjac;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import org.khelekore.parjac.lexer.ByteBufferLexer;
+import org.khelekore.parjac.lexer.CharBufferLexer;
+import org.khelekore.parjac.lexer.Lexer;
+import org.khelekore.parjac.lexer.SymbolTable;
+
+/** The data of one source file, read once so that it can be both hashed and lexed.
+ *
+ *  A ByteBufferLexer gives byte offsets as token positions and a CharBufferLexer
+ *  gives char offsets, so the input mode tells which positions a lexer of this
+ *  input will give.
+ */
+public class SourceInput {
+    private final ByteBuffer bytes;
+    private final Charset encoding;
+    private final boolean lexBytes;
+    // The chars when the input was given as text, otherwise decoded when needed
+    private final CharBuffer chars;
+
+    /** Create a new SourceInput.
+     * @param bytes the content of the file, the buffer is not changed
+     * @param encoding the encoding of the bytes
+     * @param lexBytes if true then the bytes are lexed directly, they have to be utf-8
+     *        or ascii, otherwise they are decoded and lexed as chars
+     */
+    public SourceInput (ByteBuffer bytes, Charset encoding, boolean lexBytes) {
+	this.bytes = bytes.duplicate ();
+	this.encoding = encoding;
+	this.lexBytes = lexBytes;
+	this.chars = null;
+    }
+
+    /** Create a SourceInput for already decoded text, the bytes are the chars in utf-16 */
+    public SourceInput (CharBuffer chars) {
+	CharBuffer text = chars.duplicate ();
+	ByteBuffer buf = ByteBuffer.allocate (2 * text.remaining ());
+	buf.asCharBuffer ().put (text);
+	this.bytes = buf;
+	this.encoding = StandardCharsets.UTF_16BE;
+	this.lexBytes = false;
+	this.chars = chars.duplicate ();
+    }
+
+    /** Get the content of the file, the returned buffer may be changed by the caller */
+    public ByteBuffer getBytes () {
+	return bytes.duplicate ();
+    }
+
+    /** Get the encoding of the bytes */
+    public Charset getEncoding () {
+	return encoding;
+    }
+
+    /** Get the name of the input mode, "bytes" or "chars" */
+    public String getInputMode () {
+	return lexBytes ? "bytes" : "chars";
+    }
+
+    /** Get the decoded text
+     * @throws java.nio.charset.MalformedInputException if the bytes are not valid in the encoding
+     */
+    public CharBuffer getChars () throws IOException {
+	if (chars != null)
+	    return chars.duplicate ();
+	CharsetDecoder decoder = encoding.newDecoder ();
+	decoder.onMalformedInput (CodingErrorAction.REPORT);
+	decoder.onUnmappableCharacter (CodingErrorAction.REPORT);
+	return decoder.decode (bytes.duplicate ());
+    }
+
+    /** Get a lexer for this input
+     * @param symbols the symbol table the lexer should use
+     */
+    public Lexer getLexer (SymbolTable symbols) throws IOException {
+	if (lexBytes)
+	    return new ByteBufferLexer (bytes, symbols);
+	return new CharBufferLexer (getChars (), symbols);
+    }
+}
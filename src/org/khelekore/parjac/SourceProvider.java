@@ -5,6 +5,10 @@ import java.nio.CharBuffer;
 import java.nio.file.Path;
 import java.util.Collection;
 
+import org.khelekore.parjac.lexer.CharBufferLexer;
+import org.khelekore.parjac.lexer.Lexer;
+import org.khelekore.parjac.lexer.SymbolTable;
+
 public interface SourceProvider {
     /** Setup for use, will be called before other methods */
     void setup (CompilerDiagnosticCollector diagnostics) throws IOException;
@@ -14,4 +18,16 @@ public interface SourceProvider {
 
     /** Get the source data for a given input path */
     CharBuffer getInput (Path path) throws IOException;
+
+    /** Get a lexer for the given input path
+     * @param symbols the symbol table the lexer should use
+     */
+    default Lexer getLexer (Path path, SymbolTable symbols) throws IOException {
+	return new CharBufferLexer (getInput (path), symbols);
+    }
+
+    /** Read the given input path once, so that its data can be both hashed and lexed */
+    default SourceInput getSource (Path path) throws IOException {
+	return new SourceInput (getInput (path));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package org.khelekore.parjac.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/** Program that sends a compilation to a running CompileServer.
+ *  Takes the same arguments as Main, relative paths are resolved
+ *  against the current directory of the client.
+ */
+public class CompileClient {
+    public static void main (String[] args) throws IOException {
+	int port = CompileServer.DEFAULT_PORT;
+	boolean stop = false;
+	int i = 0;
+	for (; i < args.length; i++) {
+	    if ((args[i].equals ("-p") || args[i].equals ("--port")) && i + 1 < args.length)
+		port = Integer.parseInt (args[++i]);
+	    else if (args[i].equals ("--stop-server"))
+		stop = true;
+	    else
+		break;
+	}
+	String[] compileArgs = Arrays.copyOfRange (args, i, args.length);
+	if (!stop && compileArgs.length == 0) {
+	    System.err.println ("usage: java " + CompileClient.class.getName () +
+				" [-p|--port port] [--stop-server] <compilation arguments>");
+	    return;
+	}
+	System.exit (send (port, stop, compileArgs));
+    }
+
+    private static int send (int port, boolean stop, String[] args) throws IOException {
+	byte[] token = readToken (CompileServer.getTokenFile (port));
+	return send (port, token, stop, Paths.get ("").toAbsolutePath (), args, System.out, System.err);
+    }
+
+    /** Send one request and copy the output of the server to out and err.
+     * @return the exit status of the compilation
+     */
+    static int send (int port, byte[] token, boolean stop, Path dir, String[] args,
+		     PrintStream out, PrintStream err) throws IOException {
+	try (Socket s = new Socket (InetAddress.getLoopbackAddress (), port);
+	     DataOutputStream dos = new DataOutputStream (new BufferedOutputStream (s.getOutputStream ()));
+	     DataInputStream dis = new DataInputStream (new BufferedInputStream (s.getInputStream ()))) {
+	    dos.write (token);
+	    if (stop) {
+		dos.writeByte (CompileServer.STOP);
+	    } else {
+		dos.writeByte (CompileServer.COMPILE);
+		dos.writeUTF (dir.toString ());
+		dos.writeInt (args.length);
+		for (String a : args)
+		    dos.writeUTF (a);
+	    }
+	    dos.flush ();
+	    return readAnswer (dis, out, err);
+	}
+    }
+
+    static byte[] readToken (Path file) throws IOException {
+	if (!Files.exists (file))
+	    throw new IOException ("No compile server token found in: " + file);
+	byte[] token = Files.readAllBytes (file);
+	if (token.length != CompileServer.TOKEN_LENGTH)
+	    throw new IOException ("Bad compile server token in: " + file);
+	return token;
+    }
+
+    private static int readAnswer (DataInputStream dis, PrintStream out, PrintStream err)
+	throws IOException {
+	while (true) {
+	    byte type = dis.readByte ();
+	    switch (type) {
+	    case CompileServer.OUT:
+		copy (dis, out);
+		break;
+	    case CompileServer.ERR:
+		copy (dis, err);
+		break;
+	    case CompileServer.EXIT:
+		out.flush ();
+		err.flush ();
+		return dis.readInt ();
+	    default:
+		throw new IOException ("Unknown frame type: " + type);
+	    }
+	}
+    }
+
+    private static void copy (DataInputStream dis, PrintStream ps) throws IOException {
+	byte[] buf = new byte[dis.readInt ()];
+	dis.readFully (buf);
+	ps.write (buf, 0, buf.length);
+    }
+}
@@ -0,0 +1,276 @@
+package org.khelekore.parjac.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.khelekore.parjac.CompilationArguments;
+import org.khelekore.parjac.Compiler;
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.JavaGrammarHelper;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.parser.JavaTreeBuilder;
+import org.khelekore.parjac.parser.PredictCache;
+import org.khelekore.parjac.semantics.ClassResourceHolder;
+
+/** A long running compiler that keeps the grammar, the predict sets,
+ *  the tree builder and the boot class path around between compilations.
+ *
+ *  The server only listens on the loopback interface. Each request starts
+ *  with a random token that the server writes to a file in the home
+ *  directory of the user, readable only by that user, so that other local
+ *  users can not use the server. Then comes the command, a compile request
+ *  holds the working directory of the client and the normal batch arguments.
+ *  The answer is a sequence of frames with output, error output and
+ *  finally the exit status.
+ */
+public class CompileServer {
+    public static final int DEFAULT_PORT = 4711;
+
+    public static final byte COMPILE = 'C';
+    public static final byte STOP = 'S';
+
+    public static final byte OUT = 'O';
+    public static final byte ERR = 'E';
+    public static final byte EXIT = 'X';
+
+    // Length of the token, in hex digits
+    public static final int TOKEN_LENGTH = 64;
+    private static final int MAX_ARGUMENTS = 1024;
+    // Total length of the strings in a request, each string is also limited by readUTF
+    private static final int MAX_REQUEST_CHARS = 1 << 20;
+    // Compilations run at the same time and connections waiting for one
+    private static final int MAX_COMPILATIONS = 2;
+    private static final int MAX_WAITING = 16;
+    // The request has to be sent within this time
+    private static final int READ_TIMEOUT_MILLIS = 10_000;
+
+    private final ServerSocket serverSocket;
+    private final int port;
+    private final Path tokenFile;
+    private final byte[] token;
+    private final Grammar g;
+    private final PredictCache predictCache;
+    private final JavaTreeBuilder treeBuilder;
+    private final ClassResourceHolder bootClasses;
+    private final ThreadPoolExecutor executor =
+	new ThreadPoolExecutor (MAX_COMPILATIONS, MAX_COMPILATIONS, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<> (MAX_WAITING));
+    private volatile boolean running = true;
+
+    public static void main (String[] args) throws IOException {
+	int port = DEFAULT_PORT;
+	for (int i = 0; i < args.length; i++) {
+	    if ((args[i].equals ("-p") || args[i].equals ("--port")) && i + 1 < args.length) {
+		port = Integer.parseInt (args[++i]);
+	    } else {
+		System.err.println ("usage: java " + CompileServer.class.getName () +
+				    " [-p|--port port]");
+		return;
+	    }
+	}
+	CompileServer server = new CompileServer (port);
+	server.run ();
+    }
+
+    /** Get the file that holds the token of the server on the given port */
+    public static Path getTokenFile (int port) {
+	return getTokenFile (Paths.get (System.getProperty ("user.home")), port);
+    }
+
+    static Path getTokenFile (Path tokenDirectory, int port) {
+	return tokenDirectory.resolve (".parjac_server_" + port);
+    }
+
+    public CompileServer (int port) throws IOException {
+	this (port, Paths.get (System.getProperty ("user.home")));
+    }
+
+    /** Create a server that writes its token file to the given directory.
+     * @param port the port to listen on, 0 to use any free port
+     */
+    CompileServer (int port, Path tokenDirectory) throws IOException {
+	serverSocket = new ServerSocket (port, 50, InetAddress.getLoopbackAddress ());
+	this.port = serverSocket.getLocalPort ();
+	tokenFile = getTokenFile (tokenDirectory, this.port);
+	try {
+	    token = createToken (tokenFile);
+	} catch (IOException e) {
+	    serverSocket.close ();
+	    throw e;
+	}
+	long start = System.nanoTime ();
+	g = JavaGrammarHelper.getValidatedJavaGrammar (false);
+	predictCache = new PredictCache (g);
+	treeBuilder = new JavaTreeBuilder (g);
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	bootClasses = new ClassResourceHolder (Collections.emptyList (), diagnostics);
+	bootClasses.scanClassPath ();
+	long end = System.nanoTime ();
+	System.out.format ("Server setup, time taken: %.3f millis\n", (end - start) / 1.0e6);
+    }
+
+    /** Get the port the server listens on */
+    public int getPort () {
+	return port;
+    }
+
+    public void run () throws IOException {
+	try (ServerSocket ss = serverSocket) {
+	    System.out.println ("Listening on: " + ss.getLocalSocketAddress ());
+	    while (running) {
+		Socket s = ss.accept ();
+		if (!running) {
+		    s.close ();
+		    break;
+		}
+		try {
+		    executor.execute (() -> handle (s));
+		} catch (RejectedExecutionException e) {
+		    System.err.println ("Too many compile requests, closing connection");
+		    s.close ();
+		}
+	    }
+	} finally {
+	    executor.shutdown ();
+	    Files.deleteIfExists (tokenFile);
+	}
+    }
+
+    /** Write a new random token to the given file, only the owner may read it */
+    private static byte[] createToken (Path file) throws IOException {
+	byte[] random = new byte[TOKEN_LENGTH / 2];
+	new SecureRandom ().nextBytes (random);
+	StringBuilder sb = new StringBuilder (TOKEN_LENGTH);
+	for (byte b : random)
+	    sb.append (String.format ("%02x", b & 0xff));
+	byte[] token = sb.toString ().getBytes (StandardCharsets.US_ASCII);
+	// A new file, so that the permissions are set before anything is written
+	Files.deleteIfExists (file);
+	try {
+	    Files.createFile (file, PosixFilePermissions.asFileAttribute (PosixFilePermissions.fromString ("rw-------")));
+	} catch (UnsupportedOperationException e) {
+	    // Not a posix file system, rely on the permissions of the home directory
+	    Files.createFile (file);
+	}
+	Files.write (file, token);
+	return token;
+    }
+
+    private void handle (Socket s) {
+	try (Socket socket = s;
+	     DataInputStream dis = new DataInputStream (new BufferedInputStream (socket.getInputStream ()));
+	     DataOutputStream dos = new DataOutputStream (new BufferedOutputStream (socket.getOutputStream ()))) {
+	    socket.setSoTimeout (READ_TIMEOUT_MILLIS);
+	    byte[] clientToken = new byte[TOKEN_LENGTH];
+	    dis.readFully (clientToken);
+	    if (!MessageDigest.isEqual (clientToken, token)) {
+		System.err.println ("Wrong token from client, closing connection");
+		return;
+	    }
+	    byte command = dis.readByte ();
+	    if (command == STOP) {
+		running = false;
+		writeExit (dos, 0);
+		// wake up the accept loop
+		new Socket (InetAddress.getLoopbackAddress (), port).close ();
+		return;
+	    }
+	    if (command != COMPILE)
+		throw new IOException ("Unknown command: " + command);
+	    String dir = dis.readUTF ();
+	    int numArgs = dis.readInt ();
+	    if (numArgs < 0 || numArgs > MAX_ARGUMENTS)
+		throw new IOException ("Bad number of arguments: " + numArgs);
+	    int requestChars = dir.length ();
+	    String[] args = new String[numArgs];
+	    for (int i = 0; i < args.length; i++) {
+		args[i] = dis.readUTF ();
+		requestChars += args[i].length ();
+		if (requestChars > MAX_REQUEST_CHARS)
+		    throw new IOException ("Too large request");
+	    }
+	    socket.setSoTimeout (0);
+	    Path baseDir = Paths.get (dir);
+	    PrintStream out = new PrintStream (new FrameOutputStream (dos, OUT), false, "UTF-8");
+	    PrintStream err = new PrintStream (new FrameOutputStream (dos, ERR), false, "UTF-8");
+	    int status = compile (baseDir, args, out, err);
+	    out.flush ();
+	    err.flush ();
+	    writeExit (dos, status);
+	} catch (IOException | RuntimeException e) {
+	    System.err.println ("Failed to handle compile request: " + e);
+	}
+    }
+
+    private int compile (Path baseDir, String[] args, PrintStream out, PrintStream err) {
+	long startTime = System.nanoTime ();
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	Main main = new Main (diagnostics, baseDir, out, err);
+	CompilationArguments settings = main.parseArgs (args);
+	if (settings != null && !diagnostics.hasError ()) {
+	    Compiler c = new Compiler (diagnostics, g, predictCache, treeBuilder,
+				       bootClasses, settings, out);
+	    c.compile ();
+	    main.reportTotalTime (startTime);
+	}
+	main.printDiagnostics ();
+	return diagnostics.hasError () ? 1 : 0;
+    }
+
+    private static void writeExit (DataOutputStream dos, int status) throws IOException {
+	synchronized (dos) {
+	    dos.writeByte (EXIT);
+	    dos.writeInt (status);
+	    dos.flush ();
+	}
+    }
+
+    /** Write each chunk of output as a tagged frame */
+    private static class FrameOutputStream extends OutputStream {
+	private final DataOutputStream dos;
+	private final byte type;
+
+	public FrameOutputStream (DataOutputStream dos, byte type) {
+	    this.dos = dos;
+	    this.type = type;
+	}
+
+	@Override public void write (int b) throws IOException {
+	    write (new byte[] { (byte)b }, 0, 1);
+	}
+
+	@Override public void write (byte[] b, int off, int len) throws IOException {
+	    synchronized (dos) {
+		dos.writeByte (type);
+		dos.writeInt (len);
+		dos.write (b, off, len);
+	    }
+	}
+
+	@Override public void flush () throws IOException {
+	    synchronized (dos) {
+		dos.flush ();
+	    }
+	}
+    }
+}
@@ -0,0 +1,24 @@
+package org.khelekore.parjac.batch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.khelekore.parjac.JavaGrammarHelper;
+
+/** Program to write the pre built grammar image, run as part of the build.
+ */
+public class GrammarImageWriter {
+    public static void main (String[] args) throws IOException {
+	if (args.length != 1) {
+	    System.err.println ("usage: java " + GrammarImageWriter.class.getName () + " <output file>");
+	    return;
+	}
+	Path output = Paths.get (args[0]);
+	Path dir = output.toAbsolutePath ().getParent ();
+	if (dir != null)
+	    Files.createDirectories (dir);
+	JavaGrammarHelper.writeGrammarImage (output);
+    }
+}
@@ -2,6 +2,7 @@ package org.khelekore.parjac.batch;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -26,23 +27,33 @@ import org.khelekore.parjac.grammar.Grammar;
  */
 public class Main {
     private final CompilerDiagnosticCollector diagnostics;
+    private final Path baseDir;
+    private final PrintStream out;
+    private final PrintStream err;
 
     public static void main (String[] args) throws IOException {
 	if (args.length == 0) {
-	    usage ();
+	    usage (System.err);
 	    return;
 	}
 
 	CompilerDiagnosticCollector collector = new CompilerDiagnosticCollector ();
 	Main main = new Main (collector);
 	main.compile (args);
-	Locale locale = Locale.getDefault ();
-	collector.getDiagnostics ().sorted (new DiagnosticsSorter ()).
-	    forEach (d -> System.err.println (d.getMessage (locale)));
+	main.printDiagnostics ();
     }
 
     public Main (CompilerDiagnosticCollector diagnostics) {
+	this (diagnostics, Paths.get (""), System.out, System.err);
+    }
+
+    /** Create a Main that resolves relative paths against baseDir and prints to the given streams */
+    public Main (CompilerDiagnosticCollector diagnostics, Path baseDir,
+		 PrintStream out, PrintStream err) {
 	this.diagnostics = diagnostics;
+	this.baseDir = baseDir;
+	this.out = out;
+	this.err = err;
     }
 
     public void compile (String[] args) throws IOException {
@@ -57,28 +68,49 @@ public class Main {
 	Grammar g = JavaGrammarHelper.getValidatedJavaGrammar (settings.getDebug ());
 	Compiler c = new Compiler (diagnostics, g, settings);
 	c.compile ();
+	reportTotalTime (startTime);
+    }
+
+    public void reportTotalTime (long startTime) {
 	long endTime = System.nanoTime ();
-	System.out.printf ("Time taken: %.3f seconds\n", ((endTime - startTime) / 1e9));
+	out.printf ("Time taken: %.3f seconds\n", ((endTime - startTime) / 1e9));
     }
 
-    private CompilationArguments parseArgs (String[] args) {
+    public void printDiagnostics () {
+	Locale locale = Locale.getDefault ();
+	diagnostics.getDiagnostics ().sorted (new DiagnosticsSorter ()).
+	    forEach (d -> err.println (d.getMessage (locale)));
+    }
+
+    /** Parse the command line arguments.
+     * @return the settings or null if the arguments were invalid or only help was requested
+     */
+    public CompilationArguments parseArgs (String[] args) {
 	List<Path> srcDirs = new ArrayList<> ();
 	BytecodeWriter output = null;
 	Charset encoding = Charset.forName ("UTF-8");
 	List<Path> classPathEntries = new ArrayList<> ();
 	boolean reportTime = true;
 	boolean debug = false;
+	boolean incremental = false;
+	boolean packedParser = false;
+	int parallelParseTokens = 0;
+	boolean streamingParser = false;
+	boolean hybridParser = false;
+	boolean mapInput = false;
+	Path classPathIndexDirectory = null;
+	Path syntaxTreeCacheDirectory = null;
 	for (int i = 0; i < args.length; i++) {
 	    switch (args[i]) {
 	    case "-i":
 	    case "--input":
 		if (hasFollowingArgExists (args, i))
-		    srcDirs.add (Paths.get (args[++i]));
+		    srcDirs.add (baseDir.resolve (args[++i]));
 	        break;
 	    case "-d":
 	    case "--destination":
 		if (hasFollowingArgExists (args, i))
-		    output = new FileBytecodeWriter (Paths.get (args[++i]));
+		    output = new FileBytecodeWriter (baseDir.resolve (args[++i]));
 	        break;
 	    case "--encoding":
 		if (hasFollowingArgExists (args, i)) {
@@ -96,9 +128,44 @@ public class Main {
 	    case "--debug":
 		debug = true;
 		break;
+	    case "--incremental":
+		incremental = true;
+		break;
+	    case "--classpath-index":
+		if (hasFollowingArgExists (args, i))
+		    classPathIndexDirectory = baseDir.resolve (args[++i]);
+		break;
+	    case "--syntax-tree-cache":
+		if (hasFollowingArgExists (args, i))
+		    syntaxTreeCacheDirectory = baseDir.resolve (args[++i]);
+		break;
+	    case "--packed-parser":
+		packedParser = true;
+		break;
+	    case "--parallel-parse":
+		if (hasFollowingArgExists (args, i)) {
+		    String s = args[++i];
+		    try {
+			parallelParseTokens = Integer.parseInt (s);
+		    } catch (NumberFormatException e) {
+			diagnostics.report (new NoSourceDiagnostics ("Invalid number of tokens: %s", s));
+			return null;
+		    }
+		    packedParser = true;
+		}
+		break;
+	    case "--streaming-parse":
+		streamingParser = true;
+		break;
+	    case "--hybrid-parser":
+		hybridParser = true;
+		break;
+	    case "--map-input":
+		mapInput = true;
+		break;
 	    case "-h":
 	    case "--help":
-		usage ();
+		usage (err);
 		return null;
 	    case "-cp":
 	    case "-classpath":
@@ -113,12 +180,14 @@ public class Main {
 		return null;
 	    }
 	}
-	SourceProvider sp = new FileSourceProvider (srcDirs, encoding);
+	SourceProvider sp = new FileSourceProvider (srcDirs, encoding, mapInput);
 	CompilationArguments ca =
-	    new CompilationArguments (sp, output, classPathEntries, reportTime, debug);
+	    new CompilationArguments (sp, output, classPathEntries, reportTime, debug, incremental,
+				      packedParser, parallelParseTokens, streamingParser,
+				      hybridParser, classPathIndexDirectory, syntaxTreeCacheDirectory);
 	ca.validate (diagnostics);
 	if (diagnostics.hasError ()) {
-	    System.err.println ("Invalid arguments, use \"--help\" for usage.\nProblems found:");
+	    err.println ("Invalid arguments, use \"--help\" for usage.\nProblems found:");
 	    return null;
 	}
 	return ca;
@@ -144,7 +213,7 @@ public class Main {
 								 s, classpath));
 		}
 	    } else {
-		Path p = Paths.get (s);
+		Path p = baseDir.resolve (s);
 		if (!Files.exists (p)) {
 		    diagnostics.report (new NoSourceDiagnostics ("Non existing classpath: %s (%s)",
 								 s, classpath));
@@ -156,7 +225,7 @@ public class Main {
     }
 
     private void findAllJars (List<Path> classPathEntries, String dir) throws IOException {
-	Path parent = Paths.get (dir).getParent (); // remove the * part
+	Path parent = baseDir.resolve (dir).getParent (); // remove the * part
 	Files.list (parent).filter (p -> isJar (p)).forEach (p -> classPathEntries.add (p));
     }
 
@@ -165,11 +234,14 @@ public class Main {
 	    p.getFileName ().toString ().toLowerCase ().endsWith (".jar");
     }
 
-    private static void usage () {
-	System.err.println ("usage: java " + Main.class.getName () +
+    private static void usage (PrintStream ps) {
+	ps.println ("usage: java " + Main.class.getName () +
 			    " [-cp <path>] [-classpath <path>]" + // same thing
 			    " [--encoding encoding]" +
 			    " [-i|--input srcdir]+ [-d|--destination dir]" +
+			    " [--incremental] [--classpath-index dir] [--packed-parser]" +
+			    " [--parallel-parse tokens] [--streaming-parse] [--hybrid-parser]" +
+			    " [--map-input] [--syntax-tree-cache dir]" +
 			    " [--no-timing] [--debug] [-h|--help]");
     }
 }
\ No newline at end of file
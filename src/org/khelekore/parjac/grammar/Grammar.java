@@ -2,6 +2,7 @@ package org.khelekore.parjac.grammar;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -14,6 +15,9 @@ import java.util.stream.Collectors;
 import org.khelekore.parjac.lexer.Token;
 
 public class Grammar {
+    // Tokens use their ordinal as symbol id, rule names are numbered after the tokens
+    private static final int NUM_TOKENS = Token.values ().length;
+
     // Output warnings
     private final boolean debug;
 
@@ -29,7 +33,12 @@ public class Grammar {
     private final Map<ComplexPart, RulePart> zomRules = new HashMap<> ();
     private int zomCounter = 0; // used when generating zomRules
 
-    private Set<Rule> clearableRules = new HashSet<> ();
+    // Indexed by rule id
+    private BitSet clearableRules = new BitSet ();
+    private final Map<String, Integer> ruleNameToSymbol = new HashMap<> ();
+
+    // Precalculated predict sets, only set for grammars read from an image
+    private Map<String, List<Rule>> predictSets;
 
     public Grammar (boolean debug) {
 	this.debug = debug;
@@ -45,6 +54,10 @@ public class Grammar {
 	zomCounter = toCopy.zomCounter;
     }
 
+    boolean getDebug () {
+	return debug;
+    }
+
     public void validateRules () {
 	Set<String> validRules =
 	    rules.stream ().map (r -> r.getName ()).collect (Collectors.toSet ());
@@ -67,6 +80,43 @@ public class Grammar {
 	    throw new IllegalStateException ("no Goal rule defined");
 	if (ls.size () > 1)
 	    throw new IllegalStateException ("Multiple Goal rules defined");
+	assignSymbols ();
+    }
+
+    /** Give each rule name a symbol id and let the rules know the symbol ids of their parts.
+     *  Rule names get their ids in order of first definition so that rules shared
+     *  with a copied grammar keep their ids.
+     */
+    void assignSymbols () {
+	ruleNameToSymbol.clear ();
+	for (Rule r : rules)
+	    ruleNameToSymbol.putIfAbsent (r.getName (), NUM_TOKENS + ruleNameToSymbol.size ());
+	for (Rule r : rules) {
+	    int[] symbols = new int[r.size ()];
+	    for (int i = 0; i < symbols.length; i++) {
+		SimplePart sp = r.getRulePart (i);
+		if (sp.isTokenPart ())
+		    symbols[i] = ((Token)sp.getId ()).ordinal ();
+		else
+		    symbols[i] = ruleNameToSymbol.get ((String)sp.getId ());
+	    }
+	    r.setSymbols (ruleNameToSymbol.get (r.getName ()), symbols);
+	}
+    }
+
+    /** Get the number of symbols, tokens and rule names */
+    public int getNumberOfSymbols () {
+	return NUM_TOKENS + ruleNameToSymbol.size ();
+    }
+
+    /** Get the symbol id of a rule name */
+    public int getRuleSymbol (String name) {
+	return ruleNameToSymbol.get (name);
+    }
+
+    /** Check if the given symbol id is a token */
+    public static boolean isToken (int symbol) {
+	return symbol < NUM_TOKENS;
     }
 
     public void addRule (String name, Object... os) {
@@ -98,11 +148,31 @@ public class Grammar {
     /** Add a rule that has completed some partial step so that states can be cleared up.
      */
     public void addClearableRule (String name) {
-	clearableRules.addAll (getRules (name).getRules ());
+	getRules (name).getRules ().forEach (r -> addClearableRule (r));
+    }
+
+    void addClearableRule (Rule r) {
+	clearableRules.set (r.getId ());
     }
 
     public boolean isClearableRule (Rule r) {
-	return clearableRules.contains (r);
+	return clearableRules.get (r.getId ());
+    }
+
+    /** Get the clearable rules, ordered by id */
+    List<Rule> getClearableRules () {
+	return clearableRules.stream ().mapToObj (rules::get).collect (Collectors.toList ());
+    }
+
+    /** Get the precalculated predict sets, rule name to predicted rules.
+     * @return the predict sets or null if they have to be calculated
+     */
+    public Map<String, List<Rule>> getPredictSets () {
+	return predictSets;
+    }
+
+    void setPredictSets (Map<String, List<Rule>> predictSets) {
+	this.predictSets = predictSets;
     }
 
     private static List<List<SimplePart>> split (ComplexPart[] parts) {
@@ -113,7 +183,7 @@ public class Grammar {
 	return ret;
     }
 
-    private void addRule (String name, List<SimplePart> parts) {
+    void addRule (String name, List<SimplePart> parts) {
 	// Remove duplicate entries (ZOM_x ZOM_x).
 	Iterator<SimplePart> i = parts.iterator ();
 	SimplePart p = null;
@@ -124,7 +194,14 @@ public class Grammar {
 	    else
 		p = c;
 	}
-	Rule r = new Rule (name, rules.size (), parts);
+	addRule (name, parts, null);
+    }
+
+    /** Add a rule as it is, without removing any parts
+     * @param original the rule this was made from, null if it is an original rule
+     */
+    void addRule (String name, List<SimplePart> parts, Rule original) {
+	Rule r = new Rule (name, rules.size (), parts, original);
 	// Do not add duplicate rules, they cause conflicts
 	if (ruleSet.contains (r))
 	    return;
@@ -139,6 +216,12 @@ public class Grammar {
 	rc.getRules ().add (r);
     }
 
+    /** Let this grammar reuse the zero or more rules of the other grammar */
+    void copyZeroOrMoreRules (Grammar other) {
+	zomRules.putAll (other.zomRules);
+	zomCounter = other.zomCounter;
+    }
+
     public ComplexPart zeroOrOne (String rule) {
 	return new ZeroOrOneRulePart (new RulePart (rule));
     }
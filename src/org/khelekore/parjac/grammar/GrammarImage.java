@@ -0,0 +1,237 @@
+package org.khelekore.parjac.grammar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.khelekore.parjac.lexer.Token;
+
+/** A binary image of a validated grammar and its predict sets.
+ *
+ *  The image is built once at build time so that startup does not have to
+ *  read the text grammar, expand the complex rule parts and calculate the
+ *  predict sets. The image holds a checksum of the text grammar so that a
+ *  stale image is never used.
+ *
+ *  Layout, all numbers are big endian ints unless noted:
+ *  <pre>
+ *  magic, version, checksum (long)
+ *  token names: count, strings
+ *  rule names: count, strings
+ *  original rules: count, (name index, part count, parts)
+ *  rules, in id order: count, (name index, original index or -1, part count, parts)
+ *  	a part &gt;= 0 is a rule name index, a part &lt; 0 is -(token index + 1)
+ *  clearable rules: count, rule ids
+ *  predict sets: count, (name index, rule count, rule ids)
+ *  </pre>
+ *  Strings are stored as a short length followed by UTF-8 bytes.
+ */
+public class GrammarImage {
+    private static final int MAGIC = 0x504a4749; // PJGI
+    // Increase if the format, the rules added outside of the text grammar or the
+    // GrammarOptimizer changes
+    private static final int VERSION = 2;
+
+    /** Write the image of a validated grammar
+     * @param g the grammar to store
+     * @param predictSets the rules predicted by each rule name
+     * @param checksum the checksum of the text grammar
+     * @param os the stream to write to
+     */
+    public static void write (Grammar g, Map<String, ? extends Collection<Rule>> predictSets,
+			      long checksum, OutputStream os) throws IOException {
+	DataOutputStream dos = new DataOutputStream (os);
+	dos.writeInt (MAGIC);
+	dos.writeInt (VERSION);
+	dos.writeLong (checksum);
+
+	Token[] tokens = Token.values ();
+	dos.writeInt (tokens.length);
+	for (Token t : tokens)
+	    writeString (dos, t.name ());
+
+	List<String> names = new ArrayList<> (getAllNames (g));
+	Map<String, Integer> nameToIndex = new HashMap<> ();
+	dos.writeInt (names.size ());
+	for (String name : names) {
+	    nameToIndex.put (name, nameToIndex.size ());
+	    writeString (dos, name);
+	}
+
+	List<Rule> rules = g.getRules ();
+	List<Rule> originals = getOptimizedOriginals (g);
+	Map<Rule, Integer> originalToIndex = new HashMap<> ();
+	dos.writeInt (originals.size ());
+	for (Rule r : originals) {
+	    originalToIndex.put (r, originalToIndex.size ());
+	    writeRule (dos, r, nameToIndex);
+	}
+
+	dos.writeInt (rules.size ());
+	for (Rule r : rules) {
+	    dos.writeInt (nameToIndex.get (r.getName ()));
+	    dos.writeInt (r.getOriginal () == r ? -1 : originalToIndex.get (r.getOriginal ()));
+	    dos.writeInt (r.size ());
+	    writeParts (dos, r, nameToIndex);
+	}
+
+	List<Rule> clearable = g.getClearableRules ();
+	dos.writeInt (clearable.size ());
+	for (Rule r : clearable)
+	    dos.writeInt (r.getId ());
+
+	Map<String, ? extends Collection<Rule>> sortedPredicts = new TreeMap<> (predictSets);
+	dos.writeInt (sortedPredicts.size ());
+	for (Map.Entry<String, ? extends Collection<Rule>> me : sortedPredicts.entrySet ()) {
+	    dos.writeInt (nameToIndex.get (me.getKey ()));
+	    int[] ids = me.getValue ().stream ().mapToInt (Rule::getId).sorted ().toArray ();
+	    dos.writeInt (ids.length);
+	    for (int id : ids)
+		dos.writeInt (id);
+	}
+	dos.flush ();
+    }
+
+    /** Get the image as a byte array */
+    public static byte[] toBytes (Grammar g, Map<String, ? extends Collection<Rule>> predictSets,
+				  long checksum) throws IOException {
+	ByteArrayOutputStream baos = new ByteArrayOutputStream ();
+	write (g, predictSets, checksum, baos);
+	return baos.toByteArray ();
+    }
+
+    private static void writeRule (DataOutputStream dos, Rule r, Map<String, Integer> nameToIndex)
+	throws IOException {
+	dos.writeInt (nameToIndex.get (r.getName ()));
+	dos.writeInt (r.size ());
+	writeParts (dos, r, nameToIndex);
+    }
+
+    private static void writeParts (DataOutputStream dos, Rule r, Map<String, Integer> nameToIndex)
+	throws IOException {
+	for (SimplePart sp : r.getParts ()) {
+	    if (sp.isTokenPart ())
+		dos.writeInt (-(((Token)sp.getId ()).ordinal () + 1));
+	    else
+		dos.writeInt (nameToIndex.get ((String)sp.getId ()));
+	}
+    }
+
+    /** Get the original rules of the rules that were changed by the GrammarOptimizer */
+    private static List<Rule> getOptimizedOriginals (Grammar g) {
+	Set<Rule> seen = new HashSet<> ();
+	List<Rule> ret = new ArrayList<> ();
+	for (Rule r : g.getRules ())
+	    if (r.getOriginal () != r && seen.add (r.getOriginal ()))
+		ret.add (r.getOriginal ());
+	return ret;
+    }
+
+    private static Set<String> getAllNames (Grammar g) {
+	Set<String> ret = new TreeSet<> ();
+	for (Rule r : g.getRules ()) {
+	    ret.add (r.getName ());
+	    ret.addAll (r.getSubrules ());
+	}
+	for (Rule r : getOptimizedOriginals (g)) {
+	    ret.add (r.getName ());
+	    ret.addAll (r.getSubrules ());
+	}
+	return ret;
+    }
+
+    /** Read a grammar from an image.
+     * @param buf the image data
+     * @param checksum the checksum of the current text grammar
+     * @param debug the debug flag of the created grammar
+     * @return the grammar, with predict sets, or null if the image is stale or broken
+     */
+    public static Grammar read (ByteBuffer buf, long checksum, boolean debug) {
+	try {
+	    if (buf.getInt () != MAGIC || buf.getInt () != VERSION || buf.getLong () != checksum)
+		return null;
+
+	    Token[] tokens = new Token[buf.getInt ()];
+	    for (int i = 0; i < tokens.length; i++)
+		tokens[i] = Token.valueOf (readString (buf));
+
+	    String[] names = new String[buf.getInt ()];
+	    for (int i = 0; i < names.length; i++)
+		names[i] = readString (buf);
+
+	    Rule[] originals = new Rule[buf.getInt ()];
+	    for (int i = 0; i < originals.length; i++) {
+		String name = names[buf.getInt ()];
+		originals[i] = new Rule (name, -1, readParts (buf, tokens, names));
+	    }
+
+	    Grammar g = new Grammar (debug);
+	    int numRules = buf.getInt ();
+	    for (int i = 0; i < numRules; i++) {
+		String name = names[buf.getInt ()];
+		int original = buf.getInt ();
+		g.addRule (name, readParts (buf, tokens, names), original < 0 ? null : originals[original]);
+	    }
+	    List<Rule> rules = g.getRules ();
+	    // Duplicate rules are never stored, so ids have to match
+	    if (rules.size () != numRules)
+		return null;
+
+	    g.assignSymbols ();
+
+	    int numClearable = buf.getInt ();
+	    for (int i = 0; i < numClearable; i++)
+		g.addClearableRule (rules.get (buf.getInt ()));
+
+	    int numPredicts = buf.getInt ();
+	    Map<String, List<Rule>> predictSets = new HashMap<> (numPredicts * 2);
+	    for (int i = 0; i < numPredicts; i++) {
+		String name = names[buf.getInt ()];
+		int size = buf.getInt ();
+		List<Rule> ls = new ArrayList<> (size);
+		for (int j = 0; j < size; j++)
+		    ls.add (rules.get (buf.getInt ()));
+		predictSets.put (name, ls);
+	    }
+	    g.setPredictSets (predictSets);
+	    return g;
+	} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+	    return null;
+	}
+    }
+
+    private static List<SimplePart> readParts (ByteBuffer buf, Token[] tokens, String[] names) {
+	SimplePart[] parts = new SimplePart[buf.getInt ()];
+	for (int j = 0; j < parts.length; j++) {
+	    int p = buf.getInt ();
+	    parts[j] = p < 0 ? new TokenPart (tokens[-p - 1]) : new RulePart (names[p]);
+	}
+	return new ArrayList<> (Arrays.asList (parts));
+    }
+
+    private static void writeString (DataOutputStream dos, String s) throws IOException {
+	byte[] data = s.getBytes (StandardCharsets.UTF_8);
+	dos.writeShort (data.length);
+	dos.write (data);
+    }
+
+    private static String readString (ByteBuffer buf) {
+	byte[] data = new byte[buf.getShort () & 0xffff];
+	buf.get (data);
+	return new String (data, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,231 @@
+package org.khelekore.parjac.grammar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Simplifies a grammar before it is validated.
+ *
+ *  Expanding '?', '*' and alternatives gives many rules that only pass on
+ *  what their parts built, like "Type -&gt; ReferenceType -&gt; ClassType" or
+ *  "Literal -&gt; 'int_literal'". Each such rule costs the earley parsers an
+ *  extra prediction and an extra completion. Rule names that have no tree
+ *  builder are inlined into the rules that use them when that does not grow
+ *  the grammar: when every use is a unit rule, when there is only one use or
+ *  when the name has only one alternative. Zero or more rules that end up
+ *  with the same alternatives are then merged.
+ *
+ *  Each rule remembers the rule it was made from, tree builders are given
+ *  that rule so they see the parts they were written for. The parts that an
+ *  inlined rule passed on are still there, in the same order.
+ */
+public class GrammarOptimizer {
+    private static final String ZOM_PREFIX = "ZOM_";
+
+    private final Grammar grammar;
+    private final Set<String> keep;
+    // The rules in id order, inlining replaces a rule with its expansions in place
+    private final List<WorkRule> rules = new ArrayList<> ();
+
+    private int inlinedNames;
+    private int mergedNames;
+
+    /** Create an optimizer for the given grammar
+     * @param g the grammar, not yet validated
+     * @param keep the rule names that may not be inlined, the names that have tree builders
+     */
+    public GrammarOptimizer (Grammar g, Set<String> keep) {
+	grammar = g;
+	this.keep = new HashSet<> (keep);
+	for (Rule r : g.getClearableRules ())
+	    this.keep.add (r.getName ());
+	for (Rule r : g.getRules ())
+	    rules.add (new WorkRule (r.getName (), r.getParts (), r.getOriginal ()));
+    }
+
+    /** Inline and merge the rules and build the new grammar, the grammar still has to be validated */
+    public Grammar optimize () {
+	boolean changed;
+	do {
+	    changed = false;
+	    for (String name : getNamesInOrder ()) {
+		if (canInline (name)) {
+		    inline (name);
+		    inlinedNames++;
+		    changed = true;
+		}
+	    }
+	    changed |= mergeZeroOrMoreRules ();
+	} while (changed);
+
+	Grammar ret = new Grammar (grammar.getDebug ());
+	ret.copyZeroOrMoreRules (grammar);
+	for (WorkRule wr : rules)
+	    ret.addRule (wr.name, wr.parts, wr.original);
+	for (Rule r : grammar.getClearableRules ())
+	    ret.addClearableRule (r.getName ());
+	return ret;
+    }
+
+    /** Get the number of rule names that were inlined */
+    public int getNumberOfInlinedNames () {
+	return inlinedNames;
+    }
+
+    /** Get the number of zero or more rule names that were merged with other names */
+    public int getNumberOfMergedNames () {
+	return mergedNames;
+    }
+
+    private List<String> getNamesInOrder () {
+	Set<String> names = new HashSet<> ();
+	List<String> ret = new ArrayList<> ();
+	for (WorkRule wr : rules)
+	    if (names.add (wr.name))
+		ret.add (wr.name);
+	return ret;
+    }
+
+    private boolean canInline (String name) {
+	if (keep.contains (name) || name.startsWith (ZOM_PREFIX))
+	    return false;
+	int alternatives = 0;
+	for (WorkRule wr : rules) {
+	    if (!wr.name.equals (name))
+		continue;
+	    // Recursive rules can not be inlined and the parsers only handle empty goal rules
+	    if (wr.parts.isEmpty () || wr.uses (name) > 0)
+		return false;
+	    alternatives++;
+	}
+	int uses = 0;
+	boolean onlyUnitUses = true;
+	boolean onlyFirstUses = true;
+	for (WorkRule wr : rules) {
+	    int u = wr.uses (name);
+	    if (u == 0)
+		continue;
+	    uses += u;
+	    if (wr.parts.size () > 1)
+		onlyUnitUses = false;
+	    if (u > 1 || !isRule (wr.parts.get (0), name))
+		onlyFirstUses = false;
+	}
+	// Names without uses are goal rules
+	if (uses == 0)
+	    return false;
+	if (alternatives == 1)
+	    return true;
+	// Each alternative would have to go through the parts before the inlined name
+	return onlyFirstUses && (onlyUnitUses || uses == 1);
+    }
+
+    private void inline (String name) {
+	List<List<SimplePart>> alternatives = new ArrayList<> ();
+	for (WorkRule wr : rules)
+	    if (wr.name.equals (name))
+		alternatives.add (wr.parts);
+	List<WorkRule> result = new ArrayList<> (rules.size ());
+	for (WorkRule wr : rules) {
+	    if (wr.name.equals (name))
+		continue;
+	    if (wr.uses (name) == 0) {
+		result.add (wr);
+		continue;
+	    }
+	    List<List<SimplePart>> expanded = new ArrayList<> ();
+	    expanded.add (new ArrayList<> ());
+	    for (SimplePart sp : wr.parts) {
+		if (isRule (sp, name)) {
+		    List<List<SimplePart>> next = new ArrayList<> ();
+		    for (List<SimplePart> ls : expanded) {
+			for (List<SimplePart> alt : alternatives) {
+			    List<SimplePart> e = new ArrayList<> (ls);
+			    e.addAll (alt);
+			    next.add (e);
+			}
+		    }
+		    expanded = next;
+		} else {
+		    for (List<SimplePart> ls : expanded)
+			ls.add (sp);
+		}
+	    }
+	    for (List<SimplePart> ls : expanded)
+		result.add (new WorkRule (wr.name, ls, wr.original));
+	}
+	rules.clear ();
+	rules.addAll (result);
+    }
+
+    /** Merge zero or more rules that have the same alternatives
+     * @return true if some rules were merged
+     */
+    private boolean mergeZeroOrMoreRules () {
+	Map<String, Set<List<SimplePart>>> zoms = new LinkedHashMap<> ();
+	for (WorkRule wr : rules) {
+	    if (wr.name.startsWith (ZOM_PREFIX))
+		zoms.computeIfAbsent (wr.name, k -> new HashSet<> ()).add (wr.getSelfFreeParts ());
+	}
+	Map<Set<List<SimplePart>>, String> seen = new HashMap<> ();
+	Map<String, String> replacements = new HashMap<> ();
+	for (Map.Entry<String, Set<List<SimplePart>>> me : zoms.entrySet ()) {
+	    String first = seen.putIfAbsent (me.getValue (), me.getKey ());
+	    if (first != null)
+		replacements.put (me.getKey (), first);
+	}
+	if (replacements.isEmpty ())
+	    return false;
+	mergedNames += replacements.size ();
+	List<WorkRule> result = new ArrayList<> (rules.size ());
+	for (WorkRule wr : rules) {
+	    if (replacements.containsKey (wr.name))
+		continue;
+	    List<SimplePart> parts = new ArrayList<> (wr.parts.size ());
+	    for (SimplePart sp : wr.parts) {
+		String r = sp.isRulePart () ? replacements.get ((String)sp.getId ()) : null;
+		parts.add (r == null ? sp : new RulePart (r));
+	    }
+	    result.add (new WorkRule (wr.name, parts, wr.original));
+	}
+	rules.clear ();
+	rules.addAll (result);
+	return true;
+    }
+
+    private static boolean isRule (SimplePart sp, String name) {
+	return sp.isRulePart () && sp.getId ().equals (name);
+    }
+
+    private static class WorkRule {
+	private final String name;
+	private final List<SimplePart> parts;
+	private final Rule original;
+
+	public WorkRule (String name, List<SimplePart> parts, Rule original) {
+	    this.name = name;
+	    this.parts = parts;
+	    this.original = original;
+	}
+
+	public int uses (String rule) {
+	    int ret = 0;
+	    for (SimplePart sp : parts)
+		if (isRule (sp, rule))
+		    ret++;
+	    return ret;
+	}
+
+	/** Get the parts with the own name replaced so that equal rules with different names match */
+	public List<SimplePart> getSelfFreeParts () {
+	    List<SimplePart> ret = new ArrayList<> (parts.size ());
+	    for (SimplePart sp : parts)
+		ret.add (isRule (sp, name) ? null : sp);
+	    return ret;
+	}
+    }
+}
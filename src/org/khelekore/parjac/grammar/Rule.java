@@ -9,11 +9,24 @@ public class Rule {
     private final int id;
     private final List<SimplePart> parts;
     private final int hc;
+    // The rule this was made from by the grammar optimizer, this rule if it was not changed
+    private final Rule original;
+    // Symbol ids, set when the grammar is validated
+    private int nameSymbol;
+    private int[] symbols;
 
     public Rule (String name, int id, List<SimplePart> parts) {
+	this (name, id, parts, null);
+    }
+
+    /** Create a rule that was made from another rule
+     * @param original the rule as it was written in the grammar, null if it is this rule
+     */
+    public Rule (String name, int id, List<SimplePart> parts, Rule original) {
 	this.name = name;
 	this.id = id;
 	this.parts = parts;
+	this.original = original == null ? this : original;
 	hc = name.hashCode () * 31 + parts.hashCode ();
     }
 
@@ -29,6 +42,28 @@ public class Rule {
 	return id;
     }
 
+    /** Get the rule as it was written in the grammar, before rules were inlined into it.
+     *  Tree builders get the original rule so that they find the parts they expect.
+     */
+    public Rule getOriginal () {
+	return original;
+    }
+
+    void setSymbols (int nameSymbol, int[] symbols) {
+	this.nameSymbol = nameSymbol;
+	this.symbols = symbols;
+    }
+
+    /** Get the symbol id of the name of this rule */
+    public int getNameSymbol () {
+	return nameSymbol;
+    }
+
+    /** Get the symbol id of the part at the given position */
+    public int getSymbol (int pos) {
+	return symbols[pos];
+    }
+
     public Collection<String> getSubrules () {
 	return parts.stream ().
 	    flatMap (p -> p.getSubrules ().stream ()).
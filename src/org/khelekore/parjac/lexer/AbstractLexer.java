@@ -0,0 +1,941 @@
+package org.khelekore.parjac.lexer;
+
+import java.math.BigInteger;
+
+/** The java lexing logic, subclasses provide access to the characters.
+ *
+ *  Positions are whatever the subclass uses as index into its input,
+ *  for a CharBuffer that is the char index, for bytes it is the byte index.
+ */
+abstract class AbstractLexer implements Lexer {
+    // Identifiers and string literals are looked up here
+    final SymbolTable symbols;
+    private boolean hasSentEOI = false;
+
+    private int tokenStartPosition = 0;
+    private int tokenStartColumn = 0;
+    private int currentLine = 1;
+    private int currentLineStart = 0;
+    private int currentColumn = 0;
+
+    // Text set when we get an lexer ERROR
+    private String errorText;
+
+    // The different values we can have
+    private char currentCharValue;
+    private String currentStringValue;
+    private long currentIntValue; // for int and long
+    private float currentFloatValue;
+    private double currentDoubleValue;
+    private String currentIdentifier;
+
+    // Decimal values are always positive, hex, oct and binary may be negative
+    private static final BigInteger MAX_INT_LITERAL = new BigInteger ("80000000", 16);
+    private static final BigInteger MAX_LONG_LITERAL = new BigInteger ("8000000000000000", 16);
+    private static final BigInteger MAX_UINT_LITERAL = new BigInteger  ("FFFFFFFF", 16);
+    private static final BigInteger MAX_ULONG_LITERAL = new BigInteger ("FFFFFFFFFFFFFFFF", 16);
+
+    AbstractLexer (SymbolTable symbols) {
+	this.symbols = symbols;
+    }
+
+    /** Check if there are more characters to read */
+    abstract boolean hasRemaining ();
+
+    /** Read the next character, without handling unicode escapes */
+    abstract char readChar ();
+
+    /** Step back one character */
+    abstract void unread ();
+
+    /** Get the current position */
+    abstract int position ();
+
+    /** Move back to a position previously given by position () */
+    abstract void reset (int position);
+
+    /** Get the end position of the input */
+    abstract int limit ();
+
+    /** Get the character at the given position, only needs to be correct for ascii */
+    abstract char peek (int position);
+
+    /** Try to read an identifier that only has ascii letters, digits, '_' and '$'.
+     *  The first character of the identifier has already been read and is found at start.
+     *  If the identifier is simple then the position is moved to its end.
+     * @return the symbol from the symbol table or null if the identifier needs the full handling
+     */
+    abstract SymbolTable.Symbol readSimpleIdentifier (int start);
+
+    /** Check if c can be part of a simple identifier */
+    static boolean isSimpleIdentifierPart (int c) {
+	return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '$';
+    }
+
+    /** Check if c, that is not a simple identifier part, may still be part of an identifier */
+    static boolean needsFullIdentifierHandling (int c) {
+	return c >= 0x80 || c == '\\' || Character.isIdentifierIgnorable (c);
+    }
+
+    /** Get the text from the given position to the end of that line */
+    abstract String getLine (int start);
+
+    /** Set the error text for the current token */
+    void setError (String errorText) {
+	this.errorText = errorText;
+    }
+
+    public String getError () {
+	return errorText;
+    }
+
+    public char getCharValue () {
+	return currentCharValue;
+    }
+
+    public String getStringValue () {
+	return currentStringValue;
+    }
+
+    public int getIntValue () {
+	// for 2^31 which is the max allowed int literal we get -2^31.
+	// note however that (int)2^31 == (int)(-2^31)
+	return (int)currentIntValue;
+    }
+
+    public long getLongValue () {
+	// similar to int handling above
+	return currentIntValue;
+    }
+
+    public float getFloatValue () {
+	return currentFloatValue;
+    }
+
+    public double getDoubleValue () {
+	return currentDoubleValue;
+    }
+
+    public String getIdentifier () {
+	return currentIdentifier;
+    }
+
+    public ParsePosition getParsePosition () {
+	return new ParsePosition (getLineNumber (), getTokenColumn (),
+				  getTokenStartPos (), getTokenEndPos ());
+    }
+
+    public int getLineNumber () {
+	return currentLine;
+    }
+
+    public int getTokenStartPos () {
+	return tokenStartPosition;
+    }
+
+    public int getTokenEndPos () {
+	return position ();
+    }
+
+    public int getTokenColumn () {
+	return tokenStartColumn;
+    }
+
+    public Token nextToken () {
+	tokenStartPosition = position ();
+	tokenStartColumn = currentColumn;
+	if (hasRemaining ()) {
+	    char c = nextChar ();
+	    switch (c) {
+
+	    // whitespace
+	    case ' ':
+	    case '\t':
+	    case '\f':
+		return readWhitespace ();
+
+	    // newlines
+	    case '\n':
+		return handleLF ();
+	    case '\r':
+		return handleCR ();
+
+	     // sub
+	    case '\u001a':
+		return Token.SUB;
+
+	    // separators
+	    case '(':
+		return Token.LEFT_PARENTHESIS;
+	    case ')':
+		return Token.RIGHT_PARENTHESIS;
+	    case '{':
+		return Token.LEFT_CURLY;
+	    case '}':
+		return Token.RIGHT_CURLY;
+	    case '[':
+		return Token.LEFT_BRACKET;
+	    case ']':
+		return Token.RIGHT_BRACKET;
+	    case ';':
+		return Token.SEMICOLON;
+	    case ',':
+		return Token.COMMA;
+	    case '.':
+		return handleDot ();
+	    case '@':
+		return Token.AT;
+	    case ':':  // : is an operator, :: is a separator
+		return handleColon ();
+
+	    // operators (and comments)
+	    case '=':
+		return handleEquals ();
+	    case '>':
+		return handleGT ();
+	    case '<':
+		return handleLT ();
+	    case '!':
+		return handleExtraEqual (Token.NOT, Token.NOT_EQUAL);
+	    case '~':
+		return Token.TILDE;
+	    case '?':
+		return Token.QUESTIONMARK;
+	    case '+':
+		return handleDoubleOrEqual (c, Token.PLUS, Token.INCREMENT, Token.PLUS_EQUAL);
+	    case '-':
+		return handleMinus ();
+	    case '*':
+		return handleExtraEqual (Token.MULTIPLY, Token.MULTIPLY_EQUAL);
+	    case '/':
+		return handleSlash ();
+	    case '%':
+		return handleExtraEqual (Token.REMAINDER, Token.REMAINDER_EQUAL);
+	    case '&':
+		return handleDoubleOrEqual (c, Token.AND, Token.LOGICAL_AND, Token.BIT_AND_EQUAL);
+	    case '|':
+		return handleDoubleOrEqual (c, Token.OR, Token.LOGICAL_OR, Token.BIT_OR_EQUAL);
+	    case '^':
+		return handleExtraEqual (Token.XOR, Token.BIT_XOR_EQUAL);
+
+	    case '\'':
+		return readCharacterLiteral ();
+	    case '"':
+		return readStringLiteral ();
+
+	    case '0':
+	    case '1':
+	    case '2':
+	    case '3':
+	    case '4':
+	    case '5':
+	    case '6':
+	    case '7':
+	    case '8':
+	    case '9':
+		return readIntegerNumber (c);
+	    default:
+		if (Character.isJavaIdentifierStart (c))
+		    return readIdentifier (c);
+
+		errorText = "Illegal character: " + c + "(0x" + Integer.toHexString (c) + ")";
+		return Token.ERROR;
+	    }
+	}
+	hasSentEOI = true;
+	return Token.END_OF_INPUT;
+    }
+
+    @Override public Token nextNonWhitespaceToken () {
+	while (hasMoreTokens ()) {
+	    Token t = nextToken ();
+	    if (!t.isWhitespace ())
+		return t;
+	}
+	return Token.END_OF_INPUT;
+    }
+
+    public boolean hasMoreTokens () {
+	return hasRemaining () || !hasSentEOI;
+    }
+
+    private Token readWhitespace () {
+	char c = 0;
+	while (hasRemaining ()) {
+	    c = nextChar ();
+	    if (c != ' ' && c != '\t' && c != '\f') {
+		pushBack ();
+		break;
+	    }
+	}
+	return Token.WHITESPACE;
+    }
+
+    private Token handleLF () { // easy case
+	nextLine ();
+	return Token.LF;
+    }
+
+    private Token handleCR () { // might be a CR or CRLF
+	Token tt = handleOneExtra (Token.CR, '\n', Token.CRLF);
+	nextLine ();
+	return tt;
+    }
+
+    private Token handleDot () {
+	Token tt = Token.DOT;
+	if (hasRemaining ()) {
+	    int mark = position ();
+	    char c2 = nextChar ();
+	    if (c2 == '.') {
+		if (hasRemaining ()) {
+		    char c3 = nextChar ();
+		    if (c3 == '.')
+			return Token.ELLIPSIS;
+		}
+	    } else if (c2 >= '0' && c2 <= '9') {
+		StringBuilder value = new StringBuilder ();
+		value.append ('.');
+		value.append (c2);
+		return readNumber (value, 10, true);
+	    }
+	    reset (mark);
+	}
+	return tt;
+    }
+
+    private Token handleColon () {
+	return handleOneExtra (Token.COLON, ':', Token.DOUBLE_COLON);
+    }
+
+    private Token handleEquals () {
+	return handleOneExtra (Token.EQUAL, '=', Token.DOUBLE_EQUAL);
+    }
+
+    private Token handleExtraEqual (Token base, Token extra) {
+	return handleOneExtra (base, '=', extra);
+    }
+
+    private Token handleDoubleOrEqual (char m, Token base, Token twice, Token baseEqual) {
+	Token tt = base;
+	if (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c == m)
+		tt = twice;
+	    else if (c == '=')
+		tt = baseEqual;
+	    else
+		pushBack ();
+	}
+	return tt;
+    }
+
+    private Token handleMinus () {
+	// -, --, -=, ->
+	Token tt = Token.MINUS;
+	if (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c == '-')
+		tt = Token.DECREMENT;
+	    else if (c == '=')
+		tt = Token.MINUS_EQUAL;
+	    else if (c == '>')
+		tt = Token.ARROW;
+	    else
+		pushBack ();
+	}
+	return tt;
+    }
+
+    private Token handleSlash () {
+	// /, /=, //, /* ... */
+	Token tt = Token.DIVIDE;
+	if (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c == '=')
+		tt = Token.DIVIDE_EQUAL;
+	    else if (c == '/')
+		tt = readOffOneLineComment ();
+	    else if (c == '*')
+		tt = readOffMultiLineComment ();
+	    else
+		pushBack ();
+	}
+	return tt;
+    }
+
+    private Token readOffOneLineComment () {
+	while (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c == '\n' || c == '\r') {
+		pushBack ();
+		break;
+	    }
+	}
+	return Token.ONELINE_COMMENT;
+    }
+
+    private Token readOffMultiLineComment () {
+	boolean previousWasStar = false;
+	while (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (previousWasStar && c == '/')
+		return Token.MULTILINE_COMMENT;
+	    previousWasStar = (c == '*');
+	    if (c == '\n')
+		handleLF ();
+	    else if (c == '\r')
+		handleCR ();
+	}
+	errorText = "Reached end of input while inside comment";
+	return Token.ERROR;
+    }
+
+    private Token handleLT () {
+	// <, <=, <<, <<=
+	return handleLTGT ('<', Token.LT, Token.LE,
+			   Token.LEFT_SHIFT, Token.LEFT_SHIFT_EQUAL);
+    }
+
+    private Token handleGT () {
+	// >, >=, >>, >>=, >>>, >>>=
+	Token tt = Token.GT;
+
+	if (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c == '=') {
+		return Token.GE;
+	    } else if (c == '>') {
+		if (hasRemaining ()) {
+		    char d = nextChar ();
+		    if (d == '=') {
+			return Token.RIGHT_SHIFT_EQUAL;
+		    } else if (d == '>') {
+			if (hasRemaining ()) {
+			    char e = nextChar ();
+			    if (e == '=')
+				return Token.RIGHT_SHIFT_UNSIGNED_EQUAL;
+			    pushBack ();
+			}
+		    }
+		    pushBack ();
+		}
+	    }
+	    pushBack ();
+	}
+	return tt;
+    }
+
+    private Token handleLTGT (char ltgt, Token base, Token baseEqual,
+			      Token doubleBase, Token doubleBaseEqual) {
+	Token tt = base;
+	if (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c == '=')
+		tt = baseEqual;
+	    else if (c == ltgt)
+		tt = handleOneExtra (doubleBase, '=', doubleBaseEqual);
+	    else
+		pushBack ();
+	}
+	return tt;
+    }
+
+    private Token handleOneExtra (Token base, char match, Token extended) {
+	Token tt = base;
+	if (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c == match)
+		tt = extended;
+	    else // push back what we read
+		pushBack ();
+	}
+	return tt;
+    }
+
+    private Token readCharacterLiteral () {
+	String s =
+	    handleString ('\'', Token.CHARACTER_LITERAL, "Character literal not closed");
+	if (s == null)
+	    return Token.ERROR;
+	int len = s.length ();
+	if (len == 0)
+	    return Token.ERROR;
+	if (len > 1) {
+	    errorText = "Unclosed character literal: *" + s + "*";
+	    return Token.ERROR;
+	}
+	currentCharValue = s.charAt (0);
+	return Token.CHARACTER_LITERAL;
+    }
+
+    private Token readStringLiteral () {
+	String s =
+	    handleString ('"', Token.STRING_LITERAL, "String literal not closed");
+	if (s == null)
+	    return Token.ERROR;
+	currentStringValue = s;
+	return Token.STRING_LITERAL;
+    }
+
+    private String handleString (char end, Token base, String newlineError) {
+	errorText = "End of input";
+
+	boolean previousWasBackslash = false;
+	StringBuilder res = new StringBuilder ();
+
+	while (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (previousWasBackslash) {
+		switch (c) {
+		case 'b': res.append ('\b'); break;
+		case 't': res.append ('\t'); break;
+		case 'n': res.append ('\n'); break;
+		case 'f': res.append ('\f'); break;
+		case 'r': res.append ('\r'); break;
+		case '"':  // fall through
+		case '\'': // fall through
+		case '\\': res.append (c); break;
+
+		// octal escape, Unicode \u0000 to \u00ff
+		case '0':
+		case '1':
+		case '2':
+		case '3':
+		case '4':
+		case '5':
+		case '6':
+		case '7':
+		    int i = getOctalEscape (c);
+		    if (i >= 0 && i < 256)
+			res.append ((char)i);
+		    else
+			errorText = "Invalid octal escape";
+		    break;
+		default:
+		    res.append ('\\');
+		    res.append (c);
+		    errorText = "Illegal escape sequence";
+		}
+		previousWasBackslash = false;
+	    } else if (c == '\n' || c == '\r') {
+		errorText = newlineError;
+		pushBack ();
+	    } else if (c == end) {
+		errorText = null;
+		break;
+	    } else if (c == '\\') {
+		previousWasBackslash = true;
+	    } else {
+		res.append (c);
+	    }
+	}
+	return errorText == null ? symbols.intern (res.toString ()) : null;
+    }
+
+    private int getOctalEscape (char start) {
+	StringBuilder sb = new StringBuilder ();
+	sb.append (start);
+	while (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c >= '0' && c <= '7') {
+		sb.append (c);
+	    } else {
+		pushBack ();
+		break;
+	    }
+	}
+	try {
+	    return Integer.parseInt (sb.toString (), 8);
+	} catch (NumberFormatException n) {
+	    return -1;
+	}
+    }
+
+    /** Read an integer literal using primitive arithmetic.
+     *  Floating point literals are read again from the start by the slower
+     *  readZero and readDecimalNumber.
+     */
+    private Token readIntegerNumber (char first) {
+	int radix = 10;
+	long value = first - '0';
+	boolean hasDigits = true;
+	if (first == '0') {
+	    if (!hasRemaining ()) {
+		currentIntValue = 0;
+		return Token.INT_LITERAL;
+	    }
+	    char c = nextChar ();
+	    if (c == 'x') {
+		radix = 16;
+		hasDigits = false;
+	    } else if (c == 'b') {
+		radix = 2;
+		hasDigits = false;
+	    } else if (c == 'l' || c == 'L') {
+		currentIntValue = 0;
+		return Token.LONG_LITERAL;
+	    } else if (c == '_' || (c >= '0' && c <= '7')) {
+		radix = 8;
+		pushBack ();
+	    } else if (c == '.' || c == 'd' || c == 'D' || c == 'f' || c == 'F') {
+		return readFloatingPoint ();
+	    } else {
+		pushBack ();
+		currentIntValue = 0;
+		return Token.INT_LITERAL;
+	    }
+	}
+
+	Token type = Token.INT_LITERAL;
+	int bits = radix == 16 ? 4 : (radix == 8 ? 3 : 1); // for the non decimal radixes
+	boolean lastWasUnderscore = false;
+	boolean overflow = false;
+	while (hasRemaining ()) {
+	    char c = nextChar ();
+	    int d = digit (c, radix);
+	    if (d >= 0) {
+		hasDigits = true;
+		lastWasUnderscore = false;
+		if (overflow)
+		    continue;
+		if (radix == 10) {
+		    // 2^63 is allowed as a decimal long literal and ends up as Long.MIN_VALUE
+		    if (value < 0 || value > Long.MAX_VALUE / 10) {
+			overflow = true;
+		    } else {
+			value = value * 10 + d;
+			overflow = value < 0 && value != Long.MIN_VALUE;
+		    }
+		} else {
+		    if ((value >>> (64 - bits)) != 0)
+			overflow = true;
+		    else
+			value = (value << bits) | d;
+		}
+	    } else if (c == '_') {
+		lastWasUnderscore = true;
+	    } else if (lastWasUnderscore) {
+		// an underscore has to be followed by a digit
+		pushBack ();
+		break;
+	    } else if (c == 'l' || c == 'L') {
+		type = Token.LONG_LITERAL;
+		break;
+	    } else if (c == 'd' || c == 'D' || c == 'f' || c == 'F' ||
+		       (c == '.' && (radix == 10 || radix == 16)) ||
+		       validExponent (radix, false, c)) {
+		return readFloatingPoint ();
+	    } else {
+		pushBack ();
+		break;
+	    }
+	}
+	if (lastWasUnderscore) {
+	    errorText = "Number may not end with underscore";
+	    return Token.ERROR;
+	}
+	if (!hasDigits) {
+	    errorText = "Number may not be empty";
+	    return Token.ERROR;
+	}
+	if (overflow || (type == Token.INT_LITERAL && !fitsInt (value, radix))) {
+	    errorText = "Integer literal too large";
+	    return Token.ERROR;
+	}
+	currentIntValue = value;
+	return type;
+    }
+
+    private static int digit (char c, int radix) {
+	if (c >= '0' && c <= '9') {
+	    int d = c - '0';
+	    return d < radix ? d : -1;
+	}
+	if (radix == 16) {
+	    if (c >= 'a' && c <= 'f')
+		return c - 'a' + 10;
+	    if (c >= 'A' && c <= 'F')
+		return c - 'A' + 10;
+	}
+	return -1;
+    }
+
+    private static boolean fitsInt (long value, int radix) {
+	// Decimal values are always positive, hex, oct and binary may be negative
+	long max = radix == 10 ? 0x80000000L : 0xFFFFFFFFL;
+	return value >= 0 && value <= max;
+    }
+
+    /** Read the current number again from its start using the full number handling */
+    private Token readFloatingPoint () {
+	reset (tokenStartPosition);
+	currentColumn = tokenStartColumn;
+	char c = nextChar ();
+	if (c == '0')
+	    return readZero ();
+	return readDecimalNumber (c);
+    }
+
+    private Token readZero () {
+	if (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c == 'x') {
+		return readNumber (new StringBuilder (), 16, false);
+	    } else if (c == 'b') {
+		return readNumber (new StringBuilder (), 2, false);
+	    } else if (c == 'l' || c == 'L') {
+		currentIntValue = 0;
+		return Token.LONG_LITERAL;
+	    } else if (c == 'd' || c == 'D') {
+		currentDoubleValue = 0.0;
+		return Token.DOUBLE_LITERAL;
+	    } else if (c == 'f' || c == 'F') {
+		currentDoubleValue = 0.0;
+		return Token.FLOAT_LITERAL;
+	    } else if (c == '_' || (c >= '0' && c <= '7')) {
+		StringBuilder value = new StringBuilder ();
+		value.append (c);
+		return readNumber (value, 8, false);
+	    } else if (c == '.') {
+		StringBuilder value = new StringBuilder ();
+		value.append ('0');
+		value.append (c);
+		return readNumber (value, 10, true);
+	    } else {
+		currentIntValue = 0;
+		pushBack ();
+		return Token.INT_LITERAL;
+	    }
+	} else {
+	    currentIntValue = 0;
+	}
+	return Token.INT_LITERAL;
+    }
+
+    private Token readDecimalNumber (char start) {
+	StringBuilder res = new StringBuilder ();
+	res.append (start);
+	Token t = readNumber (res, 10, false);
+	if (t == Token.ERROR)
+	    return t;
+
+	return t;
+    }
+
+    private Token readNumber (StringBuilder value, int radix, boolean hasSeenDot) {
+	boolean lastWasUnderscore = false;
+	boolean hasSeenExponent = false;
+	Token type = Token.INT_LITERAL;
+	char minChar = '0';
+	char maxChar = (char)(minChar + Math.min (10, radix));
+	while (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (c >= minChar && c < maxChar) {
+		value.append (c);
+		lastWasUnderscore = false;
+	    } else if (isAllowedHexDigit (radix, hasSeenExponent, c)) {
+		value.append (c);
+		lastWasUnderscore = false;
+	    } else if (c == '_') { // skip it
+		lastWasUnderscore = true;
+	    } else if (lastWasUnderscore) {
+		// an underscore has to be followed by a digit
+		pushBack ();
+		break;
+	    } else if (c == 'd' || c == 'D') {
+		type = Token.DOUBLE_LITERAL;
+		break;
+	    } else if (c == 'f' || c == 'F') {
+		type = Token.FLOAT_LITERAL;
+		break;
+	    } else if (c == 'l' || c == 'L') {
+		type = Token.LONG_LITERAL;
+		break;
+	    } else if (c == '.' && !hasSeenDot && (radix == 10 || radix == 16)) {
+		hasSeenDot = true;
+		value.append (c);
+	    } else if (validExponent (radix, hasSeenExponent, c)) {
+		hasSeenExponent = true;
+		value.append (c);
+		if (!readSignedInteger (value))
+		    return Token.ERROR;
+	    } else {
+		pushBack ();
+		break;
+	    }
+	}
+	if (lastWasUnderscore) {
+	    errorText = "Number may not end with underscore";
+	    return Token.ERROR;
+	}
+	if (value.length () == 0) {
+	    errorText = "Number may not be empty";
+	    return Token.ERROR;
+	}
+
+	if ((hasSeenDot || hasSeenExponent) && type != Token.FLOAT_LITERAL)
+	    type = Token.DOUBLE_LITERAL;
+	if (type == Token.INT_LITERAL || type == Token.LONG_LITERAL)
+	    return intValue (value.toString (), radix, type);
+	return doubleValue (value.toString (), radix, type);
+    }
+
+    private boolean isAllowedHexDigit (int radix, boolean hasSeenExponent, char c) {
+	if (radix != 16)
+	    return false;
+	// Exponents are decimal only
+	if (hasSeenExponent)
+	    return false;
+	return (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private boolean validExponent (int radix, boolean hasSeenExponent, char c) {
+	if (hasSeenExponent)
+	    return false;
+	if (radix == 10 && (c == 'e' || c == 'E'))
+	    return true;
+	if (radix == 16 && (c == 'p' || c == 'P'))
+	    return true;
+	return false;
+    }
+
+    private boolean readSignedInteger (StringBuilder value) {
+	boolean lastWasUnderscore = false;
+	boolean first = true;
+	boolean foundDigits = false;
+	while (hasRemaining ()) {
+	    lastWasUnderscore = false;
+	    char c = nextChar ();
+	    if (c >= '0' && c <= '9') {
+		value.append (c);
+		foundDigits = true;
+	    } else if (c == '_') {
+		lastWasUnderscore = true;
+	    } else if (first && (c == '+' || c == '-')) {
+		value.append (c);
+	    } else {
+		pushBack ();
+		break;
+	    }
+	}
+	if (lastWasUnderscore) {
+	    errorText = "Number may not end with underscore";
+	    return false;
+	}
+	if (!foundDigits) {
+	    errorText = "Exponent not found";
+	    return false;
+	}
+	return true;
+    }
+
+    private Token intValue (String text, int radix, Token type) {
+	try {
+	    BigInteger value = new BigInteger (text, radix);
+	    BigInteger maxAllowed;
+	    if (type == Token.INT_LITERAL)
+		maxAllowed = radix == 10 ? MAX_INT_LITERAL : MAX_UINT_LITERAL;
+	    else
+		maxAllowed = radix == 10 ? MAX_LONG_LITERAL : MAX_ULONG_LITERAL;
+
+	    if (value.compareTo (maxAllowed) > 0) {
+		errorText = "Integer literal too large";
+		return Token.ERROR;
+	    }
+	    currentIntValue = value.longValue ();
+	    return type;
+	} catch (NumberFormatException n) {
+	    errorText = "Failed to parse int value: " + text;
+	    return Token.ERROR;
+	}
+    }
+
+    private Token doubleValue (String text, double radix, Token type) {
+	if (radix == 16)
+	    text = "0x" + text;
+	try {
+	    if (type == Token.DOUBLE_LITERAL)
+		currentDoubleValue = Double.parseDouble (text);
+	    else
+		currentFloatValue = Float.parseFloat (text);
+	    return type;
+	} catch (NumberFormatException n) {
+	    errorText = "Failed to parse floating point: " + text;
+	    return Token.ERROR;
+	}
+    }
+
+    private Token readIdentifier (char start) {
+	SymbolTable.Symbol symbol = null;
+	if (position () - 1 == tokenStartPosition) {
+	    symbol = readSimpleIdentifier (tokenStartPosition);
+	    if (symbol != null)
+		currentColumn += symbol.name.length () - 1;
+	}
+	if (symbol == null)
+	    symbol = symbols.get (readIdentifierSlow (start));
+	if (symbol.token == Token.IDENTIFIER)
+	    currentIdentifier = symbol.name;
+	return symbol.token;
+    }
+
+    private String readIdentifierSlow (char start) {
+	StringBuilder res = new StringBuilder ();
+	res.append (start);
+	while (hasRemaining ()) {
+	    char c = nextChar ();
+	    if (Character.isIdentifierIgnorable (c)) {
+		// skip it
+	    } else if (Character.isJavaIdentifierPart (c)) {
+		res.append (c);
+	    } else {
+		pushBack ();
+		break;
+	    }
+	}
+	return res.toString ();
+    }
+
+    private char nextChar () {
+	currentColumn++;
+	char c = readChar ();
+	if (c == '\\') {
+	    // check for unicode escapes
+	    int p = position ();
+	    if (limit () - p > 4) {
+		if (peek (p++) == 'u') {
+		    StringBuilder sb = new StringBuilder ();
+		    for (int j = 0; j < 4; j++) {
+			char h = peek (p++);
+			if ((h >= '0' && h <= '9') || (h >= 'a' && h <= 'f') || (h >= 'A' && h <= 'F'))
+			    sb.append (h);
+			else
+			    break;
+		    }
+		    if (sb.length () == 4) {
+			int hv = Integer.parseInt (sb.toString (), 16);
+			reset (p);
+			c = (char)hv;
+		    }
+		}
+	    }
+	}
+	return c;
+    }
+
+    private void pushBack () {
+	currentColumn--;
+	unread ();
+    }
+
+    private void nextLine () {
+	currentLine++;
+	currentColumn = 0;
+	currentLineStart = position ();
+    }
+
+    @Override public String getCurrentLine () {
+	return getLine (currentLineStart);
+    }
+}
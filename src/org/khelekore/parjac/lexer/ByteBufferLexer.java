@@ -0,0 +1,200 @@
+package org.khelekore.parjac.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** A lexer for the java language that reads utf-8 encoded bytes directly.
+ *
+ *  Ascii bytes are used as they are, only non-ascii sequences are decoded
+ *  and only when the lexer reaches them. Supplementary characters are
+ *  returned as two chars, a high and a low surrogate, just as they are in
+ *  a CharBuffer. Positions in the parse positions are byte offsets.
+ */
+public class ByteBufferLexer extends AbstractLexer {
+    private final ByteBuffer buf;
+    private final int limit;
+    private int pos;
+    // The low surrogate to return next, or -1
+    private int pendingLowSurrogate = -1;
+    // The first position of the input, unread never goes before it
+    private final int inputStart;
+    // The position of bytes that are not valid utf-8, or -1
+    private int malformedPosition = -1;
+
+    public ByteBufferLexer (ByteBuffer buf) {
+	this (buf, new SymbolTable ());
+    }
+
+    public ByteBufferLexer (ByteBuffer buf, SymbolTable symbols) {
+	super (symbols);
+	this.buf = buf.duplicate ();
+	this.pos = buf.position ();
+	this.inputStart = pos;
+	this.limit = buf.limit ();
+    }
+
+    @Override public Token nextToken () {
+	Token t = super.nextToken ();
+	if (malformedPosition >= 0) {
+	    // the malformed bytes may have been pushed back, then they belong to the next token
+	    boolean consumed = malformedPosition < pos;
+	    malformedPosition = -1;
+	    if (consumed) {
+		setError ("Malformed input, not valid utf-8");
+		return Token.ERROR;
+	    }
+	}
+	return t;
+    }
+
+    @Override boolean hasRemaining () {
+	return pos < limit || pendingLowSurrogate >= 0;
+    }
+
+    @Override char readChar () {
+	if (pendingLowSurrogate >= 0) {
+	    char c = (char)pendingLowSurrogate;
+	    pendingLowSurrogate = -1;
+	    return c;
+	}
+	int charStart = pos;
+	byte b = buf.get (pos++);
+	if (b >= 0)
+	    return (char)b;
+	int cp = decode (charStart);
+	if (cp < 0) {
+	    if (malformedPosition < 0)
+		malformedPosition = charStart;
+	    return '\ufffd';
+	}
+	pos = charStart + utf8Length (cp);
+	if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT)
+	    return (char)cp;
+	pendingLowSurrogate = Character.lowSurrogate (cp);
+	return Character.highSurrogate (cp);
+    }
+
+    @Override void unread () {
+	if (pendingLowSurrogate >= 0) {
+	    // we just returned a high surrogate, go back to the start of the sequence
+	    pendingLowSurrogate = -1;
+	    pos -= 4;
+	    return;
+	}
+	int p = pos - 1;
+	if (buf.get (p) >= 0) {
+	    pos = p;
+	    return;
+	}
+	int min = Math.max (inputStart, pos - 4);
+	while (p > min && (buf.get (p) & 0xc0) == 0x80)
+	    p--;
+	int cp = decode (p);
+	if (cp < 0 || p + utf8Length (cp) != pos) {
+	    // malformed bytes are read one at a time
+	    pos--;
+	    return;
+	}
+	if (cp >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+	    // we returned the low surrogate, give it out again
+	    pendingLowSurrogate = Character.lowSurrogate (cp);
+	    return;
+	}
+	pos = p;
+    }
+
+    @Override int position () {
+	return pos;
+    }
+
+    @Override void reset (int position) {
+	pos = position;
+	pendingLowSurrogate = -1;
+    }
+
+    @Override int limit () {
+	return limit;
+    }
+
+    @Override char peek (int position) {
+	return (char)(buf.get (position) & 0xff);
+    }
+
+    @Override SymbolTable.Symbol readSimpleIdentifier (int start) {
+	byte b = buf.get (start);
+	if (pendingLowSurrogate >= 0 || b < 0)
+	    return null;
+	int hash = b;
+	int p = pos;
+	while (p < limit) {
+	    b = buf.get (p);
+	    if (isSimpleIdentifierPart (b))
+		hash = 31 * hash + b;
+	    else if (b < 0 || needsFullIdentifierHandling (b))
+		return null;
+	    else
+		break;
+	    p++;
+	}
+	SymbolTable.Symbol symbol = symbols.get (buf, start, p, hash);
+	pos = p;
+	return symbol;
+    }
+
+    @Override String getLine (int start) {
+	int p = start;
+	byte b;
+	while (p < limit && (b = buf.get (p)) != '\n' && b != '\r')
+	    p++;
+	byte[] line = new byte[p - start];
+	ByteBuffer dup = buf.duplicate ();
+	dup.position (start);
+	dup.get (line);
+	return new String (line, StandardCharsets.UTF_8);
+    }
+
+    /** Decode the non-ascii utf-8 sequence starting at the given position.
+     * @return the code point or -1 if the sequence is not valid
+     */
+    private int decode (int start) {
+	int b = buf.get (start) & 0xff;
+	int length;
+	int cp;
+	int min;
+	if (b >= 0xc2 && b <= 0xdf) {
+	    length = 2;
+	    cp = b & 0x1f;
+	    min = 0x80;
+	} else if (b >= 0xe0 && b <= 0xef) {
+	    length = 3;
+	    cp = b & 0x0f;
+	    min = 0x800;
+	} else if (b >= 0xf0 && b <= 0xf4) {
+	    length = 4;
+	    cp = b & 0x07;
+	    min = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+	} else {
+	    return -1;
+	}
+	if (start + length > limit)
+	    return -1;
+	for (int i = 1; i < length; i++) {
+	    int c = buf.get (start + i) & 0xff;
+	    if ((c & 0xc0) != 0x80)
+		return -1;
+	    cp = (cp << 6) | (c & 0x3f);
+	}
+	if (cp < min || cp > Character.MAX_CODE_POINT ||
+	    (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE))
+	    return -1;
+	return cp;
+    }
+
+    private static int utf8Length (int cp) {
+	if (cp < 0x800)
+	    return 2;
+	if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT)
+	    return 3;
+	return 4;
+    }
+}
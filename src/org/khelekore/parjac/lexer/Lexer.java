@@ -31,6 +31,18 @@ public interface Lexer {
     /** Get the current parse position */
     ParsePosition getParsePosition ();
 
+    /** Get the line number of the current token */
+    int getLineNumber ();
+
+    /** Get the start column of the current token */
+    int getTokenColumn ();
+
+    /** Get the start position of the current token */
+    int getTokenStartPos ();
+
+    /** Get the end position of the current token */
+    int getTokenEndPos ();
+
     /** Check if there are any more tokens.
      *  Note that this method will return true until END_OF_INPUT has been returned.
      */
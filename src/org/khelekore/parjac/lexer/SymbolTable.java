@@ -0,0 +1,171 @@
+package org.khelekore.parjac.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/** A table of identifiers and string literals that can be shared by many lexers.
+ *
+ *  Each name is stored once and the same String instance is returned for it
+ *  every time. Keywords, null, true and false are in the table from start
+ *  so finding an identifier also tells if it is a keyword.
+ *
+ *  The table is split into stripes, each stripe is an open addressing table.
+ *  Lookups do not lock, only adding a new name locks its stripe.
+ */
+public class SymbolTable {
+    private static final int STRIPES = 32;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public SymbolTable () {
+	for (int i = 0; i < STRIPES; i++)
+	    stripes[i] = new Stripe ();
+	for (Token t : Token.values ()) {
+	    String name = t.toString ();
+	    if (Token.getFromIdentifier (name) == t)
+		stripe (name.hashCode ()).add (name, name.hashCode (), t);
+	}
+    }
+
+    /** Get the canonical instance of the given name */
+    public String intern (String name) {
+	return get (name).name;
+    }
+
+    /** Find the symbol with the given name, adding it if it is not found */
+    Symbol get (String name) {
+	int hash = name.hashCode ();
+	Stripe s = stripe (hash);
+	Symbol[] table = s.table;
+	int mask = table.length - 1;
+	for (int i = slot (hash) & mask; table[i] != null; i = (i + 1) & mask) {
+	    Symbol sym = table[i];
+	    if (sym.hash == hash && sym.name.equals (name))
+		return sym;
+	}
+	return s.add (name, hash, Token.IDENTIFIER);
+    }
+
+    /** Find the symbol for the chars from start to end, adding it if it is not found.
+     * @param hash the hash of the chars, calculated like String.hashCode
+     */
+    Symbol get (CharBuffer buf, int start, int end, int hash) {
+	Stripe s = stripe (hash);
+	Symbol[] table = s.table;
+	int mask = table.length - 1;
+	for (int i = slot (hash) & mask; table[i] != null; i = (i + 1) & mask) {
+	    Symbol sym = table[i];
+	    if (sym.hash == hash && matches (sym.name, buf, start, end))
+		return sym;
+	}
+	char[] chars = new char[end - start];
+	for (int i = 0; i < chars.length; i++)
+	    chars[i] = buf.get (start + i);
+	return s.add (new String (chars), hash, Token.IDENTIFIER);
+    }
+
+    /** Find the symbol for the ascii bytes from start to end, adding it if it is not found.
+     * @param hash the hash of the chars, calculated like String.hashCode
+     */
+    Symbol get (ByteBuffer buf, int start, int end, int hash) {
+	Stripe s = stripe (hash);
+	Symbol[] table = s.table;
+	int mask = table.length - 1;
+	for (int i = slot (hash) & mask; table[i] != null; i = (i + 1) & mask) {
+	    Symbol sym = table[i];
+	    if (sym.hash == hash && matches (sym.name, buf, start, end))
+		return sym;
+	}
+	char[] chars = new char[end - start];
+	for (int i = 0; i < chars.length; i++)
+	    chars[i] = (char)buf.get (start + i);
+	return s.add (new String (chars), hash, Token.IDENTIFIER);
+    }
+
+    private static boolean matches (String name, CharBuffer buf, int start, int end) {
+	if (name.length () != end - start)
+	    return false;
+	for (int i = 0; i < name.length (); i++)
+	    if (name.charAt (i) != buf.get (start + i))
+		return false;
+	return true;
+    }
+
+    private static boolean matches (String name, ByteBuffer buf, int start, int end) {
+	if (name.length () != end - start)
+	    return false;
+	for (int i = 0; i < name.length (); i++)
+	    if (name.charAt (i) != buf.get (start + i))
+		return false;
+	return true;
+    }
+
+    private Stripe stripe (int hash) {
+	return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static int slot (int hash) {
+	// the low bits picked the stripe
+	return (hash ^ (hash >>> 16)) >>> 5;
+    }
+
+    /** A name and the token it gives */
+    static final class Symbol {
+	final String name;
+	final Token token;
+	final int hash;
+
+	private Symbol (String name, Token token, int hash) {
+	    this.name = name;
+	    this.token = token;
+	    this.hash = hash;
+	}
+
+	@Override public String toString () {
+	    return name + ": " + token;
+	}
+    }
+
+    private static class Stripe {
+	// Readers look at the table without locking, a new table is only
+	// published when it is filled. Symbols are immutable.
+	private volatile Symbol[] table = new Symbol[64];
+	private int size;
+
+	public synchronized Symbol add (String name, int hash, Token token) {
+	    Symbol[] t = table;
+	    int mask = t.length - 1;
+	    int i = slot (hash) & mask;
+	    for (; t[i] != null; i = (i + 1) & mask) {
+		Symbol sym = t[i];
+		if (sym.hash == hash && sym.name.equals (name))
+		    return sym; // someone else added it
+	    }
+	    Symbol sym = new Symbol (name, token, hash);
+	    if (size + 1 > t.length / 2) {
+		table = grow (t, sym);
+	    } else {
+		t[i] = sym;
+	    }
+	    size++;
+	    return sym;
+	}
+
+	private static Symbol[] grow (Symbol[] t, Symbol added) {
+	    Symbol[] nt = new Symbol[t.length * 2];
+	    for (Symbol sym : t)
+		if (sym != null)
+		    insert (nt, sym);
+	    insert (nt, added);
+	    return nt;
+	}
+
+	private static void insert (Symbol[] t, Symbol sym) {
+	    int mask = t.length - 1;
+	    int i = slot (sym.hash) & mask;
+	    while (t[i] != null)
+		i = (i + 1) & mask;
+	    t[i] = sym;
+	}
+    }
+}
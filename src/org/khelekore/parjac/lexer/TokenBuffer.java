@@ -0,0 +1,148 @@
+package org.khelekore.parjac.lexer;
+
+import java.util.Arrays;
+
+/** All the non-whitespace tokens of one input, stored in parallel arrays.
+ *
+ *  Filling the buffer does not allocate anything per token, except for the
+ *  values the lexer itself creates. ParsePosition objects are only created
+ *  when someone asks for them. A buffer may be reused for many inputs.
+ */
+public class TokenBuffer {
+    private static final Token[] TOKENS = Token.values ();
+
+    private int size;
+    private int[] tokens = new int[256];
+    private int[] lines = new int[256];
+    private int[] columns = new int[256];
+    private int[] startPositions = new int[256];
+    private int[] endPositions = new int[256];
+    // Value of int, long, float, double and character literals, floats are stored as raw bits
+    private long[] numbers = new long[256];
+    // Value of identifiers and string literals
+    private String[] strings = new String[256];
+
+    /** Remove all tokens */
+    public void clear () {
+	Arrays.fill (strings, 0, size, null);
+	size = 0;
+    }
+
+    /** Clear this buffer and then add all the non-whitespace tokens from the lexer.
+     *  The last token will be END_OF_INPUT, unless the lexer was already used up.
+     */
+    public void fill (Lexer lexer) {
+	clear ();
+	while (lexer.hasMoreTokens ())
+	    add (lexer, lexer.nextNonWhitespaceToken ());
+    }
+
+    private void add (Lexer lexer, Token t) {
+	if (size == tokens.length)
+	    grow ();
+	int i = size++;
+	tokens[i] = t.ordinal ();
+	lines[i] = lexer.getLineNumber ();
+	columns[i] = lexer.getTokenColumn ();
+	startPositions[i] = lexer.getTokenStartPos ();
+	endPositions[i] = lexer.getTokenEndPos ();
+	switch (t) {
+	case INT_LITERAL:
+	    numbers[i] = lexer.getIntValue ();
+	    break;
+	case LONG_LITERAL:
+	    numbers[i] = lexer.getLongValue ();
+	    break;
+	case FLOAT_LITERAL:
+	    numbers[i] = Float.floatToRawIntBits (lexer.getFloatValue ());
+	    break;
+	case DOUBLE_LITERAL:
+	    numbers[i] = Double.doubleToRawLongBits (lexer.getDoubleValue ());
+	    break;
+	case CHARACTER_LITERAL:
+	    numbers[i] = lexer.getCharValue ();
+	    break;
+	case STRING_LITERAL:
+	    strings[i] = lexer.getStringValue ();
+	    break;
+	case IDENTIFIER:
+	    strings[i] = lexer.getIdentifier ();
+	    break;
+	default:
+	    // no value
+	}
+    }
+
+    /** Add a copy of the token at the given index in the other buffer */
+    public void add (TokenBuffer other, int i) {
+	if (size == tokens.length)
+	    grow ();
+	int j = size++;
+	tokens[j] = other.tokens[i];
+	lines[j] = other.lines[i];
+	columns[j] = other.columns[i];
+	startPositions[j] = other.startPositions[i];
+	endPositions[j] = other.endPositions[i];
+	numbers[j] = other.numbers[i];
+	strings[j] = other.strings[i];
+    }
+
+    private void grow () {
+	int newSize = tokens.length * 2;
+	tokens = Arrays.copyOf (tokens, newSize);
+	lines = Arrays.copyOf (lines, newSize);
+	columns = Arrays.copyOf (columns, newSize);
+	startPositions = Arrays.copyOf (startPositions, newSize);
+	endPositions = Arrays.copyOf (endPositions, newSize);
+	numbers = Arrays.copyOf (numbers, newSize);
+	strings = Arrays.copyOf (strings, newSize);
+    }
+
+    /** Get the number of tokens */
+    public int size () {
+	return size;
+    }
+
+    /** Get the token at the given index */
+    public Token getToken (int i) {
+	return TOKENS[tokens[i]];
+    }
+
+    /** Get the ordinal of the token at the given index */
+    public int getTokenId (int i) {
+	return tokens[i];
+    }
+
+    /** Create a parse position for the token at the given index */
+    public ParsePosition getParsePosition (int i) {
+	return new ParsePosition (lines[i], columns[i], startPositions[i], endPositions[i]);
+    }
+
+    public int getIntValue (int i) {
+	return (int)numbers[i];
+    }
+
+    public long getLongValue (int i) {
+	return numbers[i];
+    }
+
+    public float getFloatValue (int i) {
+	return Float.intBitsToFloat ((int)numbers[i]);
+    }
+
+    public double getDoubleValue (int i) {
+	return Double.longBitsToDouble (numbers[i]);
+    }
+
+    public char getCharValue (int i) {
+	return (char)numbers[i];
+    }
+
+    public String getStringValue (int i) {
+	return strings[i];
+    }
+
+    public String getIdentifier (int i) {
+	return strings[i];
+    }
+}
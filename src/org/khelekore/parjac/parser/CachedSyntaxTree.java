@@ -0,0 +1,311 @@
+package org.khelekore.parjac.parser;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.SourceDiagnostics;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.lexer.ParsePosition;
+import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.khelekore.parjac.tree.TreeNode;
+
+/** The form a syntax tree is stored in by the SyntaxTreeCache: the steps
+ *  the tree builder took, in primitive arrays.
+ *
+ *  Each entry is either a token that gives a tree node or a rule that built
+ *  a node from the nodes of the entries before it. Rules that only pass on
+ *  the nodes of their parts and tokens without values, like separators,
+ *  are not stored. The entries are in the order the parsers build the tree,
+ *  the children of a node come right before it with the last child first,
+ *  so every subtree is a range of entries. Positions that repeat, like a
+ *  rule that starts with its first token, are stored once.
+ *
+ *  The tree nodes are built again from the entries by the JavaTreeBuilder,
+ *  which takes a small part of the time a parse takes. The semantic passes
+ *  work on those nodes, this is not a tree that a compile keeps.
+ *
+ *  Use a CachedTreeRecorder to fill the tree.
+ */
+public class CachedSyntaxTree {
+    private static final int NO_VALUE = -1;
+    private static final Token[] TOKENS = Token.values ();
+
+    private final Grammar grammar;
+    private final Path path;
+
+    private int size;
+    // The rule id or, for tokens, ~token ordinal
+    private short[] kinds = new short[256];
+    // One bit per entry, set if the entry has a new position, otherwise it has
+    // the same position as the entry before it
+    private long[] newPositions = new long[4];
+    // The number of new positions before each word of newPositions
+    private int[] positionRanks;
+    // For rules the first entry of the subtree, tokens are their own subtree.
+    // For tokens the index into numbers or strings, NO_VALUE for tokens without values.
+    private int[] offsets = new int[256];
+
+    private int numPositions;
+    // line, column, start and end of each position
+    private int[] positionData = new int[4 * 64];
+    private int numNumbers;
+    private long[] numbers = new long[16];
+    private int numStrings;
+    private String[] strings = new String[64];
+
+    public CachedSyntaxTree (Grammar grammar, Path path) {
+	this.grammar = grammar;
+	this.path = path;
+    }
+
+    /** Create a tree from stored arrays, the arrays are used as they are
+     * @param kinds the rule id or ~token ordinal of each entry
+     * @param offsets the subtree start of each rule entry and the value index of each token entry
+     * @param newPositions one bit per entry, set for entries with a new position
+     * @param positionData line, column, start and end of each position
+     */
+    CachedSyntaxTree (Grammar grammar, Path path, short[] kinds, int[] offsets, long[] newPositions,
+		       int[] positionData, long[] numbers, String[] strings) {
+	this.grammar = grammar;
+	this.path = path;
+	size = kinds.length;
+	this.kinds = kinds;
+	this.offsets = offsets;
+	this.newPositions = newPositions;
+	numPositions = positionData.length / 4;
+	this.positionData = positionData;
+	numNumbers = numbers.length;
+	this.numbers = numbers;
+	numStrings = strings.length;
+	this.strings = strings;
+	setPositionRanks ();
+    }
+
+    /** Add the token at the given index in the buffer
+     * @return the entry
+     */
+    int addToken (TokenBuffer tokens, int i, ParsePosition pos) {
+	Token t = tokens.getToken (i);
+	int value = NO_VALUE;
+	switch (t) {
+	case INT_LITERAL:
+	case LONG_LITERAL:
+	case FLOAT_LITERAL:
+	case DOUBLE_LITERAL:
+	case CHARACTER_LITERAL:
+	    if (numNumbers == numbers.length)
+		numbers = Arrays.copyOf (numbers, numNumbers * 2);
+	    value = numNumbers;
+	    numbers[numNumbers++] = tokens.getLongValue (i);
+	    break;
+	case STRING_LITERAL:
+	case IDENTIFIER:
+	    if (numStrings == strings.length)
+		strings = Arrays.copyOf (strings, numStrings * 2);
+	    value = numStrings;
+	    strings[numStrings++] = tokens.getStringValue (i);
+	    break;
+	default:
+	    // no value
+	}
+	return addEntry (~t.ordinal (), pos, value);
+    }
+
+    /** Add a rule that was built from the nodes of the entries before it
+     * @param subtreeStart the first entry of the subtree of the rule
+     * @return the entry
+     */
+    int addRule (Rule r, ParsePosition pos, int subtreeStart) {
+	return addEntry (r.getId (), pos, subtreeStart);
+    }
+
+    private int addEntry (int kind, ParsePosition pos, int offset) {
+	if (size == kinds.length) {
+	    int newSize = size * 2;
+	    kinds = Arrays.copyOf (kinds, newSize);
+	    newPositions = Arrays.copyOf (newPositions, newSize / 64 + 1);
+	    offsets = Arrays.copyOf (offsets, newSize);
+	}
+	int e = size++;
+	kinds[e] = (short)kind;
+	if (isNewPosition (pos))
+	    addPosition (pos, e);
+	offsets[e] = offset;
+	return e;
+    }
+
+    private boolean isNewPosition (ParsePosition pos) {
+	int p = 4 * (numPositions - 1);
+	return numPositions == 0 ||
+	    positionData[p] != pos.getLineNumber () ||
+	    positionData[p + 1] != pos.getTokenColumn () ||
+	    positionData[p + 2] != pos.getTokenStartPos () ||
+	    positionData[p + 3] != pos.getTokenEndPos ();
+    }
+
+    private void addPosition (ParsePosition pos, int entry) {
+	newPositions[entry >> 6] |= 1L << entry;
+	int p = 4 * numPositions++;
+	if (p == positionData.length)
+	    positionData = Arrays.copyOf (positionData, p * 2);
+	positionData[p] = pos.getLineNumber ();
+	positionData[p + 1] = pos.getTokenColumn ();
+	positionData[p + 2] = pos.getTokenStartPos ();
+	positionData[p + 3] = pos.getTokenEndPos ();
+    }
+
+    /** Get the index of the position of the given entry */
+    private int getPositionIndex (int entry) {
+	int word = entry >> 6;
+	long mask = (2L << entry) - 1;
+	if ((entry & 63) == 63)
+	    mask = -1L;
+	return positionRanks[word] + Long.bitCount (newPositions[word] & mask) - 1;
+    }
+
+    private ParsePosition getParsePosition (int entry) {
+	int p = 4 * getPositionIndex (entry);
+	return new ParsePosition (positionData[p], positionData[p + 1],
+				  positionData[p + 2], positionData[p + 3]);
+    }
+
+    /** Shrink the arrays to what is used, this has to be done before the tree is used */
+    void trim () {
+	kinds = Arrays.copyOf (kinds, size);
+	newPositions = Arrays.copyOf (newPositions, (size + 63) / 64);
+	offsets = Arrays.copyOf (offsets, size);
+	positionData = Arrays.copyOf (positionData, 4 * numPositions);
+	numbers = Arrays.copyOf (numbers, numNumbers);
+	strings = Arrays.copyOf (strings, numStrings);
+	setPositionRanks ();
+    }
+
+    private void setPositionRanks () {
+	positionRanks = new int[newPositions.length];
+	for (int i = 1; i < positionRanks.length; i++)
+	    positionRanks[i] = positionRanks[i - 1] + Long.bitCount (newPositions[i - 1]);
+    }
+
+    /** Check that the entries can be replayed with the grammar of this tree:
+     *  every kind is a rule id or token ordinal, every rule starts its subtree
+     *  at or before itself, every token value is stored and there is one
+     *  position for each set bit, starting with the first entry.
+     */
+    boolean isValid () {
+	if (offsets.length != size || newPositions.length != (size + 63) / 64)
+	    return false;
+	int numRules = grammar.getRules ().size ();
+	for (int e = 0; e < size; e++) {
+	    int kind = kinds[e];
+	    int offset = offsets[e];
+	    if (kind >= 0) {
+		if (kind >= numRules || offset < 0 || offset > e)
+		    return false;
+	    } else {
+		if (~kind >= TOKENS.length)
+		    return false;
+		Token t = TOKENS[~kind];
+		int values = t == Token.STRING_LITERAL || t == Token.IDENTIFIER ? numStrings : numNumbers;
+		if (offset != NO_VALUE && (offset < 0 || offset >= values))
+		    return false;
+	    }
+	}
+	if (size == 0)
+	    return numPositions == 0;
+	if ((newPositions[0] & 1) == 0)
+	    return false;
+	// No bits after the last entry, so that the ranks count the positions
+	if ((size & 63) != 0 && (newPositions[newPositions.length - 1] >>> (size & 63)) != 0)
+	    return false;
+	int last = newPositions.length - 1;
+	return positionRanks[last] + Long.bitCount (newPositions[last]) == numPositions;
+    }
+
+    /** Get the number of entries */
+    int size () {
+	return size;
+    }
+
+    /** Get the entry for the root of the tree, -1 if the tree is empty */
+    int getRoot () {
+	return size - 1;
+    }
+
+    /** Get the first entry of the subtree that ends with the given entry */
+    int getSubtreeStart (int entry) {
+	return kinds[entry] < 0 ? entry : offsets[entry];
+    }
+
+    /** Build the tree nodes for the whole tree
+     * @return the syntax tree or null if the tree is empty
+     */
+    public SyntaxTree getSyntaxTree (JavaTreeBuilder treeBuilder, CompilerDiagnosticCollector diagnostics) {
+	if (size == 0)
+	    return null;
+	Deque<TreeNode> parts = new ArrayDeque<> ();
+	List<Rule> rules = grammar.getRules ();
+	int positionIndex = 0;
+	ParsePosition lastPosition = getParsePosition (0);
+	for (int e = 0; e < size; e++) {
+	    if (e > 0 && (newPositions[e >> 6] & (1L << e)) != 0) {
+		int p = 4 * ++positionIndex;
+		lastPosition = new ParsePosition (positionData[p], positionData[p + 1],
+						  positionData[p + 2], positionData[p + 3]);
+	    }
+	    int kind = kinds[e];
+	    if (kind < 0) {
+		int v = offsets[e];
+		Token t = TOKENS[~kind];
+		long number = 0;
+		String string = null;
+		if (v != NO_VALUE) {
+		    if (t == Token.STRING_LITERAL || t == Token.IDENTIFIER)
+			string = strings[v];
+		    else
+			number = numbers[v];
+		}
+		TreeNode tn = treeBuilder.getTokenValue (t, number, string, lastPosition);
+		if (tn != null)
+		    parts.push (tn);
+	    } else {
+		treeBuilder.build (rules.get (kind), parts, lastPosition, path, diagnostics);
+	    }
+	}
+	if (parts.size () > 1)
+	    diagnostics.report (SourceDiagnostics.error (path, getParsePosition (getRoot ()),
+							 "Got many parts back: " + parts));
+	TreeNode tn = parts.poll ();
+	return tn == null ? null : new SyntaxTree (path, tn);
+    }
+
+    short[] getKinds () {
+	return kinds;
+    }
+
+    int[] getOffsets () {
+	return offsets;
+    }
+
+    long[] getNewPositions () {
+	return newPositions;
+    }
+
+    int[] getPositionData () {
+	return positionData;
+    }
+
+    long[] getNumbers () {
+	return numbers;
+    }
+
+    String[] getStrings () {
+	return strings;
+    }
+}
@@ -0,0 +1,69 @@
+package org.khelekore.parjac.parser;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.lexer.ParsePosition;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.tree.TreeNode;
+
+/** A tree builder that builds the tree as usual and also stores each node
+ *  it builds in a CachedSyntaxTree, for the SyntaxTreeCache.
+ *
+ *  Use one recorder for each parse with a parser that builds its tree from
+ *  a TokenBuffer: the PackedEarleyParser, the HybridParser or the
+ *  SignatureParser, without debug output. The recorded tree is only
+ *  valid if the parse gave no errors.
+ */
+public class CachedTreeRecorder extends JavaTreeBuilder {
+    private final CachedSyntaxTree tree;
+    // The entries of the nodes that are in the parts, the top entry is last
+    private int[] entries = new int[64];
+    private int numEntries;
+
+    public CachedTreeRecorder (JavaTreeBuilder treeBuilder, Grammar grammar, Path path) {
+	super (treeBuilder);
+	tree = new CachedSyntaxTree (grammar, path);
+    }
+
+    @Override public TreeNode getTokenValue (TokenBuffer tokens, int i, ParsePosition pos) {
+	TreeNode tn = super.getTokenValue (tokens, i, pos);
+	if (tn != null)
+	    push (tree.addToken (tokens, i, pos));
+	return tn;
+    }
+
+    @Override public void build (Rule rule, Deque<TreeNode> parts, ParsePosition pos,
+				 Path path, CompilerDiagnosticCollector diagnostics) {
+	if (!buildsNode (rule))
+	    return;
+	int before = parts.size ();
+	TreeNode top = parts.peek ();
+	super.build (rule, parts, pos, path, diagnostics);
+	// Each node builder pushes one node, the popped nodes are the children
+	int popped = before - parts.size () + 1;
+	// Many builders give back their only part, like the expression rules
+	if (popped == 1 && parts.peek () == top)
+	    return;
+	int start = tree.size ();
+	for (int i = 0; i < popped && numEntries > 0; i++)
+	    start = tree.getSubtreeStart (entries[--numEntries]);
+	push (tree.addRule (rule, pos, start));
+    }
+
+    private void push (int entry) {
+	if (numEntries == entries.length)
+	    entries = Arrays.copyOf (entries, numEntries * 2);
+	entries[numEntries++] = entry;
+    }
+
+    /** Get the recorded tree, the recorder may not be used after this */
+    public CachedSyntaxTree getTree () {
+	tree.trim ();
+	return tree;
+    }
+}
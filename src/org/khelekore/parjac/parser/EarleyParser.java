@@ -3,10 +3,11 @@ package org.khelekore.parjac.parser;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -16,8 +17,6 @@ import org.khelekore.parjac.CompilerDiagnosticCollector;
 import org.khelekore.parjac.SourceDiagnostics;
 import org.khelekore.parjac.grammar.Grammar;
 import org.khelekore.parjac.grammar.Rule;
-import org.khelekore.parjac.grammar.SimplePart;
-import org.khelekore.parjac.grammar.TokenPart;
 import org.khelekore.parjac.lexer.Lexer;
 import org.khelekore.parjac.lexer.ParsePosition;
 import org.khelekore.parjac.lexer.Token;
@@ -28,7 +27,10 @@ import org.khelekore.parjac.tree.FloatLiteral;
 import org.khelekore.parjac.tree.Identifier;
 import org.khelekore.parjac.tree.IntLiteral;
 import org.khelekore.parjac.tree.LongLiteral;
+import org.khelekore.parjac.tree.ModifierTokenType;
 import org.khelekore.parjac.tree.NullLiteral;
+import org.khelekore.parjac.tree.OperatorTokenType;
+import org.khelekore.parjac.tree.PrimitiveTokenType;
 import org.khelekore.parjac.tree.StringLiteral;
 import org.khelekore.parjac.tree.SyntaxTree;
 import org.khelekore.parjac.tree.TreeNode;
@@ -44,18 +46,40 @@ public class EarleyParser {
     // Compiler output
     private final CompilerDiagnosticCollector diagnostics;
     private final boolean debug;
+    // Build the subtrees of clearable rules as soon as they complete
+    private final boolean streaming;
 
     // The state table
     private final List<EarleyState> states = new ArrayList<> ();
+    private int goalSymbol;
     private int attemptedRecoveries;
 
     // The tree builder
     private final JavaTreeBuilder treeBuilder;
 
+    // Clearable rules completed in the current set, only used when streaming
+    private final List<State> completedClearable = new ArrayList<> ();
+    // The subtrees that have been built while parsing
+    private final Map<State, BuiltSubtree> builtSubtrees = new IdentityHashMap<> ();
+
     public EarleyParser (Grammar grammar, Path path, Lexer lexer,
 			 PredictCache predictCache, JavaTreeBuilder treeBuilder,
 			 CompilerDiagnosticCollector diagnostics,
 			 boolean debug) {
+	this (grammar, path, lexer, predictCache, treeBuilder, diagnostics, debug, false);
+    }
+
+    /** Create a new parser.
+     * @param streaming if true then the subtree of a clearable rule is built as soon
+     *        as the rule completes unambiguously and the earley sets inside it are released,
+     *        so memory use depends on the largest clearable part instead of the file size.
+     *        Once error recovery has started the rest of the tree is built at the end,
+     *        as without streaming. The tree builder must not be null when streaming.
+     */
+    public EarleyParser (Grammar grammar, Path path, Lexer lexer,
+			 PredictCache predictCache, JavaTreeBuilder treeBuilder,
+			 CompilerDiagnosticCollector diagnostics,
+			 boolean debug, boolean streaming) {
 	this.grammar = grammar;
 	this.path = path;
 	this.lexer = lexer;
@@ -63,6 +87,7 @@ public class EarleyParser {
 	this.diagnostics = diagnostics;
 	this.debug = debug;
 	this.treeBuilder = treeBuilder;
+	this.streaming = streaming && treeBuilder != null;
 	if (debug) {
 	    int i = 0;
 	    System.err.format ("%d rule names, %d rules\n",
@@ -75,6 +100,7 @@ public class EarleyParser {
 
     public SyntaxTree parse () {
 	Rule goalRule = grammar.getRules ("Goal").getRules ().get (0);
+	goalSymbol = goalRule.getNameSymbol ();
 	int currentPosition = 0;
 	EarleyState es = new EarleyState (null);
 	es.addState (new State (goalRule, 0, currentPosition));
@@ -147,7 +173,9 @@ public class EarleyParser {
 	if (debug)
 	    System.err.println (currentPosition + ": start current: " + current);
 	completeState (current);
-	predict (current);
+	if (isBuildingSubtrees ())
+	    buildCompletedSubtrees (current, currentPosition);
+	predict (current, nextToken);
 	EarleyState sms = scan (current, currentPosition, nextToken, currentTokenValue);
 	if (debug)
 	    System.err.println (currentPosition + ": final current: " + current);
@@ -171,15 +199,16 @@ public class EarleyParser {
     private void completeLast (State completed, Map<State, State> seen,
 			   List<State> allCompleted, Deque<State> multiComplete) {
 	EarleyState originStates = states.get (completed.getStartPos ());
+	int symbol = completed.getRule ().getNameSymbol ();
 	for (State s : originStates.getStates ()) {
-	    if (!s.dotIsLast () && s.getPartAfterDot ().getId ().equals (completed.getRule ().getName ())) {
+	    if (!s.dotIsLast () && s.getSymbolAfterDot () == symbol) {
 		completeWithNext (completed, seen, allCompleted, multiComplete, s.advance (completed));
 	    }
 	}
 	ListRuleHolder lrh = originStates.getListRuleHolder ();
 	if (lrh != null) {
-	    for (Iterator<Rule> i = lrh.getRulesWithRuleNext (completed.getRule ()); i.hasNext (); ) {
-		State previousState = new State (i.next (), 0, completed.getStartPos ());
+	    for (Rule r : lrh.getRulesWithRuleNext (completed.getRule ())) {
+		State previousState = new State (r, 0, completed.getStartPos ());
 		completeWithNext (completed, seen, allCompleted, multiComplete, previousState.advance (completed));
 	    }
 	}
@@ -199,6 +228,64 @@ public class EarleyParser {
 
 	if (grammar.isClearableRule (completed.getRule ())) {
 	    clearStates (completed);
+	    if (isBuildingSubtrees () && !completedClearable.contains (completed))
+		completedClearable.add (completed);
+	}
+    }
+
+    /** Subtrees are not built during error recovery, the tree builder may fail
+     *  on what recovery added and then the parse errors have to be reported first.
+     */
+    private boolean isBuildingSubtrees () {
+	return streaming && attemptedRecoveries == 0;
+    }
+
+    /** Build the subtrees of the clearable rules that completed in the current set.
+     *  A subtree is only built if it is unambiguous and no unfinished state in the
+     *  current set started inside it, then no later state can need the sets inside it.
+     */
+    private void buildCompletedSubtrees (EarleyState current, int currentPosition) {
+	for (State s : completedClearable) {
+	    List<State> completed = s.getCompleted ();
+	    if (completed != null && completed.size () == 1 &&
+		!hasStatesStartingInside (current, s.getStartPos (), currentPosition))
+		buildSubtree (s, currentPosition);
+	}
+	completedClearable.clear ();
+    }
+
+    private boolean hasStatesStartingInside (EarleyState current, int start, int end) {
+	for (State s : current.getStates ()) {
+	    int sp = s.getStartPos ();
+	    if (sp > start && sp < end && !s.dotIsLast ())
+		return true;
+	}
+	return false;
+    }
+
+    private void buildSubtree (State s, int currentPosition) {
+	Deque<State> toVisit = new ArrayDeque<> ();
+	toVisit.push (s);
+	BuiltSubtree bs = new BuiltSubtree (currentPosition - s.getStartPos ());
+	int end = buildTreeNode (toVisit, bs.parts, bs.errors, currentPosition, bs.diagnostics);
+	if (end != s.getStartPos ())
+	    throw new IllegalStateException ("Subtree ended at wrong position: " + end + ", " + s);
+	s.clearLinks ();
+	builtSubtrees.put (s, bs);
+	for (int i = s.getStartPos () + 1; i < currentPosition; i++)
+	    states.get (i).release ();
+    }
+
+    /** The tree nodes, errors and diagnostics of a subtree that has already been built */
+    private static class BuiltSubtree {
+	private final int numTokens;
+	private final Deque<TreeNode> parts = new ArrayDeque<> ();
+	private final Deque<SourceDiagnostics> errors = new ArrayDeque<> ();
+	// Tree builder diagnostics, reported when the full tree is built so the order is kept
+	private final CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+
+	public BuiltSubtree (int numTokens) {
+	    this.numTokens = numTokens;
 	}
     }
 
@@ -214,10 +301,17 @@ public class EarleyParser {
 	    State s = toVisit.removeLast ();
 	    if (!es.hasBeenCleared ())
 		toKeep.add (s);
+	    BuiltSubtree bs = builtSubtrees.isEmpty () ? null : builtSubtrees.get (s);
+	    if (bs != null) {
+		// The sets inside were cleared when it completed, so only skip its tokens
+		tokenPos -= bs.numTokens;
+		es = states.get (tokenPos);
+		continue;
+	    }
 	    State previous = s.getPrevious ();
 	    if (previous != null) {
 		toVisit.addLast (previous);
-		if (previous.getPartAfterDot () instanceof TokenPart) {
+		if (Grammar.isToken (previous.getSymbolAfterDot ())) {
 		    if (!es.hasBeenCleared ()) {
 			es.getStates ().retainAll (toKeep);
 			toKeep.clear ();
@@ -233,29 +327,36 @@ public class EarleyParser {
 	}
     }
 
-    private void predict (EarleyState current) {
-	Set<String> rules = new HashSet<> ();
+    /** Predict the rules for the current state
+     * @param nextToken the token that predicted rules have to start with, null to predict all rules
+     */
+    private void predict (EarleyState current, Token nextToken) {
+	BitSet rules = new BitSet ();
 	for (State s : current.getStates ()) {
 	    if (!s.dotIsLast ()) {
-		SimplePart sp = s.getPartAfterDot ();
-		if (sp.isRulePart ())
-		    rules.add ((String)sp.getId ());
+		int symbol = s.getSymbolAfterDot ();
+		if (!Grammar.isToken (symbol))
+		    rules.set (symbol);
 	    }
 	}
-	current.setPredictedStates (predictCache.getPredictedRules (rules));
+	ListRuleHolder lrh = nextToken == null ?
+	    predictCache.getPredictedRules (rules) :
+	    predictCache.getPredictedRules (rules, nextToken);
+	current.setPredictedStates (lrh);
     }
 
     private EarleyState scan (EarleyState current, int currentPosition,
 			      Token nextToken, TreeNode currentTokenValue) {
 	EarleyState ret = new EarleyState (currentTokenValue);
+	int symbol = nextToken.ordinal ();
 	for (State s : current.getStates ()) {
-	    if (!s.dotIsLast () && s.getPartAfterDot ().getId ().equals (nextToken))
+	    if (!s.dotIsLast () && s.getSymbolAfterDot () == symbol)
 		ret.addState (s.advance (null));
 	}
 	ListRuleHolder lrh = current.getListRuleHolder ();
 	if (lrh != null) {
-	    for (Iterator<Rule> i = lrh.getRulesWithTokenNext (nextToken); i.hasNext (); ) {
-		State s = new State (i.next (), 0, currentPosition);
+	    for (Rule r : lrh.getRulesWithTokenNext (nextToken)) {
+		State s = new State (r, 0, currentPosition);
 		current.addState (s);
 		ret.addState (s.advance (null));
 	    }
@@ -266,8 +367,10 @@ public class EarleyParser {
     }
 
     private void addPossibleNextTokens (int currentPosition, ParsePosition pos) {
-	EarleyState es = states.get (states.size () - 1);
 	EarleyState current = states.get (currentPosition);
+	// The predictions were filtered by the token that failed, so predict again
+	predict (current, null);
+	EarleyState es = states.get (states.size () - 1);
 	EarleyState next = null;
 	for (Token t : es.getPossibleNextToken ()) {
 	    EarleyState sms = scan (current, currentPosition, t, new ErrorTreeNode (pos));
@@ -283,7 +386,7 @@ public class EarleyParser {
     }
 
     private boolean isEndState (State s) {
-	return s.getStartPos () == 0 && s.dotIsLast () && s.getRule ().getName ().equals ("Goal");
+	return s.getStartPos () == 0 && s.dotIsLast () && s.getRule ().getNameSymbol () == goalSymbol;
     }
 
     private SyntaxTree buildTree (State s) {
@@ -291,7 +394,7 @@ public class EarleyParser {
 	toVisit.push (s);
 	Deque<TreeNode> parts = new ArrayDeque<> ();
 	Deque<SourceDiagnostics> errors = new ArrayDeque<> (); // since errors come in wrong order
-	buildTreeNode (toVisit, parts, errors);
+	buildTreeNode (toVisit, parts, errors, states.size () - 2, diagnostics); // skip <end_of_input>
 	errors.forEach (d -> diagnostics.report (d));
 	if (parts.size () == 0)
 	    return null;
@@ -303,11 +406,23 @@ public class EarleyParser {
 	return new SyntaxTree (path, topNode);
     }
 
-    private void buildTreeNode (Deque<State> toVisit, Deque<TreeNode> parts, Deque<SourceDiagnostics> errors) {
-	int tokenPos = states.size () - 2; // skip <end_of_input>
+    /** Build the tree nodes for the states to visit.
+     * @param tokenPos the index of the earley set of the first state to visit
+     * @return the index of the earley set where the last visited state started
+     */
+    private int buildTreeNode (Deque<State> toVisit, Deque<TreeNode> parts, Deque<SourceDiagnostics> errors,
+			       int tokenPos, CompilerDiagnosticCollector diagnostics) {
 	while (!toVisit.isEmpty ()) {
 	    State s = toVisit.pop ();
 
+	    BuiltSubtree bs = builtSubtrees.isEmpty () ? null : builtSubtrees.get (s);
+	    if (bs != null) {
+		bs.parts.descendingIterator ().forEachRemaining (parts::push);
+		bs.errors.descendingIterator ().forEachRemaining (errors::push);
+		bs.diagnostics.getDiagnostics ().forEach (diagnostics::report);
+		tokenPos -= bs.numTokens;
+		continue;
+	    }
 	    State previous = s.getPrevious ();
 	    EarleyState es = states.get (tokenPos);
 	    if (previous == null) {
@@ -315,7 +430,7 @@ public class EarleyParser {
 		continue;
 	    } else {
 		toVisit.push (previous);
-		if (previous.getPartAfterDot () instanceof TokenPart) {
+		if (Grammar.isToken (previous.getSymbolAfterDot ())) {
 		    TreeNode tn = es.getTokenValue ();
 		    if (tn instanceof ErrorTreeNode) {
 			errors.push (SourceDiagnostics.error (path, tn.getParsePosition (),
@@ -332,9 +447,18 @@ public class EarleyParser {
 			toVisit.push (c);
 	    }
 	}
+	return tokenPos;
     }
 
-    private TreeNode getErrorNode (ParsePosition pos, Token token) {
+    /** Get the tree node for a token that error recovery added */
+    static TreeNode getErrorNode (ParsePosition pos, Token token) {
+	// The tree builders expect the same kind of node as for a real token
+	if (token.isOperator ())
+	    return new OperatorTokenType (token, pos);
+	else if (token.isPrimitive ())
+	    return new PrimitiveTokenType (token, pos);
+	else if (token.isModifier ())
+	    return new ModifierTokenType (token, pos);
 	switch (token) {
 	case INT_LITERAL:
 	    return new IntLiteral (1, pos);
@@ -90,6 +90,15 @@ public class EarleyState {
 	cleared = true;
     }
 
+    /** Drop the states and predictions, only the token value and parse position
+     *  are kept so that the tree can still be built.
+     */
+    public void release () {
+	states = Collections.emptySet ();
+	lrh = null;
+	cleared = true;
+    }
+
     @Override public String toString () {
 	return getClass ().getSimpleName () + "{" +
 	    "parsePosition: " + parsePosition +
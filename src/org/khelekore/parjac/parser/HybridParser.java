@@ -0,0 +1,328 @@
+package org.khelekore.parjac.parser;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.SourceDiagnostics;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.lexer.ParsePosition;
+import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.khelekore.parjac.tree.TreeNode;
+
+/** A parser that is driven by the SLR tables in a ParseTable and falls back
+ *  to the PackedEarleyParser when the tables can not give a single parse.
+ *
+ *  Most cells in the tables have one action and most tokens are handled by a
+ *  single LR stack. Where a cell has many actions, like the modifiers that
+ *  can belong to a class, a field or a method, or a '&lt;' that may start type
+ *  arguments, each action gets its own stack. The stacks share their common
+ *  bottom part and the ones that can not handle the next token are dropped.
+ *
+ *  If two stacks end up in the same state on top of the same node the input
+ *  has two parses, that is left to the earley parser. So is any syntax error,
+ *  which also keeps the error reporting the same, and inputs that need too
+ *  many stacks at once. Inputs with lexer errors or unbalanced brackets are
+ *  given to the earley parser without trying the tables.
+ *
+ *  The tree is built by walking the reductions right to left, in the same
+ *  order as the earley parsers walk their items, so the tree builder gives
+ *  the same tree and the same diagnostics.
+ */
+public class HybridParser {
+    private static final int MAX_STACKS = 32;
+    // Reductions and shifts done for one token before we give up
+    private static final int MAX_STEPS = 1000;
+
+    private final Grammar grammar;
+    private final Path path;
+    private final TokenBuffer tokens;
+    private final ParseTable table;
+    private final PredictCache predictCache;
+    private final JavaTreeBuilder treeBuilder;
+    private final CompilerDiagnosticCollector diagnostics;
+    private final boolean debug;
+
+    private Fallback fallback = Fallback.NONE;
+
+    // The stacks for the current token and the next token
+    private Node[] current = new Node[MAX_STACKS];
+    private Node[] next = new Node[MAX_STACKS];
+    private int numNext;
+    // Nodes to handle for the current token
+    private Node[] work = new Node[64];
+    // The nodes made by reductions for the current token
+    private Node[] reducedNodes = new Node[64];
+    private int numReduced;
+
+    /** Create a parser for the tokens in the given buffer, the buffer
+     *  may not be changed until the parse is done.
+     * @param table the tables for the "Goal" rule of the grammar
+     */
+    public HybridParser (Grammar grammar, Path path, TokenBuffer tokens, ParseTable table,
+			 PredictCache predictCache, JavaTreeBuilder treeBuilder,
+			 CompilerDiagnosticCollector diagnostics, boolean debug) {
+	this.grammar = grammar;
+	this.path = path;
+	this.tokens = tokens;
+	this.table = table;
+	this.predictCache = predictCache;
+	this.treeBuilder = treeBuilder;
+	this.diagnostics = diagnostics;
+	this.debug = debug;
+    }
+
+    /** Why the earley parser was used */
+    public enum Fallback {
+	/** The tables gave a single parse */
+	NONE,
+	/** There is no tree builder, so no tree to build from the tables */
+	NO_TREE_BUILDER,
+	/** The tokens have lexer errors or unbalanced brackets, the tables were not tried */
+	LIKELY_ERROR,
+	/** No stack could handle a token or the input ended early */
+	SYNTAX_ERROR,
+	/** Two stacks reduced to the same state, the input has more than one parse */
+	AMBIGUOUS,
+	/** A token needed more stacks or steps than the limits */
+	TOO_MANY_STACKS
+    }
+
+    public SyntaxTree parse () {
+	fallback = Fallback.NONE;
+	Node top = null;
+	if (treeBuilder == null)
+	    fallback = Fallback.NO_TREE_BUILDER;
+	else if (hasLikelyError ())
+	    fallback = Fallback.LIKELY_ERROR;
+	else
+	    top = parseTables ();
+	if (top == null) {
+	    if (debug)
+		System.err.println ("Parse tables gave no single parse: " + fallback +
+				    ", using earley parser for: " + path);
+	    return new PackedEarleyParser (grammar, path, tokens, predictCache, treeBuilder,
+					   diagnostics, debug).parse ();
+	}
+	// Same as the earley parsers, do not build trees once there are errors
+	if (diagnostics.hasError ())
+	    return null;
+	TreeNode tn = buildTree (top);
+	if (debug)
+	    System.err.println ("Built tree: " + tn);
+	return tn == null ? null : new SyntaxTree (path, tn);
+    }
+
+    /** Check if the last parse had to use the earley parser */
+    public boolean usedEarleyParser () {
+	return fallback != Fallback.NONE;
+    }
+
+    /** Get the reason the last parse used the earley parser, NONE if it did not */
+    public Fallback getFallback () {
+	return fallback;
+    }
+
+    /** Check for lexer errors and brackets that do not match, the tables would
+     *  only fail on those and the earley parser has to report them anyway.
+     */
+    private boolean hasLikelyError () {
+	Token[] open = new Token[64];
+	int depth = 0;
+	for (int i = 0, n = tokens.size (); i < n; i++) {
+	    Token t = tokens.getToken (i);
+	    switch (t) {
+	    case ERROR:
+		return true;
+	    case LEFT_PARENTHESIS:
+	    case LEFT_BRACKET:
+	    case LEFT_CURLY:
+		if (depth == open.length)
+		    open = Arrays.copyOf (open, depth * 2);
+		open[depth++] = t;
+		break;
+	    case RIGHT_PARENTHESIS:
+		if (depth == 0 || open[--depth] != Token.LEFT_PARENTHESIS)
+		    return true;
+		break;
+	    case RIGHT_BRACKET:
+		if (depth == 0 || open[--depth] != Token.LEFT_BRACKET)
+		    return true;
+		break;
+	    case RIGHT_CURLY:
+		if (depth == 0 || open[--depth] != Token.LEFT_CURLY)
+		    return true;
+		break;
+	    default:
+		// not a bracket
+	    }
+	}
+	return depth != 0;
+    }
+
+    /** Run the tables over all the tokens.
+     * @return the goal node, without the end of input, or null if there was not exactly one parse
+     */
+    private Node parseTables () {
+	current[0] = new Node (0, null, null, 0, null);
+	int numCurrent = 1;
+	for (int i = 0, n = tokens.size (); i < n; i++) {
+	    if (!handleToken (i, tokens.getTokenId (i), numCurrent))
+		return null;
+	    Node[] t = current;
+	    current = next;
+	    next = t;
+	    numCurrent = numNext;
+	}
+	if (numCurrent != 1) {
+	    fallback = Fallback.AMBIGUOUS;
+	    return null;
+	}
+	if (!table.isAccepting (current[0].state)) {
+	    fallback = Fallback.SYNTAX_ERROR;
+	    return null;
+	}
+	// Skip the end of input, build the goal rule from the rest
+	Node goal = current[0].up;
+	return new Node (goal.state, null, table.getGoalRule (), 0, new Node[] { goal });
+    }
+
+    /** Do all the reductions and shifts for the token
+     * @return false if the token could not be handled by exactly one parse,
+     *         the fallback is set to the reason
+     */
+    private boolean handleToken (int index, int token, int numCurrent) {
+	numNext = 0;
+	numReduced = 0;
+	System.arraycopy (current, 0, work, 0, numCurrent);
+	int numWork = numCurrent;
+	int steps = 0;
+	while (numWork > 0) {
+	    if (++steps > MAX_STEPS) {
+		fallback = Fallback.TOO_MANY_STACKS;
+		return false;
+	    }
+	    Node node = work[--numWork];
+	    int shift = table.getGoto (node.state, token);
+	    if (shift >= 0) {
+		if (numNext == MAX_STACKS) {
+		    fallback = Fallback.TOO_MANY_STACKS;
+		    return false;
+		}
+		next[numNext++] = new Node (shift, node, null, index, null);
+	    }
+	    Rule[] rs = table.getReduces (node.state, token);
+	    if (rs == null)
+		continue;
+	    for (Rule r : rs) {
+		Node[] children = new Node[r.size ()];
+		Node base = node;
+		for (int j = children.length - 1; j >= 0; j--) {
+		    children[j] = base;
+		    base = base.up;
+		}
+		int state = table.getGoto (base.state, r.getNameSymbol ());
+		if (hasReduced (base, state)) {
+		    fallback = Fallback.AMBIGUOUS;
+		    return false;
+		}
+		int start = children.length > 0 ? children[0].start : index;
+		Node reduced = new Node (state, base, r, start, children);
+		if (numWork == work.length)
+		    work = Arrays.copyOf (work, work.length * 2);
+		work[numWork++] = reduced;
+		if (numReduced == reducedNodes.length)
+		    reducedNodes = Arrays.copyOf (reducedNodes, numReduced * 2);
+		reducedNodes[numReduced++] = reduced;
+	    }
+	}
+	if (numNext == 0)
+	    fallback = Fallback.SYNTAX_ERROR;
+	return numNext > 0;
+    }
+
+    /** Check if some other stack already reduced to the given state on top of base,
+     *  if so the input has more than one parse.
+     */
+    private boolean hasReduced (Node base, int state) {
+	for (int i = 0; i < numReduced; i++) {
+	    Node n = reducedNodes[i];
+	    if (n.up == base && n.state == state)
+		return true;
+	}
+	return false;
+    }
+
+    private TreeNode buildTree (Node top) {
+	Deque<TreeNode> parts = new ArrayDeque<> ();
+	Node[] toVisit = new Node[64];
+	boolean[] built = new boolean[64];
+	int numToVisit = 0;
+	toVisit[numToVisit++] = top;
+	// Many rules are built at the same position, share the parse position
+	int lastPositionToken = -1;
+	ParsePosition lastPosition = null;
+	while (numToVisit > 0) {
+	    Node node = toVisit[--numToVisit];
+	    if (node.rule == null) {
+		TreeNode tn = treeBuilder.getTokenValue (tokens, node.start, tokens.getParsePosition (node.start));
+		if (tn != null)
+		    parts.push (tn);
+		continue;
+	    }
+	    if (built[numToVisit]) {
+		built[numToVisit] = false;
+		if (node.start != lastPositionToken) {
+		    lastPositionToken = node.start;
+		    lastPosition = tokens.getParsePosition (node.start);
+		}
+		treeBuilder.build (node.rule, parts, lastPosition, path, diagnostics);
+		continue;
+	    }
+	    Node[] children = node.children;
+	    // The earley parsers step over empty rules without building them
+	    if (children.length == 0)
+		continue;
+	    // Build the rule once the children are done, the last child first
+	    if (numToVisit + children.length + 1 > toVisit.length) {
+		int size = Math.max (toVisit.length * 2, numToVisit + children.length + 1);
+		toVisit = Arrays.copyOf (toVisit, size);
+		built = Arrays.copyOf (built, size);
+	    }
+	    built[numToVisit] = true;
+	    toVisit[numToVisit++] = node;
+	    for (Node c : children)
+		toVisit[numToVisit++] = c;
+	}
+	if (parts.size () == 0)
+	    return null;
+	if (parts.size () != 1)
+	    diagnostics.report (SourceDiagnostics.error (path, tokens.getParsePosition (0),
+							 "Got many parts back: " + parts));
+	return parts.poll ();
+    }
+
+    /** A node in one of the LR stacks, it is also the parse tree node for its symbol.
+     *  Nodes for tokens have no rule, their start is the index of the token.
+     */
+    private static final class Node {
+	private final int state;
+	private final Node up;
+	private final Rule rule;
+	private final int start;
+	private final Node[] children;
+
+	public Node (int state, Node up, Rule rule, int start, Node[] children) {
+	    this.state = state;
+	    this.up = up;
+	    this.rule = rule;
+	    this.start = start;
+	    this.children = children;
+	}
+    }
+}
@@ -2,8 +2,13 @@ package org.khelekore.parjac.parser;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.khelekore.parjac.CompilerDiagnosticCollector;
 import org.khelekore.parjac.grammar.Grammar;
@@ -12,193 +17,232 @@ import org.khelekore.parjac.grammar.RuleCollection;
 import org.khelekore.parjac.lexer.Lexer;
 import org.khelekore.parjac.lexer.ParsePosition;
 import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.lexer.TokenBuffer;
 import org.khelekore.parjac.tree.*;
 
 public class JavaTreeBuilder {
 
-    // Indexed by rule id
-    private List<Builder> builders;
+    // Rule name to builder, filled in once
+    private static final Map<String, Builder> BUILDERS = new LinkedHashMap<> ();
 
-    public JavaTreeBuilder (Grammar g) {
-	builders = new ArrayList<> (g.getNumberOfRules ());
-	for (int i = 0; i < g.getNumberOfRules (); i++)
-	    builders.add (null);
+    // Indexed by rule id
+    private final List<Builder> builders;
+    // Indexed by rule id, the rule as written in the grammar
+    private final Rule[] originals;
+    // The zero or more rules that add to an existing entry, by rule id
+    private final BitSet zomContinued;
 
+    static {
 	// Productions from §3 (Lexical Structure)
 
 	// Productions from §4 (Types, Values, and Variables)
-	register (g, "PrimitiveType", constructored (PrimitiveType::new));
-	register (g, "ClassType", constructored (ClassType::build));
-	register (g, "SimpleClassType", constructored (SimpleClassType::new));
-	register (g, "ArrayType", constructored (ArrayType::new));
-	register (g, "Dims", constructored (Dims::build));
-	register (g, "OneDim", constructored (OneDim::new));
-	register (g, "TypeParameter", constructored (TypeParameter::new));
-	register (g, "TypeBound", constructored (TypeBound::new));
-	register (g, "AdditionalBound", constructored (AdditionalBound::new));
-	register (g, "TypeArguments", constructored (TypeArguments::new));
-	register (g, "TypeArgumentList", constructored (TypeArgumentList::new));
-	register (g, "Wildcard", constructored (Wildcard::new));
-	register (g, "WildcardBounds", constructored (WildcardBounds::new));
+	add ("PrimitiveType", constructored (PrimitiveType::new));
+	add ("ClassType", constructored (ClassType::build));
+	add ("SimpleClassType", constructored (SimpleClassType::new));
+	add ("ArrayType", constructored (ArrayType::new));
+	add ("Dims", constructored (Dims::build));
+	add ("OneDim", constructored (OneDim::new));
+	add ("TypeParameter", constructored (TypeParameter::new));
+	add ("TypeBound", constructored (TypeBound::new));
+	add ("AdditionalBound", constructored (AdditionalBound::new));
+	add ("TypeArguments", constructored (TypeArguments::new));
+	add ("TypeArgumentList", constructored (TypeArgumentList::new));
+	add ("Wildcard", constructored (Wildcard::new));
+	add ("WildcardBounds", constructored (WildcardBounds::new));
 
 	// Productions from §6 Names
-	register (g, "DottedName", constructored (DottedName::create));
+	add ("DottedName", constructored (DottedName::create));
 
 	// Productions from §7 (Packages)
-	register (g, "CompilationUnit", constructored (CompilationUnit::new));
-	register (g, "PackageDeclaration", constructored (PackageDeclaration::new));
-	register (g, "SingleTypeImportDeclaration",
-		  constructored (SingleTypeImportDeclaration::new));
-	register (g, "TypeImportOnDemandDeclaration",
-		  constructored (TypeImportOnDemandDeclaration::new));
-	register (g, "SingleStaticImportDeclaration",
-		  constructored (SingleStaticImportDeclaration::build));
-	register (g, "StaticImportOnDemandDeclaration",
-		  constructored (StaticImportOnDemandDeclaration::build));
+	add ("CompilationUnit", constructored (CompilationUnit::new));
+	add ("PackageDeclaration", constructored (PackageDeclaration::new));
+	add ("SingleTypeImportDeclaration",
+	     constructored (SingleTypeImportDeclaration::new));
+	add ("TypeImportOnDemandDeclaration",
+	     constructored (TypeImportOnDemandDeclaration::new));
+	add ("SingleStaticImportDeclaration",
+	     constructored (SingleStaticImportDeclaration::build));
+	add ("StaticImportOnDemandDeclaration",
+	     constructored (StaticImportOnDemandDeclaration::build));
 
 	// Productions from §8 (Classes)
-	register (g, "NormalClassDeclaration", diagnosed (NormalClassDeclaration::new));
-	register (g, "TypeParameters", constructored (TypeParameters::new));
-	register (g, "InterfaceTypeList", constructored (InterfaceTypeList::new));
-	register (g, "ClassBody", constructored (ClassBody::new));
-	register (g, "FieldDeclaration", diagnosed (FieldDeclaration::new));
-	register (g, "VariableDeclaratorList", constructored ((r, d, p) -> new VariableDeclaratorList (r, d, p)));
-	register (g, "VariableDeclarator", constructored (VariableDeclarator::new));
-	register (g, "VariableDeclaratorId", constructored (VariableDeclaratorId::new));
-	register (g, "UnannClassType", constructored (UnannClassType::build));
-	register (g, "UnannArrayType", constructored (UnannArrayType::new));
-	register (g, "MethodDeclaration", diagnosed (MethodDeclaration::new));
-	register (g, "MethodHeader", constructored (MethodHeader::new));
-	register (g, "UntypedMethodHeader", constructored (UntypedMethodHeader::new));
-	register (g, "Result", constructored (Result::build));
-	register (g, "MethodDeclarator", constructored (MethodDeclarator::new));
-	register (g, "FormalParameterList", constructored (FormalParameterList::new));
-	register (g, "NormalFormalParameterList", constructored ((r, d, p) -> new NormalFormalParameterList (r, d, p)));
-	register (g, "FormalParameter", diagnosed (FormalParameter::new));
-	register (g, "LastFormalParameter", diagnosed (LastFormalParameter::build));
-	register (g, "ReceiverParameter", constructored (ReceiverParameter::new));
-	register (g, "Throws", constructored (Throws::new));
-	register (g, "MethodBody", constructored (MethodBody::build));
-	register (g, "InstanceInitializer", constructored (InstanceInitializer::new));
-	register (g, "StaticInitializer", constructored (StaticInitializer::new));
-	register (g, "ConstructorDeclaration", diagnosed (ConstructorDeclaration::new));
-	register (g, "ConstructorDeclarator", constructored (ConstructorDeclarator::new));
-	register (g, "ConstructorBody", constructored ((r, d, p) -> new ConstructorBody (r, d, p)));
-	register (g, "ExplicitConstructorInvocation",
-		  constructored (ExplicitConstructorInvocation::new));
-	register (g, "ConstructorArguments", constructored (ConstructorArguments::new));
-	register (g, "EnumDeclaration", diagnosed (EnumDeclaration::new));
-	register (g, "EnumBody", constructored (EnumBody::new));
-	register (g, "EnumConstantList", constructored (EnumConstantList::new));
-	register (g, "EnumConstant", constructored (EnumConstant::new));
-	register (g, "EnumBodyDeclarations", constructored (EnumBodyDeclarations::new));
-	register (g, "EmptyDeclaration", constructored (EmptyDeclaration::new));
+	add ("NormalClassDeclaration", diagnosed (NormalClassDeclaration::new));
+	add ("TypeParameters", constructored (TypeParameters::new));
+	add ("InterfaceTypeList", constructored (InterfaceTypeList::new));
+	add ("ClassBody", constructored (ClassBody::new));
+	add ("FieldDeclaration", diagnosed (FieldDeclaration::new));
+	add ("VariableDeclaratorList", constructored ((r, d, p) -> new VariableDeclaratorList (r, d, p)));
+	add ("VariableDeclarator", constructored (VariableDeclarator::new));
+	add ("VariableDeclaratorId", constructored (VariableDeclaratorId::new));
+	add ("UnannClassType", constructored (UnannClassType::build));
+	add ("UnannArrayType", constructored (UnannArrayType::new));
+	add ("MethodDeclaration", diagnosed (MethodDeclaration::new));
+	add ("MethodHeader", constructored (MethodHeader::new));
+	add ("UntypedMethodHeader", constructored (UntypedMethodHeader::new));
+	add ("Result", constructored (Result::build));
+	add ("MethodDeclarator", constructored (MethodDeclarator::new));
+	add ("FormalParameterList", constructored (FormalParameterList::new));
+	add ("NormalFormalParameterList", constructored ((r, d, p) -> new NormalFormalParameterList (r, d, p)));
+	add ("FormalParameter", diagnosed (FormalParameter::new));
+	add ("LastFormalParameter", diagnosed (LastFormalParameter::build));
+	add ("ReceiverParameter", constructored (ReceiverParameter::new));
+	add ("Throws", constructored (Throws::new));
+	add ("MethodBody", constructored (MethodBody::build));
+	add ("InstanceInitializer", constructored (InstanceInitializer::new));
+	add ("StaticInitializer", constructored (StaticInitializer::new));
+	add ("ConstructorDeclaration", diagnosed (ConstructorDeclaration::new));
+	add ("ConstructorDeclarator", constructored (ConstructorDeclarator::new));
+	add ("ConstructorBody", constructored ((r, d, p) -> new ConstructorBody (r, d, p)));
+	add ("ExplicitConstructorInvocation",
+	     constructored (ExplicitConstructorInvocation::new));
+	add ("ConstructorArguments", constructored (ConstructorArguments::new));
+	add ("EnumDeclaration", diagnosed (EnumDeclaration::new));
+	add ("EnumBody", constructored (EnumBody::new));
+	add ("EnumConstantList", constructored (EnumConstantList::new));
+	add ("EnumConstant", constructored (EnumConstant::new));
+	add ("EnumBodyDeclarations", constructored (EnumBodyDeclarations::new));
+	add ("EmptyDeclaration", constructored (EmptyDeclaration::new));
 
 	// Productions from §9 (Interfaces)
-	register (g, "NormalInterfaceDeclaration", diagnosed (NormalInterfaceDeclaration::new));
-	register (g, "ExtendsInterfaces", constructored (ExtendsInterfaces::new));
-	register (g, "InterfaceBody", constructored (InterfaceBody::new));
-	register (g, "ConstantDeclaration", constructored (ConstantDeclaration::new));
-	register (g, "InterfaceMethodDeclaration", diagnosed (InterfaceMethodDeclaration::new));
-	register (g, "AnnotationTypeDeclaration", diagnosed (AnnotationTypeDeclaration::new));
-	register (g, "AnnotationTypeBody", constructored (AnnotationTypeBody::new));
-	register (g, "AnnotationTypeElementDeclaration",
-		  constructored (AnnotationTypeElementDeclaration::new));
-	register (g, "DefaultValue", constructored (DefaultValue::new));
-	register (g, "NormalAnnotation", constructored (NormalAnnotation::new));
-	register (g, "ElementValuePairList", constructored (ElementValuePairList::new));
-	register (g, "ElementValuePair", constructored (ElementValuePair::new));
-	register (g, "ElementValueArrayInitializer", constructored (ElementValueArrayInitializer::new));
-	register (g, "ElementValueList", constructored (ElementValueList::new));
-	register (g, "MarkerAnnotation", constructored (MarkerAnnotation::new));
-	register (g, "SingleElementAnnotation", constructored (SingleElementAnnotation::new));
+	add ("NormalInterfaceDeclaration", diagnosed (NormalInterfaceDeclaration::new));
+	add ("ExtendsInterfaces", constructored (ExtendsInterfaces::new));
+	add ("InterfaceBody", constructored (InterfaceBody::new));
+	add ("ConstantDeclaration", constructored (ConstantDeclaration::new));
+	add ("InterfaceMethodDeclaration", diagnosed (InterfaceMethodDeclaration::new));
+	add ("AnnotationTypeDeclaration", diagnosed (AnnotationTypeDeclaration::new));
+	add ("AnnotationTypeBody", constructored (AnnotationTypeBody::new));
+	add ("AnnotationTypeElementDeclaration",
+	     constructored (AnnotationTypeElementDeclaration::new));
+	add ("DefaultValue", constructored (DefaultValue::new));
+	add ("NormalAnnotation", constructored (NormalAnnotation::new));
+	add ("ElementValuePairList", constructored (ElementValuePairList::new));
+	add ("ElementValuePair", constructored (ElementValuePair::new));
+	add ("ElementValueArrayInitializer", constructored (ElementValueArrayInitializer::new));
+	add ("ElementValueList", constructored (ElementValueList::new));
+	add ("MarkerAnnotation", constructored (MarkerAnnotation::new));
+	add ("SingleElementAnnotation", constructored (SingleElementAnnotation::new));
 
 	// Productions from §10 (Arrays)
-	register (g, "ArrayInitializer", constructored (ArrayInitializer::new));
-	register (g, "VariableInitializerList", constructored (VariableInitializerList::new));
+	add ("ArrayInitializer", constructored (ArrayInitializer::new));
+	add ("VariableInitializerList", constructored (VariableInitializerList::new));
 
 	// Productions from §14 (Blocks and Statements)
-	register (g, "Block", constructored (Block::new));
-	register (g, "BlockStatements", constructored (BlockStatements::new));
-	register (g, "LocalVariableDeclarationStatement",
-		  constructored (LocalVariableDeclarationStatement::new));
-	register (g, "LocalVariableDeclaration", diagnosed (LocalVariableDeclaration::new));
-	register (g, "EmptyStatement", constructored (EmptyStatement::new));
-	register (g, "LabeledStatement", constructored (LabeledStatement::new));
-	register (g, "LabeledStatementNoShortIf", constructored (LabeledStatement::new));
-	register (g, "IfThenStatement", constructored (IfThenStatement::new));
-	register (g, "IfThenElseStatement", constructored (IfThenStatement::new));
-	register (g, "IfThenElseStatementNoShortIf", constructored (IfThenStatement::new));
-	register (g, "AssertStatement", constructored (AssertStatement::new));
-	register (g, "SwitchStatement", constructored (SwitchStatement::new));
-	register (g, "SwitchBlock", constructored (SwitchBlock::new));
-	register (g, "SwitchBlockStatementGroup", constructored (SwitchBlockStatementGroup::new));
-	register (g, "SwitchLabel", constructored (SwitchLabel::build));
-	register (g, "WhileStatement", constructored (WhileStatement::new));
-	register (g, "WhileStatementNoShortIf", constructored (WhileStatement::new));
-	register (g, "DoStatement", constructored (DoStatement::new));
-	register (g, "BasicForStatement", constructored (BasicForStatement::new));
-	register (g, "BasicForStatementNoShortIf", constructored (BasicForStatement::new));
-	register (g, "StatementExpressionList", constructored (StatementExpressionList::new));
-	register (g, "EnhancedForStatement", diagnosed (EnhancedForStatement::new));
-	register (g, "EnhancedForStatementNoShortIf", diagnosed (EnhancedForStatement::new));
-	register (g, "BreakStatement", constructored (BreakStatement::new));
-	register (g, "ContinueStatement", constructored (ContinueStatement::new));
-	register (g, "ReturnStatement", constructored (ReturnStatement::new));
-	register (g, "ThrowStatement", constructored (ThrowStatement::new));
-	register (g, "SynchronizedStatement", constructored (SynchronizedStatement::new));
-	register (g, "TryStatement", constructored (TryStatement::new));
-	register (g, "Catches", constructored (Catches::new));
-	register (g, "CatchClause", constructored (CatchClause::new));
-	register (g, "CatchFormalParameter", diagnosed (CatchFormalParameter::new));
-	register (g, "CatchType", constructored (CatchType::new));
-	register (g, "ExtraCatchType", constructored (ExtraCatchType::new));
-	register (g, "Finally", constructored (Finally::new));
-	register (g, "ResourceList", constructored (ResourceList::new));
-	register (g, "Resource", constructored (Resource::new));
+	add ("Block", constructored (Block::new));
+	add ("BlockStatements", constructored (BlockStatements::new));
+	add ("LocalVariableDeclarationStatement",
+	     constructored (LocalVariableDeclarationStatement::new));
+	add ("LocalVariableDeclaration", diagnosed (LocalVariableDeclaration::new));
+	add ("EmptyStatement", constructored (EmptyStatement::new));
+	add ("LabeledStatement", constructored (LabeledStatement::new));
+	add ("LabeledStatementNoShortIf", constructored (LabeledStatement::new));
+	add ("IfThenStatement", constructored (IfThenStatement::new));
+	add ("IfThenElseStatement", constructored (IfThenStatement::new));
+	add ("IfThenElseStatementNoShortIf", constructored (IfThenStatement::new));
+	add ("AssertStatement", constructored (AssertStatement::new));
+	add ("SwitchStatement", constructored (SwitchStatement::new));
+	add ("SwitchBlock", constructored (SwitchBlock::new));
+	add ("SwitchBlockStatementGroup", constructored (SwitchBlockStatementGroup::new));
+	add ("SwitchLabel", constructored (SwitchLabel::build));
+	add ("WhileStatement", constructored (WhileStatement::new));
+	add ("WhileStatementNoShortIf", constructored (WhileStatement::new));
+	add ("DoStatement", constructored (DoStatement::new));
+	add ("BasicForStatement", constructored (BasicForStatement::new));
+	add ("BasicForStatementNoShortIf", constructored (BasicForStatement::new));
+	add ("StatementExpressionList", constructored (StatementExpressionList::new));
+	add ("EnhancedForStatement", diagnosed (EnhancedForStatement::new));
+	add ("EnhancedForStatementNoShortIf", diagnosed (EnhancedForStatement::new));
+	add ("BreakStatement", constructored (BreakStatement::new));
+	add ("ContinueStatement", constructored (ContinueStatement::new));
+	add ("ReturnStatement", constructored (ReturnStatement::new));
+	add ("ThrowStatement", constructored (ThrowStatement::new));
+	add ("SynchronizedStatement", constructored (SynchronizedStatement::new));
+	add ("TryStatement", constructored (TryStatement::new));
+	add ("Catches", constructored (Catches::new));
+	add ("CatchClause", constructored (CatchClause::new));
+	add ("CatchFormalParameter", diagnosed (CatchFormalParameter::new));
+	add ("CatchType", constructored (CatchType::new));
+	add ("ExtraCatchType", constructored (ExtraCatchType::new));
+	add ("Finally", constructored (Finally::new));
+	add ("ResourceList", constructored (ResourceList::new));
+	add ("Resource", constructored (Resource::new));
 
 	// Productions from §15 (Expressions)
-	register (g, "PrimaryNoNewArray", constructored (PrimaryNoNewArray::build));
-	register (g, "Brackets", constructored (Brackets::new));
-	register (g, "ClassInstanceCreationExpression",
-		  constructored (ClassInstanceCreationExpression::build));
-	register (g, "UntypedClassInstanceCreationExpression",
-		  constructored (UntypedClassInstanceCreationExpression::new));
-	register (g, "ClassInstanceName", constructored (ClassInstanceName::new));
-	register (g, "ExtraName", constructored (ExtraName::new));
-	register (g, "Diamond", constructored (Diamond::new));
-	register (g, "FieldAccess", constructored (FieldAccess::new));
-	register (g, "ArrayAccess", constructored (ArrayAccess::new));
-	register (g, "MethodInvocation", constructored (MethodInvocation::build));
-	register (g, "UntypedMethodInvocation", constructored ((r, d, p) -> new UntypedMethodInvocation (r, d, p)));
-	register (g, "ArgumentList", constructored (ArgumentList::new));
-	register (g, "MethodReference", constructored (MethodReference::build));
-	register (g, "ArrayCreationExpression", constructored (ArrayCreationExpression::new));
-	register (g, "DimExprs", constructored (DimExprs::new));
-	register (g, "DimExpr", constructored (DimExpr::new));
-	register (g, "LambdaExpression", constructored (LambdaExpression::new));
-	register (g, "LambdaParameters", constructored (LambdaParameters::new));
-	register (g, "InferredFormalParameterList", constructored (InferredFormalParameterList::new));
-	register (g, "Assignment", constructored (Assignment::new));
-	register (g, "ConditionalExpression", constructored (TernaryExpression::build));
-	register (g, "ConditionalOrExpression", constructored (TwoPartExpression::build));
-	register (g, "ConditionalAndExpression", constructored (TwoPartExpression::build));
-	register (g, "InclusiveOrExpression", constructored (TwoPartExpression::build));
-	register (g, "ExclusiveOrExpression", constructored (TwoPartExpression::build));
-	register (g, "AndExpression", constructored (TwoPartExpression::build));
-	register (g, "EqualityExpression", constructored (TwoPartExpression::build));
-	register (g, "RelationalExpression", constructored (TwoPartExpression::build));
-	register (g, "ShiftExpression", constructored (TwoPartExpression::build));
-	register (g, "ShiftOp", constructored (ShiftOp::create));
-	register (g, "AdditiveExpression", constructored (TwoPartExpression::build));
-	register (g, "MultiplicativeExpression", constructored (TwoPartExpression::build));
-	register (g, "UnaryExpression", constructored (UnaryExpression::build));
-	register (g, "PreIncrementExpression", constructored (PreIncrementExpression::new));
-	register (g, "PreDecrementExpression", constructored (PreDecrementExpression::new));
-	register (g, "UnaryExpressionNotPlusMinus", constructored (UnaryExpression::build));
-	register (g, "PostIncrementExpression", constructored (PostIncrementExpression::new));
-	register (g, "PostDecrementExpression", constructored (PostDecrementExpression::new));
-	register (g, "CastExpression", constructored (CastExpression::new));
+	add ("PrimaryNoNewArray", constructored (PrimaryNoNewArray::build));
+	add ("Brackets", constructored (Brackets::new));
+	add ("ClassInstanceCreationExpression",
+	     constructored (ClassInstanceCreationExpression::build));
+	add ("UntypedClassInstanceCreationExpression",
+	     constructored (UntypedClassInstanceCreationExpression::new));
+	add ("ClassInstanceName", constructored (ClassInstanceName::new));
+	add ("ExtraName", constructored (ExtraName::new));
+	add ("Diamond", constructored (Diamond::new));
+	add ("FieldAccess", constructored (FieldAccess::new));
+	add ("ArrayAccess", constructored (ArrayAccess::new));
+	add ("MethodInvocation", constructored (MethodInvocation::build));
+	add ("UntypedMethodInvocation", constructored ((r, d, p) -> new UntypedMethodInvocation (r, d, p)));
+	add ("ArgumentList", constructored (ArgumentList::new));
+	add ("MethodReference", constructored (MethodReference::build));
+	add ("ArrayCreationExpression", constructored (ArrayCreationExpression::new));
+	add ("DimExprs", constructored (DimExprs::new));
+	add ("DimExpr", constructored (DimExpr::new));
+	add ("LambdaExpression", constructored (LambdaExpression::new));
+	add ("LambdaParameters", constructored (LambdaParameters::new));
+	add ("InferredFormalParameterList", constructored (InferredFormalParameterList::new));
+	add ("Assignment", constructored (Assignment::new));
+	add ("ConditionalExpression", constructored (TernaryExpression::build));
+	add ("ConditionalOrExpression", constructored (TwoPartExpression::build));
+	add ("ConditionalAndExpression", constructored (TwoPartExpression::build));
+	add ("InclusiveOrExpression", constructored (TwoPartExpression::build));
+	add ("ExclusiveOrExpression", constructored (TwoPartExpression::build));
+	add ("AndExpression", constructored (TwoPartExpression::build));
+	add ("EqualityExpression", constructored (TwoPartExpression::build));
+	add ("RelationalExpression", constructored (TwoPartExpression::build));
+	add ("ShiftExpression", constructored (TwoPartExpression::build));
+	add ("ShiftOp", constructored (ShiftOp::create));
+	add ("AdditiveExpression", constructored (TwoPartExpression::build));
+	add ("MultiplicativeExpression", constructored (TwoPartExpression::build));
+	add ("UnaryExpression", constructored (UnaryExpression::build));
+	add ("PreIncrementExpression", constructored (PreIncrementExpression::new));
+	add ("PreDecrementExpression", constructored (PreDecrementExpression::new));
+	add ("UnaryExpressionNotPlusMinus", constructored (UnaryExpression::build));
+	add ("PostIncrementExpression", constructored (PostIncrementExpression::new));
+	add ("PostDecrementExpression", constructored (PostDecrementExpression::new));
+	add ("CastExpression", constructored (CastExpression::new));
+    }
+
+    public JavaTreeBuilder (Grammar g) {
+	int numRules = g.getNumberOfRules ();
+	builders = new ArrayList<> (numRules);
+	for (int i = 0; i < numRules; i++)
+	    builders.add (null);
+	BUILDERS.forEach ((name, b) -> register (g, name, b));
+	originals = new Rule[numRules];
+	zomContinued = new BitSet ();
+	for (Rule r : g.getRules ()) {
+	    Rule o = r.getOriginal ();
+	    originals[r.getId ()] = o;
+	    if (o.getName ().startsWith ("ZOM_") && o.size () > 1 &&
+		o.getRulePart (0).getId ().equals (o.getName ()))
+		zomContinued.set (r.getId ());
+	}
+    }
+
+    /** Create a tree builder that shares the builders of the other tree builder */
+    protected JavaTreeBuilder (JavaTreeBuilder other) {
+	builders = other.builders;
+	originals = other.originals;
+	zomContinued = other.zomContinued;
+    }
+
+    /** Get the names of the rules that build tree nodes, the other rules only pass on
+     *  the nodes of their parts, except for the zero or more rules.
+     */
+    public static Set<String> getBuiltRuleNames () {
+	return Collections.unmodifiableSet (BUILDERS.keySet ());
+    }
+
+    private static void add (String rulename, Builder b) {
+	BUILDERS.put (rulename, b);
     }
 
     private void register (Grammar g, String rulename, Builder b) {
@@ -292,21 +336,75 @@ public class JavaTreeBuilder {
 	}
     }
 
+    /** Get the tree node for the token at the given index in the buffer */
+    public TreeNode getTokenValue (TokenBuffer tokens, int i, ParsePosition pos) {
+	return getTokenValue (tokens.getToken (i), tokens.getLongValue (i), tokens.getStringValue (i), pos);
+    }
+
+    /** Get the tree node for a token given its values as stored in a TokenBuffer
+     * @param number the raw number value, floats and doubles as their bits
+     * @param string the identifier or string literal value
+     */
+    TreeNode getTokenValue (Token token, long number, String string, ParsePosition pos) {
+	if (token.isOperator ())
+	    return new OperatorTokenType (token, pos);
+	else if (token.isPrimitive ())
+	    return new PrimitiveTokenType (token, pos);
+	else if (token.isModifier ())
+	    return new ModifierTokenType (token, pos);
+	else if (!token.hasValue ())
+	    return null;
+
+	switch (token) {
+	case INT_LITERAL:
+	    return new IntLiteral ((int)number, pos);
+	case LONG_LITERAL:
+	    return new LongLiteral (number, pos);
+	case FLOAT_LITERAL:
+	    return new FloatLiteral (Float.intBitsToFloat ((int)number), pos);
+	case DOUBLE_LITERAL:
+	    return new DoubleLiteral (Double.longBitsToDouble (number), pos);
+	case CHARACTER_LITERAL:
+	    return new CharLiteral ((char)number, pos);
+	case STRING_LITERAL:
+	    return new StringLiteral (string, pos);
+	case TRUE:
+	    return new BooleanLiteral (true, pos);
+	case FALSE:
+	    return new BooleanLiteral (false, pos);
+	case IDENTIFIER:
+	    return new Identifier (string, pos);
+	case NULL:
+	    return new NullLiteral (pos);
+	default:
+	    throw new IllegalStateException ("Do not know how to get value from:" + token);
+	}
+    }
+
     public void build (State start, Deque<TreeNode> parts, ParsePosition pos,
 		       Path path, CompilerDiagnosticCollector diagnostics) {
-	Rule rule = start.getRule ();
+	build (start.getRule (), parts, pos, path, diagnostics);
+    }
+
+    public void build (Rule rule, Deque<TreeNode> parts, ParsePosition pos,
+		       Path path, CompilerDiagnosticCollector diagnostics) {
 	Builder b = builders.get (rule.getId ());
 	if (b != null) {
-	    b.build (rule, parts, pos, path, diagnostics);
+	    b.build (originals[rule.getId ()], parts, pos, path, diagnostics);
 	} else if (rule.getName ().startsWith ("ZOM_")) {
 	    buildZOM (rule, parts, pos);
 	}
     }
 
-    private void buildZOM (Rule r, Deque<TreeNode> parts, ParsePosition pos) {
+    /** Check if building the rule gives a new node, the other rules pass on their parts */
+    boolean buildsNode (Rule rule) {
+	return builders.get (rule.getId ()) != null || rule.getName ().startsWith ("ZOM_");
+    }
+
+    private void buildZOM (Rule rule, Deque<TreeNode> parts, ParsePosition pos) {
 	ZOMEntry z;
-	String name = r.getName ();
-	if (r.size () > 1 && r.getRulePart (0).getId () == name) {
+	Rule r = originals[rule.getId ()];
+	if (zomContinued.get (rule.getId ())) {
 	    z = (ZOMEntry)parts.pop ();
 	} else {
 	    z = new ZOMEntry (r.getRulePart (0).getId ().toString (), pos);
@@ -1,95 +1,138 @@
 package org.khelekore.parjac.parser;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
+import java.util.List;
 
 import org.khelekore.parjac.grammar.Rule;
-import org.khelekore.parjac.grammar.SimplePart;
 import org.khelekore.parjac.lexer.Token;
 
 class ListRuleHolder {
-    private Set<Rule> completed = Collections.emptySet ();
+    private static final Rule[] NO_RULES = new Rule[0];
 
-    // (Token | rulename) -> rules
-    private final Map<Object, Set<Rule>> m = new HashMap<> ();
+    private Rule[] completed = NO_RULES;
 
-    ListRuleHolder (Collection<Rule> rr) {
+    // symbol id (Token or rule name) -> rules starting with that symbol, null if none
+    private final Rule[][] startingWith;
+
+    ListRuleHolder (int numSymbols, Collection<Rule> rr) {
+	startingWith = new Rule[numSymbols][];
+	List<Rule> empty = new ArrayList<> ();
+	List<List<Rule>> bySymbol = new ArrayList<> (numSymbols);
+	for (int i = 0; i < numSymbols; i++)
+	    bySymbol.add (null);
 	for (Rule r : rr) {
 	    if (r.isEmpty ()) {
-		if (completed.isEmpty ())
-		    completed = new HashSet<> ();
-		completed.add (r);
+		empty.add (r);
 	    } else {
-		SimplePart sp = r.getRulePart (0);
-		Set<Rule> ls = m.get (sp.getId ());
+		int symbol = r.getSymbol (0);
+		List<Rule> ls = bySymbol.get (symbol);
 		if (ls == null) {
-		    ls = new HashSet<> ();
-		    m.put (sp.getId (), ls);
+		    ls = new ArrayList<> ();
+		    bySymbol.set (symbol, ls);
 		}
 		ls.add (r);
 	    }
 	}
+	if (!empty.isEmpty ())
+	    completed = empty.toArray (NO_RULES);
+	for (int i = 0; i < numSymbols; i++) {
+	    List<Rule> ls = bySymbol.get (i);
+	    if (ls != null)
+		startingWith[i] = ls.toArray (NO_RULES);
+	}
+    }
+
+    /** Create a holder with the rules of the other holder that are viable
+     * @param other the holder to filter
+     * @param viable the rule ids of the rules to keep
+     */
+    ListRuleHolder (ListRuleHolder other, BitSet viable) {
+	completed = filter (other.completed, viable);
+	startingWith = new Rule[other.startingWith.length][];
+	for (int i = 0; i < startingWith.length; i++) {
+	    Rule[] rs = other.startingWith[i];
+	    if (rs != null) {
+		rs = filter (rs, viable);
+		if (rs.length > 0)
+		    startingWith[i] = rs;
+	    }
+	}
+    }
+
+    private static Rule[] filter (Rule[] rs, BitSet viable) {
+	int pos = 0;
+	Rule[] ret = new Rule[rs.length];
+	for (Rule r : rs)
+	    if (viable.get (r.getId ()))
+		ret[pos++] = r;
+	if (pos == rs.length)
+	    return rs;
+	return pos == 0 ? NO_RULES : Arrays.copyOf (ret, pos);
     }
 
     public void add (ListRuleHolder other) {
-	if (completed.isEmpty () && !other.completed.isEmpty ()) {
-	    completed = new HashSet<> ();
-	    completed.addAll (other.completed);
+	completed = merge (completed, other.completed);
+	for (int i = 0; i < startingWith.length; i++) {
+	    Rule[] o = other.startingWith[i];
+	    if (o != null)
+		startingWith[i] = startingWith[i] == null ? o : merge (startingWith[i], o);
 	}
+    }
 
-	for (Map.Entry<Object, Set<Rule>> me : other.m.entrySet ()) {
-	    Object key = me.getKey ();
-	    Set<Rule> ls = m.get (key);
-	    if (ls == null) {
-		m.put (key, new HashSet<> (me.getValue ()));
-	    } else {
-		ls.addAll (me.getValue ());
+    private static Rule[] merge (Rule[] r1, Rule[] r2) {
+	if (r2.length == 0)
+	    return r1;
+	if (r1.length == 0)
+	    return r2;
+	BitSet seen = new BitSet ();
+	Rule[] ret = Arrays.copyOf (r1, r1.length + r2.length);
+	for (Rule r : r1)
+	    seen.set (r.getId ());
+	int pos = r1.length;
+	for (Rule r : r2) {
+	    if (!seen.get (r.getId ())) {
+		seen.set (r.getId ());
+		ret[pos++] = r;
 	    }
 	}
+	return pos == ret.length ? ret : Arrays.copyOf (ret, pos);
     }
 
     @Override public String toString () {
+	StringBuilder sb = new StringBuilder ();
+	for (Rule[] rs : startingWith)
+	    if (rs != null)
+		sb.append (Arrays.toString (rs));
 	return getClass ().getSimpleName () + "{" +
-	    "completed: " + completed + ", m: " + m + "}";
-    }
-
-    public Set<String> getStartingRules () {
-	Set<String> startingRules = new HashSet<> ();
-	for (Object o : m.keySet ())
-	    if (o instanceof String)
-		startingRules.add ((String)o);
-	return startingRules;
+	    "completed: " + Arrays.toString (completed) + ", m: " + sb + "}";
     }
 
     public EnumSet<Token> getStartingTokens () {
 	EnumSet<Token> et = EnumSet.noneOf (Token.class);
-	for (Object o : m.keySet ())
-	    if (o instanceof Token)
-		et.add ((Token)o);
+	for (Token t : Token.values ())
+	    if (startingWith[t.ordinal ()] != null)
+		et.add (t);
 	return et;
     }
 
-    public Iterator<Rule> getCompletedRules () {
-	return completed.iterator ();
+    public Rule[] getCompletedRules () {
+	return completed;
+    }
+
+    public Rule[] getRulesWithRuleNext (Rule r) {
+	return getRulesStartingWith (r.getNameSymbol ());
     }
 
-    public Iterator<Rule> getRulesWithRuleNext (Rule r) {
-	Set<Rule> ls = m.get (r.getName ());
-	if (ls == null)
-	    return Collections.emptyIterator ();
-	return ls.iterator ();
+    public Rule[] getRulesWithTokenNext (Token t) {
+	return getRulesStartingWith (t.ordinal ());
     }
 
-    public Iterator<Rule> getRulesWithTokenNext(Token t) {
-	Set<Rule> ls = m.get (t);
-	if (ls == null)
-	    return Collections.emptyIterator ();
-	return ls.iterator ();
+    private Rule[] getRulesStartingWith (int symbol) {
+	Rule[] ret = startingWith[symbol];
+	return ret == null ? NO_RULES : ret;
     }
 }
@@ -0,0 +1,807 @@
+package org.khelekore.parjac.parser;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.SourceDiagnostics;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.grammar.RuleCollection;
+import org.khelekore.parjac.lexer.Lexer;
+import org.khelekore.parjac.lexer.ParsePosition;
+import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.khelekore.parjac.tree.TreeNode;
+
+/** An earley parser that keeps its items in primitive arrays instead of
+ *  State objects, this keeps the garbage collector out of the parsing of
+ *  large files.
+ *
+ *  Every item lives in an arena and is identified by its index. The arena
+ *  holds the key (rule id, dot position and origin), the symbol after the dot
+ *  and the back pointers, previous and completed, used to build the tree.
+ *  Each earley set is an array of item indexes, duplicates are found using
+ *  open addressing tables for the set being completed and the set being
+ *  scanned into.
+ *
+ *  The tokens are read from a TokenBuffer, tree nodes and parse positions
+ *  for the tokens are only created when the tree is built.
+ *
+ *  The parse result is the same as for EarleyParser. This includes how the
+ *  sets inside a completed clearable rule are reduced to the items of its
+ *  derivation, since that decides what error recovery can try.
+ *
+ *  Right recursive rules, like chains of "else if", "a = b = c" and
+ *  "a ? b : c ? d : e", would complete a chain of items in every set,
+ *  giving quadratic time and memory. Like Leo and Marpa we instead remember
+ *  the top of such a chain, where each item has exactly one item waiting
+ *  for it, and only add the top item. The skipped items are created when
+ *  the tree is built. After an error recovery the parse may be ambiguous
+ *  and the first completion decides the tree, so from then on the chains
+ *  are completed item by item, in the same order as EarleyParser does.
+ *
+ *  A parser may also be set up to only parse a range of the tokens against
+ *  some other goal rule, this is used to parse parts of a file in parallel.
+ */
+public class PackedEarleyParser {
+    private static final int NONE = -1;
+    private static final int LAST = -1; // symbol after dot when the dot is last
+
+    private final Grammar grammar;
+    private final Path path;
+    private final TokenBuffer tokens;
+    private final String goal;
+    // The tokens to parse, the end token is handled as END_OF_INPUT
+    // and the tokens from skipFrom up to skipTo are left out
+    private final int firstToken;
+    private final int endToken;
+    private final int skipFrom;
+    private final int skipTo;
+    private final PredictCache predictCache;
+    private final JavaTreeBuilder treeBuilder;
+    private final CompilerDiagnosticCollector diagnostics;
+    private final boolean debug;
+    // Indexed by rule id
+    private final Rule[] rules;
+
+    // The item arena
+    private int numItems;
+    private long[] itemKeys = new long[1024];
+    private int[] itemSymbols = new int[1024];
+    private int[] itemPrevious = new int[1024];
+    private int[] itemCompleted = new int[1024];
+
+    // The earley sets
+    private int numSets;
+    private int[][] setItems = new int[64][];
+    private int[] setSizes = new int[64];
+    private ListRuleHolder[] predicted = new ListRuleHolder[64];
+    // The token handled at each set and the token scanned into each set,
+    // ~token for the sets added during error recovery
+    private int[] handledTokens = new int[64];
+    private int[] scannedTokens = new int[64];
+    // The first leo record of each set
+    private int[] setLeo = new int[64];
+    // Sets that have been reduced to the items of a clearable rule
+    private boolean[] setCleared = new boolean[64];
+    // The token we are currently handling
+    private int currentToken;
+
+    // Items in the current set and in the set we scan into
+    private ItemTable currentTable = new ItemTable ();
+    private ItemTable nextTable = new ItemTable ();
+    // Completed items that needs to be handled
+    private int[] toComplete = new int[64];
+    private int numToComplete;
+    // The items in the current set that were scanned into it, the rest were completed
+    private int numScanned;
+
+    // Used when the sets of a clearable rule are cleared
+    private int lastCleared = NONE;
+    private int[] toClear = new int[64];
+    private final ItemTable keep = new ItemTable ();
+
+    // Leo records, one for each set and symbol that has exactly one item waiting
+    // for the symbol, where the symbol is the last part of the waiting item.
+    // A record links to the record that the waiting item completes into, the
+    // link is found when the record is used since that record is often added
+    // later. The top of the chain is cached.
+    private int numLeoRecords;
+    private int[] leoSymbols = new int[64];
+    private int[] leoItems = new int[64];
+    private int[] leoNext = new int[64];
+    private int[] leoTop = new int[64];
+    // The next record for the same set
+    private int[] leoSetNext = new int[64];
+
+    // Reused for each predict
+    private final BitSet ruleSymbols = new BitSet ();
+
+    private int goalSymbol;
+    private int attemptedRecoveries;
+
+    public PackedEarleyParser (Grammar grammar, Path path, Lexer lexer,
+			       PredictCache predictCache, JavaTreeBuilder treeBuilder,
+			       CompilerDiagnosticCollector diagnostics,
+			       boolean debug) {
+	this (grammar, path, fill (lexer), predictCache, treeBuilder, diagnostics, debug);
+    }
+
+    /** Create a parser for the tokens in the given buffer, the buffer
+     *  may not be changed until the parse is done.
+     */
+    public PackedEarleyParser (Grammar grammar, Path path, TokenBuffer tokens,
+			       PredictCache predictCache, JavaTreeBuilder treeBuilder,
+			       CompilerDiagnosticCollector diagnostics,
+			       boolean debug) {
+	this (grammar, path, tokens, "Goal", 0, tokens.size () - 1, NONE, NONE,
+	      predictCache, treeBuilder, diagnostics, debug);
+    }
+
+    /** Create a parser for some of the tokens in the buffer.
+     * @param goal the name of the goal rule, it has to end with END_OF_INPUT
+     * @param firstToken the index of the first token to parse
+     * @param endToken the index of the token that is handled as END_OF_INPUT
+     * @param skipFrom the index of the first token to leave out, or -1
+     * @param skipTo the index of the token after the left out tokens, or -1
+     */
+    PackedEarleyParser (Grammar grammar, Path path, TokenBuffer tokens, String goal,
+			int firstToken, int endToken, int skipFrom, int skipTo,
+			PredictCache predictCache, JavaTreeBuilder treeBuilder,
+			CompilerDiagnosticCollector diagnostics,
+			boolean debug) {
+	this.grammar = grammar;
+	this.path = path;
+	this.tokens = tokens;
+	this.goal = goal;
+	this.firstToken = firstToken;
+	this.endToken = endToken;
+	this.skipFrom = skipFrom;
+	this.skipTo = skipTo;
+	this.predictCache = predictCache;
+	this.treeBuilder = treeBuilder;
+	this.diagnostics = diagnostics;
+	this.debug = debug;
+	List<Rule> ls = grammar.getRules ();
+	rules = ls.toArray (new Rule[ls.size ()]);
+    }
+
+    private static TokenBuffer fill (Lexer lexer) {
+	TokenBuffer tokens = new TokenBuffer ();
+	tokens.fill (lexer);
+	return tokens;
+    }
+
+    public SyntaxTree parse () {
+	TreeNode topNode = parseNode ();
+	if (topNode == null)
+	    return null;
+	return new SyntaxTree (path, topNode);
+    }
+
+    /** Parse the tokens and build the tree node of the goal rule
+     * @return the built node or null if the parse failed
+     */
+    TreeNode parseNode () {
+	RuleCollection goalRules = grammar.getRules (goal);
+	Rule goalRule = goalRules.getRules ().get (0);
+	goalSymbol = goalRule.getNameSymbol ();
+	int currentPosition = 0;
+	startNextSet ();
+	for (Rule r : goalRules.getRules ())
+	    addToNextSet (r, 0, currentPosition, NONE, NONE);
+	if (goalRules.canBeEmpty ())
+	    addToNextSet (goalRule, 1, currentPosition, NONE, NONE);
+	commitNextSet (NONE);
+	for (currentToken = firstToken; currentToken <= endToken; currentToken = nextToken (currentToken)) {
+	    boolean recovery = false;
+	    do {
+		handleToken (currentPosition, currentToken);
+		currentPosition++;
+		if (numSets <= currentPosition) {
+		    addPossibleNextTokens (currentPosition - 1, currentToken);
+		    attemptedRecoveries++;
+		    recovery = true;
+		} else {
+		    recovery = false;
+		}
+		if (numSets <= currentPosition || attemptedRecoveries > 10) {
+		    addParserError ("No possible next state");
+		    return null;
+		}
+	    } while (recovery);
+	}
+	currentToken = endToken;
+
+	int finished = NONE;
+	int numFinished = 0;
+	for (int i = 0, n = setSizes[currentPosition]; i < n; i++) {
+	    int item = setItems[currentPosition][i];
+	    if (itemSymbols[item] == LAST) {
+		if (finished == NONE)
+		    finished = item;
+		numFinished++;
+	    }
+	}
+	if (numFinished == 0) {
+	    addParserError ("Did not find any finishing state");
+	} else {
+	    if (numFinished > 1)
+		addParserError ("Ended up in many states: " + describeSet (currentPosition));
+	    else if (!isEndState (finished))
+		addParserError ("Ended up in wrong state: " + describeSet (currentPosition));
+	}
+	if (diagnostics.hasError ())
+	    return null;
+
+	if (attemptedRecoveries > 0)
+	    addParserError ("Attempted " + attemptedRecoveries + " parse recovieries");
+
+	if (treeBuilder == null)
+	    return null;
+
+	TreeNode tn = buildTree (itemPrevious[finished]); // skip end of file
+	if (debug)
+	    System.err.println ("Built tree: " + tn);
+	return tn;
+    }
+
+    /** Get the number of items created by the parse */
+    public int getNumberOfItems () {
+	return numItems;
+    }
+
+    private int nextToken (int token) {
+	return token + 1 == skipFrom ? skipTo : token + 1;
+    }
+
+    private void handleToken (int currentPosition, int token) {
+	Token nextToken = token == endToken ? Token.END_OF_INPUT : tokens.getToken (token);
+	if (debug) {
+	    TreeNode value = treeBuilder.getTokenValue (tokens, token, tokens.getParsePosition (token));
+	    System.err.println ("nextToken: " + nextToken + (value != null ? ": " + value : ""));
+	}
+	handledTokens[currentPosition] = token;
+	completeSet (currentPosition);
+	predict (currentPosition, nextToken);
+	startNextSet ();
+	scan (currentPosition, nextToken);
+	if (debug)
+	    System.err.println (currentPosition + ": final current: " + describeSet (currentPosition));
+	commitNextSet (token);
+    }
+
+    private void completeSet (int current) {
+	numToComplete = 0;
+	numScanned = setSizes[current];
+	// The items that exists now and then the completed items in the order
+	// they were completed, same as for EarleyParser
+	for (int i = 0; i < numScanned; i++) {
+	    int item = setItems[current][i];
+	    if (itemSymbols[item] == LAST)
+		addToComplete (item);
+	}
+	for (int i = 0; i < numToComplete; i++)
+	    completeLast (current, toComplete[i]);
+    }
+
+    private void addToComplete (int item) {
+	if (numToComplete == toComplete.length)
+	    toComplete = Arrays.copyOf (toComplete, numToComplete * 2);
+	toComplete[numToComplete++] = item;
+    }
+
+    private void completeLast (int current, int completed) {
+	long key = itemKeys[completed];
+	int origin = getOrigin (key);
+	Rule completedRule = rules[getRuleId (key)];
+	int symbol = completedRule.getNameSymbol ();
+	// Earlier sets are done so their leo records are valid
+	if (origin < current && attemptedRecoveries == 0) {
+	    int leo = findLeo (origin, symbol);
+	    if (leo != NONE) {
+		completeLeo (current, leo, completed);
+		return;
+	    }
+	}
+	int numWaiting = 0;
+	int waiting = NONE;
+	Rule waitingRule = null;
+	int[] originItems = setItems[origin];
+	for (int i = 0, n = setSizes[origin]; i < n; i++) {
+	    int item = originItems[i];
+	    if (itemSymbols[item] == symbol) {
+		long ik = itemKeys[item];
+		completeWithNext (current, rules[getRuleId (ik)], getDot (ik) + 1, getOrigin (ik), item, completed);
+		numWaiting++;
+		waiting = item;
+	    }
+	}
+	ListRuleHolder lrh = predicted[origin];
+	if (lrh != null) {
+	    for (Rule r : lrh.getRulesWithRuleNext (completedRule)) {
+		waiting = NONE;
+		if (currentTable.get (getKey (r.getId (), 1, origin)) == NONE) {
+		    waiting = newItem (r, 0, origin, NONE, NONE);
+		    completeWithNext (current, r, 1, origin, waiting, completed);
+		}
+		numWaiting++;
+		waitingRule = r;
+	    }
+	}
+	if (numWaiting == 1 && origin < current) {
+	    if (waiting != NONE)
+		addLeoRecord (origin, symbol, waiting);
+	    else if (waitingRule.size () == 1 && predictCache.isRightRecursive (waitingRule))
+		addLeoRecord (origin, symbol, newItem (waitingRule, 0, origin, NONE, NONE));
+	}
+    }
+
+    private int findLeo (int set, int symbol) {
+	int record = setLeo[set];
+	while (record != NONE && leoSymbols[record] != symbol)
+	    record = leoSetNext[record];
+	return record;
+    }
+
+    /** Add a leo record if the waiting item is done after its next symbol */
+    private void addLeoRecord (int set, int symbol, int waiting) {
+	long key = itemKeys[waiting];
+	Rule r = rules[getRuleId (key)];
+	// Only right recursion gives long chains
+	if (getDot (key) + 1 != r.size () || !predictCache.isRightRecursive (r))
+	    return;
+	int record = newLeoRecord (waiting);
+	leoSymbols[record] = symbol;
+	leoNext[record] = NONE;
+	leoTop[record] = record;
+	leoSetNext[record] = setLeo[set];
+	setLeo[set] = record;
+    }
+
+    /** Find the top record of the chain that starts with the given record */
+    private int getLeoTop (int record) {
+	int top = leoTop[record];
+	// The step limit only matters for grammars with cycles of single rules
+	for (int steps = 0; steps < numLeoRecords; steps++) {
+	    int next = leoNext[top];
+	    if (next == NONE) {
+		long key = itemKeys[leoItems[top]];
+		next = findLeo (getOrigin (key), rules[getRuleId (key)].getNameSymbol ());
+		if (next == NONE || next == top)
+		    break;
+		leoNext[top] = next;
+	    }
+	    top = leoTop[next];
+	}
+	leoTop[record] = top;
+	return top;
+    }
+
+    /** Complete the top item of the chain of single waiting items */
+    private void completeLeo (int current, int leo, int completed) {
+	int top = getLeoTop (leo);
+	long topKey = itemKeys[leoItems[top]];
+	// A single step is a normal completion of the waiting item
+	int previous = top == leo ? leoItems[leo] : -2 - leo;
+	completeWithNext (current, rules[getRuleId (topKey)], getDot (topKey) + 1,
+			  getOrigin (topKey), previous, completed);
+    }
+
+    private void completeWithNext (int current, Rule r, int dot, int origin, int previous, int completed) {
+	if (completed != lastCleared && grammar.isClearableRule (rules[getRuleId (itemKeys[completed])])) {
+	    lastCleared = completed;
+	    clearSets (current, completed);
+	}
+	long key = getKey (r.getId (), dot, origin);
+	// The first completion wins, same as for EarleyParser
+	if (currentTable.get (key) != NONE)
+	    return;
+	int item = newItem (r, dot, origin, previous, completed);
+	addToSet (current, item);
+	currentTable.put (key, item);
+	if (itemSymbols[item] == LAST)
+	    addToComplete (item);
+    }
+
+    /** Reduce the sets that the completed item spans to the items of its
+     *  derivation, the same way as EarleyParser.clearStates. The set where
+     *  the item starts is kept and each set is only cleared once.
+     */
+    private void clearSets (int current, int completed) {
+	int numToClear = 0;
+	toClear[numToClear++] = completed;
+	keep.clear ();
+	int set = current;
+	while (numToClear > 0) {
+	    int item = toClear[--numToClear];
+	    if (itemPrevious[item] < NONE)
+		expandLeo (item);
+	    if (!setCleared[set] && keep.get (itemKeys[item]) == NONE)
+		keep.put (itemKeys[item], item);
+	    int previous = itemPrevious[item];
+	    if (previous == NONE)
+		continue;
+	    if (numToClear + 2 > toClear.length)
+		toClear = Arrays.copyOf (toClear, toClear.length * 2);
+	    toClear[numToClear++] = previous;
+	    if (Grammar.isToken (itemSymbols[previous])) {
+		if (!setCleared[set]) {
+		    retainKept (current, set);
+		    keep.clear ();
+		    setCleared[set] = true;
+		}
+		set--;
+	    }
+	    if (itemCompleted[item] != NONE)
+		toClear[numToClear++] = itemCompleted[item];
+	}
+    }
+
+    /** Remove the items of the set that are not kept. In the current set only
+     *  the scanned items are removed, EarleyParser adds the completed items
+     *  to the set after the completion is done.
+     */
+    private void retainKept (int current, int set) {
+	int[] items = setItems[set];
+	int end = set == current ? numScanned : setSizes[set];
+	int kept = 0;
+	for (int i = 0; i < end; i++)
+	    if (keep.get (itemKeys[items[i]]) != NONE)
+		items[kept++] = items[i];
+	int removed = end - kept;
+	for (int i = end; i < setSizes[set]; i++)
+	    items[i - removed] = items[i];
+	setSizes[set] -= removed;
+	if (set == current) {
+	    numScanned = kept;
+	    currentTable.clear ();
+	    for (int i = 0; i < setSizes[set]; i++)
+		currentTable.put (itemKeys[items[i]], items[i]);
+	}
+	// Records of predicted items, dot 0, are still valid since the predictions are kept
+	int record = setLeo[set];
+	setLeo[set] = NONE;
+	int last = NONE;
+	for (; record != NONE; record = leoSetNext[record]) {
+	    long key = itemKeys[leoItems[record]];
+	    if (getDot (key) == 0 || keep.get (key) != NONE) {
+		if (last == NONE)
+		    setLeo[set] = record;
+		else
+		    leoSetNext[last] = record;
+		last = record;
+	    }
+	}
+	if (last != NONE)
+	    leoSetNext[last] = NONE;
+    }
+
+    private int newLeoRecord (int waiting) {
+	if (numLeoRecords == leoItems.length) {
+	    int size = numLeoRecords * 2;
+	    leoSymbols = Arrays.copyOf (leoSymbols, size);
+	    leoItems = Arrays.copyOf (leoItems, size);
+	    leoNext = Arrays.copyOf (leoNext, size);
+	    leoTop = Arrays.copyOf (leoTop, size);
+	    leoSetNext = Arrays.copyOf (leoSetNext, size);
+	}
+	int record = numLeoRecords++;
+	leoItems[record] = waiting;
+	return record;
+    }
+
+    /** Create the items that a leo completion skipped and make the item
+     *  the top of that chain. The chain may have grown since the item was
+     *  added, so the top is found by the key of the item.
+     */
+    private void expandLeo (int item) {
+	int record = -2 - itemPrevious[item];
+	int completed = itemCompleted[item];
+	while (true) {
+	    int waiting = leoItems[record];
+	    long key = itemKeys[waiting];
+	    long completedKey = getKey (getRuleId (key), getDot (key) + 1, getOrigin (key));
+	    if (completedKey == itemKeys[item]) {
+		itemPrevious[item] = waiting;
+		itemCompleted[item] = completed;
+		return;
+	    }
+	    completed = newItem (rules[getRuleId (key)], getDot (key) + 1, getOrigin (key), waiting, completed);
+	    record = leoNext[record];
+	}
+    }
+
+    /** Predict the rules for the current set
+     * @param nextToken the token that predicted rules have to start with, null to predict all rules
+     */
+    private void predict (int current, Token nextToken) {
+	ruleSymbols.clear ();
+	int[] items = setItems[current];
+	for (int i = 0, n = setSizes[current]; i < n; i++) {
+	    int symbol = itemSymbols[items[i]];
+	    if (symbol != LAST && !Grammar.isToken (symbol))
+		ruleSymbols.set (symbol);
+	}
+	predicted[current] = nextToken == null ?
+	    predictCache.getPredictedRules (ruleSymbols) :
+	    predictCache.getPredictedRules (ruleSymbols, nextToken);
+    }
+
+    /** Scan the given token into the next set, the next set has to be started. */
+    private void scan (int current, Token token) {
+	int symbol = token.ordinal ();
+	int[] items = setItems[current];
+	for (int i = 0, n = setSizes[current]; i < n; i++) {
+	    int item = items[i];
+	    if (itemSymbols[item] == symbol) {
+		long key = itemKeys[item];
+		addToNextSet (rules[getRuleId (key)], getDot (key) + 1, getOrigin (key), item, NONE);
+	    }
+	}
+	ListRuleHolder lrh = predicted[current];
+	if (lrh != null) {
+	    for (Rule r : lrh.getRulesWithTokenNext (token)) {
+		long key = getKey (r.getId (), 0, current);
+		int item = currentTable.get (key);
+		if (item == NONE) {
+		    item = newItem (r, 0, current, NONE, NONE);
+		    addToSet (current, item);
+		    currentTable.put (key, item);
+		}
+		addToNextSet (r, 1, current, item, NONE);
+	    }
+	}
+    }
+
+    private void addPossibleNextTokens (int current, int token) {
+	// The predictions were filtered by the token that failed, so predict again
+	predict (current, null);
+	startNextSet ();
+	for (Token t : getPossibleNextTokens (current))
+	    scan (current, t);
+	commitNextSet (~token);
+    }
+
+    private EnumSet<Token> getPossibleNextTokens (int current) {
+	EnumSet<Token> et = EnumSet.noneOf (Token.class);
+	ListRuleHolder lrh = predicted[current];
+	if (lrh != null) {
+	    et.addAll (lrh.getStartingTokens ());
+	    Token[] tokens = Token.values ();
+	    for (int i = 0, n = setSizes[current]; i < n; i++) {
+		int symbol = itemSymbols[setItems[current][i]];
+		if (symbol != LAST && Grammar.isToken (symbol))
+		    et.add (tokens[symbol]);
+	    }
+	}
+	return et;
+    }
+
+    private void startNextSet () {
+	int next = numSets;
+	if (next == setItems.length) {
+	    int size = next * 2;
+	    setItems = Arrays.copyOf (setItems, size);
+	    setSizes = Arrays.copyOf (setSizes, size);
+	    predicted = Arrays.copyOf (predicted, size);
+	    handledTokens = Arrays.copyOf (handledTokens, size);
+	    scannedTokens = Arrays.copyOf (scannedTokens, size);
+	    setLeo = Arrays.copyOf (setLeo, size);
+	    setCleared = Arrays.copyOf (setCleared, size);
+	}
+	setLeo[next] = NONE;
+	setCleared[next] = false;
+	if (setItems[next] == null)
+	    setItems[next] = new int[16];
+	setSizes[next] = 0;
+	nextTable.clear ();
+    }
+
+    private void addToNextSet (Rule r, int dot, int origin, int previous, int completed) {
+	long key = getKey (r.getId (), dot, origin);
+	if (nextTable.get (key) != NONE)
+	    return;
+	int item = newItem (r, dot, origin, previous, completed);
+	addToSet (numSets, item);
+	nextTable.put (key, item);
+    }
+
+    /** Make the next set part of the parse if it got any items */
+    private void commitNextSet (int token) {
+	if (setSizes[numSets] == 0)
+	    return;
+	scannedTokens[numSets] = token;
+	numSets++;
+	ItemTable t = currentTable;
+	currentTable = nextTable;
+	nextTable = t;
+    }
+
+    private void addToSet (int set, int item) {
+	int[] items = setItems[set];
+	int size = setSizes[set];
+	if (size == items.length)
+	    setItems[set] = items = Arrays.copyOf (items, size * 2);
+	items[size] = item;
+	setSizes[set] = size + 1;
+    }
+
+    private int newItem (Rule r, int dot, int origin, int previous, int completed) {
+	if (numItems == itemKeys.length) {
+	    int size = numItems * 2;
+	    itemKeys = Arrays.copyOf (itemKeys, size);
+	    itemSymbols = Arrays.copyOf (itemSymbols, size);
+	    itemPrevious = Arrays.copyOf (itemPrevious, size);
+	    itemCompleted = Arrays.copyOf (itemCompleted, size);
+	}
+	int item = numItems++;
+	itemKeys[item] = getKey (r.getId (), dot, origin);
+	itemSymbols[item] = dot == r.size () ? LAST : r.getSymbol (dot);
+	itemPrevious[item] = previous;
+	itemCompleted[item] = completed;
+	return item;
+    }
+
+    private static long getKey (int ruleId, int dot, int origin) {
+	return ((long)origin << 32) | ((long)ruleId << 8) | dot;
+    }
+
+    private static int getOrigin (long key) {
+	return (int)(key >>> 32);
+    }
+
+    private static int getRuleId (long key) {
+	return (int)(key >>> 8) & 0xffffff;
+    }
+
+    private static int getDot (long key) {
+	return (int)key & 0xff;
+    }
+
+    private boolean isEndState (int item) {
+	long key = itemKeys[item];
+	return getOrigin (key) == 0 && itemSymbols[item] == LAST &&
+	    rules[getRuleId (key)].getNameSymbol () == goalSymbol;
+    }
+
+    private TreeNode buildTree (int item) {
+	Deque<TreeNode> parts = new ArrayDeque<> ();
+	Deque<SourceDiagnostics> errors = new ArrayDeque<> (); // since errors come in wrong order
+	buildTreeNode (item, parts, errors);
+	errors.forEach (d -> diagnostics.report (d));
+	if (parts.size () == 0)
+	    return null;
+	if (parts.size () != 1)
+	    addParserError ("Got many parts back: " + parts);
+	return parts.poll ();
+    }
+
+    private void buildTreeNode (int start, Deque<TreeNode> parts, Deque<SourceDiagnostics> errors) {
+	int[] toVisit = new int[64];
+	int numToVisit = 0;
+	toVisit[numToVisit++] = start;
+	int tokenPos = numSets - 2; // skip <end_of_input>
+	// Many rules are built at the same position, share the parse position
+	int lastPositionToken = NONE;
+	ParsePosition lastPosition = null;
+	while (numToVisit > 0) {
+	    int item = toVisit[--numToVisit];
+	    if (itemPrevious[item] < NONE)
+		expandLeo (item);
+	    int previous = itemPrevious[item];
+	    if (previous == NONE) {
+		Rule r = rules[getRuleId (itemKeys[item])];
+		int token = handledTokens[tokenPos];
+		if (token != lastPositionToken) {
+		    lastPositionToken = token;
+		    lastPosition = tokens.getParsePosition (token);
+		}
+		treeBuilder.build (r, parts, lastPosition, path, diagnostics);
+		continue;
+	    }
+	    if (numToVisit + 2 > toVisit.length)
+		toVisit = Arrays.copyOf (toVisit, toVisit.length * 2);
+	    toVisit[numToVisit++] = previous;
+	    int symbol = itemSymbols[previous];
+	    if (Grammar.isToken (symbol)) {
+		TreeNode tn = getScannedValue (tokenPos, symbol, errors);
+		if (tn != null)
+		    parts.push (tn);
+		tokenPos--;
+	    }
+	    int completed = itemCompleted[item];
+	    if (completed != NONE)
+		toVisit[numToVisit++] = completed;
+	}
+    }
+
+    private TreeNode getScannedValue (int set, int symbol, Deque<SourceDiagnostics> errors) {
+	int token = scannedTokens[set];
+	if (token < 0) {
+	    ParsePosition pos = tokens.getParsePosition (~token);
+	    Token t = Token.values ()[symbol];
+	    errors.push (SourceDiagnostics.error (path, pos, "Missing: %s", t));
+	    return EarleyParser.getErrorNode (pos, t);
+	}
+	return treeBuilder.getTokenValue (tokens, token, tokens.getParsePosition (token));
+    }
+
+    private String describeSet (int set) {
+	StringBuilder sb = new StringBuilder ("{");
+	for (int i = 0, n = setSizes[set]; i < n; i++) {
+	    long key = itemKeys[setItems[set][i]];
+	    if (i > 0)
+		sb.append (", ");
+	    sb.append ("{").append (rules[getRuleId (key)]).append (", ").append (getDot (key)).
+		append (", ").append (getOrigin (key)).append ("}");
+	}
+	return sb.append ("}").toString ();
+    }
+
+    private void addParserError (String error) {
+	diagnostics.report (SourceDiagnostics.error (path, tokens.getParsePosition (currentToken), error));
+    }
+
+    /** Open addressing map from item key to item index */
+    private static class ItemTable {
+	private long[] keys = new long[256];
+	private int[] items = new int[256]; // item + 1, 0 is empty
+	// The slots that are in use, so that clear does not depend on the table size
+	private int[] used = new int[128];
+	private int size;
+
+	public int get (long key) {
+	    int mask = items.length - 1;
+	    for (int i = hash (key) & mask; items[i] != 0; i = (i + 1) & mask)
+		if (keys[i] == key)
+		    return items[i] - 1;
+	    return NONE;
+	}
+
+	public void put (long key, int item) {
+	    if ((size + 1) * 2 > items.length)
+		grow ();
+	    used[size++] = insert (key, item + 1);
+	}
+
+	private int insert (long key, int value) {
+	    int mask = items.length - 1;
+	    int i = hash (key) & mask;
+	    while (items[i] != 0)
+		i = (i + 1) & mask;
+	    keys[i] = key;
+	    items[i] = value;
+	    return i;
+	}
+
+	private void grow () {
+	    long[] oldKeys = keys;
+	    int[] oldItems = items;
+	    int[] oldUsed = used;
+	    keys = new long[oldKeys.length * 2];
+	    items = new int[oldItems.length * 2];
+	    used = new int[items.length / 2];
+	    for (int i = 0; i < size; i++)
+		used[i] = insert (oldKeys[oldUsed[i]], oldItems[oldUsed[i]]);
+	}
+
+	public void clear () {
+	    for (int i = 0; i < size; i++)
+		items[used[i]] = 0;
+	    size = 0;
+	}
+
+	private static int hash (long key) {
+	    long h = key * 0x9e3779b97f4a7c15L;
+	    return (int)(h >>> 32);
+	}
+    }
+}
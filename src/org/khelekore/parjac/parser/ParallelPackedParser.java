@@ -0,0 +1,243 @@
+package org.khelekore.parjac.parser;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.JavaGrammarHelper;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.tree.ClassBody;
+import org.khelekore.parjac.tree.CompilationUnit;
+import org.khelekore.parjac.tree.NormalClassDeclaration;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.khelekore.parjac.tree.TreeNode;
+import org.khelekore.parjac.tree.ZOMEntry;
+
+/** A parser for large files that splits the body of the largest top level
+ *  class into chunks of member declarations and parses the chunks in parallel,
+ *  each chunk with its own PackedEarleyParser. The rest of the file is parsed
+ *  with an empty class body and the parsed members are then put into that body.
+ *
+ *  The body is only split where a declaration has to end, so the tree is the
+ *  same as for a full parse. If any part fails to parse the whole file is
+ *  parsed again so that the errors are the same as for a full parse.
+ */
+public class ParallelPackedParser {
+    private static final int NONE = -1;
+    // Smaller chunks cost more to set up than they gain
+    private static final int MIN_CHUNK_TOKENS = 1000;
+
+    private final Grammar grammar;
+    private final Path path;
+    private final TokenBuffer tokens;
+    private final PredictCache predictCache;
+    private final JavaTreeBuilder treeBuilder;
+    private final CompilerDiagnosticCollector diagnostics;
+    private final boolean debug;
+    private final int minTokens;
+
+    /** Create a parser for the tokens in the given buffer.
+     * @param minTokens files with fewer tokens than this are not split
+     */
+    public ParallelPackedParser (Grammar grammar, Path path, TokenBuffer tokens,
+				 PredictCache predictCache, JavaTreeBuilder treeBuilder,
+				 CompilerDiagnosticCollector diagnostics,
+				 boolean debug, int minTokens) {
+	this.grammar = grammar;
+	this.path = path;
+	this.tokens = tokens;
+	this.predictCache = predictCache;
+	this.treeBuilder = treeBuilder;
+	this.diagnostics = diagnostics;
+	this.debug = debug;
+	this.minTokens = minTokens;
+    }
+
+    public SyntaxTree parse () {
+	if (tokens.size () >= minTokens && treeBuilder != null) {
+	    int open = findLargestClassBody ();
+	    if (open != NONE) {
+		List<Integer> chunks = findChunks (open, findBodyEnd (open));
+		if (chunks.size () > 2) {
+		    SyntaxTree tree = parseSplit (open, chunks);
+		    if (tree != null)
+			return tree;
+		}
+	    }
+	}
+	return new PackedEarleyParser (grammar, path, tokens, predictCache, treeBuilder,
+				       diagnostics, debug).parse ();
+    }
+
+    /** Find the body of the top level class that has the most tokens
+     * @return the index of the '{' that starts the body or NONE
+     */
+    private int findLargestClassBody () {
+	int best = NONE;
+	int bestSize = 0;
+	int depth = 0;
+	for (int i = 0, n = tokens.size (); i < n; i++) {
+	    Token t = tokens.getToken (i);
+	    if (t == Token.LEFT_CURLY) {
+		depth++;
+	    } else if (t == Token.RIGHT_CURLY) {
+		depth--;
+	    } else if (t == Token.CLASS && depth == 0 && (i == 0 || tokens.getToken (i - 1) != Token.DOT)) {
+		int open = findBodyStart (i);
+		int close = open == NONE ? NONE : findBodyEnd (open);
+		if (close == NONE) // broken, let the full parse report it
+		    return NONE;
+		if (close - open > bestSize) {
+		    best = open;
+		    bestSize = close - open;
+		}
+		i = close;
+	    }
+	}
+	return best;
+    }
+
+    private int findBodyStart (int classToken) {
+	int parens = 0;
+	for (int i = classToken + 1, n = tokens.size (); i < n; i++) {
+	    switch (tokens.getToken (i)) {
+	    case LEFT_PARENTHESIS:
+		parens++;
+		break;
+	    case RIGHT_PARENTHESIS:
+		parens--;
+		break;
+	    case LEFT_CURLY:
+		if (parens == 0)
+		    return i;
+		break;
+	    case SEMICOLON:
+	    case END_OF_INPUT:
+		return NONE;
+	    default:
+		// part of the class header
+	    }
+	}
+	return NONE;
+    }
+
+    private int findBodyEnd (int open) {
+	int depth = 0;
+	for (int i = open, n = tokens.size (); i < n; i++) {
+	    Token t = tokens.getToken (i);
+	    if (t == Token.LEFT_CURLY) {
+		depth++;
+	    } else if (t == Token.RIGHT_CURLY) {
+		if (--depth == 0)
+		    return i;
+	    }
+	}
+	return NONE;
+    }
+
+    /** Split the class body into chunks of whole declarations.
+     * @return the index of the first token of each chunk followed by the index of the closing '}'
+     */
+    private List<Integer> findChunks (int open, int close) {
+	int target = Math.max (MIN_CHUNK_TOKENS,
+			       (close - open) / (4 * ForkJoinPool.getCommonPoolParallelism ()));
+	List<Integer> chunks = new ArrayList<> ();
+	int start = open + 1;
+	chunks.add (start);
+	int depth = 0;
+	int parens = 0;
+	for (int i = start; i < close; i++) {
+	    boolean end = false;
+	    switch (tokens.getToken (i)) {
+	    case LEFT_PARENTHESIS:
+		parens++;
+		break;
+	    case RIGHT_PARENTHESIS:
+		parens--;
+		break;
+	    case LEFT_CURLY:
+		depth++;
+		break;
+	    case RIGHT_CURLY:
+		// "}" also ends array initializers, lambdas and anonymous classes in field initializers
+		depth--;
+		end = depth == 0 && parens == 0 && startsDeclaration (tokens.getToken (i + 1));
+		break;
+	    case SEMICOLON:
+		end = depth == 0 && parens == 0 && i + 1 < close;
+		break;
+	    default:
+		// nothing to track
+	    }
+	    if (end && i + 1 - start >= target) {
+		start = i + 1;
+		chunks.add (start);
+	    }
+	}
+	chunks.add (close);
+	return chunks;
+    }
+
+    /** Check if the token can start a declaration but can not continue an expression */
+    private static boolean startsDeclaration (Token t) {
+	switch (t) {
+	case AT:
+	case CLASS:
+	case INTERFACE:
+	case ENUM:
+	case VOID:
+	case IDENTIFIER:
+	case LEFT_CURLY:
+	    return true;
+	default:
+	    return t.isModifier () || t.isPrimitive ();
+	}
+    }
+
+    private SyntaxTree parseSplit (int open, List<Integer> chunks) {
+	int close = chunks.get (chunks.size () - 1);
+	CompilerDiagnosticCollector partDiagnostics = new CompilerDiagnosticCollector ();
+	TreeNode top = new PackedEarleyParser (grammar, path, tokens, "Goal", 0, tokens.size () - 1,
+					       open + 1, close, predictCache, treeBuilder,
+					       partDiagnostics, debug).parseNode ();
+	if (top == null || partDiagnostics.hasError ())
+	    return null;
+	ClassBody body = findBody (top, open);
+	if (body == null)
+	    return null;
+	List<TreeNode> parts =
+	    IntStream.range (0, chunks.size () - 1).parallel ().
+	    mapToObj (i -> parseChunk (chunks.get (i), chunks.get (i + 1), partDiagnostics)).
+	    collect (Collectors.toList ());
+	if (partDiagnostics.hasError () || parts.contains (null))
+	    return null;
+	for (TreeNode tn : parts)
+	    body.getDeclarations ().addAll (((ZOMEntry)tn).get ());
+	partDiagnostics.getDiagnostics ().forEach (d -> diagnostics.report (d));
+	return new SyntaxTree (path, top);
+    }
+
+    private TreeNode parseChunk (int start, int end, CompilerDiagnosticCollector partDiagnostics) {
+	return new PackedEarleyParser (grammar, path, tokens, JavaGrammarHelper.CLASS_BODY_DECLARATIONS_GOAL,
+				       start, end, NONE, NONE, predictCache, treeBuilder,
+				       partDiagnostics, debug).parseNode ();
+    }
+
+    private ClassBody findBody (TreeNode top, int open) {
+	int startPos = tokens.getParsePosition (open).getTokenStartPos ();
+	for (TreeNode tn : ((CompilationUnit)top).getTypes ()) {
+	    if (tn instanceof NormalClassDeclaration) {
+		ClassBody body = ((NormalClassDeclaration)tn).getBody ();
+		if (body.getParsePosition ().getTokenStartPos () == startPos)
+		    return body;
+	    }
+	}
+	return null;
+    }
+}
@@ -0,0 +1,228 @@
+package org.khelekore.parjac.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.lexer.Token;
+
+/** SLR(1) tables for the grammar, built from the LR(0) automaton of the goal rule.
+ *
+ *  The java grammar is not SLR(1), some cells have more than one action,
+ *  a shift and one or more reductions or many reductions. The tables keep
+ *  all actions and HybridParser follows each of them.
+ */
+public class ParseTable {
+    private static final int NONE = -1;
+    private static final int NUM_TOKENS = Token.values ().length;
+    private static final Rule[] NO_RULES = new Rule[0];
+
+    private final Rule goalRule;
+    private final int numSymbols;
+    private final int numStates;
+    // Indexed by state * numSymbols + symbol, the state to go to, NONE if none
+    private final int[] gotos;
+    // Indexed by state * NUM_TOKENS + token, the rules to reduce
+    private final Rule[][] reduces;
+    // States where the goal rule is complete
+    private final BitSet acceptStates = new BitSet ();
+    // The number of cells with more than one action
+    private int conflicts;
+
+    /** Build the tables for the given goal rule name, the goal has to have one rule */
+    public ParseTable (Grammar grammar, String goal) {
+	goalRule = grammar.getRules (goal).getRules ().get (0);
+	numSymbols = grammar.getNumberOfSymbols ();
+	List<Rule> rules = grammar.getRules ();
+
+	Map<String, ? extends Collection<Rule>> predictSets = grammar.getPredictSets ();
+	if (predictSets == null)
+	    predictSets = PredictCache.calculatePredictSets (grammar);
+	// Indexed by rule name symbol id
+	Rule[][] predictions = new Rule[numSymbols][];
+	for (Map.Entry<String, ? extends Collection<Rule>> me : predictSets.entrySet ())
+	    predictions[grammar.getRuleSymbol (me.getKey ())] = me.getValue ().toArray (NO_RULES);
+
+	List<long[]> states = new ArrayList<> ();
+	Map<KernelKey, Integer> kernels = new HashMap<> ();
+	int[] gotoTable = new int[64 * numSymbols];
+	long[] goalKernel = { getItem (goalRule.getId (), 0) };
+	kernels.put (new KernelKey (goalKernel), 0);
+	states.add (goalKernel);
+	Map<Integer, List<Long>> next = new HashMap<> ();
+	for (int state = 0; state < states.size (); state++) {
+	    long[] items = closure (states.get (state), rules, predictions);
+	    states.set (state, items);
+	    if (gotoTable.length < (state + 1) * numSymbols)
+		gotoTable = Arrays.copyOf (gotoTable, gotoTable.length * 2);
+	    Arrays.fill (gotoTable, state * numSymbols, (state + 1) * numSymbols, NONE);
+	    next.clear ();
+	    for (long item : items) {
+		Rule r = rules.get (getRuleId (item));
+		int dot = getDot (item);
+		if (dot < r.size ())
+		    next.computeIfAbsent (r.getSymbol (dot), k -> new ArrayList<> ()).
+			add (getItem (r.getId (), dot + 1));
+	    }
+	    for (Map.Entry<Integer, List<Long>> me : next.entrySet ()) {
+		long[] kernel = me.getValue ().stream ().mapToLong (Long::longValue).sorted ().toArray ();
+		KernelKey key = new KernelKey (kernel);
+		Integer target = kernels.get (key);
+		if (target == null) {
+		    target = states.size ();
+		    kernels.put (key, target);
+		    states.add (kernel);
+		}
+		gotoTable[state * numSymbols + me.getKey ()] = target;
+	    }
+	}
+	numStates = states.size ();
+	gotos = Arrays.copyOf (gotoTable, numStates * numSymbols);
+	reduces = new Rule[numStates * NUM_TOKENS][];
+	fillReduces (grammar, states);
+    }
+
+    private static long[] closure (long[] kernel, List<Rule> rules, Rule[][] predictions) {
+	BitSet predicted = new BitSet ();
+	List<Long> items = new ArrayList<> ();
+	for (long item : kernel) {
+	    items.add (item);
+	    Rule r = rules.get (getRuleId (item));
+	    int dot = getDot (item);
+	    if (dot < r.size () && !Grammar.isToken (r.getSymbol (dot))) {
+		Rule[] rs = predictions[r.getSymbol (dot)];
+		if (rs != null)
+		    for (Rule p : rs)
+			predicted.set (p.getId ());
+	    }
+	}
+	for (int i = predicted.nextSetBit (0); i >= 0; i = predicted.nextSetBit (i + 1))
+	    items.add (getItem (i, 0));
+	return items.stream ().mapToLong (Long::longValue).distinct ().toArray ();
+    }
+
+    private void fillReduces (Grammar grammar, List<long[]> states) {
+	BitSet nullable = new BitSet ();
+	BitSet[] firsts = PredictCache.calculateFirsts (grammar, nullable);
+	BitSet[] follows = calculateFollows (grammar, firsts, nullable);
+	List<Rule> rules = grammar.getRules ();
+	List<List<Rule>> cells = new ArrayList<> (NUM_TOKENS);
+	for (int t = 0; t < NUM_TOKENS; t++)
+	    cells.add (new ArrayList<> ());
+	for (int state = 0; state < numStates; state++) {
+	    for (List<Rule> ls : cells)
+		ls.clear ();
+	    for (long item : states.get (state)) {
+		Rule r = rules.get (getRuleId (item));
+		if (getDot (item) != r.size ())
+		    continue;
+		if (r == goalRule)
+		    acceptStates.set (state);
+		BitSet follow = follows[r.getNameSymbol ()];
+		for (int t = follow.nextSetBit (0); t >= 0; t = follow.nextSetBit (t + 1))
+		    cells.get (t).add (r);
+	    }
+	    for (int t = 0; t < NUM_TOKENS; t++) {
+		List<Rule> ls = cells.get (t);
+		if (ls.isEmpty ())
+		    continue;
+		reduces[state * NUM_TOKENS + t] = ls.toArray (NO_RULES);
+		if (ls.size () > 1 || getGoto (state, t) != NONE)
+		    conflicts++;
+	    }
+	}
+    }
+
+    /** Calculate the tokens that may follow each rule name */
+    private static BitSet[] calculateFollows (Grammar grammar, BitSet[] firsts, BitSet nullable) {
+	BitSet[] follows = new BitSet[grammar.getNumberOfSymbols ()];
+	for (int i = NUM_TOKENS; i < follows.length; i++)
+	    follows[i] = new BitSet ();
+	boolean thereWasChange;
+	do {
+	    thereWasChange = false;
+	    for (Rule r : grammar.getRules ()) {
+		for (int i = 0; i < r.size (); i++) {
+		    int symbol = r.getSymbol (i);
+		    if (Grammar.isToken (symbol))
+			continue;
+		    BitSet f = follows[symbol];
+		    int before = f.cardinality ();
+		    if (PredictCache.addFirsts (r, i + 1, firsts, nullable, f))
+			f.or (follows[r.getNameSymbol ()]);
+		    thereWasChange |= f.cardinality () != before;
+		}
+	    }
+	} while (thereWasChange);
+	return follows;
+    }
+
+    private static long getItem (int ruleId, int dot) {
+	return ((long)ruleId << 8) | dot;
+    }
+
+    private static int getRuleId (long item) {
+	return (int)(item >>> 8);
+    }
+
+    private static int getDot (long item) {
+	return (int)item & 0xff;
+    }
+
+    /** Get the goal rule that the tables were built for */
+    public Rule getGoalRule () {
+	return goalRule;
+    }
+
+    /** Get the state to go to after the given symbol, the symbol may be a token or a rule name
+     * @return the next state or -1 if the symbol is not valid in the state
+     */
+    public int getGoto (int state, int symbol) {
+	return gotos[state * numSymbols + symbol];
+    }
+
+    /** Get the rules to reduce in the given state when the next token is the given token
+     * @return the rules or null if nothing can be reduced
+     */
+    public Rule[] getReduces (int state, int token) {
+	return reduces[state * NUM_TOKENS + token];
+    }
+
+    /** Check if the goal rule is complete in the given state */
+    public boolean isAccepting (int state) {
+	return acceptStates.get (state);
+    }
+
+    public int getNumberOfStates () {
+	return numStates;
+    }
+
+    /** Get the number of table cells that have more than one action */
+    public int getNumberOfConflicts () {
+	return conflicts;
+    }
+
+    private static class KernelKey {
+	private final long[] items;
+	private final int hc;
+
+	public KernelKey (long[] items) {
+	    this.items = items;
+	    hc = Arrays.hashCode (items);
+	}
+
+	@Override public int hashCode () {
+	    return hc;
+	}
+
+	@Override public boolean equals (Object o) {
+	    return o instanceof KernelKey && Arrays.equals (items, ((KernelKey)o).items);
+	}
+    }
+}
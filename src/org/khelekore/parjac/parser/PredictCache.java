@@ -1,43 +1,232 @@
 package org.khelekore.parjac.parser;
 
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.khelekore.parjac.grammar.Grammar;
 import org.khelekore.parjac.grammar.Rule;
 import org.khelekore.parjac.grammar.RulePart;
 import org.khelekore.parjac.grammar.SimplePart;
+import org.khelekore.parjac.lexer.Token;
 
 public class PredictCache {
-    private final Grammar grammar;
-    // Key is either String for plain rules or Set<String> for rule collections
-    private final ConcurrentMap<Object, ListRuleHolder> cache;
+    private static final int NUM_TOKENS = Token.values ().length;
+
+    private final int numSymbols;
+    // Indexed by rule name symbol id
+    private final ListRuleHolder[] ruleNamePredictions;
+    // Key is the set of rule name symbol ids
+    private final ConcurrentMap<BitSet, Prediction> cache;
+    // Indexed by rule id
+    private final BitSet rightRecursiveRules;
+    // Indexed by token, the rule ids of the rules that may start with that token
+    private final BitSet[] viableRules;
 
     public PredictCache (Grammar grammar) {
-	this.grammar = grammar;
-	cache = calculatePredictSets ();
+	numSymbols = grammar.getNumberOfSymbols ();
+	Map<String, ? extends Collection<Rule>> predictSets = grammar.getPredictSets ();
+	if (predictSets == null)
+	    predictSets = calculatePredictSets (grammar);
+	ruleNamePredictions = new ListRuleHolder[numSymbols];
+	for (Map.Entry<String, ? extends Collection<Rule>> me : predictSets.entrySet ()) {
+	    int symbol = grammar.getRuleSymbol (me.getKey ());
+	    ruleNamePredictions[symbol] = new ListRuleHolder (numSymbols, me.getValue ());
+	}
+	cache = new ConcurrentHashMap<> ();
+	rightRecursiveRules = findRightRecursiveRules (grammar);
+	viableRules = findViableRules (grammar);
+    }
+
+    /** Get the predicted rules for a set of rule names.
+     * @param rules the rule name symbol ids, a copy is stored so the caller may reuse it
+     */
+    public ListRuleHolder getPredictedRules (BitSet rules) {
+	return getPrediction (rules).all;
+    }
+
+    /** Get the predicted rules for a set of rule names that may start with the
+     *  given token. Rules that can not start with the token can never be scanned
+     *  or completed so they are left out.
+     * @param rules the rule name symbol ids, a copy is stored so the caller may reuse it
+     * @param next the next token
+     */
+    public ListRuleHolder getPredictedRules (BitSet rules, Token next) {
+	Prediction p = getPrediction (rules);
+	int t = next.ordinal ();
+	ListRuleHolder lrh = p.byToken.get (t);
+	if (lrh == null) {
+	    // Two threads may both filter, they get equal holders
+	    lrh = new ListRuleHolder (p.all, viableRules[t]);
+	    p.byToken.set (t, lrh);
+	}
+	return lrh;
+    }
+
+    private Prediction getPrediction (BitSet rules) {
+	Prediction p = cache.get (rules);
+	if (p != null)
+	    return p;
+	// callers may reuse their BitSet, so store a copy
+	return cache.computeIfAbsent ((BitSet)rules.clone (), rs -> new Prediction (calculate (rs)));
+    }
+
+    /** The predictions for one set of rule names, once the set has been looked
+     *  up the token filtered predictions are found by index.
+     */
+    private static class Prediction {
+	private final ListRuleHolder all;
+	private final AtomicReferenceArray<ListRuleHolder> byToken;
+
+	public Prediction (ListRuleHolder all) {
+	    this.all = all;
+	    byToken = new AtomicReferenceArray<> (NUM_TOKENS);
+	}
     }
 
-    public ListRuleHolder getPredictedRules (Set<String> rules) {
-	return cache.computeIfAbsent (rules, rs -> calculate (rules));
+    /** Check if the given rule may be right recursive, that is if the last part
+     *  of the rule may end with the rule itself.
+     */
+    boolean isRightRecursive (Rule r) {
+	return rightRecursiveRules.get (r.getId ());
     }
 
-    private ListRuleHolder calculate (Set<String> rules) {
-	ListRuleHolder predicted = new ListRuleHolder (Collections.emptySet ());
-	for (String rule : rules) {
-	    ListRuleHolder pr = cache.get (rule);
+    private ListRuleHolder calculate (BitSet rules) {
+	ListRuleHolder predicted = new ListRuleHolder (numSymbols, Collections.emptySet ());
+	for (int i = rules.nextSetBit (0); i >= 0; i = rules.nextSetBit (i + 1)) {
+	    ListRuleHolder pr = ruleNamePredictions[i];
 	    if (pr != null)
 		predicted.add (pr);
 	}
 	return predicted;
     }
 
-    private ConcurrentMap<Object, ListRuleHolder> calculatePredictSets () {
+    /** Find the rules that may start with each token. Rules that can be empty
+     *  are viable for every token.
+     */
+    private static BitSet[] findViableRules (Grammar grammar) {
+	BitSet nullable = new BitSet ();
+	BitSet[] firsts = calculateFirsts (grammar, nullable);
+	BitSet[] ret = new BitSet[NUM_TOKENS];
+	for (int i = 0; i < ret.length; i++)
+	    ret[i] = new BitSet ();
+	BitSet ruleFirsts = new BitSet ();
+	for (Rule r : grammar.getRules ()) {
+	    ruleFirsts.clear ();
+	    if (addFirsts (r, 0, firsts, nullable, ruleFirsts))
+		ruleFirsts.set (0, NUM_TOKENS);
+	    for (int t = ruleFirsts.nextSetBit (0); t >= 0; t = ruleFirsts.nextSetBit (t + 1))
+		ret[t].set (r.getId ());
+	}
+	return ret;
+    }
+
+    /** Calculate the tokens that each rule name may start with.
+     * @param nullable filled in with the symbol ids of the rule names that can be empty
+     * @return the token ordinals indexed by rule name symbol id, null for tokens
+     */
+    static BitSet[] calculateFirsts (Grammar grammar, BitSet nullable) {
+	BitSet[] firsts = new BitSet[grammar.getNumberOfSymbols ()];
+	for (int i = NUM_TOKENS; i < firsts.length; i++)
+	    firsts[i] = new BitSet ();
+	boolean thereWasChange;
+	do {
+	    thereWasChange = false;
+	    for (Rule r : grammar.getRules ()) {
+		int name = r.getNameSymbol ();
+		BitSet f = firsts[name];
+		int before = f.cardinality ();
+		if (addFirsts (r, 0, firsts, nullable, f) && !nullable.get (name)) {
+		    nullable.set (name);
+		    thereWasChange = true;
+		}
+		thereWasChange |= f.cardinality () != before;
+	    }
+	} while (thereWasChange);
+	return firsts;
+    }
+
+    /** Add the tokens that the parts of the given rule, from the given position, may start with.
+     * @return true if all those parts can be empty
+     */
+    static boolean addFirsts (Rule r, int from, BitSet[] firsts, BitSet nullable, BitSet ret) {
+	for (int i = from; i < r.size (); i++) {
+	    int symbol = r.getSymbol (i);
+	    if (Grammar.isToken (symbol)) {
+		ret.set (symbol);
+		return false;
+	    }
+	    ret.or (firsts[symbol]);
+	    if (!nullable.get (symbol))
+		return false;
+	}
+	return true;
+    }
+
+    private static BitSet findRightRecursiveRules (Grammar grammar) {
+	// The rule names that end each rule name
+	BitSet[] lastParts = new BitSet[grammar.getNumberOfSymbols ()];
+	for (Rule r : grammar.getRules ()) {
+	    int last = getLastRuleSymbol (r);
+	    if (last != -1) {
+		int name = r.getNameSymbol ();
+		if (lastParts[name] == null)
+		    lastParts[name] = new BitSet ();
+		lastParts[name].set (last);
+	    }
+	}
+	BitSet[] reachable = new BitSet[lastParts.length];
+	BitSet ret = new BitSet ();
+	for (Rule r : grammar.getRules ()) {
+	    int last = getLastRuleSymbol (r);
+	    if (last == -1)
+		continue;
+	    if (reachable[last] == null)
+		reachable[last] = getReachable (lastParts, last);
+	    if (reachable[last].get (r.getNameSymbol ()))
+		ret.set (r.getId ());
+	}
+	return ret;
+    }
+
+    private static int getLastRuleSymbol (Rule r) {
+	if (r.isEmpty ())
+	    return -1;
+	int last = r.getSymbol (r.size () - 1);
+	return Grammar.isToken (last) ? -1 : last;
+    }
+
+    /** Find the rule names that the given rule name may end with, including itself */
+    private static BitSet getReachable (BitSet[] lastParts, int symbol) {
+	BitSet reached = new BitSet ();
+	reached.set (symbol);
+	Deque<Integer> queue = new ArrayDeque<> ();
+	queue.add (symbol);
+	while (!queue.isEmpty ()) {
+	    BitSet next = lastParts[queue.remove ()];
+	    if (next == null)
+		continue;
+	    for (int i = next.nextSetBit (0); i >= 0; i = next.nextSetBit (i + 1)) {
+		if (!reached.get (i)) {
+		    reached.set (i);
+		    queue.add (i);
+		}
+	    }
+	}
+	return reached;
+    }
+
+    /** Calculate the rules that each rule name predicts */
+    public static Map<String, Set<Rule>> calculatePredictSets (Grammar grammar) {
 	Map<String, Set<Rule>> ruleToPredictRules = new HashMap<> ();
 	for (String rulename : grammar.getUniqueRuleNames ()) {
 	    Set<Rule> rules = new HashSet<> ();
@@ -63,9 +252,6 @@ public class PredictCache {
 		}
 	    }
 	} while (thereWasChange);
-	ConcurrentMap<Object, ListRuleHolder> ret = new ConcurrentHashMap<> ();
-	for (Map.Entry<String, Set<Rule>> me : ruleToPredictRules.entrySet ())
-	    ret.put (me.getKey (), new ListRuleHolder (me.getValue ()));
-	return ret;
+	return ruleToPredictRules;
     }
 }
\ No newline at end of file
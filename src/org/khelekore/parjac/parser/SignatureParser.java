@@ -0,0 +1,184 @@
+package org.khelekore.parjac.parser;
+
+import java.nio.file.Path;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.tree.SyntaxTree;
+
+/** A parser that only parses the declarations of a file: the package, the imports,
+ *  the class headers, the fields and the method and constructor signatures.
+ *
+ *  The bodies of methods and constructors and the initializer blocks are
+ *  found by matching braces on the tokens and everything inside them is
+ *  left out, so the tree has empty blocks for them. Field initializers are
+ *  kept, they may hold constants. The rest of the tokens are parsed with
+ *  the PackedEarleyParser.
+ *
+ *  The tree can be used to add types, register fields and register super
+ *  types, but since the bodies are gone, local and anonymous classes inside
+ *  them are gone as well. If the braces do not match or the declarations do
+ *  not parse the whole file is parsed so that the errors are the same as for
+ *  a full parse.
+ */
+public class SignatureParser {
+    private static final int NONE = -1;
+
+    private final Grammar grammar;
+    private final Path path;
+    private final TokenBuffer tokens;
+    private final PredictCache predictCache;
+    private final JavaTreeBuilder treeBuilder;
+    private final CompilerDiagnosticCollector diagnostics;
+    private final boolean debug;
+
+    // The tokens without the bodies
+    private final TokenBuffer signatureTokens = new TokenBuffer ();
+
+    /** Create a parser for the tokens in the given buffer, the buffer
+     *  may not be changed until the parse is done.
+     */
+    public SignatureParser (Grammar grammar, Path path, TokenBuffer tokens,
+			    PredictCache predictCache, JavaTreeBuilder treeBuilder,
+			    CompilerDiagnosticCollector diagnostics, boolean debug) {
+	this.grammar = grammar;
+	this.path = path;
+	this.tokens = tokens;
+	this.predictCache = predictCache;
+	this.treeBuilder = treeBuilder;
+	this.diagnostics = diagnostics;
+	this.debug = debug;
+    }
+
+    public SyntaxTree parse () {
+	int end = copyMembers (0, false);
+	if (end == tokens.size () - 1 && tokens.getToken (end) == Token.END_OF_INPUT) {
+	    signatureTokens.add (tokens, end);
+	    CompilerDiagnosticCollector signatureDiagnostics = new CompilerDiagnosticCollector ();
+	    SyntaxTree tree = new PackedEarleyParser (grammar, path, signatureTokens, predictCache, treeBuilder,
+						      signatureDiagnostics, debug).parse ();
+	    if (!signatureDiagnostics.hasError ()) {
+		signatureDiagnostics.getDiagnostics ().forEach (d -> diagnostics.report (d));
+		return tree;
+	    }
+	}
+	if (debug)
+	    System.err.println ("Could not parse the signatures, parsing all of: " + path);
+	signatureTokens.clear ();
+	return new PackedEarleyParser (grammar, path, tokens, predictCache, treeBuilder,
+				       diagnostics, debug).parse ();
+    }
+
+    /** Get the number of tokens that were left out by the last parse */
+    public int getNumberOfSkippedTokens () {
+	int size = signatureTokens.size ();
+	return size == 0 ? 0 : tokens.size () - size;
+    }
+
+    /** Copy the members of a type body, or the types of the file, and leave out
+     *  the bodies of the methods, constructors and initializers.
+     * @param start the index of the first token after the '{' or 0 for the file
+     * @param enumBody true if the body starts with enum constants
+     * @return the index of the '}' or END_OF_INPUT that ended the body, the token is not copied,
+     *         NONE if the body did not end
+     */
+    private int copyMembers (int start, boolean enumBody) {
+	boolean constants = enumBody;
+	int parens = 0;
+	// What we have seen in the current member
+	boolean assign = false;
+	boolean type = false;
+	boolean isEnum = false;
+	for (int i = start, n = tokens.size (); i < n; i++) {
+	    Token t = tokens.getToken (i);
+	    switch (t) {
+	    case END_OF_INPUT:
+	    case RIGHT_CURLY:
+		return i;
+	    case LEFT_CURLY:
+		if (parens > 0 || assign) {
+		    // array initializers, lambdas and anonymous classes, keep them
+		    i = copyBlock (i);
+		} else if (type || constants) {
+		    signatureTokens.add (tokens, i);
+		    i = copyMembers (i + 1, isEnum);
+		    if (i == NONE || tokens.getToken (i) != Token.RIGHT_CURLY)
+			return NONE;
+		    signatureTokens.add (tokens, i);
+		    type = isEnum = false;
+		} else {
+		    // method body, constructor body or initializer block
+		    int close = findBlockEnd (i);
+		    if (close == NONE)
+			return NONE;
+		    signatureTokens.add (tokens, i);
+		    signatureTokens.add (tokens, close);
+		    i = close;
+		    assign = false;
+		}
+		if (i == NONE)
+		    return NONE;
+		continue;
+	    case LEFT_PARENTHESIS:
+		parens++;
+		break;
+	    case RIGHT_PARENTHESIS:
+		parens--;
+		break;
+	    case EQUAL:
+		if (parens == 0)
+		    assign = true;
+		break;
+	    case DEFAULT:
+		// "int[] value () default { 1 };", but not "default void f () { ... }"
+		if (parens == 0 && i > 0 && tokens.getToken (i - 1) == Token.RIGHT_PARENTHESIS)
+		    assign = true;
+		break;
+	    case SEMICOLON:
+		if (parens == 0)
+		    assign = type = isEnum = constants = false;
+		break;
+	    case CLASS:
+	    case INTERFACE:
+	    case ENUM:
+		if (parens == 0 && !assign && (i == 0 || tokens.getToken (i - 1) != Token.DOT)) {
+		    type = true;
+		    isEnum = t == Token.ENUM;
+		}
+		break;
+	    default:
+		// part of the member
+	    }
+	    signatureTokens.add (tokens, i);
+	}
+	return NONE;
+    }
+
+    /** Copy all of the tokens from the '{' to the matching '}'
+     * @return the index of the '}' or NONE
+     */
+    private int copyBlock (int open) {
+	int close = findBlockEnd (open);
+	if (close == NONE)
+	    return NONE;
+	for (int i = open; i <= close; i++)
+	    signatureTokens.add (tokens, i);
+	return close;
+    }
+
+    private int findBlockEnd (int open) {
+	int depth = 0;
+	for (int i = open, n = tokens.size (); i < n; i++) {
+	    Token t = tokens.getToken (i);
+	    if (t == Token.LEFT_CURLY) {
+		depth++;
+	    } else if (t == Token.RIGHT_CURLY) {
+		if (--depth == 0)
+		    return i;
+	    }
+	}
+	return NONE;
+    }
+}
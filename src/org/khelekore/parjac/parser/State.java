@@ -28,6 +28,11 @@ class State {
 	return r.getParts ().get (getDotPos ());
     }
 
+    /** Get the symbol id of the part after the dot */
+    public int getSymbolAfterDot () {
+	return r.getSymbol (getDotPos ());
+    }
+
     public boolean dotIsLast () {
 	return getDotPos () == r.getParts ().size ();
     }
@@ -72,6 +77,10 @@ class State {
     public List<State> getCompleted () {
 	return null;
     }
+
+    /** Drop the links to the previous and completed states */
+    public void clearLinks () {
+    }
 }
 
 class StateWithPrevious extends State {
@@ -116,4 +125,9 @@ class StateWithPrevious extends State {
 	    return Collections.singletonList ((State)completed);
 	return (List<State>)completed;
     }
+
+    @Override public void clearLinks () {
+	previousState = null;
+	completed = null;
+    }
 }
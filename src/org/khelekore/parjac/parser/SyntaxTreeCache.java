@@ -0,0 +1,281 @@
+package org.khelekore.parjac.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.lexer.SymbolTable;
+import org.khelekore.parjac.lexer.Token;
+
+/** A directory of stored syntax trees, keyed on the source data and the grammar.
+ *
+ *  The key is a hash of the grammar rules, the lexer and tree format
+ *  classes, the source bytes, their encoding and the input mode, so an
+ *  unchanged file finds its tree wherever it is and a changed grammar or
+ *  lexer does not find the trees of the old one. The input mode is part
+ *  of the key since the byte lexer stores byte offsets and the char lexer
+ *  char offsets. Reading a tree is only a few bulk copies, the tree nodes are then built by the JavaTreeBuilder
+ *  without lexing or parsing.
+ *
+ *  Layout, all numbers are big endian:
+ *  <pre>
+ *  magic (int), version (int), grammar hash (long), number of entries (int),
+ *  kinds (short per entry), offsets (int per entry), new positions (long per 64 entries),
+ *  number of positions (int), line, column, start and end (int per position),
+ *  number of numbers (int), numbers (long),
+ *  number of strings (int), (length (int), UTF-8 bytes) per string
+ *  </pre>
+ *  The cache may be used by many threads at once.
+ */
+public class SyntaxTreeCache {
+    private static final int MAGIC = 0x504a5354; // PJST
+    private static final int VERSION = 1;
+
+    // The classes that decide which tokens and values a source gives and how the
+    // entries are recorded and stored. Their class files are part of the key, so a
+    // compiler with another lexer or format does not use the trees of this one.
+    private static final String[] FORMAT_CLASSES = {
+	"org/khelekore/parjac/lexer/AbstractLexer.class",
+	"org/khelekore/parjac/lexer/CharBufferLexer.class",
+	"org/khelekore/parjac/lexer/ByteBufferLexer.class",
+	"org/khelekore/parjac/lexer/Token.class",
+	"org/khelekore/parjac/parser/CachedSyntaxTree.class",
+	"org/khelekore/parjac/parser/CachedTreeRecorder.class",
+	"org/khelekore/parjac/parser/SyntaxTreeCache.class"
+    };
+
+    private final Path directory;
+    private final Grammar grammar;
+    private final byte[] grammarHash;
+    private final long grammarId;
+    private final AtomicInteger hits = new AtomicInteger ();
+    private final AtomicInteger misses = new AtomicInteger ();
+
+    public SyntaxTreeCache (Path directory, Grammar grammar) {
+	this.directory = directory;
+	this.grammar = grammar;
+	MessageDigest md = getDigest ();
+	md.update (getFormatHash ());
+	// Entries store rule ids and token ordinals
+	for (Token t : Token.values ())
+	    md.update (t.name ().getBytes (StandardCharsets.UTF_8));
+	for (Rule r : grammar.getRules ()) {
+	    md.update (r.toString ().getBytes (StandardCharsets.UTF_8));
+	    md.update (r.getOriginal ().toString ().getBytes (StandardCharsets.UTF_8));
+	}
+	grammarHash = md.digest ();
+	grammarId = ByteBuffer.wrap (grammarHash).getLong ();
+    }
+
+    /** Get the key for the given source data
+     * @param source the bytes of the source file, the position of the buffer is not changed
+     * @param encoding the encoding of the bytes
+     * @param inputMode how the source is lexed, the lexers of different modes give
+     *        different token positions
+     */
+    public String getKey (ByteBuffer source, Charset encoding, String inputMode) {
+	MessageDigest md = getDigest ();
+	md.update (grammarHash);
+	md.update (encoding.name ().getBytes (StandardCharsets.UTF_8));
+	md.update ((byte)0);
+	md.update (inputMode.getBytes (StandardCharsets.UTF_8));
+	md.update ((byte)0);
+	md.update (source.duplicate ());
+	StringBuilder sb = new StringBuilder ();
+	for (byte b : md.digest ())
+	    sb.append (Character.forDigit ((b >> 4) & 0xf, 16)).append (Character.forDigit (b & 0xf, 16));
+	return sb.toString ();
+    }
+
+    private static byte[] getFormatHash () {
+	MessageDigest md = getDigest ();
+	ClassLoader cl = SyntaxTreeCache.class.getClassLoader ();
+	byte[] buf = new byte[8192];
+	for (String name : FORMAT_CLASSES) {
+	    md.update (name.getBytes (StandardCharsets.UTF_8));
+	    try (InputStream is = cl.getResourceAsStream (name)) {
+		if (is == null)
+		    throw new IllegalStateException ("Failed to find: " + name);
+		int r;
+		while ((r = is.read (buf)) > 0)
+		    md.update (buf, 0, r);
+	    } catch (IOException e) {
+		throw new IllegalStateException ("Failed to read: " + name, e);
+	    }
+	}
+	return md.digest ();
+    }
+
+    private static MessageDigest getDigest () {
+	try {
+	    return MessageDigest.getInstance ("SHA-256");
+	} catch (NoSuchAlgorithmException e) {
+	    throw new IllegalStateException ("SHA-256 is required to be available", e);
+	}
+    }
+
+    /** Get the stored tree for the key
+     * @param path the path of the source, used for the tree and its diagnostics
+     * @param symbols the symbol table to get the names from
+     * @return the tree or null if there is no valid tree stored for the key
+     */
+    public CachedSyntaxTree get (String key, Path path, SymbolTable symbols) {
+	byte[] data;
+	try {
+	    data = Files.readAllBytes (getFile (key));
+	} catch (IOException e) {
+	    misses.incrementAndGet ();
+	    return null;
+	}
+	CachedSyntaxTree tree = read (ByteBuffer.wrap (data), path, symbols);
+	if (tree == null)
+	    misses.incrementAndGet ();
+	else
+	    hits.incrementAndGet ();
+	return tree;
+    }
+
+    /** Store the tree for the key, the tree has to be from a parse without errors */
+    public void put (String key, CachedSyntaxTree tree) {
+	store (getFile (key), toBytes (tree));
+    }
+
+    /** Get the number of trees that were found */
+    public int getNumberOfHits () {
+	return hits.get ();
+    }
+
+    /** Get the number of trees that were not found or could not be used */
+    public int getNumberOfMisses () {
+	return misses.get ();
+    }
+
+    private Path getFile (String key) {
+	return directory.resolve (key + ".pjst");
+    }
+
+    private static void store (Path file, byte[] data) {
+	// Only a cache, failing to store a tree is not an error
+	try {
+	    Files.createDirectories (file.getParent ());
+	    Path tmp = Files.createTempFile (file.getParent (), file.getFileName ().toString (), ".tmp");
+	    try {
+		Files.write (tmp, data);
+		try {
+		    Files.move (tmp, file, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+		    Files.move (tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	    } finally {
+		Files.deleteIfExists (tmp);
+	    }
+	} catch (IOException e) {
+	    // ignore, the file will be parsed again next time
+	}
+    }
+
+    byte[] toBytes (CachedSyntaxTree tree) {
+	short[] kinds = tree.getKinds ();
+	int[] offsets = tree.getOffsets ();
+	long[] newPositions = tree.getNewPositions ();
+	int[] positionData = tree.getPositionData ();
+	long[] numbers = tree.getNumbers ();
+	String[] strings = tree.getStrings ();
+	byte[][] stringBytes = new byte[strings.length][];
+	int stringSize = 0;
+	for (int i = 0; i < strings.length; i++) {
+	    stringBytes[i] = strings[i].getBytes (StandardCharsets.UTF_8);
+	    stringSize += 4 + stringBytes[i].length;
+	}
+	int size = 4 + 4 + 8 + 4 + 2 * kinds.length + 4 * offsets.length + 8 * newPositions.length +
+	    4 + 4 * positionData.length + 4 + 8 * numbers.length + 4 + stringSize;
+	ByteBuffer buf = ByteBuffer.allocate (size);
+	buf.putInt (MAGIC);
+	buf.putInt (VERSION);
+	buf.putLong (grammarId);
+	buf.putInt (kinds.length);
+	buf.asShortBuffer ().put (kinds);
+	buf.position (buf.position () + 2 * kinds.length);
+	buf.asIntBuffer ().put (offsets);
+	buf.position (buf.position () + 4 * offsets.length);
+	buf.asLongBuffer ().put (newPositions);
+	buf.position (buf.position () + 8 * newPositions.length);
+	buf.putInt (positionData.length / 4);
+	buf.asIntBuffer ().put (positionData);
+	buf.position (buf.position () + 4 * positionData.length);
+	buf.putInt (numbers.length);
+	buf.asLongBuffer ().put (numbers);
+	buf.position (buf.position () + 8 * numbers.length);
+	buf.putInt (strings.length);
+	for (byte[] b : stringBytes) {
+	    buf.putInt (b.length);
+	    buf.put (b);
+	}
+	return buf.array ();
+    }
+
+    /** Read a tree, returns null if the data is for another grammar or broken */
+    CachedSyntaxTree read (ByteBuffer buf, Path path, SymbolTable symbols) {
+	try {
+	    if (buf.getInt () != MAGIC || buf.getInt () != VERSION || buf.getLong () != grammarId)
+		return null;
+	    // Check each count against what is left before allocating anything
+	    int size = buf.getInt ();
+	    int words = (size + 63) / 64;
+	    if (size < 0 || (2L + 4L) * size + 8L * words > buf.remaining ())
+		return null;
+	    short[] kinds = new short[size];
+	    buf.asShortBuffer ().get (kinds);
+	    buf.position (buf.position () + 2 * size);
+	    int[] offsets = new int[size];
+	    buf.asIntBuffer ().get (offsets);
+	    buf.position (buf.position () + 4 * size);
+	    long[] newPositions = new long[words];
+	    buf.asLongBuffer ().get (newPositions);
+	    buf.position (buf.position () + 8 * newPositions.length);
+	    int numPositions = buf.getInt ();
+	    if (numPositions < 0 || 16L * numPositions > buf.remaining ())
+		return null;
+	    int[] positionData = new int[4 * numPositions];
+	    buf.asIntBuffer ().get (positionData);
+	    buf.position (buf.position () + 4 * positionData.length);
+	    int numNumbers = buf.getInt ();
+	    if (numNumbers < 0 || 8L * numNumbers > buf.remaining ())
+		return null;
+	    long[] numbers = new long[numNumbers];
+	    buf.asLongBuffer ().get (numbers);
+	    buf.position (buf.position () + 8 * numbers.length);
+	    int numStrings = buf.getInt ();
+	    if (numStrings < 0 || 4L * numStrings > buf.remaining ())
+		return null;
+	    String[] strings = new String[numStrings];
+	    for (int i = 0; i < strings.length; i++) {
+		int length = buf.getInt ();
+		if (length < 0 || length > buf.remaining ())
+		    return null;
+		byte[] b = new byte[length];
+		buf.get (b);
+		strings[i] = symbols.intern (new String (b, StandardCharsets.UTF_8));
+	    }
+	    if (buf.hasRemaining ())
+		return null;
+	    CachedSyntaxTree tree = new CachedSyntaxTree (grammar, path, kinds, offsets, newPositions,
+							    positionData, numbers, strings);
+	    return tree.isValid () ? tree : null;
+	} catch (RuntimeException e) {
+	    // Any broken data is only a miss
+	    return null;
+	}
+    }
+}
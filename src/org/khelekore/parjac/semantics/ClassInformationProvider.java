@@ -1,12 +1,17 @@
 package org.khelekore.parjac.semantics;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.khelekore.parjac.CompilerDiagnosticCollector;
@@ -26,6 +31,12 @@ public class ClassInformationProvider {
     private Map<String, Map<String, List<MethodInformation>>> classMethods;
     private Map<TypeParameter, String> typeToName;
     private Map<String, TypeParameter> nameToType;
+    // Source file to referenced types, only used for incremental compilation
+    private Map<Path, Set<String>> dependencies;
+    // Type to all of its super types, only used once the super types are known
+    private Map<String, Set<String>> allSuperTypes;
+    // Only used once all methods are known
+    private MethodResolutionCache methodResolutions;
 
     public ClassInformationProvider (ClassResourceHolder crh, CompiledTypesHolder cth) {
 	this.crh = crh;
@@ -93,17 +104,41 @@ public class ClassInformationProvider {
 	if (sub.isArray () || sup.isArray ()) {
 	    return false;
 	}
-	Optional<List<String>> supers = getSuperTypes (sub.getClassName(), sub.isArray ());
-	if (supers.isPresent ()) {
-	    List<String> l = supers.get ();
-	    for (String s : l) {
-		if (s.equals (sup.getClassName ()))
-		    return true;
-		if (isSubType (ExpressionType.getObjectType (s), sup))
-		    return true;
+	return getAllSuperTypes (sub.getClassName (), false).contains (sup.getClassName ());
+    }
+
+    /** Get all the super types of the given type, direct and indirect, without the type itself.
+     *  The types are in the order a breadth first walk finds them, so each type comes
+     *  before its own super types.
+     */
+    public Set<String> getAllSuperTypes (String fqn, boolean isArray) throws IOException {
+	if (isArray)
+	    return Collections.singleton ("java.lang.Object");
+	if (allSuperTypes == null)
+	    return findAllSuperTypes (fqn);
+	Set<String> ret = allSuperTypes.get (fqn);
+	if (ret == null) {
+	    ret = findAllSuperTypes (fqn);
+	    allSuperTypes.put (fqn, ret);
+	}
+	return ret;
+    }
+
+    private Set<String> findAllSuperTypes (String fqn) throws IOException {
+	Set<String> ret = new LinkedHashSet<> ();
+	Deque<String> toCheck = new ArrayDeque<> ();
+	toCheck.add (fqn);
+	while (!toCheck.isEmpty ()) {
+	    Optional<List<String>> supers = getSuperTypes (toCheck.removeFirst (), false);
+	    if (supers.isPresent ()) {
+		for (String s : supers.get ()) {
+		    // Super types that could not be found have no name
+		    if (s != null && !s.equals (fqn) && ret.add (s))
+			toCheck.addLast (s);
+		}
 	    }
 	}
-	return false;
+	return Collections.unmodifiableSet (ret);
     }
 
     public int getFlags (String fqn) {
@@ -197,6 +232,50 @@ public class ClassInformationProvider {
 	return crh.isInterface (type);
     }
 
+    /** Start to remember the super types of each type that getAllSuperTypes
+     *  finds. Needs to be called after the classes of all the trees have been
+     *  set, type parameters and the super types of the compiled types are not
+     *  known before that.
+     */
+    public void cacheSuperTypes () {
+	allSuperTypes = new ConcurrentHashMap<> ();
+    }
+
+    /** Start to remember what method calls resolve to. Needs to be called after
+     *  all methods have been registered, including the implicit constructors.
+     */
+    public void cacheMethodResolutions () {
+	methodResolutions = new MethodResolutionCache ();
+    }
+
+    /** Get the method resolution cache, null if method resolutions are not cached */
+    public MethodResolutionCache getMethodResolutionCache () {
+	return methodResolutions;
+    }
+
+    /** Start to record what types each source file references.
+     *  Needs to be called before the semantic checks to be useful.
+     */
+    public void trackDependencies () {
+	dependencies = new ConcurrentHashMap<> ();
+    }
+
+    /** Record that the given tree uses the given type.
+     *  Does nothing unless dependency tracking has been enabled.
+     */
+    public void addDependency (SyntaxTree tree, String fqn) {
+	if (dependencies == null)
+	    return;
+	dependencies.computeIfAbsent (tree.getOrigin (), p -> ConcurrentHashMap.newKeySet ()).add (fqn);
+    }
+
+    /** Get the types that the given source file referenced */
+    public Set<String> getDependencies (Path origin) {
+	if (dependencies == null)
+	    return Collections.emptySet ();
+	return dependencies.getOrDefault (origin, Collections.emptySet ());
+    }
+
     public void registerTypeParameter (String fqn, TypeParameter tp) {
 	String name = "$" + fqn + "$gt$" + tp.getId ();
 	nameToType.put (name, tp);
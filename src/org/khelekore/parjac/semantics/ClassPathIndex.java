@@ -0,0 +1,481 @@
+package org.khelekore.parjac.semantics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** A persistent index of the classes in a jar file.
+ *
+ *  The index holds the class names and the parts of each class that we
+ *  extract with asm: access flags, super types, fields and methods.
+ *  Using the index means that the jar does not have to be opened and that
+ *  the class files do not have to be parsed. The index is keyed on the path,
+ *  size and modification time of the jar, a changed jar gets a new index.
+ *
+ *  Layout, all numbers are big endian ints unless noted:
+ *  <pre>
+ *  magic, version, jar path (string), jar size (long), jar modification time (long)
+ *  strings: count, offsets, data length, data
+ *  classes: count, (name string, data offset)
+ *  class data: length, data
+ *  	access, name, super name, interface count, interfaces,
+ *  	field count, (access, name, desc, signature, value tag, value),
+ *  	method count, (access, name, desc, signature, exception count, exceptions)
+ *  </pre>
+ *  Strings are stored as a short length followed by UTF-8 bytes.
+ *  References to strings are string indexes, -1 is used for null.
+ *  Classes that asm could not read are stored with an access of -1
+ *  followed by the error, so that using them reports the error.
+ */
+class ClassPathIndex {
+    private static final int MAGIC = 0x504a4349; // PJCI
+    private static final int VERSION = 2;
+    private static final int NULL = -1;
+    private static final int UNREADABLE = -1;
+
+    private static final byte NO_VALUE = 0;
+    private static final byte INT_VALUE = 'I';
+    private static final byte LONG_VALUE = 'J';
+    private static final byte FLOAT_VALUE = 'F';
+    private static final byte DOUBLE_VALUE = 'D';
+    private static final byte STRING_VALUE = 'S';
+
+    private final ByteBuffer buf;
+    private final int stringOffsets;
+    private final String[] strings;
+    private final int stringData;
+    private final int[] classNames;
+    private final int[] classOffsets;
+    private final int classData;
+
+    private ClassPathIndex (ByteBuffer buf, int numStrings, int stringOffsets, int stringData,
+			    int[] classNames, int[] classOffsets, int classData) {
+	this.buf = buf;
+	this.stringOffsets = stringOffsets;
+	this.strings = new String[numStrings];
+	this.stringData = stringData;
+	this.classNames = classNames;
+	this.classOffsets = classOffsets;
+	this.classData = classData;
+    }
+
+    /** Get the index for the given jar, the index is read from the index
+     *  directory if it is up to date, otherwise it is built and stored.
+     */
+    public static ClassPathIndex get (Path indexDirectory, Path jarfile) throws IOException {
+	Path jar = jarfile.toAbsolutePath ();
+	long size = Files.size (jar);
+	long modified = Files.getLastModifiedTime (jar).toMillis ();
+	Path indexFile = getIndexFile (indexDirectory, jar);
+	if (Files.isRegularFile (indexFile)) {
+	    ByteBuffer buf;
+	    try (FileChannel fc = FileChannel.open (indexFile, StandardOpenOption.READ)) {
+		buf = fc.map (FileChannel.MapMode.READ_ONLY, 0, fc.size ());
+	    }
+	    ClassPathIndex index = read (buf, jar, size, modified);
+	    if (index != null)
+		return index;
+	}
+	byte[] data = build (jar, size, modified);
+	store (indexFile, data);
+	return read (ByteBuffer.wrap (data), jar, size, modified);
+    }
+
+    private static Path getIndexFile (Path indexDirectory, Path jar) {
+	String name = jar.getFileName () + "-" + Integer.toHexString (jar.toString ().hashCode ()) + ".pjci";
+	return indexDirectory.resolve (name);
+    }
+
+    private static void store (Path indexFile, byte[] data) {
+	// The index is only a cache, failing to store it is not an error
+	try {
+	    Path dir = indexFile.getParent ();
+	    Files.createDirectories (dir);
+	    Path tmp = Files.createTempFile (dir, indexFile.getFileName ().toString (), ".tmp");
+	    try {
+		Files.write (tmp, data);
+		try {
+		    Files.move (tmp, indexFile, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+		    Files.move (tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+	    } finally {
+		Files.deleteIfExists (tmp);
+	    }
+	} catch (IOException e) {
+	    // ignore, we will try again next time
+	}
+    }
+
+    /** Read an index, returns null if the index is for another jar or broken */
+    static ClassPathIndex read (ByteBuffer buf, Path jar, long size, long modified) {
+	try {
+	    if (buf.getInt () != MAGIC || buf.getInt () != VERSION)
+		return null;
+	    byte[] path = new byte[buf.getShort () & 0xffff];
+	    buf.get (path);
+	    if (!jar.toString ().equals (new String (path, StandardCharsets.UTF_8)) ||
+		buf.getLong () != size || buf.getLong () != modified)
+		return null;
+
+	    // string offsets are read when needed
+	    int numStrings = buf.getInt ();
+	    int stringOffsets = buf.position ();
+	    buf.position (stringOffsets + numStrings * 4);
+	    int stringLength = buf.getInt ();
+	    int stringData = buf.position ();
+	    buf.position (stringData + stringLength);
+
+	    int numClasses = buf.getInt ();
+	    int[] classNames = new int[numClasses];
+	    int[] classOffsets = new int[numClasses];
+	    for (int i = 0; i < numClasses; i++) {
+		classNames[i] = buf.getInt ();
+		classOffsets[i] = buf.getInt ();
+	    }
+	    int classLength = buf.getInt ();
+	    int classData = buf.position ();
+	    if (classData + classLength != buf.limit ())
+		return null;
+	    return new ClassPathIndex (buf, numStrings, stringOffsets, stringData,
+				       classNames, classOffsets, classData);
+	} catch (BufferUnderflowException | IllegalArgumentException e) {
+	    return null;
+	}
+    }
+
+    /** Get the number of classes in the index */
+    public int size () {
+	return classNames.length;
+    }
+
+    /** Get the name of the given class as a dotted name */
+    public String getClassName (int id) {
+	return getString (classNames[id]);
+    }
+
+    /** Get the error from reading the given class, null if it was read */
+    public String getReadError (int id) {
+	Reader r = new Reader (classData + classOffsets[id]);
+	if (r.getInt () != UNREADABLE)
+	    return null;
+	return r.getString ();
+    }
+
+    /** Replay the stored information about the given class to the visitor,
+     *  the class has to be readable
+     */
+    public void accept (int id, ClassVisitor cv) {
+	Reader r = new Reader (classData + classOffsets[id]);
+	int access = r.getInt ();
+	String name = r.getString ();
+	String superName = r.getString ();
+	String[] interfaces = r.getStrings ();
+	cv.visit (Opcodes.V1_8, access, name, null, superName, interfaces);
+	int numFields = r.getInt ();
+	for (int i = 0; i < numFields; i++) {
+	    int fa = r.getInt ();
+	    String fn = r.getString ();
+	    String desc = r.getString ();
+	    String signature = r.getString ();
+	    Object value = r.getValue ();
+	    cv.visitField (fa, fn, desc, signature, value);
+	}
+	int numMethods = r.getInt ();
+	for (int i = 0; i < numMethods; i++) {
+	    int ma = r.getInt ();
+	    String mn = r.getString ();
+	    String desc = r.getString ();
+	    String signature = r.getString ();
+	    String[] exceptions = r.getStrings ();
+	    cv.visitMethod (ma, mn, desc, signature, exceptions);
+	}
+	cv.visitEnd ();
+    }
+
+    private String getString (int id) {
+	if (id == NULL)
+	    return null;
+	String s = strings[id];
+	if (s == null) {
+	    int pos = stringData + buf.getInt (stringOffsets + id * 4);
+	    byte[] data = new byte[buf.getShort (pos) & 0xffff];
+	    // a duplicate so that the position of the shared buffer is not changed
+	    ByteBuffer dup = buf.duplicate ();
+	    dup.position (pos + 2);
+	    dup.get (data);
+	    s = new String (data, StandardCharsets.UTF_8);
+	    strings[id] = s;
+	}
+	return s;
+    }
+
+    /** Reads class data using absolute positions so that threads can share the buffer */
+    private class Reader {
+	private int pos;
+
+	public Reader (int pos) {
+	    this.pos = pos;
+	}
+
+	public int getInt () {
+	    int i = buf.getInt (pos);
+	    pos += 4;
+	    return i;
+	}
+
+	public String getString () {
+	    return ClassPathIndex.this.getString (getInt ());
+	}
+
+	public String[] getStrings () {
+	    int size = getInt ();
+	    if (size == NULL)
+		return null;
+	    String[] ret = new String[size];
+	    for (int i = 0; i < size; i++)
+		ret[i] = getString ();
+	    return ret;
+	}
+
+	public Object getValue () {
+	    byte tag = buf.get (pos++);
+	    switch (tag) {
+	    case INT_VALUE:
+		return getInt ();
+	    case LONG_VALUE:
+		long l = buf.getLong (pos);
+		pos += 8;
+		return l;
+	    case FLOAT_VALUE:
+		return Float.intBitsToFloat (getInt ());
+	    case DOUBLE_VALUE:
+		double d = Double.longBitsToDouble (buf.getLong (pos));
+		pos += 8;
+		return d;
+	    case STRING_VALUE:
+		return getString ();
+	    default:
+		return null;
+	    }
+	}
+    }
+
+    /** Build the index data by reading all the classes in the jar */
+    static byte[] build (Path jar, long size, long modified) throws IOException {
+	IndexBuilder ib = new IndexBuilder ();
+	try (JarFile jf = new JarFile (jar.toFile ())) {
+	    Enumeration<JarEntry> e = jf.entries ();
+	    while (e.hasMoreElements ()) {
+		JarEntry je = e.nextElement ();
+		String name = je.getName ();
+		if (!name.endsWith (".class"))
+		    continue;
+		String className = name.substring (0, name.length () - 6).replace ('/', '.');
+		try (InputStream is = jf.getInputStream (je)) {
+		    ib.addClass (className, new ClassReader (is));
+		} catch (RuntimeException ex) {
+		    // keep the name, using the class reports that it could not be read
+		    ib.addUnreadableClass (className, ex.toString ());
+		}
+	    }
+	}
+	return ib.toBytes (jar, size, modified);
+    }
+
+    private static class IndexBuilder extends ClassVisitor {
+	private final Map<String, Integer> stringIds = new HashMap<> ();
+	private final ByteArrayOutputStream stringBytes = new ByteArrayOutputStream ();
+	private final DataOutputStream stringOut = new DataOutputStream (stringBytes);
+	private final List<Integer> stringOffsets = new ArrayList<> ();
+	private final ByteArrayOutputStream classBytes = new ByteArrayOutputStream ();
+	private final DataOutputStream classOut = new DataOutputStream (classBytes);
+	private final List<Integer> classNames = new ArrayList<> ();
+	private final List<Integer> classOffsets = new ArrayList<> ();
+	private final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream ();
+	private final DataOutputStream headerOut = new DataOutputStream (headerBytes);
+	private final ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream ();
+	private final DataOutputStream fieldOut = new DataOutputStream (fieldBytes);
+	private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream ();
+	private final DataOutputStream methodOut = new DataOutputStream (methodBytes);
+	private int numFields;
+	private int numMethods;
+
+	public IndexBuilder () {
+	    super (Opcodes.ASM5);
+	}
+
+	public void addClass (String className, ClassReader cr) throws IOException {
+	    headerBytes.reset ();
+	    fieldBytes.reset ();
+	    methodBytes.reset ();
+	    numFields = 0;
+	    numMethods = 0;
+	    try {
+		cr.accept (this, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+	    } catch (UncheckedIOException e) {
+		throw e.getCause ();
+	    }
+	    int start = classBytes.size ();
+	    headerBytes.writeTo (classOut);
+	    classOut.writeInt (numFields);
+	    fieldBytes.writeTo (classOut);
+	    classOut.writeInt (numMethods);
+	    methodBytes.writeTo (classOut);
+	    classNames.add (getStringId (className));
+	    classOffsets.add (start);
+	}
+
+	public void addUnreadableClass (String className, String error) throws IOException {
+	    int start = classBytes.size ();
+	    classOut.writeInt (UNREADABLE);
+	    writeString (classOut, error);
+	    classNames.add (getStringId (className));
+	    classOffsets.add (start);
+	}
+
+	@Override public void visit (int version, int access, String name,
+				     String signature, String superName,
+				     String[] interfaces) {
+	    try {
+		headerOut.writeInt (access);
+		writeString (headerOut, name);
+		writeString (headerOut, superName);
+		writeStrings (headerOut, interfaces);
+	    } catch (IOException e) {
+		throw new UncheckedIOException (e);
+	    }
+	}
+
+	@Override public FieldVisitor visitField (int access, String name, String desc,
+						  String signature, Object value) {
+	    try {
+		numFields++;
+		fieldOut.writeInt (access);
+		writeString (fieldOut, name);
+		writeString (fieldOut, desc);
+		writeString (fieldOut, signature);
+		writeValue (fieldOut, value);
+	    } catch (IOException e) {
+		throw new UncheckedIOException (e);
+	    }
+	    return null;
+	}
+
+	@Override public MethodVisitor visitMethod (int access, String name,
+						    String desc, String signature,
+						    String[] exceptions) {
+	    try {
+		numMethods++;
+		methodOut.writeInt (access);
+		writeString (methodOut, name);
+		writeString (methodOut, desc);
+		writeString (methodOut, signature);
+		writeStrings (methodOut, exceptions);
+	    } catch (IOException e) {
+		throw new UncheckedIOException (e);
+	    }
+	    return null;
+	}
+
+	private void writeValue (DataOutputStream dos, Object value) throws IOException {
+	    if (value instanceof Integer) {
+		dos.writeByte (INT_VALUE);
+		dos.writeInt ((Integer)value);
+	    } else if (value instanceof Long) {
+		dos.writeByte (LONG_VALUE);
+		dos.writeLong ((Long)value);
+	    } else if (value instanceof Float) {
+		dos.writeByte (FLOAT_VALUE);
+		dos.writeInt (Float.floatToRawIntBits ((Float)value));
+	    } else if (value instanceof Double) {
+		dos.writeByte (DOUBLE_VALUE);
+		dos.writeLong (Double.doubleToRawLongBits ((Double)value));
+	    } else if (value instanceof String) {
+		dos.writeByte (STRING_VALUE);
+		writeString (dos, (String)value);
+	    } else {
+		dos.writeByte (NO_VALUE);
+	    }
+	}
+
+	private void writeStrings (DataOutputStream dos, String[] ss) throws IOException {
+	    if (ss == null) {
+		dos.writeInt (NULL);
+		return;
+	    }
+	    dos.writeInt (ss.length);
+	    for (String s : ss)
+		writeString (dos, s);
+	}
+
+	private void writeString (DataOutputStream dos, String s) throws IOException {
+	    dos.writeInt (s == null ? NULL : getStringId (s));
+	}
+
+	private int getStringId (String s) throws IOException {
+	    Integer id = stringIds.get (s);
+	    if (id == null) {
+		byte[] data = s.getBytes (StandardCharsets.UTF_8);
+		if (data.length > 0xffff)
+		    throw new IOException ("String too long for class path index: " + data.length);
+		id = stringOffsets.size ();
+		stringOffsets.add (stringBytes.size ());
+		stringOut.writeShort (data.length);
+		stringOut.write (data);
+		stringIds.put (s, id);
+	    }
+	    return id;
+	}
+
+	public byte[] toBytes (Path jar, long size, long modified) throws IOException {
+	    ByteArrayOutputStream baos = new ByteArrayOutputStream ();
+	    DataOutputStream dos = new DataOutputStream (baos);
+	    dos.writeInt (MAGIC);
+	    dos.writeInt (VERSION);
+	    byte[] path = jar.toString ().getBytes (StandardCharsets.UTF_8);
+	    dos.writeShort (path.length);
+	    dos.write (path);
+	    dos.writeLong (size);
+	    dos.writeLong (modified);
+	    dos.writeInt (stringOffsets.size ());
+	    for (int offset : stringOffsets)
+		dos.writeInt (offset);
+	    dos.writeInt (stringBytes.size ());
+	    stringBytes.writeTo (dos);
+	    dos.writeInt (classNames.size ());
+	    for (int i = 0; i < classNames.size (); i++) {
+		dos.writeInt (classNames.get (i));
+		dos.writeInt (classOffsets.get (i));
+	    }
+	    dos.writeInt (classBytes.size ());
+	    classBytes.writeTo (dos);
+	    dos.flush ();
+	    return baos.toByteArray ();
+	}
+    }
+}
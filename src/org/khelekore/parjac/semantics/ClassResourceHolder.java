@@ -31,13 +31,35 @@ import org.objectweb.asm.Type;
 /** Provides information about classes from the classpath.
  */
 public class ClassResourceHolder {
+    private final ClassResourceHolder bootClasses;
     private final List<Path> classPathEntries;
+    private final Path indexDirectory;
     private final CompilerDiagnosticCollector diagnostics;
     private Map<String, Result> foundClasses = new HashMap<> ();
 
     public ClassResourceHolder (List<Path> classPathEntries,
 				CompilerDiagnosticCollector diagnostics) {
+	this (null, classPathEntries, diagnostics);
+    }
+
+    /** Create a holder that reuses the boot class path of an already scanned holder.
+     *  Classes from the boot class path that have been loaded stay loaded.
+     */
+    public ClassResourceHolder (ClassResourceHolder bootClasses, List<Path> classPathEntries,
+				CompilerDiagnosticCollector diagnostics) {
+	this (bootClasses, classPathEntries, null, diagnostics);
+    }
+
+    /** Create a holder that keeps an index of each jar in the given directory.
+     *  Jars that have not changed since the last scan are read from the index
+     *  instead of being opened and parsed.
+     * @param indexDirectory the directory to keep the indexes in, null to not use indexes
+     */
+    public ClassResourceHolder (ClassResourceHolder bootClasses, List<Path> classPathEntries,
+				Path indexDirectory, CompilerDiagnosticCollector diagnostics) {
+	this.bootClasses = bootClasses;
 	this.classPathEntries = classPathEntries;
+	this.indexDirectory = indexDirectory;
 	this.diagnostics = diagnostics;
     }
 
@@ -45,7 +67,10 @@ public class ClassResourceHolder {
      *  More detailed checks will be done once we start using classes.
      */
     public void scanClassPath () throws IOException {
-	scanBootPath ();
+	if (bootClasses != null)
+	    foundClasses.putAll (bootClasses.foundClasses);
+	else
+	    scanBootPath ();
 	for (Path p : classPathEntries)
 	    scan (p);
     }
@@ -73,6 +98,18 @@ public class ClassResourceHolder {
     }
 
     private void scanJar (Path jarfile) throws IOException {
+	if (indexDirectory != null) {
+	    ClassPathIndex index = ClassPathIndex.get (indexDirectory, jarfile);
+	    for (int i = 0; i < index.size (); i++)
+		foundClasses.put (index.getClassName (i), new IndexResult (jarfile, index, i));
+	    return;
+	}
+	MappedJar jar = MappedJar.open (jarfile);
+	if (jar != null) {
+	    for (int i = 0; i < jar.size (); i++)
+		storeName (jar.getName (i), new MappedJarResult (jarfile, jar, i));
+	    return;
+	}
 	try (JarFile jf = new JarFile (jarfile.toFile ())) {
 	    jf.stream ().forEach (e -> storeClass (jarfile, e));
 	}
@@ -187,15 +224,31 @@ public class ClassResourceHolder {
 
 	protected void readNode (InputStream is) throws IOException {
 	    try {
-		ClassReader cr = new ClassReader (is);
-		ClassInfoExtractor cie = new ClassInfoExtractor (this);
-		cr.accept (cie, ClassReader.SKIP_CODE);
-		methods = Collections.unmodifiableMap (methods);
+		readNode (new ClassReader (is));
+	    } catch (RuntimeException e) {
+		throw new IOException ("Failed to read class: ", e);
+	    }
+	}
+
+	protected void readNode (byte[] data) throws IOException {
+	    try {
+		readNode (new ClassReader (data));
 	    } catch (RuntimeException e) {
 		throw new IOException ("Failed to read class: ", e);
 	    }
 	}
 
+	private void readNode (ClassReader cr) {
+	    ClassInfoExtractor cie = new ClassInfoExtractor (this);
+	    cr.accept (cie, ClassReader.SKIP_CODE);
+	    methods = Collections.unmodifiableMap (methods);
+	}
+
+	protected void readNode (ClassPathIndex index, int id) {
+	    index.accept (id, new ClassInfoExtractor (this));
+	    methods = Collections.unmodifiableMap (methods);
+	}
+
 	public abstract String getPath ();
     }
 
@@ -217,6 +270,7 @@ public class ClassResourceHolder {
 	}
     }
 
+    /** An entry in a jar that we could not map, zip64 jars */
     private static class JarEntryResult extends Result {
 	private final Path jarfile;
 	private final String name;
@@ -227,8 +281,6 @@ public class ClassResourceHolder {
 	}
 
 	@Override public void readNode () throws IOException {
-	    // I tried to cache the jarfiles, but that made things a lot slower
-	    // due to less multi threading. Do if someone can prove it makes sense.
 	    try (JarFile jf = new JarFile (jarfile.toFile ())) {
 		JarEntry e = jf.getJarEntry (name);
 		try (InputStream jis = jf.getInputStream (e)) {
@@ -242,6 +294,50 @@ public class ClassResourceHolder {
 	}
     }
 
+    private static class MappedJarResult extends Result {
+	private final Path jarfile;
+	private final MappedJar jar;
+	private final int entry;
+
+	public MappedJarResult (Path jarfile, MappedJar jar, int entry) {
+	    this.jarfile = jarfile;
+	    this.jar = jar;
+	    this.entry = entry;
+	}
+
+	@Override public void readNode () throws IOException {
+	    readNode (jar.read (entry));
+	}
+
+	public String getPath () {
+	    return jarfile.toString () + "!" + jar.getName (entry);
+	}
+    }
+
+    private static class IndexResult extends Result {
+	private final Path jarfile;
+	private final ClassPathIndex index;
+	private final int id;
+
+	public IndexResult (Path jarfile, ClassPathIndex index, int id) {
+	    this.jarfile = jarfile;
+	    this.index = index;
+	    this.id = id;
+	}
+
+	@Override public void readNode () throws IOException {
+	    String error = index.getReadError (id);
+	    if (error != null)
+		throw new IOException ("Failed to read class: ", new IOException (error));
+	    readNode (index, id);
+	}
+
+	public String getPath () {
+	    // the entry name, as for classes read from the jar
+	    return jarfile.toString () + "!" + index.getClassName (id).replace ('.', '/') + ".class";
+	}
+    }
+
     private static class ClassInfoExtractor extends ClassVisitor {
 	private final Result r;
 
@@ -1204,6 +1204,7 @@ public class ClassSetter {
 	LookupResult r = cip.hasVisibleType (fqn);
 	if (!r.getFound ())
 	    return false;
+	cip.addDependency (tree, fqn);
 	if (FlagsHelper.isPublic (r.getAccessFlags ())) {
 	    return true;
 	} else if (FlagsHelper.isProtected (r.getAccessFlags ())) {
@@ -5,12 +5,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.khelekore.parjac.CompilerDiagnosticCollector;
@@ -18,9 +18,10 @@ import org.khelekore.parjac.SourceDiagnostics;
 import org.khelekore.parjac.tree.*;
 
 public class CompiledTypesHolder {
-    private Map<String, NodeInformation> name2node = new HashMap<> ();
-    private Map<TreeNode, NodeInformation> node2fqn = new HashMap<> ();
-    private Map<TreeNode, ClassType> anonSuperClasses = new HashMap<> ();
+    // Types are added while other files are being handled so these needs to be concurrent
+    private Map<String, NodeInformation> name2node = new ConcurrentHashMap<> ();
+    private Map<TreeNode, NodeInformation> node2fqn = new ConcurrentHashMap<> ();
+    private Map<TreeNode, ClassType> anonSuperClasses = new ConcurrentHashMap<> ();
 
     public void addTypes (SyntaxTree tree, CompilerDiagnosticCollector diagnostics) {
 	tree.getCompilationUnit ().visit (new ClassMapper (tree, diagnostics));
@@ -187,10 +188,8 @@ public class CompiledTypesHolder {
 	    String filename = getFullFilename ();
 	    String name = getFQN (packageName, fullId);
 	    NodeInformation ni = new NodeInformation (tn, name, filename);
-	    synchronized (name2node) {
-		name2node.put (name, ni);
-		node2fqn.put (tn, ni);
-	    }
+	    name2node.put (name, ni);
+	    node2fqn.put (tn, ni);
 	}
 
 	private String getFullId () {
@@ -153,17 +153,17 @@ public class FieldAndMethodSetter implements TreeVisitor {
 
     private void findConstructor (String fqn, ArgumentList al, MethodInformationHolder c) {
 	try {
-	    FindResult fr = findMatchingConstructor (fqn, al);
-	    if (fr == null) {
+	    List<MethodInformation> matches = findMatchingConstructor (fqn, al);
+	    if (matches.isEmpty ()) {
 		diagnostics.report (SourceDiagnostics.error (tree.getOrigin (), c.getParsePosition (),
 							     "No matching constructor found for %s(%s)",
 							     fqn, argList (al)));
-	    } else if (fr.hasMoreThanOneMatch ()) {
+	    } else if (matches.size () > 1) {
 		diagnostics.report (SourceDiagnostics.error (tree.getOrigin (), c.getParsePosition (),
 							     "Multiple matching constructor found for %s(%s)",
 							     fqn, argList (al)));
 	    } else {
-		c.setMethodInformation (fr.get ());
+		c.setMethodInformation (matches.get (0));
 	    }
 	} catch (IOException e) {
 	    diagnostics.report (SourceDiagnostics.error (tree.getOrigin (),
@@ -180,20 +180,20 @@ public class FieldAndMethodSetter implements TreeVisitor {
 	    String name = m.getId ();
 	    ArgumentList al = m.getArgumentList ();
 	    try {
-		FindResult fr = findMatchingMethod (fqn, isArray, name, al);
-		if (fr == null) {
+		List<MethodInformation> matches = findMatchingMethod (fqn, isArray, name, al);
+		if (matches.isEmpty ()) {
 		    diagnostics.report (SourceDiagnostics.error (tree.getOrigin (), m.getParsePosition (),
 								 "No matching method found for: %s(%s)",
 								 name, argList (al)));
-		} else if (fr.hasMoreThanOneMatch ()) {
-		    String options = fr.getAlternatives ().stream ()
+		} else if (matches.size () > 1) {
+		    String options = matches.stream ()
 			.map (mi -> mi.getClassname () + "::" + mi.getName () + "(" + args (mi.getArguments ()) + ")")
 			.collect (Collectors.joining ("\n\t", "\n\t", "\n"));
 		    diagnostics.report (SourceDiagnostics.error (tree.getOrigin (), m.getParsePosition (),
 								 "Multiple matching methods found for: %s(%s)%s",
 								 name, argList (al), options));
 		} else {
-		    m.setMethodInformation (fr.get ());
+		    m.setMethodInformation (matches.get (0));
 		}
 	    } catch (IOException e) {
 		diagnostics.report (SourceDiagnostics.error (tree.getOrigin (),
@@ -243,29 +243,44 @@ public class FieldAndMethodSetter implements TreeVisitor {
 	return true;
     }
 
-    private FindResult findMatchingConstructor (String fqn, ArgumentList al)
+    private List<MethodInformation> findMatchingConstructor (String fqn, ArgumentList al)
 	throws IOException {
 	return findMatching (fqn, false, al, new ConstructorMethodFinder ());
     }
 
-    private FindResult findMatchingMethod (String fqn, boolean isArray,
-					   String name, ArgumentList al) throws IOException {
+    private List<MethodInformation> findMatchingMethod (String fqn, boolean isArray,
+							String name, ArgumentList al) throws IOException {
 	return findMatching (fqn, isArray, al, new MethodMethodFinder (name));
     }
 
-    private FindResult findMatching (String fqn, boolean isArray,
-				     ArgumentList al, MethodFinder mf) throws IOException {
+    /** Find the methods with the best kind of match for the arguments
+     * @return the matching methods, more than one if the call is ambiguous,
+     *         an empty list if nothing matched
+     */
+    private List<MethodInformation> findMatching (String fqn, boolean isArray,
+						  ArgumentList al, MethodFinder mf) throws IOException {
+	// The type itself and then its super types, each before its own super types
+	List<String> typesToCheck = new ArrayList<> ();
+	typesToCheck.add (fqn);
+	if (mf.mayUseSuperclassMethods ())
+	    typesToCheck.addAll (cip.getAllSuperTypes (fqn, isArray));
+	for (String clz : typesToCheck)
+	    cip.addDependency (tree, clz);
+
+	MethodResolutionCache mrc = cip.getMethodResolutionCache ();
+	List<ExpressionType> argumentTypes = mrc != null ? getArgumentTypes (al) : null;
+	if (argumentTypes != null) {
+	    List<MethodInformation> ret = mrc.get (fqn, isArray, mf.methodName, argumentTypes);
+	    if (ret != null)
+		return ret;
+	}
+
 	FindResult fr = null;
-	Deque<String> typesToCheck = new ArrayDeque<> ();
-	typesToCheck.addLast (fqn);
-	Set<String> visitedTypes = new HashSet<> ();
 	Set<List<Type>> matchedDesc = Collections.emptySet ();
-	while (!typesToCheck.isEmpty ()) {
-	    String clz = typesToCheck.removeFirst ();
-	    if (visitedTypes.contains (clz))
-		continue;
-	    visitedTypes.add (clz);
-	    List<MethodInformation> ls = mf.getAlternatives (clz, isArray);
+	// Only the first type is the array type
+	boolean onArray = isArray;
+	for (String clz : typesToCheck) {
+	    List<MethodInformation> ls = mf.getAlternatives (clz, onArray);
 	    if (ls != null) {
 		for (MethodInformation mi : ls) {
 		    if (FlagsHelper.isSynthetic (mi.getAccess ()))
@@ -284,13 +299,27 @@ public class FieldAndMethodSetter implements TreeVisitor {
 		    }
 		}
 	    }
-	    // not found in current class, try super class
-	    Optional<List<String>> o = cip.getSuperTypes (clz, isArray);
-	    if (o.isPresent () && mf.mayUseSuperclassMethods ())
-		typesToCheck.addAll (o.get ());
-	    isArray = false;
+	    onArray = false;
+	}
+	List<MethodInformation> ret =
+	    fr == null ? Collections.emptyList () : Collections.unmodifiableList (fr.getAlternatives ());
+	if (argumentTypes != null)
+	    mrc.put (fqn, isArray, mf.methodName, argumentTypes, ret);
+	return ret;
+    }
+
+    /** Get the types of the arguments, null if some argument has no type */
+    private List<ExpressionType> getArgumentTypes (ArgumentList al) {
+	if (al == null)
+	    return Collections.emptyList ();
+	List<ExpressionType> ret = new ArrayList<> (al.size ());
+	for (TreeNode tn : al.get ()) {
+	    ExpressionType et = tn.getExpressionType ();
+	    if (et == null)
+		return null;
+	    ret.add (et);
 	}
-	return fr;
+	return ret;
     }
 
     private class FindResult {
@@ -350,26 +379,6 @@ public class FieldAndMethodSetter implements TreeVisitor {
 	    return true;
 	}
 
-	public boolean hasMoreThanOneMatch () {
-	    if (matched != null)
-		return matched.size () > 1;
-	    if (autoboxMatched != null)
-		return autoboxMatched.size () > 1;
-	    if (varargMatched != null)
-		return varargMatched.size () > 1;
-	    throw new IllegalStateException ("No matched results");
-	}
-
-	public MethodInformation get () {
-	    if (matched != null)
-		return matched.get (0);
-	    if (autoboxMatched != null)
-		return autoboxMatched.get (0);
-	    if (varargMatched != null)
-		return varargMatched.get (0);
-	    throw new IllegalStateException ("No matched results");
-	}
-
 	public List<MethodInformation> getAlternatives () {
 	    if (matched != null)
 		return matched;
@@ -441,16 +450,8 @@ public class FieldAndMethodSetter implements TreeVisitor {
     private boolean matchIncludingSuperTypes (ExpressionType et, Type t) throws IOException {
 	if (et.match (t))
 	    return true;
-
-	if (et.isClassType ()) {
-	    Optional<List<String>> supers = cip.getSuperTypes (et.getClassName (), false);
-	    if (supers.isPresent ()) {
-		for (String st : supers.get ())
-		    if (matchIncludingSuperTypes (ExpressionType.getObjectType (st), t))
-			return true;
-	    }
-	}
-	return false;
+	return et.isClassType () && t.getSort () == Type.OBJECT &&
+	    cip.getAllSuperTypes (et.getClassName (), false).contains (t.getClassName ());
     }
 
     private abstract class MethodFinder {
@@ -519,8 +520,9 @@ public class FieldAndMethodSetter implements TreeVisitor {
     }
 
     @Override public boolean visit (FieldAccess f) {
-	ExpressionType retType = cip.getFieldType (f.getFrom ().getExpressionType ().getClassName (),
-						   f.getFieldId ());
+	String fqn = f.getFrom ().getExpressionType ().getClassName ();
+	cip.addDependency (tree, fqn);
+	ExpressionType retType = cip.getFieldType (fqn, f.getFieldId ());
 	if (retType == null) {
 	    diagnostics.report (SourceDiagnostics.error (tree.getOrigin (),
 							 f.getParsePosition (),
@@ -36,8 +36,12 @@ public class FieldRegistrator {
     }
 
     public void findFields () {
-	MemberVisitor mv = new MemberVisitor ();
-	tree.getCompilationUnit ().visit (mv);
+	tree.getCompilationUnit ().visit (getMemberVisitor ());
+    }
+
+    /** Get a visitor that does the same as findFields, so that it can share a visit with other visitors */
+    public TreeVisitor getMemberVisitor () {
+	return new MemberVisitor ();
     }
 
     private class MemberVisitor implements TreeVisitor {
@@ -24,8 +24,12 @@ public class InterfaceMemberFlagSetter {
     }
 
     public void reflag () {
-	MemberVisitor mv = new MemberVisitor ();
-	tree.getCompilationUnit ().visit (mv);
+	tree.getCompilationUnit ().visit (getMemberVisitor ());
+    }
+
+    /** Get a visitor that does the same as reflag, so that it can share a visit with other visitors */
+    public TreeVisitor getMemberVisitor () {
+	return new MemberVisitor ();
     }
 
     private class MemberVisitor implements TreeVisitor {
@@ -0,0 +1,153 @@
+package org.khelekore.parjac.semantics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/** Read only access to the entries of a jar file that can be shared by
+ *  many threads without locking.
+ *
+ *  The jar is memory mapped once and the central directory is parsed once.
+ *  Entries are read using absolute positions in the shared buffer, each
+ *  thread uses its own Inflater. Zip64 files are not handled, open returns
+ *  null for those and the caller has to use JarFile.
+ */
+class MappedJar {
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_HEADER = 0x06054b50;
+    private static final int END_SIZE = 22;
+    private static final int MAX_COMMENT = 0xffff;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final ThreadLocal<Inflater> inflaters =
+	ThreadLocal.withInitial (() -> new Inflater (true));
+
+    private final Path path;
+    private final ByteBuffer buf;
+    // Offsets of the central directory entries
+    private final int[] entries;
+
+    private MappedJar (Path path, ByteBuffer buf, int[] entries) {
+	this.path = path;
+	this.buf = buf;
+	this.entries = entries;
+    }
+
+    /** Map the jar and read its central directory.
+     * @return the jar or null if the jar can not be handled, for example zip64 files
+     */
+    public static MappedJar open (Path jarfile) throws IOException {
+	ByteBuffer buf;
+	try (FileChannel fc = FileChannel.open (jarfile, StandardOpenOption.READ)) {
+	    long size = fc.size ();
+	    if (size > Integer.MAX_VALUE)
+		return null;
+	    buf = fc.map (FileChannel.MapMode.READ_ONLY, 0, size);
+	}
+	buf.order (ByteOrder.LITTLE_ENDIAN);
+	int end = findEnd (buf);
+	if (end < 0)
+	    return null;
+	int numEntries = buf.getShort (end + 10) & 0xffff;
+	int dirOffset = buf.getInt (end + 16);
+	if (numEntries == 0xffff || dirOffset == -1) // zip64
+	    return null;
+	int[] entries = new int[numEntries];
+	int pos = dirOffset;
+	for (int i = 0; i < numEntries; i++) {
+	    if (pos + 46 > buf.limit () || buf.getInt (pos) != CENTRAL_HEADER)
+		throw new IOException ("Broken central directory in: " + jarfile);
+	    if (buf.getInt (pos + 20) == -1 || buf.getInt (pos + 24) == -1 || buf.getInt (pos + 42) == -1)
+		return null; // zip64
+	    entries[i] = pos;
+	    pos += 46 + getShort (buf, pos + 28) + getShort (buf, pos + 30) + getShort (buf, pos + 32);
+	}
+	return new MappedJar (jarfile, buf, entries);
+    }
+
+    private static int findEnd (ByteBuffer buf) {
+	int min = Math.max (0, buf.limit () - END_SIZE - MAX_COMMENT);
+	for (int pos = buf.limit () - END_SIZE; pos >= min; pos--)
+	    if (buf.getInt (pos) == END_HEADER)
+		return pos;
+	return -1;
+    }
+
+    private static int getShort (ByteBuffer buf, int pos) {
+	return buf.getShort (pos) & 0xffff;
+    }
+
+    /** Get the number of entries in the jar */
+    public int size () {
+	return entries.length;
+    }
+
+    /** Get the name of the given entry */
+    public String getName (int entry) {
+	int pos = entries[entry];
+	return new String (getBytes (pos + 46, getShort (buf, pos + 28)), StandardCharsets.UTF_8);
+    }
+
+    /** Get the uncompressed data of the given entry */
+    public byte[] read (int entry) throws IOException {
+	int pos = entries[entry];
+	int method = getShort (buf, pos + 10);
+	int compressedSize = buf.getInt (pos + 20);
+	int size = buf.getInt (pos + 24);
+	int local = buf.getInt (pos + 42);
+	if (buf.getInt (local) != LOCAL_HEADER)
+	    throw new IOException ("Broken local header for: " + getName (entry) + " in: " + path);
+	int data = local + 30 + getShort (buf, local + 26) + getShort (buf, local + 28);
+	if (method == STORED)
+	    return getBytes (data, size);
+	if (method != DEFLATED)
+	    throw new IOException ("Unknown compression method: " + method + " for: " +
+				   getName (entry) + " in: " + path);
+	// nowrap inflaters may need an extra byte at the end
+	byte[] input = new byte[compressedSize + 1];
+	copyBytes (data, input, compressedSize);
+	byte[] output = new byte[size];
+	Inflater inf = inflaters.get ();
+	inf.reset ();
+	inf.setInput (input);
+	try {
+	    int read = 0;
+	    while (read < size && !inf.finished ()) {
+		int r = inf.inflate (output, read, size - read);
+		if (r == 0 && (inf.needsInput () || inf.needsDictionary ()))
+		    break;
+		read += r;
+	    }
+	    if (read != size)
+		throw new IOException ("Short inflate for: " + getName (entry) + " in: " + path);
+	} catch (DataFormatException e) {
+	    throw new IOException ("Failed to inflate: " + getName (entry) + " in: " + path, e);
+	}
+	return output;
+    }
+
+    private byte[] getBytes (int pos, int length) {
+	byte[] ret = new byte[length];
+	copyBytes (pos, ret, length);
+	return ret;
+    }
+
+    private void copyBytes (int pos, byte[] dest, int length) {
+	// a duplicate so that the position of the shared buffer is not changed
+	ByteBuffer dup = buf.duplicate ();
+	dup.position (pos);
+	dup.get (dest, 0, length);
+    }
+
+    @Override public String toString () {
+	return getClass ().getSimpleName () + "{" + path + ", entries: " + entries.length + "}";
+    }
+}
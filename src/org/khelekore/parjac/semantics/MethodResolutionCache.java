@@ -0,0 +1,92 @@
+package org.khelekore.parjac.semantics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.khelekore.parjac.tree.ExpressionType;
+
+/** Remembers what method and constructor calls resolved to.
+ *
+ *  The same call, like append on a StringBuilder with a String, is found
+ *  in many places. The methods a call matches only depend on the type it
+ *  is made on, the method name and the types of the arguments, so the
+ *  matching is only done once for each such combination.
+ *
+ *  The cache may only be used once all the methods of the compiled types
+ *  have been registered, including the implicit ones. It may be used by
+ *  many threads at once.
+ */
+public class MethodResolutionCache {
+    private final Map<Key, List<MethodInformation>> resolved = new ConcurrentHashMap<> ();
+    private final AtomicInteger hits = new AtomicInteger ();
+    private final AtomicInteger misses = new AtomicInteger ();
+
+    /** Get the methods that the call matched
+     * @param fqn the type the call is made on
+     * @param isArray true if the call is made on an array of the type
+     * @param name the method name, &lt;init&gt; for constructors
+     * @param arguments the types of the arguments
+     * @return the methods with the best kind of match, an empty list if nothing
+     *         matched or null if the call has not been resolved
+     */
+    public List<MethodInformation> get (String fqn, boolean isArray, String name,
+					List<ExpressionType> arguments) {
+	List<MethodInformation> ret = resolved.get (new Key (fqn, isArray, name, arguments));
+	if (ret == null)
+	    misses.incrementAndGet ();
+	else
+	    hits.incrementAndGet ();
+	return ret;
+    }
+
+    /** Store the methods that the call matched, an empty list if nothing matched */
+    public void put (String fqn, boolean isArray, String name,
+		     List<ExpressionType> arguments, List<MethodInformation> methods) {
+	resolved.put (new Key (fqn, isArray, name, arguments), methods);
+    }
+
+    /** Get the number of calls that were already resolved */
+    public int getNumberOfHits () {
+	return hits.get ();
+    }
+
+    /** Get the number of calls that had to be resolved */
+    public int getNumberOfMisses () {
+	return misses.get ();
+    }
+
+    private static final class Key {
+	private final String fqn;
+	private final boolean isArray;
+	private final String name;
+	private final List<ExpressionType> arguments;
+	private final int hash;
+
+	public Key (String fqn, boolean isArray, String name, List<ExpressionType> arguments) {
+	    this.fqn = fqn;
+	    this.isArray = isArray;
+	    this.name = name;
+	    this.arguments = arguments;
+	    int h = fqn.hashCode () * 31 + name.hashCode ();
+	    hash = (h * 31 + arguments.hashCode ()) * 2 + (isArray ? 1 : 0);
+	}
+
+	@Override public boolean equals (Object o) {
+	    if (o == this)
+		return true;
+	    if (o == null)
+		return false;
+	    if (o.getClass () != getClass ())
+		return false;
+	    Key k = (Key)o;
+	    return hash == k.hash && isArray == k.isArray && fqn.equals (k.fqn) &&
+		name.equals (k.name) && arguments.equals (k.arguments);
+	}
+
+	@Override public int hashCode () {
+	    return hash;
+	}
+    }
+}
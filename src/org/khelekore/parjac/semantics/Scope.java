@@ -3,11 +3,8 @@ package org.khelekore.parjac.semantics;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import org.khelekore.parjac.CompilerDiagnosticCollector;
 import org.khelekore.parjac.NoSourceDiagnostics;
@@ -156,25 +153,14 @@ public class Scope {
 
     private FieldInformation<?> checkSuperClasses (ClassInformationProvider cip, TreeNode owner, String id)
 	throws IOException {
-	Deque<String> superClasses = new ArrayDeque<> ();
-	addSupers (cip, superClasses, cip.getFullName (owner));
-	while (!superClasses.isEmpty ()) {
-	    String sclz = superClasses.removeFirst ();
+	for (String sclz : cip.getAllSuperTypes (cip.getFullName (owner), false)) {
 	    FieldInformation<?> fi = cip.getFieldInformation (sclz, id);
 	    if (fi != null)
 		return fi;
-	    addSupers (cip, superClasses, sclz);
 	}
 	return null;
     }
 
-    private void addSupers (ClassInformationProvider cip, Deque<String> superClasses, String clz) throws IOException {
-	Optional<List<String>> supers = cip.getSuperTypes (clz, false);
-	if (supers.isPresent ()) {
-	    superClasses.addAll (supers.get ());
-	}
-    }
-
     private void add (FieldInformation<?> fi) {
 	if (variables.isEmpty ())
 	    variables = new LinkedHashMap<> ();
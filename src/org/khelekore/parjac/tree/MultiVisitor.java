@@ -0,0 +1,94 @@
+package org.khelekore.parjac.tree;
+
+/** A visitor that passes the type and member calls on to many visitors,
+ *  so that passes that only look at types, fields, constructors and
+ *  methods can share one visit of the tree.
+ *
+ *  Only the type declarations, their ends, anonymous classes, field,
+ *  constructor and method declarations and the ends of methods are passed
+ *  on. Other nodes get the default TreeVisitor handling, so visitors that
+ *  need them can not be combined with this class.
+ *
+ *  The visitors get each call in the order they were given. This gives the
+ *  same result as one visit per visitor only if a visitor does not need
+ *  what the earlier visitors do to nodes later in the tree. The child nodes
+ *  are visited if any of the visitors wants them.
+ */
+public class MultiVisitor implements TreeVisitor {
+    private final TreeVisitor[] visitors;
+
+    public MultiVisitor (TreeVisitor... visitors) {
+	this.visitors = visitors;
+    }
+
+    @Override public boolean visit (NormalClassDeclaration c) {
+	boolean ret = false;
+	for (TreeVisitor tv : visitors)
+	    ret |= tv.visit (c);
+	return ret;
+    }
+
+    @Override public boolean visit (EnumDeclaration e) {
+	boolean ret = false;
+	for (TreeVisitor tv : visitors)
+	    ret |= tv.visit (e);
+	return ret;
+    }
+
+    @Override public boolean visit (NormalInterfaceDeclaration i) {
+	boolean ret = false;
+	for (TreeVisitor tv : visitors)
+	    ret |= tv.visit (i);
+	return ret;
+    }
+
+    @Override public boolean visit (AnnotationTypeDeclaration a) {
+	boolean ret = false;
+	for (TreeVisitor tv : visitors)
+	    ret |= tv.visit (a);
+	return ret;
+    }
+
+    @Override public void endType () {
+	for (TreeVisitor tv : visitors)
+	    tv.endType ();
+    }
+
+    @Override public boolean anonymousClass (TreeNode from, ClassType ct, ClassBody b) {
+	boolean ret = false;
+	for (TreeVisitor tv : visitors)
+	    ret |= tv.anonymousClass (from, ct, b);
+	return ret;
+    }
+
+    @Override public void endAnonymousClass (ClassType ct, ClassBody b) {
+	for (TreeVisitor tv : visitors)
+	    tv.endAnonymousClass (ct, b);
+    }
+
+    @Override public boolean visit (FieldDeclaration f) {
+	boolean ret = false;
+	for (TreeVisitor tv : visitors)
+	    ret |= tv.visit (f);
+	return ret;
+    }
+
+    @Override public boolean visit (ConstructorDeclaration c) {
+	boolean ret = false;
+	for (TreeVisitor tv : visitors)
+	    ret |= tv.visit (c);
+	return ret;
+    }
+
+    @Override public boolean visit (MethodDeclaration m) {
+	boolean ret = false;
+	for (TreeVisitor tv : visitors)
+	    ret |= tv.visit (m);
+	return ret;
+    }
+
+    @Override public void endMethod (MethodDeclaration m) {
+	for (TreeVisitor tv : visitors)
+	    tv.endMethod (m);
+    }
+}
@@ -1,111 +1,87 @@
 package org.khelekore.parjac.tree;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import org.khelekore.parjac.lexer.ParsePosition;
-
+import java.util.Arrays;
+
+/** Walks a tree using the child nodes and calls simpleVisit for each node.
+ *
+ *  The walk uses an explicit stack of nodes, so it does not recurse and it
+ *  does not build a list of the nodes first. A walker may be reused for
+ *  many walks, but not by many threads at once.
+ */
 public class TreeWalker {
+    private TreeNode[] nodes = new TreeNode[64];
+    // true for nodes whose child nodes have been pushed
+    private boolean[] expanded = new boolean[64];
+    private int size;
 
     public static void walkTopDown (TreeVisitor visitor, TreeNode root) {
-	List<TreeNode> nodes = new ArrayList<> ();
-	preOrder (root, nodes);
-	nodes.forEach (tn -> tn.simpleVisit (visitor));
-    }
-
-    private static void preOrder (TreeNode tn, List<TreeNode> nodes) {
-	nodes.add (tn);
-	tn.getChildNodes ().forEach (cn -> preOrder (cn, nodes));
+	new TreeWalker ().topDown (visitor, root);
     }
 
     public static void walkBottomUp (TreeVisitor visitor, TreeNode root) {
-	List<TreeNode> nodes = new ArrayList<> ();
-	Typer t = new Typer ();
-	postOrder (root, nodes, t);
-	nodes.forEach (tn -> tn.simpleVisit (visitor));
+	new TreeWalker ().bottomUp (visitor, root);
     }
 
-    private static void postOrder (TreeNode tn, List<TreeNode> nodes, Typer t) {
-	t.clear ();
-	tn.simpleVisit (t);
-	if (t.currentClass != null)
-	    nodes.add (t.currentClass);
-	TreeNode ec = t.endClass;
-	tn.getChildNodes ().forEach (cn -> postOrder (cn, nodes, t));
-	if (ec == null)
-	    nodes.add (tn);
-	else
-	    nodes.add (ec);
-    }
-
-    private static class Typer implements TreeVisitor {
-	private TreeNode currentClass;
-	private TreeNode endClass;
-
-	@Override public boolean visit (NormalClassDeclaration c) {
-	    classDef (c);
-	    return false;
-	}
-
-	@Override public boolean visit (EnumDeclaration e) {
-	    classDef (e);
-	    return false;
-	}
-
-	@Override public boolean visit (NormalInterfaceDeclaration i) {
-	    classDef (i);
-	    return false;
-	}
-
-	@Override public boolean visit (AnnotationTypeDeclaration a) {
-	    classDef (a);
-	    return false;
-	}
-
-	private void classDef (TreeNode t) {
-	    currentClass = new Starter (t);
-	    endClass = new Ender (t);
-	}
-
-	@Override public boolean visit (ClassInstanceCreationExpression c) {
-	    return true;
-	}
-
-	public void clear () {
-	    currentClass = null;
-	    endClass = null;
+    /** Visit each node before its child nodes */
+    public void topDown (TreeVisitor visitor, TreeNode root) {
+	size = 0;
+	push (root, false);
+	while (size > 0) {
+	    TreeNode tn = nodes[--size];
+	    nodes[size] = null;
+	    tn.simpleVisit (visitor);
+	    pushChildNodes (tn);
 	}
     }
 
-    private static class FakeNode implements TreeNode {
-	protected final TreeNode t;
-
-	public FakeNode (TreeNode t) {
-	    this.t = t;
-	}
-
-	@Override public ParsePosition getParsePosition () {
-	    return t.getParsePosition ();
+    /** Visit each node after its child nodes. Type declarations are visited
+     *  before their child nodes and endType is called after them.
+     */
+    public void bottomUp (TreeVisitor visitor, TreeNode root) {
+	size = 0;
+	push (root, false);
+	while (size > 0) {
+	    int i = --size;
+	    TreeNode tn = nodes[i];
+	    boolean type = isType (tn);
+	    if (expanded[i]) {
+		nodes[i] = null;
+		if (type)
+		    visitor.endType ();
+		else
+		    tn.simpleVisit (visitor);
+		continue;
+	    }
+	    if (type)
+		tn.simpleVisit (visitor);
+	    push (tn, true);
+	    pushChildNodes (tn);
 	}
     }
 
-    private static class Starter extends FakeNode {
-	public Starter (TreeNode t) {
-	    super (t);
-	}
-
-	@Override public void simpleVisit (TreeVisitor visitor) {
-	    t.simpleVisit (visitor);
-	}
+    private static boolean isType (TreeNode tn) {
+	return tn instanceof NormalClassDeclaration || tn instanceof EnumDeclaration ||
+	    tn instanceof NormalInterfaceDeclaration || tn instanceof AnnotationTypeDeclaration;
     }
 
-    private static class Ender extends FakeNode {
-	public Ender (TreeNode t) {
-	    super (t);
+    private void push (TreeNode tn, boolean childNodesPushed) {
+	if (size == nodes.length) {
+	    nodes = Arrays.copyOf (nodes, size * 2);
+	    expanded = Arrays.copyOf (expanded, size * 2);
 	}
+	nodes[size] = tn;
+	expanded[size++] = childNodesPushed;
+    }
 
-	@Override public void simpleVisit (TreeVisitor visitor) {
-	    visitor.endType ();
+    /** Push the child nodes so that the first child node is on top of the stack */
+    private void pushChildNodes (TreeNode tn) {
+	int start = size;
+	for (TreeNode cn : tn.getChildNodes ())
+	    push (cn, false);
+	for (int i = start, j = size - 1; i < j; i++, j--) {
+	    TreeNode t = nodes[i];
+	    nodes[i] = nodes[j];
+	    nodes[j] = t;
 	}
     }
-}
\ No newline at end of file
+}
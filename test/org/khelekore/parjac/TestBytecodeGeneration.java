@@ -758,7 +758,7 @@ public class TestBytecodeGeneration {
 	final MemoryBytecodeWriter bw = new MemoryBytecodeWriter ();
 	List<Path> classPathEntries = Collections.emptyList ();
 	CompilationArguments settings =
-	    new CompilationArguments (sp, bw, classPathEntries, false, false);
+	    new CompilationArguments (sp, bw, classPathEntries, false, false, false);
 	Compiler c = new Compiler (diagnostics, g, settings);
 	c.compile ();
 	if (diagnostics.hasError ()) {
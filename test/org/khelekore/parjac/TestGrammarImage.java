@@ -0,0 +1,97 @@
+package org.khelekore.parjac;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.GrammarImage;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.parser.JavaTreeBuilder;
+import org.khelekore.parjac.parser.PredictCache;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestGrammarImage {
+    private Grammar text;
+    private Map<String, Set<Rule>> predictSets;
+    private byte[] image;
+
+    @BeforeClass
+    public void beforeClass () throws IOException {
+	text = JavaGrammarHelper.getValidatedJavaGrammarFromText (false);
+	predictSets = PredictCache.calculatePredictSets (text);
+	image = GrammarImage.toBytes (text, predictSets, 17);
+    }
+
+    @Test
+    public void testSameRules () {
+	Grammar g = GrammarImage.read (ByteBuffer.wrap (image), 17, false);
+	Assert.assertNotNull (g);
+	Assert.assertEquals (g.getNumberOfRules (), text.getNumberOfRules ());
+	for (int i = 0; i < text.getNumberOfRules (); i++) {
+	    Rule r1 = text.getRules ().get (i);
+	    Rule r2 = g.getRules ().get (i);
+	    Assert.assertEquals (r2, r1);
+	    Assert.assertEquals (r2.getId (), r1.getId ());
+	    Assert.assertEquals (g.isClearableRule (r2), text.isClearableRule (r1));
+	}
+	Assert.assertEquals (g.getUniqueRuleNames (), text.getUniqueRuleNames ());
+    }
+
+    @Test
+    public void testSamePredictSets () {
+	Grammar g = GrammarImage.read (ByteBuffer.wrap (image), 17, false);
+	Map<String, List<Rule>> stored = g.getPredictSets ();
+	Assert.assertEquals (stored.keySet (), predictSets.keySet ());
+	for (Map.Entry<String, Set<Rule>> me : predictSets.entrySet ()) {
+	    Set<Integer> expected = ids (me.getValue ());
+	    Assert.assertEquals (ids (stored.get (me.getKey ())), expected, me.getKey ());
+	}
+    }
+
+    @Test
+    public void testStaleImageIsNotUsed () {
+	Assert.assertNull (GrammarImage.read (ByteBuffer.wrap (image), 18, false));
+    }
+
+    @Test
+    public void testChecksumCoversAddedRules () throws IOException {
+	// An image from before a goal rule was added in code only matched the text grammar
+	CRC32 crc = new CRC32 ();
+	try (InputStream is = JavaGrammarHelper.class.getResourceAsStream (JavaGrammarHelper.GRAMMAR)) {
+	    byte[] buf = new byte[8192];
+	    int r;
+	    while ((r = is.read (buf)) != -1)
+		crc.update (buf, 0, r);
+	}
+	Assert.assertNotEquals (JavaGrammarHelper.getGrammarChecksum (), crc.getValue ());
+    }
+
+    @Test
+    public void testChecksumCoversBuiltRules () throws IOException {
+	// A new tree builder keeps a rule that the optimizer used to inline
+	Set<String> built = new HashSet<> (JavaTreeBuilder.getBuiltRuleNames ());
+	Assert.assertEquals (JavaGrammarHelper.getGrammarChecksum (built), JavaGrammarHelper.getGrammarChecksum ());
+	built.add ("Superclass");
+	Assert.assertNotEquals (JavaGrammarHelper.getGrammarChecksum (built), JavaGrammarHelper.getGrammarChecksum ());
+    }
+
+    @Test
+    public void testBrokenImageIsNotUsed () {
+	ByteBuffer buf = ByteBuffer.wrap (image, 0, image.length / 2).slice ();
+	Assert.assertNull (GrammarImage.read (buf, 17, false));
+    }
+
+    private static Set<Integer> ids (Collection<Rule> rules) {
+	return rules.stream ().map (Rule::getId).collect (Collectors.toSet ());
+    }
+}
@@ -0,0 +1,60 @@
+package org.khelekore.parjac;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.GrammarOptimizer;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.lexer.Token;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestGrammarOptimizer {
+
+    @Test
+    public void testUnitRulesAreInlined () {
+	Grammar g = new Grammar (false);
+	g.addRule ("Goal", "Value", Token.END_OF_INPUT);
+	g.addRule ("Value", "Literal");
+	g.addRule ("Literal", Token.INT_LITERAL);
+	g.addRule ("Literal", Token.STRING_LITERAL);
+	GrammarOptimizer go = new GrammarOptimizer (g, Collections.singleton ("Goal"));
+	Grammar o = go.optimize ();
+	Assert.assertEquals (new HashSet<> (o.getUniqueRuleNames ()), Collections.singleton ("Goal"));
+	Assert.assertEquals (o.getNumberOfRules (), 2);
+	Assert.assertEquals (go.getNumberOfInlinedNames (), 2);
+	for (Rule r : o.getRules ())
+	    Assert.assertEquals (r.getOriginal (), g.getRules ().get (0));
+    }
+
+    @Test
+    public void testKeptNamesAreNotInlined () {
+	Grammar g = new Grammar (false);
+	g.addRule ("Goal", "Value", Token.END_OF_INPUT);
+	g.addRule ("Value", "Literal");
+	g.addRule ("Literal", Token.INT_LITERAL);
+	Grammar o = new GrammarOptimizer (g, new HashSet<> (Arrays.asList ("Goal", "Literal"))).optimize ();
+	Assert.assertEquals (new HashSet<> (o.getUniqueRuleNames ()),
+			     new HashSet<> (Arrays.asList ("Goal", "Literal")));
+	Rule r = o.getRules ().get (0);
+	Assert.assertEquals (r.getOriginal (), g.getRules ().get (0));
+	Assert.assertEquals (r.getRulePart (0).getId (), "Literal");
+    }
+
+    @Test
+    public void testManyAlternativesAreNotCopiedIntoLongRules () {
+	Grammar g = new Grammar (false);
+	g.addRule ("Goal", "Pair", Token.END_OF_INPUT);
+	g.addRule ("Pair", "Literal", Token.COMMA, "Literal");
+	g.addRule ("Literal", Token.INT_LITERAL);
+	g.addRule ("Literal", Token.STRING_LITERAL);
+	Grammar o = new GrammarOptimizer (g, Collections.singleton ("Goal")).optimize ();
+	Assert.assertNotNull (o.getRules ("Literal"));
+	List<Rule> pairs = o.getRules ("Goal").getRules ();
+	Assert.assertEquals (pairs.size (), 1);
+	Assert.assertEquals (pairs.get (0).size (), 4);
+    }
+}
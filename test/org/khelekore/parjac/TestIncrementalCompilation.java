@@ -0,0 +1,123 @@
+package org.khelekore.parjac;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.parser.TestParseHelper;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestIncrementalCompilation {
+    private Grammar g;
+    private Path srcDir;
+    private Path outDir;
+
+    @BeforeClass
+    public void beforeClass () throws IOException {
+	g = TestParseHelper.getJavaGrammarFromFile ("CompilationUnit", false);
+    }
+
+    @BeforeMethod
+    public void createDirectories () throws IOException {
+	srcDir = Files.createTempDirectory ("parjac_src");
+	outDir = Files.createTempDirectory ("parjac_out");
+    }
+
+    @Test
+    public void testOnlyChangedAndDependentsAreCompiled () throws IOException {
+	write ("A.java", "package p; public class A { public int f () { return B.x (); }}");
+	write ("B.java", "package p; public class B { public static int x () { return 1; }}");
+	write ("C.java", "package p; public class C { public int y () { return 2; }}");
+	Assert.assertEquals (compile (), 3);
+	Assert.assertEquals (compile (), 0);
+
+	append ("C.java", "// changed");
+	Assert.assertEquals (compile (), 1);
+
+	append ("B.java", "// changed");
+	Assert.assertEquals (compile (), 2);
+	Assert.assertTrue (Files.exists (outDir.resolve ("p/A.class")));
+	cleanUp ();
+    }
+
+    @Test
+    public void testRemovedFileRemovesClasses () throws IOException {
+	write ("A.java", "package p; public class A { }");
+	write ("B.java", "package p; public class B { }");
+	Assert.assertEquals (compile (), 2);
+	Files.delete (srcDir.resolve ("p/B.java"));
+	Assert.assertEquals (compile (), 0);
+	Assert.assertFalse (Files.exists (outDir.resolve ("p/B.class")));
+	Assert.assertTrue (Files.exists (outDir.resolve ("p/A.class")));
+	cleanUp ();
+    }
+
+    private void write (String name, String source) throws IOException {
+	Path p = srcDir.resolve ("p").resolve (name);
+	Files.createDirectories (p.getParent ());
+	Files.write (p, Collections.singletonList (source));
+    }
+
+    private void append (String name, String text) throws IOException {
+	Path p = srcDir.resolve ("p").resolve (name);
+	Files.write (p, Collections.singletonList (text), StandardOpenOption.APPEND);
+    }
+
+    /** Compile and return the number of parsed files */
+    private int compile () {
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	FileSourceProvider sp =
+	    new FileSourceProvider (Collections.singletonList (srcDir), Charset.forName ("UTF-8"));
+	CountingSourceProvider csp = new CountingSourceProvider (sp);
+	CompilationArguments settings =
+	    new CompilationArguments (csp, new FileBytecodeWriter (outDir),
+				      Collections.emptyList (), false, false, true);
+	Compiler c = new Compiler (diagnostics, g, settings);
+	c.compile ();
+	Assert.assertFalse (diagnostics.hasError (), "Got errors: " + diagnostics.getDiagnostics ().
+			    map (d -> d.getMessage (null)).collect (Collectors.joining ("\n")));
+	return csp.inputs;
+    }
+
+    private void cleanUp () throws IOException {
+	for (Path dir : new Path[] {srcDir, outDir}) {
+	    List<Path> ls = Files.walk (dir).sorted (Comparator.reverseOrder ()).collect (Collectors.toList ());
+	    for (Path p : ls)
+		Files.delete (p);
+	}
+    }
+
+    private static class CountingSourceProvider implements SourceProvider {
+	private final SourceProvider sp;
+	private int inputs;
+
+	public CountingSourceProvider (SourceProvider sp) {
+	    this.sp = sp;
+	}
+
+	public void setup (CompilerDiagnosticCollector diagnostics) throws IOException {
+	    sp.setup (diagnostics);
+	}
+
+	public Collection<Path> getSourcePaths () {
+	    return sp.getSourcePaths ();
+	}
+
+	public synchronized CharBuffer getInput (Path path) throws IOException {
+	    inputs++;
+	    return sp.getInput (path);
+	}
+    }
+}
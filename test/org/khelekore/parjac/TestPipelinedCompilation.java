@@ -0,0 +1,127 @@
+package org.khelekore.parjac;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.parser.TestParseHelper;
+import org.khelekore.parjac.semantics.ClassInformationProvider;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestPipelinedCompilation {
+    private Grammar g;
+
+    @BeforeClass
+    public void beforeClass () throws IOException {
+	g = TestParseHelper.getJavaGrammarFromFile ("CompilationUnit", false);
+    }
+
+    @Test
+    public void testDependentFiles () {
+	MultiSourceProvider sp = new MultiSourceProvider ();
+	sp.add ("C.java", "public class C { int f () { A a = new A (); return a.x () + a.y (); }}");
+	sp.add ("A.java", "public class A extends B { int x () { return 1; }}");
+	sp.add ("B.java", "public class B { int y () { return D.Z; }}");
+	sp.add ("D.java", "public class D { static int Z = 3; }");
+	MemoryBytecodeWriter bw = new MemoryBytecodeWriter ();
+	CompilerDiagnosticCollector diagnostics = compile (sp, bw);
+	Assert.assertFalse (diagnostics.hasError (), "Got errors: " + diagnostics.getDiagnostics ().
+			    map (d -> d.getMessage (null)).collect (Collectors.joining ("\n")));
+	for (String c : new String[] {"A", "B", "C", "D"})
+	    Assert.assertNotNull (bw.getBytecode (Paths.get (c + ".class")), "Missing class: " + c);
+    }
+
+    @Test
+    public void testErrorInOneFileWritesNothing () {
+	MultiSourceProvider sp = new MultiSourceProvider ();
+	sp.add ("A.java", "public class A { int x () { return 1; }}");
+	sp.add ("B.java", "public class B { int y () { return q; }}");
+	MemoryBytecodeWriter bw = new MemoryBytecodeWriter ();
+	CompilerDiagnosticCollector diagnostics = compile (sp, bw);
+	Assert.assertTrue (diagnostics.hasError ());
+	Assert.assertTrue (diagnostics.hasError (Paths.get ("B.java")));
+	Assert.assertFalse (diagnostics.hasError (Paths.get ("A.java")));
+	Assert.assertNull (bw.getBytecode (Paths.get ("A.class")));
+    }
+
+    @Test
+    public void testModifierAndReturnErrorsInOneFile () {
+	MultiSourceProvider sp = new MultiSourceProvider ();
+	sp.add ("A.java", "public class A { public private int x; int f () { if (3) return 1; return 2; }}");
+	sp.add ("B.java", "public class B { int g () { }}");
+	CompilerDiagnosticCollector diagnostics = compile (sp, new MemoryBytecodeWriter ());
+	String messages = diagnostics.getDiagnostics ().
+	    map (d -> d.getMessage (null)).collect (Collectors.joining ("\n"));
+	// the names and modifiers and the returns are checked in the same visit
+	Assert.assertTrue (messages.contains ("too many access flags"), messages);
+	Assert.assertTrue (messages.contains ("Not a boolean expression"), messages);
+	Assert.assertTrue (messages.contains ("Method missing return"), messages);
+	Assert.assertEquals (diagnostics.getDiagnostics ().count (), 3, messages);
+    }
+
+    @Test
+    public void testRegisterSignatures () throws IOException {
+	MultiSourceProvider sp = new MultiSourceProvider ();
+	sp.add ("A.java", "package foo; public class A extends B implements Runnable {\n" +
+		"    private int x = 3; static { System.out.println (\"A\"); }\n" +
+		"    public A () { super (); }\n" +
+		"    public void run () { class L {} new Object () { }; }\n" +
+		"}");
+	sp.add ("B.java", "package foo; public class B { static int Z = q (); static int q () { return w; } }");
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	CompilationArguments settings =
+	    new CompilationArguments (sp, new MemoryBytecodeWriter (), Collections.emptyList (),
+				      false, false, false);
+	Compiler c = new Compiler (diagnostics, g, settings);
+	Assert.assertEquals (c.registerSignatures ().size (), 2);
+	// "w" is unknown, but the method bodies are never looked at
+	Assert.assertFalse (diagnostics.hasError (), "Got errors: " + diagnostics.getDiagnostics ().
+			    map (d -> d.getMessage (null)).collect (Collectors.joining ("\n")));
+	ClassInformationProvider cip = c.getClassInformationProvider ();
+	Assert.assertNotNull (cip.getType ("foo.A"));
+	Assert.assertNull (cip.getType ("foo.A$1L"));
+	Assert.assertEquals (cip.getSuperTypes ("foo.A", false).get (),
+			     Arrays.asList ("foo.B", "java.lang.Runnable"));
+	Assert.assertNotNull (cip.getFieldInformation ("foo.A", "x"));
+	Assert.assertNotNull (cip.getFieldInformation ("foo.B", "Z"));
+    }
+
+    private CompilerDiagnosticCollector compile (SourceProvider sp, BytecodeWriter bw) {
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	CompilationArguments settings =
+	    new CompilationArguments (sp, bw, Collections.emptyList (), false, false, false);
+	Compiler c = new Compiler (diagnostics, g, settings);
+	c.compile ();
+	return diagnostics;
+    }
+
+    private static class MultiSourceProvider implements SourceProvider {
+	private final Map<Path, String> sources = new LinkedHashMap<> ();
+
+	public void add (String name, String source) {
+	    sources.put (Paths.get (name), source);
+	}
+
+	public void setup (CompilerDiagnosticCollector diagnostics) {
+	    // empty
+	}
+
+	public Collection<Path> getSourcePaths () {
+	    return sources.keySet ();
+	}
+
+	public CharBuffer getInput (Path path) {
+	    return CharBuffer.wrap (sources.get (path));
+	}
+    }
+}
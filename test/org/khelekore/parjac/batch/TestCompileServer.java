@@ -0,0 +1,146 @@
+package org.khelekore.parjac.batch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestCompileServer {
+    private Path dir;
+    private CompileServer server;
+    private Thread serverThread;
+    private byte[] token;
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+
+    @BeforeClass
+    public void startServer () throws IOException {
+	dir = Files.createTempDirectory ("parjac_server");
+	server = new CompileServer (0, dir);
+	token = CompileClient.readToken (CompileServer.getTokenFile (dir, server.getPort ()));
+	serverThread = new Thread (() -> {
+		try {
+		    server.run ();
+		} catch (IOException e) {
+		    e.printStackTrace ();
+		}
+	    });
+	serverThread.setDaemon (true);
+	serverThread.start ();
+    }
+
+    @AfterClass
+    public void stopServer () throws IOException, InterruptedException {
+	Assert.assertEquals (send (token, true), 0);
+	serverThread.join (10_000);
+	Assert.assertFalse (serverThread.isAlive (), "Server did not stop");
+	Assert.assertFalse (Files.exists (CompileServer.getTokenFile (dir, server.getPort ())),
+			    "Token file not removed");
+	List<Path> ls = Files.walk (dir).sorted (Comparator.reverseOrder ()).collect (Collectors.toList ());
+	for (Path p : ls)
+	    Files.delete (p);
+    }
+
+    @BeforeMethod
+    public void clearOutput () throws IOException {
+	out = new ByteArrayOutputStream ();
+	err = new ByteArrayOutputStream ();
+	List<Path> ls = Files.walk (dir).filter (p -> !p.equals (dir)).
+	    filter (p -> !p.getFileName ().toString ().startsWith (".parjac_server_")).
+	    sorted (Comparator.reverseOrder ()).collect (Collectors.toList ());
+	for (Path p : ls)
+	    Files.delete (p);
+    }
+
+    @Test
+    public void testCompile () throws IOException {
+	write ("A.java", "package p; public class A { public int f () { return 1; }}");
+	Assert.assertEquals (send (token, false), 0, getErr ());
+	Assert.assertEquals (getErr (), "");
+	Assert.assertTrue (getOut ().contains ("Time taken"), getOut ());
+	Assert.assertTrue (Files.exists (dir.resolve ("out/p/A.class")));
+    }
+
+    @Test
+    public void testCompileWithErrors () throws IOException {
+	write ("A.java", "package p; public class A { public int f () { return 1 }}");
+	Assert.assertEquals (send (token, false), 1);
+	Assert.assertTrue (getErr ().contains ("A.java"), getErr ());
+	Assert.assertFalse (Files.exists (dir.resolve ("out/p/A.class")));
+    }
+
+    @Test
+    public void testWrongTokenIsRejected () throws IOException {
+	write ("A.java", "package p; public class A { }");
+	byte[] wrongToken = token.clone ();
+	wrongToken[0] = (byte)(wrongToken[0] == '0' ? '1' : '0');
+	try {
+	    send (wrongToken, false);
+	    Assert.fail ("Request with wrong token was accepted");
+	} catch (IOException e) {
+	    // expected, the server closes the connection without an answer
+	}
+	Assert.assertEquals (getOut (), "");
+	Assert.assertEquals (getErr (), "");
+	Assert.assertFalse (Files.exists (dir.resolve ("out/p/A.class")));
+
+	// the server still handles good requests
+	Assert.assertEquals (send (token, false), 0, getErr ());
+	Assert.assertTrue (Files.exists (dir.resolve ("out/p/A.class")));
+    }
+
+    @Test
+    public void testMissingTokenIsRejected () throws IOException {
+	write ("A.java", "package p; public class A { }");
+	try (Socket s = new Socket (InetAddress.getLoopbackAddress (), server.getPort ());
+	     DataOutputStream dos = new DataOutputStream (s.getOutputStream ());
+	     DataInputStream dis = new DataInputStream (s.getInputStream ())) {
+	    dos.writeByte (CompileServer.COMPILE);
+	    dos.writeUTF (dir.toString ());
+	    dos.writeInt (0);
+	    dos.flush ();
+	    s.shutdownOutput ();
+	    Assert.assertEquals (dis.read (), -1, "Server answered a request without token");
+	} catch (SocketException e) {
+	    // also fine, the server closed the connection with unread data
+	}
+	Assert.assertFalse (Files.exists (dir.resolve ("out/p/A.class")));
+    }
+
+    private int send (byte[] requestToken, boolean stop) throws IOException {
+	String[] args = {"-i", "src", "-d", "out"};
+	return CompileClient.send (server.getPort (), requestToken, stop, dir, args,
+				   new PrintStream (out, true, "UTF-8"), new PrintStream (err, true, "UTF-8"));
+    }
+
+    private void write (String name, String source) throws IOException {
+	Path p = dir.resolve ("src").resolve ("p").resolve (name);
+	Files.createDirectories (p.getParent ());
+	Files.write (p, Collections.singletonList (source));
+    }
+
+    private String getOut () {
+	return new String (out.toByteArray (), StandardCharsets.UTF_8);
+    }
+
+    private String getErr () {
+	return new String (err.toByteArray (), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,139 @@
+package org.khelekore.parjac.lexer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestByteBufferLexer {
+    @Test
+    public void testAscii () {
+	testSame ("package foo;\nclass A {\r\n  int a = 0x7fff_ffff; long l = 077L; double d = .5e-3;\n" +
+		  "  String s = \"a\\tb\\u0041\\101\"; char c = '\\n';\n" +
+		  "  /* multi\n line */ // one line\n  void f () { a >>>= 2; b -> c; x::y; }\n}\n", true);
+	testSame ("\\u0061bc \\u00", true);
+	testSame ("a ... b . 5 .. #", true);
+    }
+
+    @Test
+    public void testNonAscii () {
+	testSame ("class \u00c5 { int \u00e4rlig = 3; String s = \"\u65e5\u672c\u8a9e\"; char c = '\u00f6'; }\n", false);
+	testSame ("// kommentar p\u00e5 svenska\nint x; /* \u00a9 \u2122 */ int y;", false);
+	testSame ("String s = \"\uD835\uDD18 \uD83D\uDE00\";", false);
+	testSame ("a\uD835\uDD18 >\uD835\uDD18 b", false);
+	testSame ("x \u2211 y", false);
+    }
+
+    @Test
+    public void testShifts () {
+	// the lexer pushes back more than one char for these
+	testSame ("List<List<String>> x;", true);
+	testSame ("a >> b", true);
+	testSame ("a >>> b", true);
+	testSame ("a >>>= b", true);
+	testSame ("List<List<\u00c5>> x; List<List<\uD835\uDD18>>> y;", false);
+    }
+
+    @Test
+    public void testSourcesGiveSameTokens () throws IOException {
+	List<Path> files;
+	try (Stream<Path> s = Stream.concat (Files.walk (Paths.get ("src")), Files.walk (Paths.get ("test")))) {
+	    files = s.filter (p -> p.toString ().endsWith (".java")).collect (Collectors.toList ());
+	}
+	Assert.assertFalse (files.isEmpty (), "No source files found");
+	for (Path p : files)
+	    testSame (new String (Files.readAllBytes (p), StandardCharsets.UTF_8), false);
+    }
+
+    @Test
+    public void testMalformed () {
+	byte[] input = {'i', 'n', 't', ' ', (byte)0xc3, ' ', 'x'};
+	Lexer l = new ByteBufferLexer (ByteBuffer.wrap (input));
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.INT);
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.ERROR);
+	Assert.assertNotNull (l.getError ());
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.IDENTIFIER);
+    }
+
+    @Test
+    public void testContinuationByteAfterIdentifier () {
+	byte[] input = {'x', (byte)0x80, ' ', 'y'};
+	Lexer l = new ByteBufferLexer (ByteBuffer.wrap (input));
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.IDENTIFIER);
+	Assert.assertEquals (l.getIdentifier (), "x");
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.ERROR);
+	Assert.assertNotNull (l.getError ());
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.IDENTIFIER);
+	Assert.assertEquals (l.getIdentifier (), "y");
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.END_OF_INPUT);
+    }
+
+    @Test
+    public void testContinuationByteAfterNonAsciiIdentifier () {
+	byte[] input = {'x', (byte)0xc3, (byte)0xa9, (byte)0x80};
+	Lexer l = new ByteBufferLexer (ByteBuffer.wrap (input));
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.IDENTIFIER);
+	Assert.assertEquals (l.getIdentifier (), "x\u00e9");
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.ERROR);
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.END_OF_INPUT);
+    }
+
+    @Test
+    public void testContinuationByteAfterNumber () {
+	byte[] input = {'1', (byte)0x92, ';'};
+	Lexer l = new ByteBufferLexer (ByteBuffer.wrap (input));
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.INT_LITERAL);
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.ERROR);
+	Assert.assertNotNull (l.getError ());
+	Assert.assertEquals (l.nextNonWhitespaceToken (), Token.SEMICOLON);
+    }
+
+    @Test
+    public void testCurrentLine () {
+	Lexer l = new ByteBufferLexer (ByteBuffer.wrap ("a\nb\u00f6 c\nd".getBytes (StandardCharsets.UTF_8)));
+	l.nextNonWhitespaceToken ();
+	l.nextNonWhitespaceToken ();
+	Assert.assertEquals (l.getCurrentLine (), "b\u00f6 c");
+    }
+
+    private void testSame (String text, boolean samePositions) {
+	Lexer cl = new CharBufferLexer (CharBuffer.wrap (text));
+	Lexer bl = new ByteBufferLexer (ByteBuffer.wrap (text.getBytes (StandardCharsets.UTF_8)));
+	int i = 0;
+	while (cl.hasMoreTokens ()) {
+	    Assert.assertTrue (bl.hasMoreTokens (), i + ": byte lexer ran out of tokens");
+	    Token ct = cl.nextToken ();
+	    Token bt = bl.nextToken ();
+	    Assert.assertEquals (bt, ct, i + ": wrong token");
+	    Assert.assertEquals (bl.getError (), cl.getError (), i + ": wrong error");
+	    ParsePosition cp = cl.getParsePosition ();
+	    ParsePosition bp = bl.getParsePosition ();
+	    Assert.assertEquals (bp.getLineNumber (), cp.getLineNumber (), i + ": wrong line");
+	    Assert.assertEquals (bp.getTokenColumn (), cp.getTokenColumn (), i + ": wrong column");
+	    if (samePositions)
+		Assert.assertEquals (bp.toString (), cp.toString (), i + ": wrong position");
+	    if (ct == Token.IDENTIFIER)
+		Assert.assertEquals (bl.getIdentifier (), cl.getIdentifier ());
+	    else if (ct == Token.STRING_LITERAL)
+		Assert.assertEquals (bl.getStringValue (), cl.getStringValue ());
+	    else if (ct == Token.CHARACTER_LITERAL)
+		Assert.assertEquals (bl.getCharValue (), cl.getCharValue ());
+	    else if (ct == Token.INT_LITERAL || ct == Token.LONG_LITERAL)
+		Assert.assertEquals (bl.getLongValue (), cl.getLongValue ());
+	    else if (ct == Token.DOUBLE_LITERAL)
+		Assert.assertEquals (bl.getDoubleValue (), cl.getDoubleValue ());
+	    Assert.assertEquals (bl.getCurrentLine (), cl.getCurrentLine (), i + ": wrong current line");
+	    i++;
+	}
+	Assert.assertFalse (bl.hasMoreTokens (), "byte lexer has more tokens");
+    }
+}
@@ -237,6 +237,11 @@ public class TestLexer {
 	testInt ("2", 2);
 	testInt ("1996", 1996);
 	testInput ("1_", Token.ERROR);
+	testInput ("0_9", Token.ERROR, Token.INT_LITERAL);
+	testInput ("0b1_2", Token.ERROR, Token.INT_LITERAL);
+	testInput ("0x1_g", Token.ERROR, Token.IDENTIFIER);
+	testInput ("1_L", Token.ERROR, Token.IDENTIFIER);
+	testInput ("1_.5", Token.ERROR, Token.DOUBLE_LITERAL);
 	testInt ("2147483648", -2147483648); // may seem a bit odd
 	testInput ("2147483649", Token.ERROR);
 	testInt ("0372", 0372);
@@ -245,6 +250,13 @@ public class TestLexer {
 	testInt ("0b1111", 0b1111);
 	testInput ("0x", Token.ERROR);
 	testInput ("0xffffff;", Token.INT_LITERAL, Token.SEMICOLON);
+	testInt ("0xFFFFFFFF", 0xFFFFFFFF);
+	testInput ("0x100000000", Token.ERROR);
+	testInt ("037777777777", 037777777777);
+	testInput ("040000000000", Token.ERROR);
+	testInt ("0b11111111111111111111111111111111", 0b11111111111111111111111111111111);
+	testInput ("0b111111111111111111111111111111111", Token.ERROR);
+	testInt ("0_7", 0_7);
 
 	// javac is a bit iffy with octal handling compared to binary
 	// lets handle individual characters out of range the same here
@@ -268,6 +280,14 @@ public class TestLexer {
 	testLong ("2_147_483_648L", 2_147_483_648L);
 	testLong ("2147483649L", 2147483649L);
 	testLong ("0xC0B0L", 0xC0B0L);
+	testLong ("9223372036854775807L", 9223372036854775807L);
+	testLong ("9223372036854775808L", -9223372036854775808L);
+	testInput ("9223372036854775809L", Token.ERROR);
+	testInput ("99999999999999999999L", Token.ERROR);
+	testLong ("0xFFFF_FFFF_FFFF_FFFFL", 0xFFFF_FFFF_FFFF_FFFFL);
+	testInput ("0x1_0000_0000_0000_0000L", Token.ERROR);
+	testLong ("01777777777777777777777L", 01777777777777777777777L);
+	testInput ("02000000000000000000000L", Token.ERROR);
     }
 
     private void testLong (String toLex, long expected) {
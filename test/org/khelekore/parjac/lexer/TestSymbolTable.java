@@ -0,0 +1,71 @@
+package org.khelekore.parjac.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestSymbolTable {
+    @Test
+    public void testKeywords () {
+	SymbolTable st = new SymbolTable ();
+	Assert.assertEquals (st.get ("class").token, Token.CLASS);
+	Assert.assertEquals (st.get ("null").token, Token.NULL);
+	Assert.assertEquals (st.get ("true").token, Token.TRUE);
+	Assert.assertEquals (st.get ("String").token, Token.IDENTIFIER);
+	Assert.assertEquals (st.get ("classes").token, Token.IDENTIFIER);
+    }
+
+    @Test
+    public void testSameInstance () {
+	SymbolTable st = new SymbolTable ();
+	String s = st.intern (new String ("foo"));
+	Assert.assertSame (st.intern (new String ("foo")), s);
+	CharBuffer cb = CharBuffer.wrap ("a foo b");
+	Assert.assertSame (st.get (cb, 2, 5, "foo".hashCode ()).name, s);
+	ByteBuffer bb = ByteBuffer.wrap ("a foo b".getBytes (StandardCharsets.US_ASCII));
+	Assert.assertSame (st.get (bb, 2, 5, "foo".hashCode ()).name, s);
+    }
+
+    @Test
+    public void testLexersShareNames () {
+	SymbolTable st = new SymbolTable ();
+	Lexer l1 = new CharBufferLexer (CharBuffer.wrap ("foo"), st);
+	Lexer l2 = new ByteBufferLexer (ByteBuffer.wrap ("\"foo\" foo".getBytes (StandardCharsets.UTF_8)), st);
+	Assert.assertEquals (l1.nextNonWhitespaceToken (), Token.IDENTIFIER);
+	Assert.assertEquals (l2.nextNonWhitespaceToken (), Token.STRING_LITERAL);
+	Assert.assertSame (l2.getStringValue (), l1.getIdentifier ());
+	Assert.assertEquals (l2.nextNonWhitespaceToken (), Token.IDENTIFIER);
+	Assert.assertSame (l2.getIdentifier (), l1.getIdentifier ());
+    }
+
+    @Test
+    public void testConcurrentAdds () throws Exception {
+	SymbolTable st = new SymbolTable ();
+	int numThreads = 4;
+	ExecutorService es = Executors.newFixedThreadPool (numThreads);
+	List<Future<String[]>> results = new ArrayList<> ();
+	for (int t = 0; t < numThreads; t++) {
+	    results.add (es.submit (() -> {
+			String[] names = new String[5000];
+			for (int i = 0; i < names.length; i++)
+			    names[i] = st.intern ("name" + i);
+			return names;
+		    }));
+	}
+	String[] first = results.get (0).get ();
+	for (Future<String[]> f : results) {
+	    String[] names = f.get ();
+	    for (int i = 0; i < names.length; i++)
+		Assert.assertSame (names[i], first[i]);
+	}
+	es.shutdown ();
+    }
+}
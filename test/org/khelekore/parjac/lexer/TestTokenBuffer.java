@@ -0,0 +1,65 @@
+package org.khelekore.parjac.lexer;
+
+import java.nio.CharBuffer;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestTokenBuffer {
+    private static final String INPUT =
+	"class A {\n  int i = 17; long l = 3L; float f = 1.5f; double d = 2.25;\n" +
+	"  char c = 'x'; String s = \"str\";\n}\n";
+
+    @Test
+    public void testSameAsLexer () {
+	TokenBuffer tb = new TokenBuffer ();
+	tb.fill (new CharBufferLexer (CharBuffer.wrap (INPUT)));
+	Lexer l = new CharBufferLexer (CharBuffer.wrap (INPUT));
+	int i = 0;
+	while (l.hasMoreTokens ()) {
+	    Token t = l.nextNonWhitespaceToken ();
+	    Assert.assertTrue (i < tb.size (), "Too few tokens in buffer");
+	    Assert.assertEquals (tb.getToken (i), t);
+	    Assert.assertEquals (tb.getTokenId (i), t.ordinal ());
+	    Assert.assertEquals (tb.getParsePosition (i).toString (), l.getParsePosition ().toString ());
+	    i++;
+	}
+	Assert.assertEquals (tb.size (), i);
+	Assert.assertEquals (tb.getToken (i - 1), Token.END_OF_INPUT);
+    }
+
+    @Test
+    public void testValues () {
+	TokenBuffer tb = new TokenBuffer ();
+	tb.fill (new CharBufferLexer (CharBuffer.wrap (INPUT)));
+	Assert.assertEquals (tb.getIdentifier (find (tb, Token.IDENTIFIER)), "A");
+	Assert.assertEquals (tb.getIntValue (find (tb, Token.INT_LITERAL)), 17);
+	Assert.assertEquals (tb.getLongValue (find (tb, Token.LONG_LITERAL)), 3L);
+	Assert.assertEquals (tb.getFloatValue (find (tb, Token.FLOAT_LITERAL)), 1.5f);
+	Assert.assertEquals (tb.getDoubleValue (find (tb, Token.DOUBLE_LITERAL)), 2.25);
+	Assert.assertEquals (tb.getCharValue (find (tb, Token.CHARACTER_LITERAL)), 'x');
+	Assert.assertEquals (tb.getStringValue (find (tb, Token.STRING_LITERAL)), "str");
+    }
+
+    @Test
+    public void testReuse () {
+	TokenBuffer tb = new TokenBuffer ();
+	StringBuilder sb = new StringBuilder ();
+	for (int i = 0; i < 1000; i++)
+	    sb.append ("a").append (i).append (" ");
+	tb.fill (new CharBufferLexer (CharBuffer.wrap (sb)));
+	Assert.assertEquals (tb.size (), 1001);
+	Assert.assertEquals (tb.getIdentifier (999), "a999");
+	tb.fill (new CharBufferLexer (CharBuffer.wrap ("b")));
+	Assert.assertEquals (tb.size (), 2);
+	Assert.assertEquals (tb.getIdentifier (0), "b");
+	Assert.assertNull (tb.getIdentifier (1));
+    }
+
+    private int find (TokenBuffer tb, Token t) {
+	for (int i = 0; i < tb.size (); i++)
+	    if (tb.getToken (i) == t)
+		return i;
+	throw new AssertionError ("Did not find: " + t);
+    }
+}
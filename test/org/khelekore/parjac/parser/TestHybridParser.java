@@ -0,0 +1,129 @@
+package org.khelekore.parjac.parser;
+
+import java.nio.file.Paths;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.parser.HybridParser.Fallback;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestHybridParser {
+    private Grammar g;
+    private PredictCache predictCache;
+    private JavaTreeBuilder treeBuilder;
+    private ParseTable table;
+
+    @BeforeClass
+    public void createGrammar () {
+	g = TestParseHelper.getJavaGrammarFromFile ("CompilationUnit", false);
+	predictCache = new PredictCache (g);
+	treeBuilder = new JavaTreeBuilder (g);
+	table = new ParseTable (g, "Goal");
+    }
+
+    @Test
+    public void testTables () {
+	Assert.assertTrue (table.getNumberOfStates () > 0);
+	Assert.assertTrue (table.getNumberOfConflicts () > 0, "Java grammar is expected to not be SLR(1)");
+    }
+
+    @Test
+    public void testSameTree () {
+	testSameResult ("", Fallback.NONE);
+	testSameResult ("package foo;\n" +
+			"import java.util.List;\n" +
+			"import static java.lang.Math.*;\n" +
+			"@Deprecated public class A<T extends Comparable<T>> extends B implements C, D {\n" +
+			"    private static final int x = 3, y[] = { 1, 2 };\n" +
+			"    public A (int y) { super (); this.x = y; }\n" +
+			"    static { System.out.println (\"A\"); }\n" +
+			"    <S> List<S> f (List<? super T> l) throws Exception { return null; }\n" +
+			"    void g () {\n" +
+			"        int a = b < c ? d >> 2 : (int)e;\n" +
+			"        List<List<String>> l = new ArrayList<> ();\n" +
+			"        Runnable r = () -> { if (a) b (); else if (c) d (); else e (); };\n" +
+			"        for (String s : l) switch (s) { case \"a\": break; default: }\n" +
+			"        a = b = c;\n" +
+			"        x.<String>foo (String[]::new);\n" +
+			"    }\n" +
+			"    enum E { A, B { void f () {} }; }\n" +
+			"    @interface I { int v () default 1; }\n" +
+			"}\n", Fallback.NONE);
+    }
+
+    @Test
+    public void testSameErrors () {
+	testSameResult ("class A { void f () { int a = 1 }\n void g () {} }\n", Fallback.SYNTAX_ERROR);
+	testSameResult ("class A { int x = 2; int y = ; }", Fallback.SYNTAX_ERROR);
+	testSameResult ("class A { private public int x; void f () {} }", Fallback.NONE);
+    }
+
+    @Test
+    public void testLikelyErrorSkipsTables () {
+	testSameResult ("class A { int x;\n", Fallback.LIKELY_ERROR);
+	testSameResult ("class A { void f () { g (a]; } }", Fallback.LIKELY_ERROR);
+	testSameResult ("class A { char c = '; }", Fallback.LIKELY_ERROR);
+	// Balanced, but still broken
+	testSameResult ("class A { void f () { g (a) } }", Fallback.SYNTAX_ERROR);
+    }
+
+    @Test
+    public void testAmbiguityFallsBack () {
+	// HybridS: HybridA | HybridB; HybridA: identifier; HybridB: identifier
+	Grammar ag = TestParseHelper.getJavaGrammarFromFile ("HybridS", false, g -> {
+		g.addRule ("HybridA", Token.IDENTIFIER);
+		g.addRule ("HybridB", Token.IDENTIFIER);
+		g.addRule ("HybridS", "HybridA");
+		g.addRule ("HybridS", "HybridB");
+	    });
+	testSameResult (ag, "a", Fallback.AMBIGUOUS);
+    }
+
+    @Test
+    public void testTooManyStacksFallsBack () {
+	// HybridS: HybridR0 | HybridR1 ...; HybridRi: HybridCi identifier; HybridCi: identifier
+	// Every HybridCi is a stack of its own after the first identifier
+	Grammar sg = TestParseHelper.getJavaGrammarFromFile ("HybridS", false, g -> {
+		for (int i = 0; i < 40; i++) {
+		    g.addRule ("HybridC" + i, Token.IDENTIFIER);
+		    g.addRule ("HybridR" + i, "HybridC" + i, Token.IDENTIFIER);
+		    g.addRule ("HybridS", "HybridR" + i);
+		}
+	    });
+	testSameResult (sg, "a b", Fallback.TOO_MANY_STACKS);
+    }
+
+    @Test
+    public void testWithoutTreeBuilder () {
+	HybridParser hp = new HybridParser (g, Paths.get ("A.java"), TestParseHelper.getTokens ("class A {}"),
+					    table, predictCache, null, new CompilerDiagnosticCollector (), false);
+	Assert.assertNull (hp.parse ());
+	Assert.assertEquals (hp.getFallback (), Fallback.NO_TREE_BUILDER);
+    }
+
+    private void testSameResult (String s, Fallback expected) {
+	HybridParser hp = testSameResult (g, predictCache, treeBuilder, table, s);
+	Assert.assertEquals (hp.getFallback (), expected);
+	Assert.assertEquals (hp.usedEarleyParser (), expected != Fallback.NONE);
+    }
+
+    private void testSameResult (Grammar sg, String s, Fallback expected) {
+	HybridParser hp = testSameResult (sg, new PredictCache (sg), new JavaTreeBuilder (sg),
+					  new ParseTable (sg, "Goal"), s);
+	Assert.assertEquals (hp.getFallback (), expected);
+    }
+
+    private static HybridParser testSameResult (Grammar g, PredictCache pc, JavaTreeBuilder tb,
+						ParseTable table, String s) {
+	HybridParser[] hp = new HybridParser[1];
+	TestParseHelper.assertSameAsEarley (g, pc, tb, s, (path, text, diagnostics) -> {
+		hp[0] = new HybridParser (g, path, TestParseHelper.getTokens (text), table, pc, tb,
+					  diagnostics, false);
+		return hp[0].parse ();
+	    });
+	return hp[0];
+    }
+}
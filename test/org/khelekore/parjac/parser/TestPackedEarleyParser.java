@@ -0,0 +1,73 @@
+package org.khelekore.parjac.parser;
+
+import java.io.IOException;
+
+import org.khelekore.parjac.JavaGrammarHelper;
+import org.khelekore.parjac.grammar.Grammar;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestPackedEarleyParser {
+    private Grammar g;
+    private PredictCache predictCache;
+    private JavaTreeBuilder treeBuilder;
+
+    @BeforeClass
+    public void createGrammar () throws IOException {
+	// The grammar the compiler uses, error recovery depends on the clearable rules
+	g = JavaGrammarHelper.getValidatedJavaGrammarFromText (false);
+	predictCache = new PredictCache (g);
+	treeBuilder = new JavaTreeBuilder (g);
+    }
+
+    @Test
+    public void testSameTree () {
+	testSameResult ("package foo.bar;\nimport java.util.List;\n" +
+			"class A<T> extends B implements C, D {\n" +
+			"    private int x = 3 + 4 * 5;\n" +
+			"    public A (int y) { super (y); x = y; }\n" +
+			"    List<T> f (T... ts) { for (T t : ts) if (t != null) return null; return null; }\n" +
+			"    @Override public String toString () { return \"A\" + (x > 2 ? 1 : 2); }\n" +
+			"    class Inner { long l = 1L << 3; }\n" +
+			"}\n" +
+			"interface I { default void g () { Runnable r = () -> {}; } }\n" +
+			"enum E { X, Y; }\n");
+    }
+
+    @Test
+    public void testSameErrors () {
+	testSameResult ("class A { void f () { int a = 1 }\n}\n");
+	testSameResult ("class A { int x = ; }");
+	testSameResult ("class A {\n");
+	testSameResult ("class C { String getFlags() ( return flags; } String getMessage() { return flags; } }");
+	// Missing comma
+	testSameResult ("class D { void f () { g (a 0); } }");
+	testSameResult ("class D { int a, b c; }");
+	testSameResult ("class D implements A B { }");
+	// Two recoveries where more than one inserted token fits, with a right recursive chain
+	testSameResult ("class V { void f () { d = a ? Dims)p.q () : null; } }");
+    }
+
+    @Test
+    public void testLongRightRecursion () {
+	StringBuilder sb = new StringBuilder ("class A { void f () {\n    int a, b, c, x = 0;\n");
+	for (int i = 0; i < 50; i++)
+	    sb.append (i == 0 ? "    " : "    else ").append ("if (x == " + i + ") x = " + i + ";\n");
+	for (int i = 0; i < 50; i++)
+	    sb.append (i % 3 == 0 ? "a = " : i % 3 == 1 ? "b = " : "c = ");
+	sb.append ("x;\n    x = ");
+	for (int i = 0; i < 50; i++)
+	    sb.append ("x == " + i + " ? " + i + " : ");
+	sb.append ("0;\n}}\n");
+	String s = sb.toString ();
+	testSameResult (s);
+	testSameResult (s.replace ("x = 25;", "x = 25"));
+    }
+
+    private void testSameResult (String s) {
+	TestParseHelper.assertSameAsEarley (g, predictCache, treeBuilder, s, (path, text, diagnostics) ->
+					    new PackedEarleyParser (g, path, TestParseHelper.getTokens (text),
+								    predictCache, treeBuilder,
+								    diagnostics, false).parse ());
+    }
+}
@@ -0,0 +1,100 @@
+package org.khelekore.parjac.parser;
+
+import java.io.IOException;
+
+import org.khelekore.parjac.JavaGrammarHelper;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.tree.NormalClassDeclaration;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestParallelPackedParser {
+    private Grammar g;
+    private PredictCache predictCache;
+    private JavaTreeBuilder treeBuilder;
+
+    @BeforeClass
+    public void createGrammar () throws IOException {
+	g = JavaGrammarHelper.getValidatedJavaGrammarFromText (false);
+	predictCache = new PredictCache (g);
+	treeBuilder = new JavaTreeBuilder (g);
+    }
+
+    @Test
+    public void testSameTree () {
+	SyntaxTree t = testSameResult (getLargeClass (""));
+	NormalClassDeclaration ncd = (NormalClassDeclaration)t.getCompilationUnit ().getTypes ().get (0);
+	Assert.assertEquals (ncd.getBody ().getDeclarations ().size (), 400 * 9 + 1);
+    }
+
+    @Test
+    public void testSameErrors () {
+	testSameResult (getLargeClass ("    void broken () { int a = 1 }\n"));
+	testSameResult (getLargeClass ("    int x = ;\n"));
+    }
+
+    @Test
+    public void testChunkBoundaries () {
+	// Members whose last '}' is followed by something that continues the member
+	StringBuilder sb = new StringBuilder ("class A {\n");
+	for (int i = 0; i < 300; i++) {
+	    sb.append ("    String s" + i + " = new Object () { }.toString ();\n");
+	    sb.append ("    int[] a" + i + " = new int[] { 1, 2 }, b" + i + " = { 3 };\n");
+	    sb.append ("    int c" + i + " = new int[] { 4 }.length;\n");
+	    sb.append ("    @SuppressWarnings ({\"a\"}) Runnable r" + i + " = () -> { }\n    ;\n");
+	    sb.append ("    { c" + i + " = 2; }\n");
+	    sb.append ("    enum E" + i + " { X { }, Y; }\n");
+	    sb.append ("    void f" + i + " () { if (c" + i + " > 1) { } else { } }\n");
+	}
+	sb.append ("}\n");
+	SyntaxTree t = testSameResult (sb.toString ());
+	NormalClassDeclaration ncd = (NormalClassDeclaration)t.getCompilationUnit ().getTypes ().get (0);
+	Assert.assertEquals (ncd.getBody ().getDeclarations ().size (), 300 * 7);
+    }
+
+    @Test
+    public void testBrokenChunks () {
+	// Unbalanced curlies, the body can not be found or ends early
+	testSameResult (getLargeClass ("    void broken () { if (true) {\n"));
+	testSameResult (getLargeClass ("    void broken () { } }\n"));
+	// Errors in the first and last chunk
+	testSameResult (getLargeClass ("").replace ("b0 = {3};", "b0 = ;"));
+	testSameResult (getLargeClass ("").replace ("<U> U g399 (U u) { return u; }", "<U> U g399 (U u) { return u }"));
+	// Chunks that parse while the rest of the file does not
+	testSameResult (getLargeClass ("") + "class C { int x = ; }\n");
+	testSameResult ("package ;\n" + getLargeClass (""));
+    }
+
+    @Test
+    public void testSmallFileNotSplit () {
+	testSameResult ("class A { int x; void f () {} }\nclass B { }\n");
+    }
+
+    private String getLargeClass (String middle) {
+	StringBuilder sb = new StringBuilder ("package foo;\nimport java.util.List;\n");
+	sb.append ("@SuppressWarnings ({\"a\", \"b\"}) public class A<T> extends B implements Runnable {\n");
+	for (int i = 0; i < 400; i++) {
+	    if (i == 200)
+		sb.append (middle);
+	    sb.append ("    int[] a" + i + " = {1, 2}, b" + i + " = {3};\n");
+	    sb.append ("    Runnable r" + i + " = new Runnable () { public void run () {} };\n");
+	    sb.append ("    Runnable l" + i + " = () -> { };\n");
+	    sb.append ("    ;\n");
+	    sb.append ("    static int s" + i + "; static { s" + i + " = 1; }\n");
+	    sb.append ("    @Deprecated List<T> f" + i + " (T t) { if (t != null) return null; return null; }\n");
+	    sb.append ("    class Inner" + i + " { long l = 1L << 3; }\n");
+	    sb.append ("    <U> U g" + i + " (U u) { return u; }\n");
+	}
+	sb.append ("    public void run () {}\n}\nclass B { }\n");
+	return sb.toString ();
+    }
+
+    private SyntaxTree testSameResult (String s) {
+	return TestParseHelper.assertSameAsEarley (g, predictCache, treeBuilder, s, (path, text, diagnostics) ->
+						   new ParallelPackedParser (g, path, TestParseHelper.getTokens (text),
+									     predictCache, treeBuilder,
+									     diagnostics, false, 0).parse ());
+    }
+}
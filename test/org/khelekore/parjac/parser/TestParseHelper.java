@@ -5,6 +5,7 @@ import java.nio.CharBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Locale;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.khelekore.parjac.CompilerDiagnosticCollector;
@@ -13,7 +14,9 @@ import org.khelekore.parjac.grammar.GrammarReader;
 import org.khelekore.parjac.lexer.CharBufferLexer;
 import org.khelekore.parjac.lexer.Lexer;
 import org.khelekore.parjac.lexer.Token;
+import org.khelekore.parjac.lexer.TokenBuffer;
 import org.khelekore.parjac.tree.SyntaxTree;
+import org.testng.Assert;
 
 public class TestParseHelper {
     private static final Grammar baseGrammar;
@@ -29,7 +32,16 @@ public class TestParseHelper {
     }
 
     public static Grammar getJavaGrammarFromFile (String goalRule, boolean allowMany) {
+	return getJavaGrammarFromFile (goalRule, allowMany, g -> {});
+    }
+
+    /** Get the java grammar with some more rules, added before the goal rule
+     *  and validation, the goal rule may be one of the added rules
+     */
+    public static Grammar getJavaGrammarFromFile (String goalRule, boolean allowMany,
+						  Consumer<Grammar> addRules) {
 	Grammar g = new Grammar (baseGrammar, false);
+	addRules.accept (g);
 	if (allowMany) {
 	    g.addRule ("Goalp", g.zeroOrMore (goalRule));
 	    g.addRule ("Goal", "Goalp", Token.END_OF_INPUT);
@@ -64,6 +76,34 @@ public class TestParseHelper {
 	return ep.parse ();
     }
 
+    /** Parses the text with the parser that is compared to the EarleyParser */
+    public interface ParserToCompare {
+	SyntaxTree parse (Path path, String s, CompilerDiagnosticCollector diagnostics);
+    }
+
+    /** Parse the text with an EarleyParser and with the given parser and check
+     *  that both give the same tree and the same diagnostics.
+     * @return the tree from the given parser
+     */
+    public static SyntaxTree assertSameAsEarley (Grammar g, PredictCache pc, JavaTreeBuilder tb,
+						 String s, ParserToCompare parser) {
+	CompilerDiagnosticCollector d1 = new CompilerDiagnosticCollector ();
+	CompilerDiagnosticCollector d2 = new CompilerDiagnosticCollector ();
+	Path path = Paths.get ("A.java");
+	SyntaxTree t1 = new EarleyParser (g, path, new CharBufferLexer (CharBuffer.wrap (s)),
+					  pc, tb, d1, false).parse ();
+	SyntaxTree t2 = parser.parse (path, s, d2);
+	Assert.assertEquals (String.valueOf (t2), String.valueOf (t1));
+	Assert.assertEquals (getParseOutput (d2), getParseOutput (d1));
+	return t2;
+    }
+
+    public static TokenBuffer getTokens (String s) {
+	TokenBuffer tokens = new TokenBuffer ();
+	tokens.fill (new CharBufferLexer (CharBuffer.wrap (s)));
+	return tokens;
+    }
+
     public static String getParseOutput (CompilerDiagnosticCollector diagnostics) {
 	Locale l = Locale.getDefault ();
 	return diagnostics.getDiagnostics ().
@@ -0,0 +1,48 @@
+package org.khelekore.parjac.parser;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.lexer.Token;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestPredictCache {
+    private Grammar g;
+    private PredictCache predictCache;
+
+    @BeforeClass
+    public void createGrammar () {
+	g = TestParseHelper.getJavaGrammarFromFile ("CompilationUnit", false);
+	predictCache = new PredictCache (g);
+    }
+
+    @Test
+    public void testFilteredByToken () {
+	BitSet rules = new BitSet ();
+	rules.set (g.getRuleSymbol ("Expression"));
+	ListRuleHolder all = predictCache.getPredictedRules (rules);
+	ListRuleHolder identifier = predictCache.getPredictedRules (rules, Token.IDENTIFIER);
+	Assert.assertTrue (all.getStartingTokens ().size () > 1);
+	Assert.assertEquals (identifier.getStartingTokens (), EnumSet.of (Token.IDENTIFIER));
+	Assert.assertTrue (identifier.getRulesWithTokenNext (Token.IDENTIFIER).length > 0);
+	Assert.assertEquals (identifier.getRulesWithTokenNext (Token.LEFT_PARENTHESIS).length, 0);
+	Assert.assertSame (predictCache.getPredictedRules (rules, Token.IDENTIFIER), identifier);
+    }
+
+    @Test
+    public void testRuleNextKeepsViableRules () {
+	BitSet rules = new BitSet ();
+	rules.set (g.getRuleSymbol ("Statement"));
+	ListRuleHolder all = predictCache.getPredictedRules (rules);
+	ListRuleHolder filtered = predictCache.getPredictedRules (rules, Token.IF);
+	Rule ifThen = g.getRules ("IfThenStatement").getRules ().get (0);
+	Rule whileStatement = g.getRules ("WhileStatement").getRules ().get (0);
+	Assert.assertTrue (filtered.getRulesWithRuleNext (ifThen).length > 0);
+	Assert.assertTrue (all.getRulesWithRuleNext (whileStatement).length > 0);
+	Assert.assertEquals (filtered.getRulesWithRuleNext (whileStatement).length, 0);
+    }
+}
@@ -0,0 +1,122 @@
+package org.khelekore.parjac.parser;
+
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.lexer.CharBufferLexer;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestSignatureParser {
+    private Grammar g;
+    private PredictCache predictCache;
+    private JavaTreeBuilder treeBuilder;
+
+    @BeforeClass
+    public void createGrammar () {
+	g = TestParseHelper.getJavaGrammarFromFile ("CompilationUnit", false);
+	predictCache = new PredictCache (g);
+	treeBuilder = new JavaTreeBuilder (g);
+    }
+
+    @Test
+    public void testMethodBodies () {
+	testSkipped ("class A { int f () { return 1; } void g () throws Exception { g (); } }",
+		     " return 1; ", " g (); ");
+	testSkipped ("class A { A (int x) { this.x = x; } }", " this.x = x; ");
+	testSkipped ("class A { int f (int[] a) { if (a) { return a[0]; } return 1; } }",
+		     " if (a) { return a[0]; } return 1; ");
+	testSkipped ("interface I { void f (); default void g () { h (); } }", " h (); ");
+    }
+
+    @Test
+    public void testInitializers () {
+	testSkipped ("class A { static { x = 1; } { y = 2; } int x, y; }", " x = 1; ", " y = 2; ");
+    }
+
+    @Test
+    public void testFieldInitializersAreKept () {
+	testSkipped ("class A { int[] a = { 1, 2 }; Runnable r = () -> { f (); }; }");
+	testSkipped ("class A { Object o = new Object () { public String toString () { return \"a\"; } }; }");
+	testSkipped ("@interface I { int[] v () default { 1 }; }");
+	testSkipped ("@A({ 1, 2 }) class A { }");
+    }
+
+    @Test
+    public void testInnerTypes () {
+	testSkipped ("class A { class B { void f () { g (); } } interface C { } void h () { } }", " g (); ", " ");
+	testSkipped ("enum E { A (1), B { void f () { g (); } }; E (int x) { this.x = x; } E () { } }",
+		     " g (); ", " this.x = x; ", " ");
+	testSkipped ("class A { void f () { class L { } new Object () { }; } }",
+		     " class L { } new Object () { }; ");
+    }
+
+    @Test
+    public void testErrorsInBodiesAreNotFound () {
+	testSkipped ("class A { void f () { int a = 1 } }", " int a = 1 ");
+    }
+
+    @Test
+    public void testErrorsAreFromFullParse () {
+	testSameErrors ("class A { void f () { }");
+	testSameErrors ("class A { void f () { } } }");
+    }
+
+    /** Check that the signature tree is the same as the full tree of the input
+     *  where the given bodies have been replaced with whitespace.
+     */
+    private void testSkipped (String s, String... bodies) {
+	String expected = s;
+	for (String body : bodies) {
+	    int i = expected.indexOf (body);
+	    Assert.assertTrue (i >= 0, "Did not find: " + body);
+	    expected = expected.substring (0, i) + body.replaceAll (".", " ") +
+		expected.substring (i + body.length ());
+	}
+	CompilerDiagnosticCollector d1 = new CompilerDiagnosticCollector ();
+	CompilerDiagnosticCollector d2 = new CompilerDiagnosticCollector ();
+	SyntaxTree t1 = parseFull (expected, d1);
+	SyntaxTree t2 = parseSignatures (s, d2);
+	Assert.assertFalse (d2.hasError (), "Got errors: " + TestParseHelper.getParseOutput (d2));
+	Assert.assertEquals (String.valueOf (t2), String.valueOf (t1));
+    }
+
+    /** Check that the signature parse gives the same result as a full parse with the packed parser */
+    private void testSameErrors (String s) {
+	CompilerDiagnosticCollector d1 = new CompilerDiagnosticCollector ();
+	CompilerDiagnosticCollector d2 = new CompilerDiagnosticCollector ();
+	TokenBuffer tokens = getTokens (s);
+	SyntaxTree t1 = new PackedEarleyParser (g, getPath (), tokens, predictCache, treeBuilder,
+						d1, false).parse ();
+	SyntaxTree t2 = parseSignatures (s, d2);
+	Assert.assertTrue (d1.hasError ());
+	Assert.assertEquals (String.valueOf (t2), String.valueOf (t1));
+	Assert.assertEquals (TestParseHelper.getParseOutput (d2), TestParseHelper.getParseOutput (d1));
+    }
+
+    private SyntaxTree parseFull (String s, CompilerDiagnosticCollector diagnostics) {
+	return new EarleyParser (g, getPath (), new CharBufferLexer (CharBuffer.wrap (s)),
+				 predictCache, treeBuilder, diagnostics, false).parse ();
+    }
+
+    private SyntaxTree parseSignatures (String s, CompilerDiagnosticCollector diagnostics) {
+	return new SignatureParser (g, getPath (), getTokens (s), predictCache, treeBuilder,
+				    diagnostics, false).parse ();
+    }
+
+    private static TokenBuffer getTokens (String s) {
+	TokenBuffer tokens = new TokenBuffer ();
+	tokens.fill (new CharBufferLexer (CharBuffer.wrap (s)));
+	return tokens;
+    }
+
+    private static Path getPath () {
+	return Paths.get ("A.java");
+    }
+}
@@ -0,0 +1,136 @@
+package org.khelekore.parjac.parser;
+
+import java.nio.CharBuffer;
+import java.util.Collections;
+
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.grammar.Rule;
+import org.khelekore.parjac.lexer.CharBufferLexer;
+import org.khelekore.parjac.lexer.ParsePosition;
+import org.khelekore.parjac.tree.Identifier;
+import org.khelekore.parjac.tree.TreeNode;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestStreamingEarleyParser {
+    private Grammar g;
+    private PredictCache predictCache;
+    private JavaTreeBuilder treeBuilder;
+
+    @BeforeClass
+    public void createGrammar () {
+	g = TestParseHelper.getJavaGrammarFromFile ("CompilationUnit", false);
+	g.addClearableRule ("ClassBodyDeclaration");
+	predictCache = new PredictCache (g);
+	treeBuilder = new JavaTreeBuilder (g);
+    }
+
+    @Test
+    public void testSameTree () {
+	testSameResult ("package foo;\n" +
+			"class A {\n" +
+			"    private int x = 3;\n" +
+			"    public A (int y) { x = y; }\n" +
+			"    static { System.out.println (\"A\"); }\n" +
+			"    void f () { Runnable r = new Runnable () { public void run () { g (); } }; }\n" +
+			"    void g () { class L { int l; void h () {} } }\n" +
+			"    class Inner { long l = 1L << 3; Inner () {} }\n" +
+			"}\n" +
+			"class B { int b; }\n");
+    }
+
+    @Test
+    public void testSameErrors () {
+	testSameResult ("class A { void f () { int a = 1 }\n void g () {} }\n");
+	testSameResult ("class A { int x = 2; int y = ; }");
+	testSameResult ("class A { int x;\n");
+	testSameResult ("class A { private public int x; void f () {} }");
+    }
+
+    @Test
+    public void testManyMembers () {
+	StringBuilder sb = new StringBuilder ("class A {\n");
+	for (int i = 0; i < 200; i++)
+	    sb.append ("    int f" + i + " (int a) { return a + " + i + "; }\n");
+	sb.append ("}\n");
+	testSameResult (sb.toString ());
+    }
+
+    @Test
+    public void testNestedClearableRules () {
+	// Members inside members are built before the member that holds them
+	testSameResult ("class A {\n" +
+			"    class B { int b; class C { int c; void f () {} } void g () {} }\n" +
+			"    void h () { Object o = new Object () { int i; public String toString () { return \"\"; } }; }\n" +
+			"    int x = 1;\n" +
+			"}\n");
+	testSameResult ("class A { class B { int b; void g () {} } int c; void f () { int d = ; } }\n");
+    }
+
+    @Test
+    public void testRecoveryAfterBuiltMembers () {
+	// Recovery has to see the same earley sets as without streaming
+	testSameResult ("class D {\n" +
+			"    int a () {\n" +
+			"        return 1;\n" +
+			"    }\n" +
+			"\n" +
+			"    Object b () {\n" +
+			"        return new D (1,\n" +
+			"                      2),\n" +
+			"            3);\n" +
+			"    }\n" +
+			"\n" +
+			"    int c () {\n" +
+			"        return 1;\n" +
+			"    }\n" +
+			"}\n");
+	testSameResult ("class A {\n    class B { int b; void g () {} }\n    void f () { g (a 0); }\n    int c;\n}\n");
+    }
+
+    @Test
+    public void testReleaseKeepsTokenValue () {
+	ParsePosition pos = new ParsePosition (1, 2, 3, 4);
+	TreeNode value = new Identifier ("a", pos);
+	EarleyState es = new EarleyState (value);
+	es.setParsePosition (pos);
+	es.addState (new State (getMemberRule (), 0, 0));
+	Assert.assertFalse (es.isEmpty ());
+	es.release ();
+	Assert.assertTrue (es.getStates ().isEmpty ());
+	Assert.assertNull (es.getListRuleHolder ());
+	Assert.assertTrue (es.hasBeenCleared ());
+	Assert.assertSame (es.getTokenValue (), value);
+	Assert.assertSame (es.getParsePosition (), pos);
+    }
+
+    @Test
+    public void testClearLinks () {
+	Rule r = getMemberRule ();
+	State start = new State (r, 0, 0);
+	State completed = new State (r, r.size (), 0);
+	State advanced = start.advance (completed);
+	Assert.assertSame (advanced.getPrevious (), start);
+	Assert.assertEquals (advanced.getCompleted (), Collections.singletonList (completed));
+	advanced.clearLinks ();
+	Assert.assertNull (advanced.getPrevious ());
+	Assert.assertTrue (advanced.getCompleted ().isEmpty ());
+	// Still the same state for the earley sets
+	Assert.assertEquals (advanced, start.advance (null));
+	// States without links have nothing to clear
+	start.clearLinks ();
+	Assert.assertNull (start.getCompleted ());
+    }
+
+    private Rule getMemberRule () {
+	return g.getRules ("ClassBodyDeclaration").getRules ().get (0);
+    }
+
+    private void testSameResult (String s) {
+	TestParseHelper.assertSameAsEarley (g, predictCache, treeBuilder, s, (path, text, diagnostics) ->
+					    new EarleyParser (g, path, new CharBufferLexer (CharBuffer.wrap (text)),
+							      predictCache, treeBuilder,
+							      diagnostics, false, true).parse ());
+    }
+}
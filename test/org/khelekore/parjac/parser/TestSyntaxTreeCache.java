@@ -0,0 +1,229 @@
+package org.khelekore.parjac.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.khelekore.parjac.SourceInput;
+import org.khelekore.parjac.grammar.Grammar;
+import org.khelekore.parjac.lexer.CharBufferLexer;
+import org.khelekore.parjac.lexer.SymbolTable;
+import org.khelekore.parjac.lexer.TokenBuffer;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestSyntaxTreeCache {
+    private static final String CLASS =
+	"package foo;\n" +
+	"public class A {\n" +
+	"    private long x = 3L; double d = 1.5; char c = 'c';\n" +
+	"    void g () { String s = \"a\\u00e5\" + c + x; }\n" +
+	"}\n";
+
+    private static final String LARGER_CLASS =
+	"package foo;\n" +
+	"import java.util.List;\n" +
+	"public class A<T> extends B implements C {\n" +
+	"    private static final long x = 3L, y[] = { 1, 2 };\n" +
+	"    public A (int y) { super (); this.x = y; }\n" +
+	"    void g () {\n" +
+	"        double d = 1.5; float f = 2.5f; char c = 'c';\n" +
+	"        String s = \"a\" + c + (d > f ? true : null);\n" +
+	"        Runnable r = () -> { if (s != null) g (); };\n" +
+	"    }\n" +
+	"    enum E { A, B { void f () {} }; }\n" +
+	"}\n";
+
+    private Grammar g;
+    private PredictCache predictCache;
+    private JavaTreeBuilder treeBuilder;
+    private Path dir;
+
+    @BeforeClass
+    public void createGrammar () {
+	g = TestParseHelper.getJavaGrammarFromFile ("CompilationUnit", false);
+	predictCache = new PredictCache (g);
+	treeBuilder = new JavaTreeBuilder (g);
+    }
+
+    @BeforeMethod
+    public void createDirectory () throws IOException {
+	dir = Files.createTempDirectory ("parjac_stc");
+    }
+
+    @Test
+    public void testStoredTreeIsSame () throws IOException {
+	SyntaxTreeCache cache = new SyntaxTreeCache (dir, g);
+	CharBuffer input = CharBuffer.wrap (CLASS);
+	String key = getKey (cache, input);
+	Assert.assertNull (cache.get (key, getPath (), new SymbolTable ()));
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	CachedTreeRecorder recorder = new CachedTreeRecorder (treeBuilder, g, getPath ());
+	SyntaxTree t1 = new PackedEarleyParser (g, getPath (), getTokens (input), predictCache, recorder,
+						diagnostics, false).parse ();
+	cache.put (key, recorder.getTree ());
+
+	CachedSyntaxTree ct = cache.get (getKey (cache, CharBuffer.wrap (CLASS)), getPath (), new SymbolTable ());
+	Assert.assertNotNull (ct);
+	SyntaxTree t2 = ct.getSyntaxTree (treeBuilder, diagnostics);
+	Assert.assertFalse (diagnostics.hasError ());
+	Assert.assertEquals (t2.toString (), t1.toString ());
+	Assert.assertEquals (cache.getNumberOfHits (), 1);
+	Assert.assertEquals (cache.getNumberOfMisses (), 1);
+	cleanUp ();
+    }
+
+    @Test
+    public void testRecordedTreeIsSame () {
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	CachedTreeRecorder recorder = new CachedTreeRecorder (treeBuilder, g, getPath ());
+	SyntaxTree t1 = new PackedEarleyParser (g, getPath (), getTokens (CharBuffer.wrap (LARGER_CLASS)),
+						predictCache, recorder, diagnostics, false).parse ();
+	Assert.assertFalse (diagnostics.hasError ());
+	SyntaxTree t2 = recorder.getTree ().getSyntaxTree (treeBuilder, diagnostics);
+	Assert.assertFalse (diagnostics.hasError ());
+	Assert.assertEquals (t2.toString (), t1.toString ());
+	Assert.assertEquals (t2.getOrigin (), t1.getOrigin ());
+    }
+
+    @Test
+    public void testRecordedTreeFromHybridParserIsSame () {
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	CachedTreeRecorder recorder = new CachedTreeRecorder (treeBuilder, g, getPath ());
+	SyntaxTree t1 = new HybridParser (g, getPath (), getTokens (CharBuffer.wrap (LARGER_CLASS)),
+					  new ParseTable (g, "Goal"), predictCache, recorder,
+					  diagnostics, false).parse ();
+	SyntaxTree t2 = recorder.getTree ().getSyntaxTree (treeBuilder, diagnostics);
+	Assert.assertFalse (diagnostics.hasError ());
+	Assert.assertEquals (t2.toString (), t1.toString ());
+    }
+
+    @Test
+    public void testChangedSourceGivesNewKey () throws IOException {
+	SyntaxTreeCache cache = new SyntaxTreeCache (dir, g);
+	Assert.assertEquals (getKey (cache, CharBuffer.wrap (CLASS)), getKey (cache, CharBuffer.wrap (CLASS)));
+	Assert.assertNotEquals (getKey (cache, CharBuffer.wrap (CLASS)),
+				getKey (cache, CharBuffer.wrap (CLASS + " ")));
+	cleanUp ();
+    }
+
+    @Test
+    public void testInputModeAndEncodingGiveNewKeys () throws IOException {
+	SyntaxTreeCache cache = new SyntaxTreeCache (dir, g);
+	ByteBuffer bytes = StandardCharsets.UTF_8.encode (CLASS);
+	String key = cache.getKey (bytes, StandardCharsets.UTF_8, "chars");
+	Assert.assertNotEquals (cache.getKey (bytes, StandardCharsets.UTF_8, "bytes"), key);
+	Assert.assertNotEquals (cache.getKey (bytes, StandardCharsets.ISO_8859_1, "chars"), key);
+	Assert.assertEquals (cache.getKey (bytes, StandardCharsets.UTF_8, "chars"), key);
+	cleanUp ();
+    }
+
+    @Test
+    public void testOtherGrammarDoesNotMatch () throws IOException {
+	SyntaxTreeCache cache = new SyntaxTreeCache (dir, g);
+	Grammar other = TestParseHelper.getJavaGrammarFromFile ("TypeDeclaration", false);
+	SyntaxTreeCache otherCache = new SyntaxTreeCache (dir, other);
+	CharBuffer input = CharBuffer.wrap (CLASS);
+	Assert.assertNotEquals (getKey (otherCache, input), getKey (cache, input));
+	byte[] data = cache.toBytes (record (input));
+	Assert.assertNull (otherCache.read (ByteBuffer.wrap (data), getPath (), new SymbolTable ()));
+	cleanUp ();
+    }
+
+    @Test
+    public void testBrokenFileIsNotUsed () throws IOException {
+	SyntaxTreeCache cache = new SyntaxTreeCache (dir, g);
+	CharBuffer input = CharBuffer.wrap (CLASS);
+	String key = getKey (cache, input);
+	cache.put (key, record (input));
+	Path file = dir.resolve (key + ".pjst");
+	byte[] data = Files.readAllBytes (file);
+	Files.write (file, Arrays.copyOf (data, data.length / 2));
+	Assert.assertNull (cache.get (key, getPath (), new SymbolTable ()));
+	Files.write (file, new byte[0]);
+	Assert.assertNull (cache.get (key, getPath (), new SymbolTable ()));
+	cleanUp ();
+    }
+
+    @Test
+    public void testHugeCountsAreNotUsed () throws IOException {
+	SyntaxTreeCache cache = new SyntaxTreeCache (dir, g);
+	CachedSyntaxTree ct = record (CharBuffer.wrap (CLASS));
+	byte[] data = cache.toBytes (ct);
+	// The number of entries comes right after magic, version and grammar hash
+	int sizePos = 4 + 4 + 8;
+	for (int size : new int[] { Integer.MAX_VALUE, -1, ct.size () + 1 }) {
+	    ByteBuffer buf = ByteBuffer.wrap (data.clone ());
+	    buf.putInt (sizePos, size);
+	    Assert.assertNull (cache.read (buf, getPath (), new SymbolTable ()));
+	}
+	// The number of positions comes right after the entries
+	int entries = ct.size ();
+	int positionsPos = sizePos + 4 + 2 * entries + 4 * entries + 8 * ((entries + 63) / 64);
+	ByteBuffer buf = ByteBuffer.wrap (data.clone ());
+	buf.putInt (positionsPos, Integer.MAX_VALUE / 4);
+	Assert.assertNull (cache.read (buf, getPath (), new SymbolTable ()));
+	Assert.assertNotNull (cache.read (ByteBuffer.wrap (data), getPath (), new SymbolTable ()));
+	cleanUp ();
+    }
+
+    @Test
+    public void testInvalidKindIsNotUsed () throws IOException {
+	SyntaxTreeCache cache = new SyntaxTreeCache (dir, g);
+	CachedSyntaxTree ct = record (CharBuffer.wrap (CLASS));
+	int kindsPos = 4 + 4 + 8 + 4;
+	for (short kind : new short[] { (short)g.getRules ().size (), Short.MAX_VALUE, Short.MIN_VALUE }) {
+	    ByteBuffer buf = ByteBuffer.wrap (cache.toBytes (ct));
+	    buf.putShort (kindsPos + 2 * ct.getRoot (), kind);
+	    Assert.assertNull (cache.read (buf, getPath (), new SymbolTable ()));
+	}
+	// A rule whose subtree starts after itself
+	int offsetsPos = kindsPos + 2 * ct.size ();
+	ByteBuffer buf = ByteBuffer.wrap (cache.toBytes (ct));
+	buf.putInt (offsetsPos + 4 * ct.getRoot (), ct.size ());
+	Assert.assertNull (cache.read (buf, getPath (), new SymbolTable ()));
+	cleanUp ();
+    }
+
+    private CachedSyntaxTree record (CharBuffer input) {
+	CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	CachedTreeRecorder recorder = new CachedTreeRecorder (treeBuilder, g, getPath ());
+	new PackedEarleyParser (g, getPath (), getTokens (input), predictCache, recorder,
+				diagnostics, false).parse ();
+	Assert.assertFalse (diagnostics.hasError ());
+	return recorder.getTree ();
+    }
+
+    private void cleanUp () throws IOException {
+	List<Path> ls = Files.walk (dir).sorted (Comparator.reverseOrder ()).collect (Collectors.toList ());
+	for (Path p : ls)
+	    Files.delete (p);
+    }
+
+    private static String getKey (SyntaxTreeCache cache, CharBuffer input) {
+	SourceInput si = new SourceInput (input);
+	return cache.getKey (si.getBytes (), si.getEncoding (), si.getInputMode ());
+    }
+
+    private static TokenBuffer getTokens (CharBuffer input) {
+	TokenBuffer tokens = new TokenBuffer ();
+	tokens.fill (new CharBufferLexer (input.duplicate ()));
+	return tokens;
+    }
+
+    private static Path getPath () {
+	return Paths.get ("TestSyntaxTreeCache.java");
+    }
+}
@@ -0,0 +1,88 @@
+package org.khelekore.parjac.semantics;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.khelekore.parjac.tree.MethodInvocation;
+import org.khelekore.parjac.tree.SyntaxTree;
+import org.khelekore.parjac.tree.TreeVisitor;
+import org.khelekore.parjac.tree.TreeWalker;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestCachedMethodResolution extends TestBase {
+    private static final List<Source> SOURCES = Arrays.asList (
+	new Source ("Helper.java",
+		    "class Helper {\n" +
+		    "    void f (int i) {}\n" +
+		    "    void f (long l) {}\n" +
+		    "    void f (Object o) {}\n" +
+		    "}\n"),
+	new Source ("A.java", "class A { Helper h; void g () { h.f (1); h.f (\"a\"); }}"),
+	new Source ("B.java", "class B { Helper h; void g () { h.f (2); h.f (\"b\"); }}"));
+
+    private final List<MethodInvocation> calls = new ArrayList<> ();
+
+    @BeforeMethod
+    public void clearCalls () {
+	calls.clear ();
+    }
+
+    @Test
+    public void testCachedIsSameAsResolved () throws IOException {
+	parseAndSetClasses (SOURCES);
+	assertNoErrors ();
+	List<String> resolved = getResolvedCalls ();
+	Assert.assertEquals (resolved, Arrays.asList ("Helper.f(I)V", "Helper.f(Ljava/lang/Object;)V",
+						      "Helper.f(I)V", "Helper.f(Ljava/lang/Object;)V"));
+
+	createDiagnostics ();
+	calls.clear ();
+	// The cache is only used by FieldAndMethodSetter, after all the methods are registered
+	cip.cacheMethodResolutions ();
+	parseAndSetClasses (SOURCES);
+	assertNoErrors ();
+	Assert.assertEquals (getResolvedCalls (), resolved);
+	MethodResolutionCache mrc = cip.getMethodResolutionCache ();
+	Assert.assertEquals (mrc.getNumberOfMisses (), 2);
+	Assert.assertEquals (mrc.getNumberOfHits (), 2);
+    }
+
+    @Test
+    public void testCacheHitsAddDependencies () throws IOException {
+	cip.trackDependencies ();
+	cip.cacheSuperTypes ();
+	cip.cacheMethodResolutions ();
+	parseAndSetClasses (SOURCES);
+	assertNoErrors ();
+	Assert.assertEquals (cip.getMethodResolutionCache ().getNumberOfHits (), 2);
+	for (String file : new String[] { "A.java", "B.java" }) {
+	    Set<String> deps = cip.getDependencies (Paths.get (file));
+	    Assert.assertTrue (deps.contains ("Helper"), file + ": " + deps);
+	    Assert.assertTrue (deps.contains ("java.lang.Object"), file + ": " + deps);
+	}
+    }
+
+    private List<String> getResolvedCalls () {
+	List<String> ret = new ArrayList<> ();
+	for (MethodInvocation m : calls)
+	    ret.add (m.getOwner () + "." + m.getId () + m.getDescription ());
+	return ret;
+    }
+
+    @Override protected void handleSyntaxTree (SyntaxTree tree) {
+	FieldAndMethodSetter fms = new FieldAndMethodSetter (cip, tree, diagnostics);
+	fms.run ();
+	TreeWalker.walkTopDown (new TreeVisitor () {
+		@Override public boolean visit (MethodInvocation m) {
+		    calls.add (m);
+		    return true;
+		}
+	    }, tree.getRoot ());
+    }
+}
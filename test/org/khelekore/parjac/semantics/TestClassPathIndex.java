@@ -0,0 +1,163 @@
+package org.khelekore.parjac.semantics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+
+import org.khelekore.parjac.CompilerDiagnosticCollector;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestClassPathIndex {
+    private static final String[] CLASSES =
+    {"java.lang.String", "java.lang.Integer", "java.lang.Long", "java.lang.Math", "java.util.List"};
+
+    private Path dir;
+    private Path jar;
+    private Path indexDir;
+
+    @BeforeMethod
+    public void createDirectories () throws IOException {
+	dir = Files.createTempDirectory ("parjac_cpi");
+	jar = dir.resolve ("test.jar");
+	indexDir = dir.resolve ("index");
+    }
+
+    @Test
+    public void testIndexGivesSameInformation () throws IOException {
+	writeJar (CLASSES);
+	ClassResourceHolder plain = scan (null);
+	ClassResourceHolder built = scan (indexDir);
+	Assert.assertTrue (Files.list (indexDir).findAny ().isPresent (), "No index written");
+	ClassResourceHolder stored = scan (indexDir);
+	for (String c : CLASSES) {
+	    checkSame (plain, built, c);
+	    checkSame (plain, stored, c);
+	}
+	Assert.assertEquals (stored.getFieldType ("java.lang.Math", "PI").toString (),
+			     plain.getFieldType ("java.lang.Math", "PI").toString ());
+	Assert.assertEquals (stored.getFieldType ("java.lang.Long", "MAX_VALUE").toString (),
+			     plain.getFieldType ("java.lang.Long", "MAX_VALUE").toString ());
+	Assert.assertTrue (stored.isInterface ("java.util.List"));
+	cleanUp ();
+    }
+
+    @Test
+    public void testChangedJarIsIndexedAgain () throws IOException {
+	writeJar ("java.lang.String");
+	ClassResourceHolder crh = scan (indexDir);
+	Assert.assertFalse (crh.hasVisibleType ("java.lang.Integer").getFound ());
+
+	writeJar ("java.lang.String", "java.lang.Integer");
+	Files.setLastModifiedTime (jar, FileTime.fromMillis (Files.getLastModifiedTime (jar).toMillis () + 2000));
+	crh = scan (indexDir);
+	Assert.assertTrue (crh.hasVisibleType ("java.lang.Integer").getFound ());
+	cleanUp ();
+    }
+
+    @Test
+    public void testUnreadableClassIsReported () throws IOException {
+	// A class file version that asm does not know
+	byte[] data = readClass ("java.lang.Integer");
+	data[6] = 0;
+	data[7] = 99;
+	Map<String, byte[]> entries = new LinkedHashMap<> ();
+	entries.put ("java/lang/String.class", readClass ("java.lang.String"));
+	entries.put ("java/lang/Integer.class", data);
+	writeJar (entries);
+	CompilerDiagnosticCollector plainDiagnostics = new CompilerDiagnosticCollector ();
+	ClassResourceHolder plain = scan (null, plainDiagnostics);
+	Assert.assertFalse (plain.hasVisibleType ("java.lang.Integer").getFound ());
+	String expected = getMessages (plainDiagnostics);
+	Assert.assertTrue (expected.contains ("Failed to load class from"), expected);
+	for (int i = 0; i < 2; i++) {
+	    // first with a built index, then with the stored one
+	    CompilerDiagnosticCollector diagnostics = new CompilerDiagnosticCollector ();
+	    ClassResourceHolder indexed = scan (indexDir, diagnostics);
+	    Assert.assertFalse (indexed.hasVisibleType ("java.lang.Integer").getFound ());
+	    Assert.assertEquals (getMessages (diagnostics), expected);
+	    Assert.assertTrue (indexed.hasVisibleType ("java.lang.String").getFound ());
+	}
+	cleanUp ();
+    }
+
+    private static String getMessages (CompilerDiagnosticCollector diagnostics) {
+	return diagnostics.getDiagnostics ().map (d -> d.getMessage (null)).collect (Collectors.joining ("\n"));
+    }
+
+    private void cleanUp () throws IOException {
+	List<Path> ls = Files.walk (dir).sorted (Comparator.reverseOrder ()).collect (Collectors.toList ());
+	for (Path p : ls)
+	    Files.delete (p);
+    }
+
+    private void checkSame (ClassResourceHolder expected, ClassResourceHolder actual, String fqn)
+	throws IOException {
+	Assert.assertTrue (actual.hasVisibleType (fqn).getFound (), "Missing class: " + fqn);
+	Assert.assertEquals (actual.getClassModifiers (fqn), expected.getClassModifiers (fqn));
+	Assert.assertEquals (actual.getSuperTypes (fqn), expected.getSuperTypes (fqn));
+	Assert.assertEquals (toString (actual.getMethods (fqn)), toString (expected.getMethods (fqn)));
+    }
+
+    private static String toString (Map<String, List<MethodInformation>> methods) {
+	return new TreeMap<> (methods).toString ();
+    }
+
+    private ClassResourceHolder scan (Path indexDirectory) throws IOException {
+	return scan (indexDirectory, new CompilerDiagnosticCollector ());
+    }
+
+    private ClassResourceHolder scan (Path indexDirectory, CompilerDiagnosticCollector diagnostics)
+	throws IOException {
+	// An empty boot class path so that only the test jar is scanned
+	ClassResourceHolder noBootClasses =
+	    new ClassResourceHolder (Collections.emptyList (), diagnostics);
+	ClassResourceHolder crh = new ClassResourceHolder (noBootClasses, Collections.singletonList (jar),
+							   indexDirectory, diagnostics);
+	crh.scanClassPath ();
+	return crh;
+    }
+
+    private void writeJar (String... classes) throws IOException {
+	Map<String, byte[]> entries = new LinkedHashMap<> ();
+	for (String c : classes)
+	    entries.put (c.replace ('.', '/') + ".class", readClass (c));
+	writeJar (entries);
+    }
+
+    private void writeJar (Map<String, byte[]> entries) throws IOException {
+	try (OutputStream os = Files.newOutputStream (jar);
+	     JarOutputStream jos = new JarOutputStream (os)) {
+	    for (Map.Entry<String, byte[]> me : entries.entrySet ()) {
+		jos.putNextEntry (new JarEntry (me.getKey ()));
+		jos.write (me.getValue ());
+		jos.closeEntry ();
+	    }
+	}
+    }
+
+    private static byte[] readClass (String c) throws IOException {
+	try (InputStream is = ClassLoader.getSystemResourceAsStream (c.replace ('.', '/') + ".class")) {
+	    ByteArrayOutputStream bos = new ByteArrayOutputStream ();
+	    byte[] buf = new byte[8192];
+	    int r;
+	    while ((r = is.read (buf)) != -1)
+		bos.write (buf, 0, r);
+	    return bos.toByteArray ();
+	}
+    }
+}
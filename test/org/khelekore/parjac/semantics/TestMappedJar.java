@@ -0,0 +1,59 @@
+package org.khelekore.parjac.semantics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestMappedJar {
+    @Test
+    public void testStoredAndDeflatedEntries () throws IOException {
+	Map<String, byte[]> contents = new HashMap<> ();
+	contents.put ("a/Small.class", "small".getBytes (StandardCharsets.UTF_8));
+	byte[] big = new byte[100000];
+	for (int i = 0; i < big.length; i++)
+	    big[i] = (byte)(i % 37);
+	contents.put ("b/Big.class", big);
+	contents.put ("empty.txt", new byte[0]);
+
+	Path jar = Files.createTempFile ("parjac_mapped", ".jar");
+	try (OutputStream os = Files.newOutputStream (jar);
+	     JarOutputStream jos = new JarOutputStream (os)) {
+	    for (Map.Entry<String, byte[]> me : contents.entrySet ()) {
+		JarEntry je = new JarEntry (me.getKey ());
+		byte[] data = me.getValue ();
+		if (me.getKey ().startsWith ("a/")) {
+		    je.setMethod (ZipEntry.STORED);
+		    je.setSize (data.length);
+		    CRC32 crc = new CRC32 ();
+		    crc.update (data);
+		    je.setCrc (crc.getValue ());
+		}
+		jos.putNextEntry (je);
+		jos.write (data);
+		jos.closeEntry ();
+	    }
+	}
+
+	MappedJar mj = MappedJar.open (jar);
+	Assert.assertNotNull (mj);
+	Assert.assertEquals (mj.size (), contents.size ());
+	for (int i = 0; i < mj.size (); i++) {
+	    String name = mj.getName (i);
+	    Assert.assertTrue (contents.containsKey (name), "Unexpected entry: " + name);
+	    Assert.assertTrue (Arrays.equals (mj.read (i), contents.get (name)), "Wrong data for: " + name);
+	}
+	Files.delete (jar);
+    }
+}
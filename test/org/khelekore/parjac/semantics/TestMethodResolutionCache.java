@@ -0,0 +1,53 @@
+package org.khelekore.parjac.semantics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.khelekore.parjac.tree.ExpressionType;
+import org.objectweb.asm.Opcodes;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestMethodResolutionCache {
+    private static final String SB = "java.lang.StringBuilder";
+
+    @Test
+    public void testSameCallIsFound () {
+	MethodResolutionCache mrc = new MethodResolutionCache ();
+	List<MethodInformation> ls = Collections.singletonList (getAppend ());
+	Assert.assertNull (mrc.get (SB, false, "append", strings ()));
+	mrc.put (SB, false, "append", strings (), ls);
+	Assert.assertSame (mrc.get (SB, false, "append", strings ()), ls);
+	Assert.assertEquals (mrc.getNumberOfHits (), 1);
+	Assert.assertEquals (mrc.getNumberOfMisses (), 1);
+    }
+
+    @Test
+    public void testOtherCallsAreNotFound () {
+	MethodResolutionCache mrc = new MethodResolutionCache ();
+	mrc.put (SB, false, "append", strings (), Collections.singletonList (getAppend ()));
+	Assert.assertNull (mrc.get (SB, true, "append", strings ()));
+	Assert.assertNull (mrc.get (SB, false, "insert", strings ()));
+	Assert.assertNull (mrc.get ("java.lang.StringBuffer", false, "append", strings ()));
+	Assert.assertNull (mrc.get (SB, false, "append", Arrays.asList (ExpressionType.INT)));
+	Assert.assertNull (mrc.get (SB, false, "append", Collections.emptyList ()));
+	Assert.assertEquals (mrc.getNumberOfHits (), 0);
+    }
+
+    @Test
+    public void testNoMatchIsRemembered () {
+	MethodResolutionCache mrc = new MethodResolutionCache ();
+	mrc.put (SB, false, "foo", strings (), Collections.emptyList ());
+	Assert.assertTrue (mrc.get (SB, false, "foo", strings ()).isEmpty ());
+    }
+
+    private static List<ExpressionType> strings () {
+	return Arrays.asList (ExpressionType.getObjectType ("java.lang.String"));
+    }
+
+    private static MethodInformation getAppend () {
+	return new MethodInformation (SB, Opcodes.ACC_PUBLIC, "append",
+				      "(Ljava/lang/String;)Ljava/lang/StringBuilder;", null, null);
+    }
+}
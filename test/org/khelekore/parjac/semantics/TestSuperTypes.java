@@ -0,0 +1,52 @@
+package org.khelekore.parjac.semantics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.khelekore.parjac.tree.ExpressionType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestSuperTypes extends TestBase {
+    private static final String HIERARCHY =
+	"interface I {}\n" +
+	"interface J extends I {}\n" +
+	"class A implements J {}\n" +
+	"class B extends A implements I, Runnable { public void run () {} }\n";
+
+    @Test
+    public void testAllSuperTypes () throws IOException {
+	parseAndSetClasses (HIERARCHY);
+	assertNoErrors ();
+	checkSuperTypes ();
+    }
+
+    @Test
+    public void testCachedSuperTypes () throws IOException {
+	parseAndSetClasses (HIERARCHY);
+	assertNoErrors ();
+	cip.cacheSuperTypes ();
+	checkSuperTypes ();
+	Assert.assertSame (cip.getAllSuperTypes ("B", false), cip.getAllSuperTypes ("B", false));
+	checkSuperTypes ();
+    }
+
+    private void checkSuperTypes () throws IOException {
+	Assert.assertEquals (new ArrayList<> (cip.getAllSuperTypes ("B", false)),
+			     Arrays.asList ("A", "I", "java.lang.Runnable", "java.lang.Object", "J"));
+	Assert.assertEquals (new ArrayList<> (cip.getAllSuperTypes ("B", true)),
+			     Arrays.asList ("java.lang.Object"));
+	Assert.assertTrue (cip.getAllSuperTypes ("java.lang.Object", false).isEmpty ());
+	Assert.assertTrue (isSubType ("B", "I"));
+	Assert.assertTrue (isSubType ("A", "I"));
+	Assert.assertTrue (isSubType ("B", "java.lang.Object"));
+	Assert.assertFalse (isSubType ("A", "B"));
+	Assert.assertFalse (isSubType ("B", "B"));
+	Assert.assertFalse (isSubType ("I", "J"));
+    }
+
+    private boolean isSubType (String sub, String sup) throws IOException {
+	return cip.isSubType (ExpressionType.getObjectType (sub), ExpressionType.getObjectType (sup));
+    }
+}